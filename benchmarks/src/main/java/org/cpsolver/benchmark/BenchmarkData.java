@@ -0,0 +1,127 @@
+package org.cpsolver.benchmark;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+import org.cpsolver.coursett.TimetableXMLLoader;
+import org.cpsolver.coursett.model.Lecture;
+import org.cpsolver.coursett.model.Placement;
+import org.cpsolver.coursett.model.TimetableModel;
+import org.cpsolver.exam.model.Exam;
+import org.cpsolver.exam.model.ExamModel;
+import org.cpsolver.exam.model.ExamPlacement;
+import org.cpsolver.ifs.assignment.Assignment;
+import org.cpsolver.ifs.util.DataProperties;
+import org.cpsolver.ifs.util.ToolBox;
+import org.cpsolver.studentsct.StudentSectioningModel;
+import org.cpsolver.studentsct.StudentSectioningXMLLoader;
+import org.cpsolver.studentsct.model.Enrollment;
+import org.cpsolver.studentsct.model.Request;
+import org.dom4j.io.SAXReader;
+
+/**
+ * Loading of the benchmark data. The benchmarks that need a real problem are using the example data sets
+ * (see <a href="http://www.unitime.org/cpsolver_examples.php">http://www.unitime.org/cpsolver_examples.php</a>),
+ * the input XML file is provided using the input parameter (e.g., -p input=pu-fal07-cs.xml) and the solver
+ * configuration using the config parameter (e.g., -p config=pu-fal07-cs.cfg).
+ * 
+ * @version IFS 1.3 (Iterative Forward Search)<br>
+ *          Copyright (C) 2017 Tomas Muller<br>
+ *          <a href="mailto:muller@unitime.org">muller@unitime.org</a><br>
+ *          <a href="http://muller.unitime.org">http://muller.unitime.org</a><br>
+ * <br>
+ *          This library is free software; you can redistribute it and/or modify
+ *          it under the terms of the GNU Lesser General Public License as
+ *          published by the Free Software Foundation; either version 3 of the
+ *          License, or (at your option) any later version. <br>
+ * <br>
+ *          This library is distributed in the hope that it will be useful, but
+ *          WITHOUT ANY WARRANTY; without even the implied warranty of
+ *          MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *          Lesser General Public License for more details. <br>
+ * <br>
+ *          You should have received a copy of the GNU Lesser General Public
+ *          License along with this library; if not see
+ *          <a href='http://www.gnu.org/licenses/'>http://www.gnu.org/licenses/</a>.
+ */
+public class BenchmarkData {
+    /** Random seed used by all the benchmarks */
+    public static final long SEED = 1234567890l;
+
+    /**
+     * Load solver configuration
+     * @param config configuration file, may be empty
+     * @param input input XML file
+     * @return solver configuration
+     * @throws IOException when the configuration cannot be read
+     */
+    public static DataProperties properties(String config, String input) throws IOException {
+        DataProperties properties = new DataProperties();
+        if (config != null && !config.isEmpty()) {
+            FileInputStream in = new FileInputStream(config);
+            try {
+                properties.load(in);
+            } finally {
+                in.close();
+            }
+        }
+        if (input != null && !input.isEmpty()) {
+            if (!new File(input).exists())
+                throw new IOException("Input file " + input + " does not exist.");
+            properties.setProperty("General.Input", input);
+        }
+        properties.setProperty("General.Seed", String.valueOf(SEED));
+        ToolBox.setSeed(SEED);
+        return properties;
+    }
+
+    /**
+     * Check that the input file has been provided
+     * @param input input XML file
+     */
+    public static void checkInput(String input) {
+        if (input == null || input.isEmpty())
+            throw new IllegalStateException("No input file provided, please use -p input=<file.xml>.");
+    }
+
+    /**
+     * Load course timetabling problem
+     * @param properties solver configuration (General.Input must be set)
+     * @param assignment assignment to be loaded
+     * @return loaded model
+     * @throws Exception when the load fails
+     */
+    public static TimetableModel loadTimetable(DataProperties properties, Assignment<Lecture, Placement> assignment) throws Exception {
+        TimetableModel model = new TimetableModel(properties);
+        new TimetableXMLLoader(model, assignment).load();
+        return model;
+    }
+
+    /**
+     * Load examination timetabling problem
+     * @param properties solver configuration (General.Input must be set)
+     * @param assignment assignment to be loaded
+     * @return loaded model
+     * @throws Exception when the load fails
+     */
+    public static ExamModel loadExams(DataProperties properties, Assignment<Exam, ExamPlacement> assignment) throws Exception {
+        ExamModel model = new ExamModel(properties);
+        model.load((new SAXReader()).read(new File(properties.getProperty("General.Input"))), assignment);
+        return model;
+    }
+
+    /**
+     * Load student sectioning problem
+     * @param properties solver configuration (General.Input must be set)
+     * @param assignment assignment to be loaded
+     * @return loaded model
+     * @throws Exception when the load fails
+     */
+    public static StudentSectioningModel loadStudentSectioning(DataProperties properties, Assignment<Request, Enrollment> assignment) throws Exception {
+        StudentSectioningModel model = new StudentSectioningModel(properties);
+        new StudentSectioningXMLLoader(model, assignment).load();
+        return model;
+    }
+
+}
@@ -0,0 +1,132 @@
+package org.cpsolver.benchmark;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.cpsolver.coursett.constraint.GroupConstraint;
+import org.cpsolver.coursett.constraint.JenrlConstraint;
+import org.cpsolver.coursett.model.Lecture;
+import org.cpsolver.coursett.model.Placement;
+import org.cpsolver.coursett.model.TimetableModel;
+import org.cpsolver.ifs.assignment.Assignment;
+import org.cpsolver.ifs.assignment.DefaultSingleAssignment;
+import org.cpsolver.ifs.model.Neighbour;
+import org.cpsolver.ifs.util.DataProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Course timetabling benchmarks. A course timetabling problem (e.g., pu-fal07-cs.xml from the
+ * examples) is to be provided using the input parameter, solver configuration using the config parameter.
+ * The values are evaluated against the solution that is contained in the input file (if any).
+ * 
+ * @version IFS 1.3 (Iterative Forward Search)<br>
+ *          Copyright (C) 2017 Tomas Muller<br>
+ *          <a href="mailto:muller@unitime.org">muller@unitime.org</a><br>
+ *          <a href="http://muller.unitime.org">http://muller.unitime.org</a><br>
+ * <br>
+ *          This library is free software; you can redistribute it and/or modify
+ *          it under the terms of the GNU Lesser General Public License as
+ *          published by the Free Software Foundation; either version 3 of the
+ *          License, or (at your option) any later version. <br>
+ * <br>
+ *          This library is distributed in the hope that it will be useful, but
+ *          WITHOUT ANY WARRANTY; without even the implied warranty of
+ *          MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *          Lesser General Public License for more details. <br>
+ * <br>
+ *          You should have received a copy of the GNU Lesser General Public
+ *          License along with this library; if not see
+ *          <a href='http://www.gnu.org/licenses/'>http://www.gnu.org/licenses/</a>.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CourseTimetablingBenchmark {
+    @Param({ "" })
+    public String input;
+    @Param({ "" })
+    public String config;
+
+    private TimetableModel iModel;
+    private Assignment<Lecture, Placement> iAssignment;
+    private SolverStepper<Lecture, Placement> iStepper;
+    private Random iRandom;
+    private Set<Placement> iConflicts = new HashSet<Placement>();
+
+    /**
+     * Load the problem
+     * @throws Exception when the load fails
+     */
+    @Setup
+    public void setup() throws Exception {
+        BenchmarkData.checkInput(input);
+        DataProperties properties = BenchmarkData.properties(config, input);
+        iAssignment = new DefaultSingleAssignment<Lecture, Placement>();
+        iModel = BenchmarkData.loadTimetable(properties, iAssignment);
+        iStepper = new SolverStepper<Lecture, Placement>(properties, iModel, iAssignment);
+        iRandom = new Random(BenchmarkData.SEED);
+    }
+
+    private Placement randomPlacement(Lecture lecture) {
+        List<Placement> values = lecture.values(iAssignment);
+        if (values.isEmpty()) return null;
+        return values.get(iRandom.nextInt(values.size()));
+    }
+
+    /** {@link org.cpsolver.ifs.model.Model#conflictValues(Assignment, org.cpsolver.ifs.model.Value)} of a random placement
+     * @return conflicting placements
+     **/
+    @Benchmark
+    public Set<Placement> conflictValues() {
+        Placement placement = randomPlacement(iModel.variables().get(iRandom.nextInt(iModel.variables().size())));
+        return (placement == null ? null : iModel.conflictValues(iAssignment, placement));
+    }
+
+    /** {@link GroupConstraint#computeConflicts(Assignment, Placement, Set)} of a random placement of a random distribution constraint
+     * @return conflicting placements
+     **/
+    @Benchmark
+    public Set<Placement> groupConstraintComputeConflicts() {
+        List<GroupConstraint> constraints = iModel.getGroupConstraints();
+        if (constraints.isEmpty()) return null;
+        GroupConstraint constraint = constraints.get(iRandom.nextInt(constraints.size()));
+        if (constraint.variables().isEmpty()) return null;
+        Placement placement = randomPlacement(constraint.variables().get(iRandom.nextInt(constraint.variables().size())));
+        iConflicts.clear();
+        if (placement != null)
+            constraint.computeConflicts(iAssignment, placement, iConflicts);
+        return iConflicts;
+    }
+
+    /** {@link JenrlConstraint#isInConflict(Placement, Placement, org.cpsolver.ifs.util.DistanceMetric)} of random placements of a random joint enrollment constraint
+     * @return true if there is a student conflict
+     **/
+    @Benchmark
+    public boolean jenrlIsInConflict() {
+        List<JenrlConstraint> constraints = iModel.getJenrlConstraints();
+        if (constraints.isEmpty()) return false;
+        JenrlConstraint constraint = constraints.get(iRandom.nextInt(constraints.size()));
+        Placement p1 = randomPlacement(constraint.first());
+        Placement p2 = randomPlacement(constraint.second());
+        if (p1 == null || p2 == null) return false;
+        return JenrlConstraint.isInConflict(p1, p2, iModel.getDistanceMetric());
+    }
+
+    /** One iteration of the course timetabling solver (end-to-end iterations per second)
+     * @return selected neighbour
+     **/
+    @Benchmark
+    public Neighbour<Lecture, Placement> iteration() {
+        return iStepper.step();
+    }
+}
@@ -0,0 +1,112 @@
+package org.cpsolver.benchmark;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.cpsolver.ifs.assignment.Assignment;
+import org.cpsolver.ifs.assignment.DefaultSingleAssignment;
+import org.cpsolver.ifs.example.csp.CSPValue;
+import org.cpsolver.ifs.example.csp.CSPVariable;
+import org.cpsolver.ifs.example.csp.StructuredCSPModel;
+import org.cpsolver.ifs.model.Neighbour;
+import org.cpsolver.ifs.util.DataProperties;
+import org.cpsolver.ifs.util.ToolBox;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Generic solver benchmarks on a randomly generated CSP problem (see {@link StructuredCSPModel}).
+ * The problem is generated with a fixed seed, so no input data are needed.
+ * 
+ * @version IFS 1.3 (Iterative Forward Search)<br>
+ *          Copyright (C) 2017 Tomas Muller<br>
+ *          <a href="mailto:muller@unitime.org">muller@unitime.org</a><br>
+ *          <a href="http://muller.unitime.org">http://muller.unitime.org</a><br>
+ * <br>
+ *          This library is free software; you can redistribute it and/or modify
+ *          it under the terms of the GNU Lesser General Public License as
+ *          published by the Free Software Foundation; either version 3 of the
+ *          License, or (at your option) any later version. <br>
+ * <br>
+ *          This library is distributed in the hope that it will be useful, but
+ *          WITHOUT ANY WARRANTY; without even the implied warranty of
+ *          MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *          Lesser General Public License for more details. <br>
+ * <br>
+ *          You should have received a copy of the GNU Lesser General Public
+ *          License along with this library; if not see
+ *          <a href='http://www.gnu.org/licenses/'>http://www.gnu.org/licenses/</a>.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CspBenchmark {
+    @Param({ "100", "1000" })
+    public int nrVariables;
+    @Param({ "0.25" })
+    public double tightness;
+
+    private StructuredCSPModel iModel;
+    private Assignment<CSPVariable, CSPValue> iAssignment;
+    private SolverStepper<CSPVariable, CSPValue> iStepper;
+    private Random iRandom;
+
+    /**
+     * Generate the problem and pre-solve it for a few iterations, so that the conflicts are
+     * evaluated against a partially assigned solution
+     */
+    @Setup
+    public void setup() {
+        DataProperties properties = new DataProperties();
+        properties.setProperty("CSP.NrVariables", String.valueOf(nrVariables));
+        properties.setProperty("CSP.DomainSize", "20");
+        properties.setProperty("CSP.Density", "0.2");
+        properties.setProperty("CSP.Tightness", String.valueOf(tightness));
+        properties.setProperty("CSP.NrKernels", "0");
+        properties.setProperty("Termination.StopWhenComplete", "false");
+        ToolBox.setSeed(BenchmarkData.SEED);
+        iModel = new StructuredCSPModel(properties, BenchmarkData.SEED);
+        iAssignment = new DefaultSingleAssignment<CSPVariable, CSPValue>();
+        iStepper = new SolverStepper<CSPVariable, CSPValue>(properties, iModel, iAssignment);
+        iStepper.run(10 * nrVariables);
+        iRandom = new Random(BenchmarkData.SEED);
+    }
+
+    private CSPValue randomValue() {
+        CSPVariable variable = iModel.variables().get(iRandom.nextInt(iModel.variables().size()));
+        List<CSPValue> values = variable.values(iAssignment);
+        return values.get(iRandom.nextInt(values.size()));
+    }
+
+    /** {@link org.cpsolver.ifs.model.Model#conflictValues(Assignment, org.cpsolver.ifs.model.Value)} of a random value
+     * @return conflicting values
+     **/
+    @Benchmark
+    public Set<CSPValue> conflictValues() {
+        return iModel.conflictValues(iAssignment, randomValue());
+    }
+
+    /** {@link org.cpsolver.ifs.model.Model#inConflict(Assignment, org.cpsolver.ifs.model.Value)} of a random value
+     * @return true if in conflict
+     **/
+    @Benchmark
+    public boolean inConflict() {
+        return iModel.inConflict(iAssignment, randomValue());
+    }
+
+    /** One iteration of the IFS solver (end-to-end iterations per second)
+     * @return selected neighbour
+     **/
+    @Benchmark
+    public Neighbour<CSPVariable, CSPValue> iteration() {
+        return iStepper.step();
+    }
+}
@@ -0,0 +1,106 @@
+package org.cpsolver.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+import org.cpsolver.ifs.assignment.Assignment;
+import org.cpsolver.ifs.assignment.DefaultSingleAssignment;
+import org.cpsolver.ifs.example.csp.CSPValue;
+import org.cpsolver.ifs.example.csp.CSPVariable;
+import org.cpsolver.ifs.example.csp.StructuredCSPModel;
+import org.cpsolver.ifs.util.DataProperties;
+import org.cpsolver.ifs.util.ToolBox;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Scaling of dynamic backtracking with {@link org.cpsolver.ifs.dbt.DbtPropagation} and
+ * {@link org.cpsolver.ifs.dbt.DbtBitSetPropagation} on randomly generated CSP problems
+ * (see {@link StructuredCSPModel}) of an increasing size. Dynamic backtracking removes values
+ * from the domains, so each invocation generates the problem again (with the same seed) and
+ * runs the search until a complete solution is found (or the given number of iterations per
+ * variable is reached). The baseline {@link org.cpsolver.ifs.dbt.DbtPropagation} may fail on a
+ * bigger problem (e.g., on an obsolete explanation); such a run is stopped and logged, so that
+ * the rest of the comparison can still run.
+ *
+ * @version IFS 1.3 (Iterative Forward Search)<br>
+ *          Copyright (C) 2017 Tomas Muller<br>
+ *          <a href="mailto:muller@unitime.org">muller@unitime.org</a><br>
+ *          <a href="http://muller.unitime.org">http://muller.unitime.org</a><br>
+ * <br>
+ *          This library is free software; you can redistribute it and/or modify
+ *          it under the terms of the GNU Lesser General Public License as
+ *          published by the Free Software Foundation; either version 3 of the
+ *          License, or (at your option) any later version. <br>
+ * <br>
+ *          This library is distributed in the hope that it will be useful, but
+ *          WITHOUT ANY WARRANTY; without even the implied warranty of
+ *          MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *          Lesser General Public License for more details. <br>
+ * <br>
+ *          You should have received a copy of the GNU Lesser General Public
+ *          License along with this library; if not see
+ *          <a href='http://www.gnu.org/licenses/'>http://www.gnu.org/licenses/</a>.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DbtBenchmark {
+    private static Logger sLog = Logger.getLogger(DbtBenchmark.class);
+    @Param({ "DbtPropagation", "DbtBitSetPropagation" })
+    public String propagation;
+    @Param({ "50", "100", "200", "400" })
+    public int nrVariables;
+    @Param({ "0.2" })
+    public double tightness;
+    @Param({ "100" })
+    public int iterationsPerVariable;
+
+    private StructuredCSPModel iModel;
+    private Assignment<CSPVariable, CSPValue> iAssignment;
+    private SolverStepper<CSPVariable, CSPValue> iStepper;
+
+    /**
+     * Generate the problem and initialize the solver (including the initial propagation)
+     */
+    @Setup(Level.Invocation)
+    public void setup() {
+        DataProperties properties = new DataProperties();
+        properties.setProperty("CSP.NrVariables", String.valueOf(nrVariables));
+        properties.setProperty("CSP.DomainSize", "20");
+        properties.setProperty("CSP.Density", "0.1");
+        properties.setProperty("CSP.Tightness", String.valueOf(tightness));
+        properties.setProperty("CSP.NrKernels", "0");
+        properties.setProperty("Extensions.Classes", "org.cpsolver.ifs.dbt." + propagation);
+        properties.setProperty("Variable.Class", "org.cpsolver.ifs.dbt.DbtVariableSelection");
+        properties.setProperty("Value.Class", "org.cpsolver.ifs.dbt.DbtValueSelection");
+        properties.setProperty("Termination.StopWhenComplete", "true");
+        ToolBox.setSeed(BenchmarkData.SEED);
+        iModel = new StructuredCSPModel(properties, BenchmarkData.SEED);
+        iAssignment = new DefaultSingleAssignment<CSPVariable, CSPValue>();
+        iStepper = new SolverStepper<CSPVariable, CSPValue>(properties, iModel, iAssignment);
+    }
+
+    /** Run dynamic backtracking until a complete solution is found
+     * @return number of assigned variables
+     **/
+    @Benchmark
+    public int solve() {
+        int limit = iterationsPerVariable * nrVariables;
+        int i = 0;
+        try {
+            for (; i < limit && iAssignment.nrAssignedVariables() < nrVariables; i++)
+                iStepper.step();
+        } catch (RuntimeException e) {
+            sLog.warn(propagation + " failed on " + nrVariables + " variables after " + i + " iterations: " + e.getMessage(), e);
+        }
+        return iAssignment.nrAssignedVariables();
+    }
+}
@@ -0,0 +1,108 @@
+package org.cpsolver.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.cpsolver.ifs.util.DataProperties;
+import org.cpsolver.ifs.util.DistanceMetric;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * {@link DistanceMetric} lookups: distances between rooms with coordinates (for the given ellipsoid)
+ * and distances using a travel time matrix between rooms.
+ * 
+ * @version IFS 1.3 (Iterative Forward Search)<br>
+ *          Copyright (C) 2017 Tomas Muller<br>
+ *          <a href="mailto:muller@unitime.org">muller@unitime.org</a><br>
+ *          <a href="http://muller.unitime.org">http://muller.unitime.org</a><br>
+ * <br>
+ *          This library is free software; you can redistribute it and/or modify
+ *          it under the terms of the GNU Lesser General Public License as
+ *          published by the Free Software Foundation; either version 3 of the
+ *          License, or (at your option) any later version. <br>
+ * <br>
+ *          This library is distributed in the hope that it will be useful, but
+ *          WITHOUT ANY WARRANTY; without even the implied warranty of
+ *          MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *          Lesser General Public License for more details. <br>
+ * <br>
+ *          You should have received a copy of the GNU Lesser General Public
+ *          License along with this library; if not see
+ *          <a href='http://www.gnu.org/licenses/'>http://www.gnu.org/licenses/</a>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class DistanceMetricBenchmark {
+    @Param({ "LEGACY", "WGS84" })
+    public String ellipsoid;
+    @Param({ "500" })
+    public int nrRooms;
+
+    private DistanceMetric iMetric;
+    private Long[] iRoomIds;
+    private Double[] iLat, iLon;
+
+    /** Generate rooms with random coordinates, add travel times between a half of the rooms */
+    @Setup
+    public void setup() {
+        DataProperties properties = new DataProperties();
+        properties.setProperty("Distances.Ellipsoid", ellipsoid);
+        iMetric = new DistanceMetric(properties);
+        Random random = new Random(BenchmarkData.SEED);
+        iRoomIds = new Long[nrRooms]; iLat = new Double[nrRooms]; iLon = new Double[nrRooms];
+        for (int i = 0; i < nrRooms; i++) {
+            iRoomIds[i] = Long.valueOf(i);
+            if (iMetric.isLegacy()) {
+                iLat[i] = 1000.0 * random.nextDouble(); iLon[i] = 1000.0 * random.nextDouble();
+            } else {
+                iLat[i] = 40.40 + 0.05 * random.nextDouble(); iLon[i] = -86.95 + 0.05 * random.nextDouble();
+            }
+        }
+        for (int i = 0; i < nrRooms / 2; i++)
+            for (int j = i + 1; j < nrRooms / 2; j++)
+                iMetric.addTravelTime(iRoomIds[i], iRoomIds[j], random.nextInt(20));
+    }
+
+    /** Random pair of rooms, state is per thread */
+    @State(Scope.Thread)
+    public static class Rooms {
+        Random iRandom = new Random(BenchmarkData.SEED);
+    }
+
+    /** Distance in minutes between two random rooms (travel time matrix is used for a quarter of the pairs)
+     * @param rooms random generator
+     * @return distance in minutes
+     **/
+    @Benchmark
+    public Integer getDistanceInMinutes(Rooms rooms) {
+        int i = rooms.iRandom.nextInt(nrRooms), j = rooms.iRandom.nextInt(nrRooms);
+        return iMetric.getDistanceInMinutes(iRoomIds[i], iLat[i], iLon[i], iRoomIds[j], iLat[j], iLon[j]);
+    }
+
+    /** Distance in meters between two random rooms (travel time matrix is used for a quarter of the pairs)
+     * @param rooms random generator
+     * @return distance in meters
+     **/
+    @Benchmark
+    public double getDistanceInMeters(Rooms rooms) {
+        int i = rooms.iRandom.nextInt(nrRooms), j = rooms.iRandom.nextInt(nrRooms);
+        return iMetric.getDistanceInMeters(iRoomIds[i], iLat[i], iLon[i], iRoomIds[j], iLat[j], iLon[j]);
+    }
+
+    /** Travel time matrix lookup between two random rooms
+     * @param rooms random generator
+     * @return travel time in minutes, null if not known
+     **/
+    @Benchmark
+    public Integer getTravelTimeInMinutes(Rooms rooms) {
+        return iMetric.getTravelTimeInMinutes(iRoomIds[rooms.iRandom.nextInt(nrRooms)], iRoomIds[rooms.iRandom.nextInt(nrRooms)]);
+    }
+}
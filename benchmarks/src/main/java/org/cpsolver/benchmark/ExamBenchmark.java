@@ -0,0 +1,106 @@
+package org.cpsolver.benchmark;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.cpsolver.exam.model.Exam;
+import org.cpsolver.exam.model.ExamModel;
+import org.cpsolver.exam.model.ExamPlacement;
+import org.cpsolver.ifs.assignment.Assignment;
+import org.cpsolver.ifs.assignment.DefaultSingleAssignment;
+import org.cpsolver.ifs.model.Neighbour;
+import org.cpsolver.ifs.util.DataProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Examination timetabling benchmarks. An examination timetabling problem (e.g., exam data from the
+ * examples) is to be provided using the input parameter, solver configuration using the config parameter.
+ * 
+ * @version IFS 1.3 (Iterative Forward Search)<br>
+ *          Copyright (C) 2017 Tomas Muller<br>
+ *          <a href="mailto:muller@unitime.org">muller@unitime.org</a><br>
+ *          <a href="http://muller.unitime.org">http://muller.unitime.org</a><br>
+ * <br>
+ *          This library is free software; you can redistribute it and/or modify
+ *          it under the terms of the GNU Lesser General Public License as
+ *          published by the Free Software Foundation; either version 3 of the
+ *          License, or (at your option) any later version. <br>
+ * <br>
+ *          This library is distributed in the hope that it will be useful, but
+ *          WITHOUT ANY WARRANTY; without even the implied warranty of
+ *          MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *          Lesser General Public License for more details. <br>
+ * <br>
+ *          You should have received a copy of the GNU Lesser General Public
+ *          License along with this library; if not see
+ *          <a href='http://www.gnu.org/licenses/'>http://www.gnu.org/licenses/</a>.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ExamBenchmark {
+    @Param({ "" })
+    public String input;
+    @Param({ "" })
+    public String config;
+
+    private ExamModel iModel;
+    private Assignment<Exam, ExamPlacement> iAssignment;
+    private SolverStepper<Exam, ExamPlacement> iStepper;
+    private Random iRandom;
+
+    /**
+     * Load the problem
+     * @throws Exception when the load fails
+     */
+    @Setup
+    public void setup() throws Exception {
+        BenchmarkData.checkInput(input);
+        DataProperties properties = BenchmarkData.properties(config, input);
+        iAssignment = new DefaultSingleAssignment<Exam, ExamPlacement>();
+        iModel = BenchmarkData.loadExams(properties, iAssignment);
+        iStepper = new SolverStepper<Exam, ExamPlacement>(properties, iModel, iAssignment);
+        iRandom = new Random(BenchmarkData.SEED);
+    }
+
+    private ExamPlacement randomPlacement() {
+        Exam exam = iModel.variables().get(iRandom.nextInt(iModel.variables().size()));
+        List<ExamPlacement> values = exam.values(iAssignment);
+        if (values.isEmpty()) return null;
+        return values.get(iRandom.nextInt(values.size()));
+    }
+
+    /** {@link ExamPlacement#toDouble(Assignment)} of a random placement
+     * @return weighted value of the placement
+     **/
+    @Benchmark
+    public double placementToDouble() {
+        ExamPlacement placement = randomPlacement();
+        return (placement == null ? 0.0 : placement.toDouble(iAssignment));
+    }
+
+    /** {@link org.cpsolver.ifs.model.Model#conflictValues(Assignment, org.cpsolver.ifs.model.Value)} of a random placement
+     * @return number of conflicting placements
+     **/
+    @Benchmark
+    public int conflictValues() {
+        ExamPlacement placement = randomPlacement();
+        return (placement == null ? 0 : iModel.conflictValues(iAssignment, placement).size());
+    }
+
+    /** One iteration of the examination timetabling solver (end-to-end iterations per second)
+     * @return selected neighbour
+     **/
+    @Benchmark
+    public Neighbour<Exam, ExamPlacement> iteration() {
+        return iStepper.step();
+    }
+}
@@ -0,0 +1,372 @@
+package org.cpsolver.benchmark;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+import org.cpsolver.ifs.algorithms.SimpleSearch;
+import org.cpsolver.ifs.assignment.Assignment;
+import org.cpsolver.ifs.assignment.DefaultSingleAssignment;
+import org.cpsolver.ifs.example.csp.CSPValue;
+import org.cpsolver.ifs.example.csp.CSPVariable;
+import org.cpsolver.ifs.example.csp.StructuredCSPModel;
+import org.cpsolver.ifs.example.jobshop.JobShopModel;
+import org.cpsolver.ifs.example.rpp.RPPModel;
+import org.cpsolver.ifs.example.tt.Activity;
+import org.cpsolver.ifs.example.tt.TimetableModel;
+import org.cpsolver.ifs.model.Model;
+import org.cpsolver.ifs.model.Value;
+import org.cpsolver.ifs.model.Variable;
+import org.cpsolver.ifs.solution.Solution;
+import org.cpsolver.ifs.solution.SolutionListener;
+import org.cpsolver.ifs.solver.ParallelSolver;
+import org.cpsolver.ifs.solver.Solver;
+import org.cpsolver.ifs.util.DataProperties;
+import org.cpsolver.ifs.util.JProf;
+import org.cpsolver.ifs.util.Progress;
+import org.cpsolver.ifs.util.ToolBox;
+
+/**
+ * Reproducible performance suite built on the example problems of {@link org.cpsolver.ifs.example}.
+ * Unlike the JMH benchmarks, which measure a single operation, the suite runs the whole solver
+ * on families of generated instances of increasing size (random CSP, job shop, random placement problem
+ * and the synthetic timetabling problem), each with a fixed seed, using each of the configured solvers
+ * (plain IFS, hill climbing, great deluge, simulated annealing and parallel great deluge).
+ * No input data are needed, so that solver-core changes can be compared on any machine.<br>
+ * <br>
+ * Usage:<br>
+ * <code>java -cp benchmarks.jar org.cpsolver.benchmark.ExampleSuite [config.properties] [output folder]</code><br>
+ * <br>
+ * Two CSV files are written into the output folder (defaults to the current folder):
+ * <ul>
+ * <li>runs.csv ... one line per run with the number of iterations per second, the time and iteration
+ * when the first complete solution was found (-1 if none was found), and the best solution found
+ * <li>curves.csv ... the best value over time, one line each time a new best solution was saved
+ * </ul>
+ * The suite is configured by the following parameters:
+ * <ul>
+ * <li>Suite.Families ... comma separated list of problem families (defaults to csp,jobshop,rpp,tt)
+ * <li>Suite.Scales ... comma separated list of instance scales (defaults to 1,2,4)
+ * <li>Suite.Solvers ... comma separated list of solvers (defaults to IFS,HC,GD,SA,PAR)
+ * <li>Suite.Seeds ... comma separated list of random seeds (defaults to {@link BenchmarkData#SEED})
+ * <li>Suite.TimeOut ... time limit of each run in seconds (defaults to 30)
+ * </ul>
+ * All the other parameters of the configuration are passed to the generators and solvers and they take
+ * precedence over the generated ones (e.g., Parallel.NrSolvers, or CSP.DomainSize to fix the domain size across scales).
+ *
+ * @version IFS 1.3 (Iterative Forward Search)<br>
+ *          Copyright (C) 2017 Tomas Muller<br>
+ *          <a href="mailto:muller@unitime.org">muller@unitime.org</a><br>
+ *          <a href="http://muller.unitime.org">http://muller.unitime.org</a><br>
+ * <br>
+ *          This library is free software; you can redistribute it and/or modify
+ *          it under the terms of the GNU Lesser General Public License as
+ *          published by the Free Software Foundation; either version 3 of the
+ *          License, or (at your option) any later version. <br>
+ * <br>
+ *          This library is distributed in the hope that it will be useful, but
+ *          WITHOUT ANY WARRANTY; without even the implied warranty of
+ *          MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *          Lesser General Public License for more details. <br>
+ * <br>
+ *          You should have received a copy of the GNU Lesser General Public
+ *          License along with this library; if not see
+ *          <a href='http://www.gnu.org/licenses/'>http://www.gnu.org/licenses/</a>.
+ */
+public class ExampleSuite {
+    private static Logger sLog = Logger.getLogger(ExampleSuite.class);
+    private DataProperties iConfig;
+    private PrintWriter iRuns, iCurves;
+
+    /** Problem families */
+    public static enum Family {
+        /** Random binary CSP, see {@link StructuredCSPModel} */
+        CSP,
+        /** Job shop scheduling, see {@link JobShopModel#generate(DataProperties)} */
+        JOBSHOP,
+        /** Random placement problem, see {@link RPPModel#generate(DataProperties)} */
+        RPP,
+        /** Synthetic timetabling, see {@link TimetableModel#generate(DataProperties, Assignment)} */
+        TT,
+        ;
+
+        /**
+         * Generator parameters of an instance of the given scale, the instance size grows linearly with the scale
+         * @param properties configuration to be updated
+         * @param scale instance scale
+         */
+        public void configure(DataProperties properties, int scale) {
+            switch (this) {
+                case CSP:
+                    properties.setProperty("CSP.NrVariables", String.valueOf(50 * scale));
+                    properties.setProperty("CSP.DomainSize", "20");
+                    properties.setProperty("CSP.Density", "0.1");
+                    properties.setProperty("CSP.Tightness", "0.2");
+                    properties.setProperty("CSP.NrKernels", "0");
+                    break;
+                case JOBSHOP:
+                    properties.setProperty("Generator.NrJobs", String.valueOf(5 * scale));
+                    properties.setProperty("Generator.NrMachines", "5");
+                    break;
+                case RPP:
+                    properties.setProperty("Generator.Width", "30");
+                    properties.setProperty("Generator.Height", String.valueOf(10 * scale));
+                    break;
+                case TT:
+                    properties.setProperty("Generator.NrRooms", String.valueOf(10 * scale));
+                    properties.setProperty("Generator.NrClasses", String.valueOf(10 * scale));
+                    properties.setProperty("Generator.NrInstructors", String.valueOf(10 * scale));
+                    properties.setProperty("Generator.NrGroupsOfRooms", String.valueOf(10 * scale));
+                    properties.setProperty("Generator.NrDependencies", String.valueOf(25 * scale));
+                    properties.setProperty("General.InitialAssignment", "false");
+                    break;
+            }
+        }
+    }
+
+    /** Solver configurations */
+    public static enum SolverConfig {
+        /** Iterative forward search (default neighbour selection) */
+        IFS,
+        /** {@link SimpleSearch} that stays in the hill climbing phase */
+        HC,
+        /** {@link SimpleSearch} with great deluge */
+        GD,
+        /** {@link SimpleSearch} with simulated annealing */
+        SA,
+        /** {@link ParallelSolver} using {@link SimpleSearch} with great deluge */
+        PAR,
+        ;
+
+        /**
+         * Solver parameters
+         * @param properties configuration to be updated
+         */
+        public void configure(DataProperties properties) {
+            if (this != IFS)
+                properties.setProperty("Neighbour.Class", SimpleSearch.class.getName());
+            switch (this) {
+                case HC:
+                    properties.setProperty("HillClimber.MaxIdle", String.valueOf(Integer.MAX_VALUE));
+                    break;
+                case GD:
+                case PAR:
+                    properties.setProperty("Search.GreatDeluge", "true");
+                    break;
+                case SA:
+                    properties.setProperty("Search.GreatDeluge", "false");
+                    break;
+                default:
+                    break;
+            }
+            if (this == PAR)
+                properties.setProperty("Parallel.NrSolvers", "4");
+        }
+
+        /**
+         * Create solver
+         * @param properties solver configuration
+         * @return a new solver instance
+         */
+        public <V extends Variable<V, T>, T extends Value<V, T>> Solver<V, T> createSolver(DataProperties properties) {
+            return (this == PAR ? new ParallelSolver<V, T>(properties) : new Solver<V, T>(properties));
+        }
+    }
+
+    /**
+     * Constructor
+     * @param config suite configuration
+     * @param output output folder
+     * @throws IOException when the output files cannot be created
+     */
+    public ExampleSuite(DataProperties config, File output) throws IOException {
+        iConfig = config;
+        output.mkdirs();
+        iRuns = new PrintWriter(new FileWriter(new File(output, "runs.csv")));
+        iRuns.println("family,scale,solver,seed,variables,iterations,time,iterationsPerSec,firstCompleteTime,firstCompleteIteration,bestUnassigned,bestValue");
+        iCurves = new PrintWriter(new FileWriter(new File(output, "curves.csv")));
+        iCurves.println("family,scale,solver,seed,time,iteration,unassigned,value");
+    }
+
+    /**
+     * Run all the configured families, scales, solvers and seeds
+     * @throws Exception when a run fails
+     */
+    public void run() throws Exception {
+        for (String family: iConfig.getProperty("Suite.Families", "csp,jobshop,rpp,tt").split(","))
+            for (Integer scale: iConfig.getPropertyIntegerArry("Suite.Scales", new Integer[] { 1, 2, 4 }))
+                for (String solver: iConfig.getProperty("Suite.Solvers", "IFS,HC,GD,SA,PAR").split(","))
+                    for (Long seed: iConfig.getPropertyLongArry("Suite.Seeds", new Long[] { BenchmarkData.SEED }))
+                        run(Family.valueOf(family.trim().toUpperCase()), scale, SolverConfig.valueOf(solver.trim().toUpperCase()), seed);
+    }
+
+    /**
+     * Close the output files
+     */
+    public void close() {
+        iRuns.close();
+        iCurves.close();
+    }
+
+    /**
+     * Generate an instance and solve it
+     * @param family problem family
+     * @param scale instance scale
+     * @param solver solver configuration
+     * @param seed random seed (used both by the generator and the solver)
+     * @throws Exception when the run fails
+     */
+    public void run(Family family, int scale, SolverConfig solver, long seed) throws Exception {
+        DataProperties properties = new DataProperties();
+        properties.setProperty("Termination.StopWhenComplete", "false");
+        properties.setProperty("Termination.TimeOut", iConfig.getProperty("Suite.TimeOut", "30"));
+        properties.setProperty("General.SaveBestUnassigned", "-1");
+        family.configure(properties, scale);
+        solver.configure(properties);
+        properties.putAll(iConfig);
+        properties.setProperty("General.Seed", String.valueOf(seed));
+        String name = family.name().toLowerCase() + "," + scale + "," + solver.name() + "," + seed;
+        sLog.info("Running " + name + " ...");
+        ToolBox.setSeed(seed);
+        switch (family) {
+            case CSP:
+                run(name, properties, solver, new StructuredCSPModel(properties, seed), new DefaultSingleAssignment<CSPVariable, CSPValue>());
+                break;
+            case JOBSHOP:
+                run(name, properties, solver, JobShopModel.generate(properties), null);
+                break;
+            case RPP:
+                run(name, properties, solver, RPPModel.generate(properties), null);
+                break;
+            case TT:
+                Assignment<Activity, org.cpsolver.ifs.example.tt.Location> assignment = new DefaultSingleAssignment<Activity, org.cpsolver.ifs.example.tt.Location>();
+                run(name, properties, solver, TimetableModel.generate(properties, assignment), assignment);
+                break;
+        }
+    }
+
+    private <V extends Variable<V, T>, T extends Value<V, T>> void run(String name, DataProperties properties, SolverConfig config, Model<V, T> model, Assignment<V, T> assignment) throws Exception {
+        Solver<V, T> solver = config.createSolver(properties);
+        if (config == SolverConfig.PAR || assignment == null)
+            solver.setInitalSolution(model);
+        else
+            solver.setInitalSolution(new Solution<V, T>(model, assignment));
+        Recorder<V, T> recorder = new Recorder<V, T>(name);
+        solver.currentSolution().addSolutionListener(recorder);
+        recorder.start();
+        solver.start();
+        solver.getSolverThread().join();
+        double time = JProf.currentTimeSec() - recorder.getStartTime();
+        long iterations = recorder.getIterations();
+        iRuns.println(name + "," + model.variables().size() + "," + iterations + "," + format(time) + "," + format(iterations / time) + "," +
+                format(recorder.getFirstCompleteTime()) + "," + recorder.getFirstCompleteIteration() + "," +
+                model.getBestUnassignedVariables() + "," + format(model.getBestValue()));
+        iRuns.flush();
+        for (double[] point: recorder.getCurve())
+            iCurves.println(name + "," + format(point[0]) + "," + ((long) point[1]) + "," + ((int) point[2]) + "," + format(point[3]));
+        iCurves.flush();
+        Progress.removeInstance(model);
+        sLog.info("  " + iterations + " iterations in " + format(time) + " s (" + format(iterations / time) + " it/s), best: " + model.getBestUnassignedVariables() + " unassigned, value " + format(model.getBestValue()));
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.US, "%.3f", value);
+    }
+
+    /**
+     * Solution listener counting the iterations (of all solver threads) and recording the best solutions
+     */
+    private static class Recorder<V extends Variable<V, T>, T extends Value<V, T>> implements SolutionListener<V, T> {
+        private String iName;
+        private AtomicLong iIterations = new AtomicLong(0);
+        private double iStartTime;
+        private double iFirstCompleteTime = -1.0;
+        private long iFirstCompleteIteration = -1;
+        private List<double[]> iCurve = new ArrayList<double[]>();
+
+        private Recorder(String name) {
+            iName = name;
+        }
+
+        private void start() {
+            iStartTime = JProf.currentTimeSec();
+        }
+
+        private double getStartTime() { return iStartTime; }
+
+        private long getIterations() { return iIterations.get(); }
+
+        private synchronized double getFirstCompleteTime() { return iFirstCompleteTime; }
+
+        private synchronized long getFirstCompleteIteration() { return iFirstCompleteIteration; }
+
+        private synchronized List<double[]> getCurve() { return iCurve; }
+
+        @Override
+        public void solutionUpdated(Solution<V, T> solution) {
+            iIterations.incrementAndGet();
+        }
+
+        @Override
+        public synchronized void bestSaved(Solution<V, T> solution) {
+            double time = JProf.currentTimeSec() - iStartTime;
+            long iteration = iIterations.get();
+            int unassigned = solution.getModel().getBestUnassignedVariables();
+            if (unassigned == 0 && iFirstCompleteIteration < 0) {
+                iFirstCompleteTime = time;
+                iFirstCompleteIteration = iteration;
+                sLog.debug(iName + ": first complete solution found in " + format(time) + " s");
+            }
+            iCurve.add(new double[] { time, iteration, unassigned, solution.getModel().getBestValue() });
+        }
+
+        @Override
+        public void getInfo(Solution<V, T> solution, Map<String, String> info) {
+        }
+
+        @Override
+        public void getInfo(Solution<V, T> solution, Map<String, String> info, Collection<V> variables) {
+        }
+
+        @Override
+        public void bestCleared(Solution<V, T> solution) {
+        }
+
+        @Override
+        public void bestRestored(Solution<V, T> solution) {
+        }
+    }
+
+    /**
+     * Run the suite
+     * @param args optional configuration file and output folder
+     * @throws Exception when the suite fails
+     */
+    public static void main(String[] args) throws Exception {
+        DataProperties config = new DataProperties();
+        if (args.length > 0) {
+            FileInputStream in = new FileInputStream(args[0]);
+            try {
+                config.load(in);
+            } finally {
+                in.close();
+            }
+        }
+        ToolBox.configureLogging();
+        ExampleSuite suite = new ExampleSuite(config, new File(args.length > 1 ? args[1] : "."));
+        try {
+            suite.run();
+        } finally {
+            suite.close();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package org.cpsolver.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.cpsolver.ifs.assignment.Assignment;
+import org.cpsolver.ifs.assignment.DefaultSingleAssignment;
+import org.cpsolver.ifs.example.csp.CSPValue;
+import org.cpsolver.ifs.example.csp.CSPVariable;
+import org.cpsolver.ifs.example.csp.StructuredCSPModel;
+import org.cpsolver.ifs.extension.Extension;
+import org.cpsolver.ifs.extension.MacPropagation;
+import org.cpsolver.ifs.solver.Solver;
+import org.cpsolver.ifs.util.DataProperties;
+import org.cpsolver.ifs.util.ToolBox;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Comparison of the arc-consistency maintenance of {@link MacPropagation} and
+ * {@link org.cpsolver.ifs.extension.MacBitSetPropagation} on a randomly generated CSP problem
+ * (see {@link StructuredCSPModel}). Half of the variables are assigned first (using good values only),
+ * the benchmark then assigns and unassigns a good value of a random unassigned variable.
+ * 
+ * @version IFS 1.3 (Iterative Forward Search)<br>
+ *          Copyright (C) 2017 Tomas Muller<br>
+ *          <a href="mailto:muller@unitime.org">muller@unitime.org</a><br>
+ *          <a href="http://muller.unitime.org">http://muller.unitime.org</a><br>
+ * <br>
+ *          This library is free software; you can redistribute it and/or modify
+ *          it under the terms of the GNU Lesser General Public License as
+ *          published by the Free Software Foundation; either version 3 of the
+ *          License, or (at your option) any later version. <br>
+ * <br>
+ *          This library is distributed in the hope that it will be useful, but
+ *          WITHOUT ANY WARRANTY; without even the implied warranty of
+ *          MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *          Lesser General Public License for more details. <br>
+ * <br>
+ *          You should have received a copy of the GNU Lesser General Public
+ *          License along with this library; if not see
+ *          <a href='http://www.gnu.org/licenses/'>http://www.gnu.org/licenses/</a>.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MacPropagationBenchmark {
+    @Param({ "MacPropagation", "MacBitSetPropagation" })
+    public String propagation;
+    @Param({ "100", "500" })
+    public int nrVariables;
+    @Param({ "0.2" })
+    public double tightness;
+
+    private StructuredCSPModel iModel;
+    private Assignment<CSPVariable, CSPValue> iAssignment;
+    private MacPropagation<CSPVariable, CSPValue> iPropagation;
+    private Random iRandom;
+    private long iIteration = 0;
+
+    /**
+     * Generate the problem, initialize the propagation and assign half of the variables
+     */
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        DataProperties properties = new DataProperties();
+        properties.setProperty("CSP.NrVariables", String.valueOf(nrVariables));
+        properties.setProperty("CSP.DomainSize", "20");
+        properties.setProperty("CSP.Density", "0.1");
+        properties.setProperty("CSP.Tightness", String.valueOf(tightness));
+        properties.setProperty("CSP.NrKernels", "0");
+        properties.setProperty("Extensions.Classes", "org.cpsolver.ifs.extension." + propagation);
+        ToolBox.setSeed(BenchmarkData.SEED);
+        iModel = new StructuredCSPModel(properties, BenchmarkData.SEED);
+        iAssignment = new DefaultSingleAssignment<CSPVariable, CSPValue>();
+        Solver<CSPVariable, CSPValue> solver = new Solver<CSPVariable, CSPValue>(properties);
+        solver.setInitalSolution(iModel);
+        solver.initSolver();
+        for (Extension<CSPVariable, CSPValue> extension : solver.getExtensions())
+            if (extension instanceof MacPropagation)
+                iPropagation = (MacPropagation<CSPVariable, CSPValue>) extension;
+        iRandom = new Random(BenchmarkData.SEED);
+        for (int i = 0; i < nrVariables / 2; i++) {
+            CSPValue value = randomGoodValue();
+            if (value != null)
+                iAssignment.assign(++iIteration, value);
+        }
+    }
+
+    private CSPValue randomGoodValue() {
+        List<CSPVariable> variables = new ArrayList<CSPVariable>(iModel.unassignedVariables(iAssignment));
+        for (int attempt = 0; attempt < 10 && !variables.isEmpty(); attempt++) {
+            CSPVariable variable = variables.get(iRandom.nextInt(variables.size()));
+            List<CSPValue> values = new ArrayList<CSPValue>();
+            for (CSPValue value: iPropagation.goodValues(iAssignment, variable))
+                if (iPropagation.isGood(iAssignment, value))
+                    values.add(value);
+            if (!values.isEmpty())
+                return values.get(iRandom.nextInt(values.size()));
+        }
+        return null;
+    }
+
+    /** Assign a random good value and unassign it back (propagation and propagation undo)
+     * @return assigned value
+     **/
+    @Benchmark
+    public CSPValue assignUnassign() {
+        CSPValue value = randomGoodValue();
+        if (value != null) {
+            iAssignment.assign(++iIteration, value);
+            iAssignment.unassign(++iIteration, value.variable());
+        }
+        return value;
+    }
+
+    /** Initial propagation (arc-consistency of the current assignment computed from scratch)
+     * @return propagation context
+     **/
+    @Benchmark
+    public Object initialize() {
+        return iPropagation.createAssignmentContext(iAssignment);
+    }
+}
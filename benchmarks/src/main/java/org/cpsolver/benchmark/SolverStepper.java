@@ -0,0 +1,93 @@
+package org.cpsolver.benchmark;
+
+import org.cpsolver.ifs.assignment.Assignment;
+import org.cpsolver.ifs.model.Model;
+import org.cpsolver.ifs.model.Neighbour;
+import org.cpsolver.ifs.model.Value;
+import org.cpsolver.ifs.model.Variable;
+import org.cpsolver.ifs.solution.Solution;
+import org.cpsolver.ifs.solver.Solver;
+import org.cpsolver.ifs.util.DataProperties;
+import org.cpsolver.ifs.util.JProf;
+
+/**
+ * Runs the solver's main loop one iteration at a time on the calling thread, so that the
+ * iteration speed of a solver can be measured by JMH without the solver thread.
+ * 
+ * @version IFS 1.3 (Iterative Forward Search)<br>
+ *          Copyright (C) 2017 Tomas Muller<br>
+ *          <a href="mailto:muller@unitime.org">muller@unitime.org</a><br>
+ *          <a href="http://muller.unitime.org">http://muller.unitime.org</a><br>
+ * <br>
+ *          This library is free software; you can redistribute it and/or modify
+ *          it under the terms of the GNU Lesser General Public License as
+ *          published by the Free Software Foundation; either version 3 of the
+ *          License, or (at your option) any later version. <br>
+ * <br>
+ *          This library is distributed in the hope that it will be useful, but
+ *          WITHOUT ANY WARRANTY; without even the implied warranty of
+ *          MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *          Lesser General Public License for more details. <br>
+ * <br>
+ *          You should have received a copy of the GNU Lesser General Public
+ *          License along with this library; if not see
+ *          <a href='http://www.gnu.org/licenses/'>http://www.gnu.org/licenses/</a>.
+ *
+ * @param <V> Variable
+ * @param <T> Value
+ */
+public class SolverStepper<V extends Variable<V, T>, T extends Value<V, T>> {
+    private Solver<V, T> iSolver;
+    private Solution<V, T> iSolution;
+    private double iStartTime;
+
+    /**
+     * Constructor, initializes the solver (see {@link Solver#initSolver()})
+     * @param properties solver configuration
+     * @param model problem model
+     * @param assignment initial assignment
+     */
+    public SolverStepper(DataProperties properties, Model<V, T> model, Assignment<V, T> assignment) {
+        iSolver = new Solver<V, T>(properties);
+        iSolution = new Solution<V, T>(model, assignment);
+        iSolver.setInitalSolution(iSolution);
+        iSolver.initSolver();
+        iStartTime = JProf.currentTimeSec();
+    }
+
+    /**
+     * Perform one iteration: select a neighbour, assign it, update the solution and save the best solution if improved
+     * @return the selected neighbour, null if no neighbour was selected
+     */
+    public Neighbour<V, T> step() {
+        Neighbour<V, T> neighbour = iSolver.getNeighbourSelection().selectNeighbour(iSolution);
+        if (neighbour == null) {
+            iSolution.update(JProf.currentTimeSec() - iStartTime, false);
+            return null;
+        }
+        neighbour.assign(iSolution.getAssignment(), iSolution.getIteration());
+        iSolution.update(JProf.currentTimeSec() - iStartTime);
+        if (iSolution.getBestInfo() == null || iSolver.getSolutionComparator().isBetterThanBestSolution(iSolution))
+            iSolution.saveBest();
+        return neighbour;
+    }
+
+    /**
+     * Perform the given number of iterations
+     * @param iterations number of iterations
+     */
+    public void run(int iterations) {
+        for (int i = 0; i < iterations; i++)
+            step();
+    }
+
+    /** Current solution 
+     * @return current solution
+     **/
+    public Solution<V, T> getSolution() { return iSolution; }
+
+    /** Solver
+     * @return solver
+     **/
+    public Solver<V, T> getSolver() { return iSolver; }
+}
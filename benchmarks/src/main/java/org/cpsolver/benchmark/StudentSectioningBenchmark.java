@@ -0,0 +1,111 @@
+package org.cpsolver.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.cpsolver.ifs.assignment.Assignment;
+import org.cpsolver.ifs.assignment.DefaultSingleAssignment;
+import org.cpsolver.ifs.model.Neighbour;
+import org.cpsolver.ifs.util.DataProperties;
+import org.cpsolver.studentsct.StudentSectioningModel;
+import org.cpsolver.studentsct.heuristics.selection.BranchBoundSelection;
+import org.cpsolver.studentsct.model.CourseRequest;
+import org.cpsolver.studentsct.model.Enrollment;
+import org.cpsolver.studentsct.model.Request;
+import org.cpsolver.studentsct.model.Student;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Student sectioning benchmarks. A student sectioning problem (e.g., pu-sect-fal07.xml from the
+ * examples) is to be provided using the input parameter, solver configuration using the config parameter.
+ * 
+ * @version IFS 1.3 (Iterative Forward Search)<br>
+ *          Copyright (C) 2017 Tomas Muller<br>
+ *          <a href="mailto:muller@unitime.org">muller@unitime.org</a><br>
+ *          <a href="http://muller.unitime.org">http://muller.unitime.org</a><br>
+ * <br>
+ *          This library is free software; you can redistribute it and/or modify
+ *          it under the terms of the GNU Lesser General Public License as
+ *          published by the Free Software Foundation; either version 3 of the
+ *          License, or (at your option) any later version. <br>
+ * <br>
+ *          This library is distributed in the hope that it will be useful, but
+ *          WITHOUT ANY WARRANTY; without even the implied warranty of
+ *          MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *          Lesser General Public License for more details. <br>
+ * <br>
+ *          You should have received a copy of the GNU Lesser General Public
+ *          License along with this library; if not see
+ *          <a href='http://www.gnu.org/licenses/'>http://www.gnu.org/licenses/</a>.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class StudentSectioningBenchmark {
+    @Param({ "" })
+    public String input;
+    @Param({ "" })
+    public String config;
+
+    private StudentSectioningModel iModel;
+    private Assignment<Request, Enrollment> iAssignment;
+    private SolverStepper<Request, Enrollment> iStepper;
+    private BranchBoundSelection iBranchBound;
+    private List<CourseRequest> iCourseRequests;
+    private Random iRandom;
+
+    /**
+     * Load the problem
+     * @throws Exception when the load fails
+     */
+    @Setup
+    public void setup() throws Exception {
+        BenchmarkData.checkInput(input);
+        DataProperties properties = BenchmarkData.properties(config, input);
+        iAssignment = new DefaultSingleAssignment<Request, Enrollment>();
+        iModel = BenchmarkData.loadStudentSectioning(properties, iAssignment);
+        iBranchBound = new BranchBoundSelection(properties);
+        iBranchBound.setModel(iModel);
+        iCourseRequests = new ArrayList<CourseRequest>();
+        for (Request request: iModel.variables())
+            if (request instanceof CourseRequest)
+                iCourseRequests.add((CourseRequest)request);
+        iStepper = new SolverStepper<Request, Enrollment>(properties, iModel, iAssignment);
+        iRandom = new Random(BenchmarkData.SEED);
+    }
+
+    /** {@link CourseRequest#computeEnrollments(Assignment)} of a random course request
+     * @return number of possible enrollments
+     **/
+    @Benchmark
+    public int computeEnrollments() {
+        if (iCourseRequests.isEmpty()) return 0;
+        return iCourseRequests.get(iRandom.nextInt(iCourseRequests.size())).computeEnrollments(iAssignment).size();
+    }
+
+    /** {@link BranchBoundSelection.Selection#select()} of a random student (the selected neighbour is not assigned)
+     * @return selected neighbour
+     **/
+    @Benchmark
+    public Neighbour<Request, Enrollment> branchBoundSelection() {
+        Student student = iModel.getStudents().get(iRandom.nextInt(iModel.getStudents().size()));
+        return iBranchBound.getSelection(iAssignment, student).select();
+    }
+
+    /** One iteration of the student sectioning solver (end-to-end iterations per second)
+     * @return selected neighbour
+     **/
+    @Benchmark
+    public Neighbour<Request, Enrollment> iteration() {
+        return iStepper.step();
+    }
+}
@@ -56,6 +56,8 @@ import org.cpsolver.ifs.extension.MacPropagation;
 import org.cpsolver.ifs.model.Constraint;
 import org.cpsolver.ifs.solution.Solution;
 import org.cpsolver.ifs.solution.SolutionListener;
+import org.cpsolver.ifs.solver.DecompositionSolver;
+import org.cpsolver.ifs.solver.IncrementalSolver;
 import org.cpsolver.ifs.solver.ParallelSolver;
 import org.cpsolver.ifs.solver.Solver;
 import org.cpsolver.ifs.util.DataProperties;
@@ -84,6 +86,8 @@ import org.cpsolver.ifs.util.ToolBox;
  * <li>Solver is executed (see {@link Solver}).
  * <li>Resultant solution is saved (calling {@link TimetableSaver#save()}, when
  * General.Save property is set to true.
+ * <li>Solution checkpoint is saved (see {@link TimetableCheckpoint}), when General.Checkpoint property
+ * is set. The checkpoint is restored by {@link TimetableXMLLoader} on the next run.
  * </ul>
  * Also, a log and a CSV (comma separated text file) is created in the output
  * folder.
@@ -218,7 +222,15 @@ public class Test implements SolutionListener<Lecture, Placement> {
             int nrSolvers = properties.getPropertyInt("Parallel.NrSolvers", 1);
             Assignment<Lecture, Placement> assignment = (nrSolvers <= 1 ? new DefaultSingleAssignment<Lecture, Placement>() : new DefaultParallelAssignment<Lecture, Placement>());
             Progress.getInstance(model).addProgressListener(new ProgressWriter(System.out));
-            Solver<Lecture, Placement> solver = (nrSolvers == 1 ? new Solver<Lecture, Placement>(properties) : new ParallelSolver<Lecture, Placement>(properties));
+            Solver<Lecture, Placement> solver = null;
+            if (nrSolvers != 1)
+                solver = new ParallelSolver<Lecture, Placement>(properties);
+            else if (properties.getPropertyBoolean("Decomposition.Enabled", false))
+                solver = new DecompositionSolver<Lecture, Placement>(properties);
+            else if (properties.getPropertyBoolean("Incremental.Enabled", false))
+                solver = new IncrementalSolver<Lecture, Placement>(properties);
+            else
+                solver = new Solver<Lecture, Placement>(properties);
 
             TimetableLoader loader = null;
             try {
@@ -352,9 +364,9 @@ public class Test implements SolutionListener<Lecture, Placement> {
             iCSVFile.print(colSeparator);
             iCSVFile.print(sDoubleFormat.format((solution.getIteration()) / solution.getTime()));
             iCSVFile.print(colSeparator);
-            iCSVFile.print(model.perturbVariables(assignment).size());
+            iCSVFile.print(model.nrPerturbVariables(assignment));
             iCSVFile.print(colSeparator);
-            iCSVFile.print(sDoubleFormat.format(100.0 * model.perturbVariables(assignment).size() / model.variables().size()));
+            iCSVFile.print(sDoubleFormat.format(100.0 * model.nrPerturbVariables(assignment) / model.variables().size()));
             iCSVFile.print(colSeparator);
             iCSVFile.print(Math.round(solution.getModel().getCriterion(StudentHardConflict.class).getValue(assignment)));
             iCSVFile.print(colSeparator);
@@ -881,7 +893,7 @@ public class Test implements SolutionListener<Lecture, Placement> {
                 Map<String, Double> mppInfo = ((UniversalPerturbationsCounter)((Perturbations)m.getCriterion(Perturbations.class)).getPerturbationsCounter()).getCompactInfo(a, m, false, false);
                 int pidx = 51;
                 w.println("000." + dx.format(pidx++) + " Perturbation penalty," + sDoubleFormat.format(m.getCriterion(Perturbations.class).getValue(a)));
-                w.println("000." + dx.format(pidx++) + " Additional perturbations," + m.perturbVariables(a).size());
+                w.println("000." + dx.format(pidx++) + " Additional perturbations," + m.nrPerturbVariables(a));
                 int nrPert = 0, nrStudentPert = 0;
                 for (Lecture lecture : m.variables()) {
                     if (lecture.getInitialAssignment() != null)
@@ -1112,6 +1124,9 @@ public class Test implements SolutionListener<Lecture, Placement> {
                 TimetableModel model = (TimetableModel) solution.getModel();
                 File outDir = new File(properties.getProperty("General.Output", "."));
 
+                if (properties.getProperty("General.Checkpoint") != null)
+                    new TimetableCheckpoint(model).save(solution.getAssignment(), new File(properties.getProperty("General.Checkpoint")));
+
                 if (solution.getBestInfo() != null) {
                     Solution<Lecture, Placement> bestSolution = solution;// .cloneBest();
                     sLogger.info("Last solution: " + ToolBox.dict2string(bestSolution.getExtendedInfo(), 1));
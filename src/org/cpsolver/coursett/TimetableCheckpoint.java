@@ -0,0 +1,147 @@
+package org.cpsolver.coursett;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.cpsolver.coursett.model.Lecture;
+import org.cpsolver.coursett.model.Placement;
+import org.cpsolver.coursett.model.RoomLocation;
+import org.cpsolver.coursett.model.TimeLocation;
+import org.cpsolver.coursett.model.TimetableModel;
+import org.cpsolver.ifs.assignment.Assignment;
+import org.cpsolver.ifs.util.SolutionCheckpoint;
+
+/**
+ * Binary checkpoint of a course timetabling solution. A placement is encoded as the index
+ * of its time in {@link Lecture#timeLocations()} followed by the indexes of its rooms in {@link Lecture#roomLocations()},
+ * so that the lecture's domain does not need to be computed when the checkpoint is restored. The indexes are looked up
+ * in hash maps and a placement that already exists (e.g., in the cached domain of the class) is reused when the checkpoint is restored.
+ * 
+ * @see SolutionCheckpoint
+ * 
+ * @version CourseTT 1.3 (University Course Timetabling)<br>
+ *          Copyright (C) 2017 Tomas Muller<br>
+ *          <a href="mailto:muller@unitime.org">muller@unitime.org</a><br>
+ *          <a href="http://muller.unitime.org">http://muller.unitime.org</a><br>
+ * <br>
+ *          This library is free software; you can redistribute it and/or modify
+ *          it under the terms of the GNU Lesser General Public License as
+ *          published by the Free Software Foundation; either version 3 of the
+ *          License, or (at your option) any later version. <br>
+ * <br>
+ *          This library is distributed in the hope that it will be useful, but
+ *          WITHOUT ANY WARRANTY; without even the implied warranty of
+ *          MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *          Lesser General Public License for more details. <br>
+ * <br>
+ *          You should have received a copy of the GNU Lesser General Public
+ *          License along with this library; if not see
+ *          <a href='http://www.gnu.org/licenses/'>http://www.gnu.org/licenses/</a>.
+ */
+public class TimetableCheckpoint extends SolutionCheckpoint<Lecture, Placement, TimetableModel> {
+    private Map<Lecture, LectureIndex> iIndexes = new HashMap<Lecture, LectureIndex>();
+
+    /**
+     * Constructor
+     * @param model a loaded timetable model
+     */
+    public TimetableCheckpoint(TimetableModel model) {
+        super(model);
+    }
+
+    @Override
+    protected int[] encode(Assignment<Lecture, Placement> assignment, Lecture lecture, Placement placement) {
+        return getIndex(lecture).encode(placement);
+    }
+
+    @Override
+    protected Placement decode(Assignment<Lecture, Placement> assignment, Lecture lecture, int[] encoded) {
+        if (encoded.length == 0 || encoded[0] < 0 || encoded[0] >= lecture.timeLocations().size()) return null;
+        Placement placement = getIndex(lecture).getPlacement(encoded);
+        if (placement != null) return placement;
+        TimeLocation time = lecture.timeLocations().get(encoded[0]);
+        List<RoomLocation> rooms = new ArrayList<RoomLocation>(encoded.length - 1);
+        for (int i = 1; i < encoded.length; i++) {
+            if (encoded[i] < 0 || encoded[i] >= lecture.roomLocations().size()) return null;
+            rooms.add(lecture.roomLocations().get(encoded[i]));
+        }
+        return new Placement(lecture, time, rooms);
+    }
+
+    private LectureIndex getIndex(Lecture lecture) {
+        LectureIndex index = iIndexes.get(lecture);
+        if (index == null) {
+            index = new LectureIndex(lecture);
+            iIndexes.put(lecture, index);
+        }
+        return index;
+    }
+
+    private static List<Integer> key(int[] encoded) {
+        List<Integer> key = new ArrayList<Integer>(encoded.length);
+        for (int index: encoded)
+            key.add(index);
+        return key;
+    }
+
+    /**
+     * Indexes of the times and rooms of a class, and the placements of the class that already exist
+     * (cached domain, initial assignment) by their encoding, so that no list is searched and
+     * no placement is created when an existing one can be used.
+     */
+    private static class LectureIndex {
+        private Lecture iLecture;
+        private Map<TimeLocation, Integer> iTimes = new HashMap<TimeLocation, Integer>();
+        private Map<RoomLocation, Integer> iRooms = new HashMap<RoomLocation, Integer>();
+        private Map<List<Integer>, Placement> iPlacements = null;
+
+        private LectureIndex(Lecture lecture) {
+            iLecture = lecture;
+            for (TimeLocation time: lecture.timeLocations())
+                if (!iTimes.containsKey(time)) iTimes.put(time, iTimes.size());
+            for (RoomLocation room: lecture.roomLocations())
+                if (!iRooms.containsKey(room)) iRooms.put(room, iRooms.size());
+        }
+
+        private int[] encode(Placement placement) {
+            Integer time = iTimes.get(placement.getTimeLocation());
+            if (time == null) return null;
+            if (placement.isMultiRoom()) {
+                int[] encoded = new int[1 + placement.getRoomLocations().size()];
+                encoded[0] = time;
+                for (int i = 0; i < placement.getRoomLocations().size(); i++) {
+                    Integer room = iRooms.get(placement.getRoomLocations().get(i));
+                    if (room == null) return null;
+                    encoded[1 + i] = room;
+                }
+                return encoded;
+            } else if (placement.getRoomLocation() != null) {
+                Integer room = iRooms.get(placement.getRoomLocation());
+                if (room == null) return null;
+                return new int[] { time, room };
+            } else {
+                return new int[] { time };
+            }
+        }
+
+        private Placement getPlacement(int[] encoded) {
+            if (iPlacements == null) {
+                iPlacements = new HashMap<List<Integer>, Placement>();
+                if (iLecture.getInitialAssignment() != null)
+                    put(iLecture.getInitialAssignment());
+                List<Placement> values = iLecture.getCachedValues();
+                if (values != null)
+                    for (Placement placement: values)
+                        put(placement);
+            }
+            return iPlacements.get(key(encoded));
+        }
+
+        private void put(Placement placement) {
+            int[] encoded = encode(placement);
+            if (encoded != null) iPlacements.put(key(encoded), placement);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package org.cpsolver.coursett;
 
 import java.io.File;
+import java.io.IOException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.BitSet;
@@ -83,6 +84,12 @@ import org.dom4j.io.SAXReader;
  * <td>{@link Boolean}</td>
  * <td>Consider distances between buildings</td>
  * </tr>
+ * <tr>
+ * <td>General.Checkpoint</td>
+ * <td>{@link String}</td>
+ * <td>Solution checkpoint file (see {@link TimetableCheckpoint}); when the file exists, the best and the current assignment
+ * are restored from the checkpoint instead of the solution contained in the input XML file</td>
+ * </tr>
  * </table>
  * 
  * @version CourseTT 1.3 (University Course Timetabling)<br>
@@ -114,6 +121,7 @@ public class TimetableXMLLoader extends TimetableLoader {
 
     private boolean iInteractiveMode = false;
     private File iInputFile;
+    private File iCheckpointFile = null;
 
     private Progress iProgress = null;
 
@@ -125,6 +133,8 @@ public class TimetableXMLLoader extends TimetableLoader {
         iForcedPerturbances = getModel().getProperties().getPropertyInt("General.ForcedPerturbances", 0);
         iDeptBalancing = getModel().getProperties().getPropertyBoolean("General.DeptBalancing", true);
         iInteractiveMode = getModel().getProperties().getPropertyBoolean("General.InteractiveMode", iInteractiveMode);
+        if (getModel().getProperties().getProperty("General.Checkpoint") != null)
+            iCheckpointFile = new File(getModel().getProperties().getProperty("General.Checkpoint"));
     }
 
     private Solver<Lecture, Placement> iSolver = null;
@@ -141,6 +151,10 @@ public class TimetableXMLLoader extends TimetableLoader {
         iInputFile = inputFile;
     }
 
+    public void setCheckpointFile(File checkpointFile) {
+        iCheckpointFile = checkpointFile;
+    }
+
     @Override
     public void load() throws Exception {
         load(null);
@@ -903,48 +917,66 @@ public class TimetableXMLLoader extends TimetableLoader {
             }
         }
 
-        if (currentSolution != null) {
-            iProgress.setPhase("Creating best assignment ...", 2 * getModel().variables().size());
-            for (Lecture lecture : getModel().variables()) {
-                iProgress.incProgress();
-                Placement placement = lecture.getBestAssignment();
-                if (placement == null) continue;
-                getModel().weaken(getAssignment(), placement);
-                getAssignment().assign(0, placement);
-            }
-
-            currentSolution.saveBest();
-            for (Lecture lecture : getModel().variables()) {
-                iProgress.incProgress();
-                getAssignment().unassign(0, lecture);
+        boolean restored = false;
+        if (iCheckpointFile != null && iCheckpointFile.exists()) {
+            iProgress.setPhase("Restoring checkpoint ...", 1);
+            try {
+                TimetableCheckpoint checkpoint = new TimetableCheckpoint(getModel());
+                if (currentSolution != null)
+                    checkpoint.load(currentSolution, iCheckpointFile);
+                else
+                    checkpoint.load(getAssignment(), iCheckpointFile);
+                restored = true;
+            } catch (IOException e) {
+                sLogger.warn("Unable to restore checkpoint " + iCheckpointFile + ": " + e.getMessage());
             }
+            iProgress.incProgress();
         }
 
-        iProgress.setPhase("Creating initial assignment ...", assignedPlacements.size());
-        for (Map.Entry<Lecture, Placement> entry : assignedPlacements.entrySet()) {
-            Lecture lecture = entry.getKey();
-            Placement placement = entry.getValue();
-            if (lecture.isCommitted()) { iProgress.incProgress(); continue; }
-            getModel().weaken(getAssignment(), placement);
-            Map<Constraint<Lecture, Placement>, Set<Placement>> conflictConstraints = getModel().conflictConstraints(getAssignment(), placement);
-            if (conflictConstraints.isEmpty()) {
-                if (!placement.isValid()) {
-                    sLogger.warn("WARNING: Lecture " + lecture.getName() + " does not contain assignment "
-                            + placement.getLongName(true) + " in its domain (" + placement.getNotValidReason(getAssignment(), true) + ").");
-                } else
+        if (!restored) {
+            if (currentSolution != null) {
+                iProgress.setPhase("Creating best assignment ...", 2 * getModel().variables().size());
+                for (Lecture lecture : getModel().variables()) {
+                    iProgress.incProgress();
+                    Placement placement = lecture.getBestAssignment();
+                    if (placement == null) continue;
+                    getModel().weaken(getAssignment(), placement);
                     getAssignment().assign(0, placement);
-            } else {
-                sLogger.warn("WARNING: Unable to assign " + lecture.getName() + " := " + placement.getName());
-                sLogger.debug("  Reason:");
-                for (Constraint<Lecture, Placement> c : conflictConstraints.keySet()) {
-                    Set<Placement> vals = conflictConstraints.get(c);
-                    for (Placement v : vals) {
-                        sLogger.debug("    " + v.variable().getName() + " = " + v.getName());
+                }
+
+                currentSolution.saveBest();
+                for (Lecture lecture : getModel().variables()) {
+                    iProgress.incProgress();
+                    getAssignment().unassign(0, lecture);
+                }
+            }
+
+            iProgress.setPhase("Creating initial assignment ...", assignedPlacements.size());
+            for (Map.Entry<Lecture, Placement> entry : assignedPlacements.entrySet()) {
+                Lecture lecture = entry.getKey();
+                Placement placement = entry.getValue();
+                if (lecture.isCommitted()) { iProgress.incProgress(); continue; }
+                getModel().weaken(getAssignment(), placement);
+                Map<Constraint<Lecture, Placement>, Set<Placement>> conflictConstraints = getModel().conflictConstraints(getAssignment(), placement);
+                if (conflictConstraints.isEmpty()) {
+                    if (!placement.isValid()) {
+                        sLogger.warn("WARNING: Lecture " + lecture.getName() + " does not contain assignment "
+                                + placement.getLongName(true) + " in its domain (" + placement.getNotValidReason(getAssignment(), true) + ").");
+                    } else
+                        getAssignment().assign(0, placement);
+                } else {
+                    sLogger.warn("WARNING: Unable to assign " + lecture.getName() + " := " + placement.getName());
+                    sLogger.debug("  Reason:");
+                    for (Constraint<Lecture, Placement> c : conflictConstraints.keySet()) {
+                        Set<Placement> vals = conflictConstraints.get(c);
+                        for (Placement v : vals) {
+                            sLogger.debug("    " + v.variable().getName() + " = " + v.getName());
+                        }
+                        sLogger.debug("    in constraint " + c);
                     }
-                    sLogger.debug("    in constraint " + c);
                 }
+                iProgress.incProgress();
             }
-            iProgress.incProgress();
         }
 
         if (initialSectioning && getAssignment().nrAssignedVariables() != 0 && !getModel().getProperties().getPropertyBoolean("Global.LoadStudentEnrlsFromSolution", false))
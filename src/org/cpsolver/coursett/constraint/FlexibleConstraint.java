@@ -140,22 +140,24 @@ public abstract class FlexibleConstraint extends ConstraintWithContext<Lecture,
      * @return a list of bitsets (one for each week of the term) representing datePatterns or null if semester is whole semester is considered
      */
     public List<BitSet> getWeeks(){
-        if (iWeeks == null){
+        List<BitSet> weeks = iWeeks;
+        if (weeks == null){
             TimetableModel model = (TimetableModel) getModel();
-            iWeeks = new ArrayList<BitSet>();
 
             boolean checkWeeks = model.getProperties().getPropertyBoolean("FlexibleConstraint.CheckWeeks", false);
             
             if (checkWeeks) {
                 // get weeks method returns bitsets representing weeks during semester
-                iWeeks = model.getWeeks();
+                weeks = model.getWeeks();
             } else {
                 // weeks are not considered, all placements are taken into consideration
-                iWeeks.add(null);
+                weeks = new ArrayList<BitSet>();
+                weeks.add(null);
             } 
+            iWeeks = weeks;
         }  
           
-        return iWeeks;
+        return weeks;
     }
     
     @Override
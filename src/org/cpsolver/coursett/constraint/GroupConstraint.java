@@ -6,6 +6,7 @@ import java.util.HashSet;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.cpsolver.coursett.Constants;
@@ -89,6 +90,32 @@ import org.cpsolver.ifs.util.ToolBox;
  * have to be less than six.</td>
  * </tr>
  * </table>
+ * <br>
+ * The assignment independent part of the pairwise checks is cached, parameters:
+ * <table border='1' summary='Related Solver Parameters'>
+ * <tr>
+ * <th>Parameter</th>
+ * <th>Type</th>
+ * <th>Comment</th>
+ * </tr>
+ * <tr>
+ * <td>GroupConstraint.PairCache</td>
+ * <td>{@link Boolean}</td>
+ * <td>Cache the pairwise checks between the values of the classes of a constraint (defaults to true)</td>
+ * </tr>
+ * <tr>
+ * <td>GroupConstraint.PairCacheMaxSize</td>
+ * <td>{@link Integer}</td>
+ * <td>Maximal size (number of pairs, one byte each) of a table of a pair of classes, bigger tables are not cached (defaults to 262144)</td>
+ * </tr>
+ * <tr>
+ * <td>GroupConstraint.PairCacheMaxTotalSize</td>
+ * <td>{@link Long}</td>
+ * <td>Maximal total size of all the tables of all the group constraints of the model (defaults to 16777216, i.e., 16 MB; -1 for no limit).
+ * When the limit is reached, no more tables are created and the checks are computed each time, until some tables are dropped (e.g.,
+ * a domain has changed or a class was removed from a constraint).</td>
+ * </tr>
+ * </table>
  * 
  * @version CourseTT 1.3 (University Course Timetabling)<br>
  *          Copyright (C) 2006 - 2014 Tomas Muller<br>
@@ -122,6 +149,9 @@ public class GroupConstraint extends ConstraintWithContext<Lecture, Placement, G
     private int iForwardCheckMaxDepth = 2;
     private int iForwardCheckMaxDomainSize = 1000;
     private int iNrWorkDays = 5;
+    private boolean iPairCacheEnabled = true;
+    private int iPairCacheMaxSize = 262144;
+    private PairCache iPairCache = null;
     
     /**
      * Group constraints that can be checked on pairs of classes (e.g., same room means any two classes are in the same room),
@@ -807,6 +837,8 @@ public class GroupConstraint extends ConstraintWithContext<Lecture, Placement, G
         }
         /** Pair check */
         private PairCheck check() { return iCheck; }
+        /** Assignment dependent pair check */
+        private AssignmentPairCheck assignmentCheck() { return iAssignmentCheck; }
     }
 
     public GroupConstraint() {
@@ -823,11 +855,15 @@ public class GroupConstraint extends ConstraintWithContext<Lecture, Placement, G
             iForwardCheckMaxDomainSize = config.getPropertyInt("ForwardCheck.MaxDomainSize", iForwardCheckMaxDomainSize);
             iMaxNHoursADayConsiderDatePatterns = config.getPropertyBoolean("MaxNHoursADay.ConsiderDatePatterns", iMaxNHoursADayConsiderDatePatterns);
             iNrWorkDays = (config.getPropertyInt("General.LastWorkDay", 4) - config.getPropertyInt("General.FirstWorkDay", 0) + 1);
+            iPairCacheEnabled = config.getPropertyBoolean("GroupConstraint.PairCache", iPairCacheEnabled);
+            iPairCacheMaxSize = config.getPropertyInt("GroupConstraint.PairCacheMaxSize", iPairCacheMaxSize);
         }
+        clearPairCache();
     }
 
     @Override
     public void addVariable(Lecture lecture) {
+        clearPairCache();
         if (!variables().contains(lecture))
             super.addVariable(lecture);
         if (getType().is(Flag.CH_NOTOVERLAP)) {
@@ -844,6 +880,7 @@ public class GroupConstraint extends ConstraintWithContext<Lecture, Placement, G
 
     @Override
     public void removeVariable(Lecture lecture) {
+        clearPairCache();
         if (variables().contains(lecture))
             super.removeVariable(lecture);
         if (getType().is(Flag.CH_NOTOVERLAP)) {
@@ -1783,11 +1820,52 @@ public class GroupConstraint extends ConstraintWithContext<Lecture, Placement, G
     }
 
     public boolean isSatisfiedPair(Assignment<Lecture, Placement> assignment, Placement plc1, Placement plc2) {
+        boolean satisfied;
         if (iIsRequired || (!iIsProhibited && iPreference <= 0))
-            return getType().isSatisfied(assignment, this, plc1, plc2);
+            satisfied = true;
         else if (iIsProhibited || (!iIsRequired && iPreference > 0))
-            return getType().isViolated(assignment, this, plc1, plc2);
-        return true;
+            satisfied = false;
+        else
+            return true;
+        if (iPairCacheEnabled && getType().check() != null) {
+            PairCache cache = iPairCache;
+            if (cache == null) {
+                cache = new PairCache();
+                iPairCache = cache;
+            }
+            if (!cache.check(plc1, plc2, satisfied)) return false;
+            AssignmentPairCheck check = getType().assignmentCheck();
+            if (check != null && assignment != null)
+                return (satisfied ? check.isSatisfied(assignment, this, plc1, plc2) : check.isViolated(assignment, this, plc1, plc2));
+            return true;
+        }
+        return (satisfied ? getType().isSatisfied(assignment, this, plc1, plc2) : getType().isViolated(assignment, this, plc1, plc2));
+    }
+    
+    /** Drop the pair cache, releasing its tables from the budget of the model */
+    private void clearPairCache() {
+        PairCache cache = iPairCache;
+        iPairCache = null;
+        if (cache != null)
+            cache.release();
+    }
+    
+    /**
+     * Create the tables of the pair cache between the given class and the other classes of the constraint, so that they
+     * are not created concurrently when the values of the class are evaluated by multiple threads (see
+     * {@link org.cpsolver.coursett.heuristics.PlacementSelection}). The tables are still filled lazily, which is safe as an
+     * entry is only ever set to the same value.
+     * @param lecture a class of this constraint
+     */
+    public void preparePairCache(Lecture lecture) {
+        if (iPairCacheEnabled && getType().check() != null) {
+            PairCache cache = iPairCache;
+            if (cache == null) {
+                cache = new PairCache();
+                iPairCache = cache;
+            }
+            cache.prepare(lecture);
+        }
     }
     
     public boolean canShareRoom() {
@@ -1850,4 +1928,131 @@ public class GroupConstraint extends ConstraintWithContext<Lecture, Placement, G
         
         public int getPreference() { return iLastPreference; }
     }
+    
+    /**
+     * Lazily filled cache of the assignment independent part of the pair check ({@link PairCheck}) between
+     * the values of two classes of the constraint. Values are identified by their index in the cached domain of
+     * the class ({@link Placement#getIndex()}), a table of a pair of classes is re-created when the domain
+     * of one of the two classes changes (a different list or a list of a different size). Classes with domains that are not cached and tables bigger than
+     * GroupConstraint.PairCacheMaxSize are not cached, nor are the tables that would exceed the model-wide limit
+     * GroupConstraint.PairCacheMaxTotalSize (see {@link TimetableModel#reservePairCache(long)}). The cache is shared among
+     * assignments, as the cached checks do not depend on the assignment. It can be read and filled by multiple threads: the
+     * tables only have final fields and they are created under a lock, an entry is only ever changed from 0 to the same computed value.
+     */
+    private class PairCache {
+        private final Map<Lecture, Integer> iIndexes = new HashMap<Lecture, Integer>();
+        private final PairTable[] iTables;
+        private final int iNrLectures;
+        private final TimetableModel iModel;
+        private boolean iReleased = false;
+        
+        private PairCache() {
+            iModel = (getModel() instanceof TimetableModel ? (TimetableModel) getModel() : null);
+            iNrLectures = variables().size();
+            for (int i = 0; i < iNrLectures; i++)
+                iIndexes.put(variables().get(i), i);
+            iTables = new PairTable[iNrLectures * iNrLectures];
+        }
+        
+        private boolean compute(Placement plc1, Placement plc2, boolean satisfied) {
+            return (satisfied ? getType().check().isSatisfied(GroupConstraint.this, plc1, plc2) : getType().check().isViolated(GroupConstraint.this, plc1, plc2));
+        }
+        
+        /** True if the table is null or it was not created for the given pair of domains */
+        private boolean isStale(PairTable table, List<Placement> d1, List<Placement> d2) {
+            return table == null || table.iFirst != d1 || table.iSecond != d2 || table.iFirstSize != d1.size() || table.iSecondSize != d2.size();
+        }
+        
+        /** Table of the given pair of domains, null if too big or if there is no space left in the budget of the model */
+        private PairTable table(int i1, List<Placement> d1, int i2, List<Placement> d2) {
+            PairTable table = iTables[i1 * iNrLectures + i2];
+            if (isStale(table, d1, d2)) {
+                long size = ((long)d1.size()) * d2.size();
+                if (size > iPairCacheMaxSize) return null;
+                synchronized (this) {
+                    table = iTables[i1 * iNrLectures + i2];
+                    if (!isStale(table, d1, d2)) return table;
+                    if (iReleased) return null;
+                    if (table != null) {
+                        iTables[i1 * iNrLectures + i2] = null;
+                        if (iModel != null) iModel.releasePairCache(table.iData.length);
+                    }
+                    if (iModel != null && !iModel.reservePairCache(size)) return null;
+                    table = new PairTable(d1, d2);
+                    iTables[i1 * iNrLectures + i2] = table;
+                }
+            }
+            return table;
+        }
+        
+        /** Drop all the tables, releasing them from the budget of the model */
+        private synchronized void release() {
+            iReleased = true;
+            for (int i = 0; i < iTables.length; i++) {
+                if (iTables[i] != null) {
+                    if (iModel != null) iModel.releasePairCache(iTables[i].iData.length);
+                    iTables[i] = null;
+                }
+            }
+        }
+        
+        /** Create the tables between the given class and the other classes (if their domains are cached) */
+        private void prepare(Lecture lecture) {
+            Integer i1 = iIndexes.get(lecture);
+            List<Placement> d1 = lecture.getCachedValues();
+            if (i1 == null || d1 == null) return;
+            for (int i2 = 0; i2 < iNrLectures; i2++) {
+                if (i2 == i1) continue;
+                List<Placement> d2 = variables().get(i2).getCachedValues();
+                if (d2 == null) continue;
+                table(i1, d1, i2, d2);
+                table(i2, d2, i1, d1);
+            }
+        }
+        
+        /** True if the placement is the value of the given index in the given domain */
+        private boolean isIndexed(List<Placement> domain, Placement placement) {
+            int index = placement.getIndex();
+            return index >= 0 && index < domain.size() && domain.get(index) == placement;
+        }
+        
+        /**
+         * Assignment independent part of {@link GroupConstraint#isSatisfiedPair(Assignment, Placement, Placement)}
+         * @param plc1 first placement
+         * @param plc2 second placement
+         * @param satisfied true if {@link PairCheck#isSatisfied(GroupConstraint, Placement, Placement)} is to be checked, {@link PairCheck#isViolated(GroupConstraint, Placement, Placement)} otherwise
+         * @return result of the pair check
+         */
+        private boolean check(Placement plc1, Placement plc2, boolean satisfied) {
+            Integer i1 = iIndexes.get(plc1.variable()), i2 = iIndexes.get(plc2.variable());
+            if (i1 == null || i2 == null || i1.equals(i2)) return compute(plc1, plc2, satisfied);
+            List<Placement> d1 = plc1.variable().getCachedValues(), d2 = plc2.variable().getCachedValues();
+            if (d1 == null || d2 == null || !isIndexed(d1, plc1) || !isIndexed(d2, plc2)) return compute(plc1, plc2, satisfied);
+            PairTable table = table(i1, d1, i2, d2);
+            if (table == null) return compute(plc1, plc2, satisfied);
+            int idx = plc1.getIndex() * table.iSecondSize + plc2.getIndex();
+            byte cached = table.iData[idx];
+            if (cached == 0) {
+                boolean ret = compute(plc1, plc2, satisfied);
+                table.iData[idx] = (byte)(ret ? 1 : 2);
+                return ret;
+            }
+            return cached == 1;
+        }
+    }
+    
+    /** Cached pair checks of two domains (0 not computed, 1 check passed, 2 check failed) */
+    private static class PairTable {
+        private final List<Placement> iFirst, iSecond;
+        private final int iFirstSize, iSecondSize;
+        private final byte[] iData;
+        
+        private PairTable(List<Placement> first, List<Placement> second) {
+            iFirst = first;
+            iSecond = second;
+            iFirstSize = first.size();
+            iSecondSize = second.size();
+            iData = new byte[iFirstSize * iSecondSize];
+        }
+    }
 }
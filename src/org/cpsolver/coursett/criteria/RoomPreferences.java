@@ -50,6 +50,12 @@ public class RoomPreferences extends TimetablingCriterion {
         return value.getRoomPenalty();
     }
     
+    /** The value of a placement does not depend on the other placements, the delta evaluation is exact */
+    @Override
+    public boolean isDeltaExact() {
+        return true;
+    }
+
     @Override
     public double getValue(Assignment<Lecture, Placement> assignment, Placement value, Set<Placement> conflicts) {
         if (value.variable().isCommitted()) return 0.0;
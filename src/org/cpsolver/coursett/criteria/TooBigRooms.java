@@ -51,6 +51,12 @@ public class TooBigRooms extends TimetablingCriterion {
         return "Placement.TooBigRoomWeight";
     }
 
+    /** The value of a placement does not depend on the other placements, the delta evaluation is exact */
+    @Override
+    public boolean isDeltaExact() {
+        return true;
+    }
+
     @Override
     public double getValue(Assignment<Lecture, Placement> assignment, Placement value, Set<Placement> conflicts) {
         double ret = getTooBigRoomPreference(value);
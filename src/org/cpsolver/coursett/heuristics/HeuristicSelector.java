@@ -101,6 +101,18 @@ public class HeuristicSelector<E> {
                 * (iBestValueZero < 0.0 ? 1.0 - iThreshKoef[0] : 1.0 + iThreshKoef[0])));
     }
 
+    /**
+     * Adds all the elements of the given selector (in the order in which they were inserted). When the
+     * selectors are built on consecutive parts of a list and merged in the same order, the resulting
+     * {@link HeuristicSelector#selection()} is the same as if all the objects were added to one selector.
+     *
+     * @param selector a selector to be merged into this one
+     */
+    public void merge(HeuristicSelector<E> selector) {
+        for (Element element : selector.iElements)
+            add(element.getValues(), element.getObject());
+    }
+
     /**
      * Do the selection.
      * 
@@ -2,21 +2,34 @@ package org.cpsolver.coursett.heuristics;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
+import org.cpsolver.coursett.constraint.GroupConstraint;
 import org.cpsolver.coursett.criteria.TimetablingCriterion;
 import org.cpsolver.coursett.model.Lecture;
 import org.cpsolver.coursett.model.Placement;
 import org.cpsolver.coursett.model.TimetableModel;
 import org.cpsolver.ifs.assignment.Assignment;
+import org.cpsolver.ifs.assignment.InheritedAssignment;
+import org.cpsolver.ifs.assignment.context.HasAssignmentContext;
 import org.cpsolver.ifs.criteria.Criterion;
 import org.cpsolver.ifs.extension.Extension;
 import org.cpsolver.ifs.extension.MacPropagation;
 import org.cpsolver.ifs.heuristics.ValueSelection;
+import org.cpsolver.ifs.model.Constraint;
+import org.cpsolver.ifs.model.GlobalConstraint;
+import org.cpsolver.ifs.model.Neighbour;
 import org.cpsolver.ifs.solution.Solution;
 import org.cpsolver.ifs.solver.Solver;
+import org.cpsolver.ifs.solver.SolverStopListener;
 import org.cpsolver.ifs.util.DataProperties;
+import org.cpsolver.ifs.util.HotPathMetrics;
 import org.cpsolver.ifs.util.ToolBox;
 
 
@@ -67,6 +80,28 @@ import org.cpsolver.ifs.util.ToolBox;
  * <td>{@link Double}</td>
  * <td>MPP: limit on the perturbations penalty (-1 for no limit)</td>
  * </tr>
+ * <tr>
+ * <td>Placement.ParallelEvaluation</td>
+ * <td>{@link Integer}</td>
+ * <td>Number of threads used to evaluate the values of the selected variable
+ * (defaults to 1, i.e., no parallel evaluation; -1 for the number of available
+ * processors). The domain is split into chunks that are evaluated on a fork-join
+ * pool of the given parallelism (owned by the selection and shut down when the solver
+ * stops), each into its own {@link HeuristicSelector}; the selectors are then merged
+ * in the order of the chunks, so that the selection is the same as when the values
+ * are evaluated one by one. Only used when the threshold selection
+ * (Placement.UseThreshold) is enabled and the assignment is not an inherited one.
+ * The assignment contexts of the model are created and the pair caches of the group
+ * constraints of the selected class are prepared before the evaluation starts; the
+ * constraints and criteria are only read during the evaluation, but they must be
+ * safe to read concurrently.</td>
+ * </tr>
+ * <tr>
+ * <td>Placement.ParallelMinDomainSize</td>
+ * <td>{@link Integer}</td>
+ * <td>Minimal number of values of a variable for the parallel evaluation to be
+ * used (defaults to 200)</td>
+ * </tr>
  * </table>
  * <br>
  * Parameters (for each level of selection):
@@ -217,12 +252,49 @@ public class PlacementSelection implements ValueSelection<Lecture, Placement> {
 
     private boolean iCanUnassingSingleton = false;
 
+    private int iNrEvaluationThreads = 1;
+    public static final String PARALLEL_EVALUATION = "Placement.ParallelEvaluation";
+    private int iParallelMinDomainSize = 200;
+    public static final String PARALLEL_MIN_DOMAIN_SIZE = "Placement.ParallelMinDomainSize";
+    private ForkJoinPool iEvaluationPool = null;
+    private SolverStopListener<Lecture, Placement> iStopListener = null;
+    private Map<Assignment<Lecture, Placement>, Integer> iPreparedAssignments = Collections.synchronizedMap(new WeakHashMap<Assignment<Lecture, Placement>, Integer>());
+
     @Override
     public void init(Solver<Lecture, Placement> solver) {
         for (Extension<Lecture, Placement> extension : solver.getExtensions()) {
             if (MacPropagation.class.isInstance(extension))
                 iProp = (MacPropagation<Lecture, Placement>) extension;
         }
+        if (iNrEvaluationThreads > 1) {
+            if (iStopListener == null)
+                iStopListener = new SolverStopListener<Lecture, Placement>() {
+                    @Override
+                    public boolean variableSelected(Assignment<Lecture, Placement> assignment, long iteration, Lecture variable) { return true; }
+                    @Override
+                    public boolean valueSelected(Assignment<Lecture, Placement> assignment, long iteration, Lecture variable, Placement value) { return true; }
+                    @Override
+                    public boolean neighbourSelected(Assignment<Lecture, Placement> assignment, long iteration, Neighbour<Lecture, Placement> neighbour) { return true; }
+                    @Override
+                    public void neighbourFailed(Assignment<Lecture, Placement> assignment, long iteration, Neighbour<Lecture, Placement> neighbour) {}
+                    @Override
+                    public void solverStopped(Solver<Lecture, Placement> solver) { shutdown(); }
+                };
+            solver.removeSolverListener(iStopListener);
+            solver.addSolverListener(iStopListener);
+        }
+    }
+
+    /**
+     * Shut down the pool of the parallel evaluation. This is called automatically when the solver stops,
+     * the pool is created again when needed.
+     */
+    public synchronized void shutdown() {
+        if (iEvaluationPool != null) {
+            iEvaluationPool.shutdownNow();
+            iEvaluationPool = null;
+        }
+        iPreparedAssignments.clear();
     }
 
     public PlacementSelection(DataProperties properties) {
@@ -240,6 +312,10 @@ public class PlacementSelection implements ValueSelection<Lecture, Placement> {
         iUseThreshold = properties.getPropertyBoolean("Placement.UseThreshold", USE_THRESHOLD);
         for (int level = 0; level < NR_LEVELS; level++)
             iThresholdKoef[level] = (USE_THRESHOLD ? properties.getPropertyDouble(NR_THRESHOLD_KOEF + (level + 1), (level == 0 ? 0.1 : 0.0)) : 0.0);
+        iNrEvaluationThreads = properties.getPropertyInt(PARALLEL_EVALUATION, iNrEvaluationThreads);
+        if (iNrEvaluationThreads < 0)
+            iNrEvaluationThreads = Runtime.getRuntime().availableProcessors();
+        iParallelMinDomainSize = properties.getPropertyInt(PARALLEL_MIN_DOMAIN_SIZE, iParallelMinDomainSize);
     }
 
     @Override
@@ -251,7 +327,7 @@ public class PlacementSelection implements ValueSelection<Lecture, Placement> {
         TimetableModel model = (TimetableModel) solution.getModel();
         Assignment<Lecture, Placement> assignment = solution.getAssignment();
         if (selectedVariable.getInitialAssignment() != null) {
-            if (iMPPLimit >= 0 && model.perturbVariables(assignment).size() >= iMPPLimit) {
+            if (iMPPLimit >= 0 && model.nrPerturbVariables(assignment) >= iMPPLimit) {
                 if (!containsItselfSingletonOrCommited(model, model.conflictValues(assignment, selectedVariable.getInitialAssignment()), selectedVariable.getInitialAssignment()))
                     return selectedVariable.getInitialAssignment();
             } else if (iMPPPenaltyLimit >= 0.0 && solution.getPerturbationsCounter() != null && solution.getPerturbationsCounter().getPerturbationPenalty(assignment, model) > iMPPPenaltyLimit) {
@@ -286,31 +362,24 @@ public class PlacementSelection implements ValueSelection<Lecture, Placement> {
         long[] bestCost = new long[NR_LEVELS];
         List<Placement> selectionValues = null;
 
-        HeuristicSelector<Placement> selector = (iUseThreshold ? new HeuristicSelector<Placement>(iThresholdKoef) : null);
-        for (Placement value : values) {
-            if (iTabu != null && iTabu.contains(value))
-                continue;
-            if (current != null && current.equals(value))
-                continue;
+        HeuristicSelector<Placement> selector = null;
+        if (iUseThreshold) {
+            if (iNrEvaluationThreads > 1 && values.size() >= iParallelMinDomainSize && !(assignment instanceof InheritedAssignment))
+                selector = evaluateParallel(assignment, model, values, current);
+            else
+                selector = evaluate(assignment, model, values, 0, values.size(), current);
+        } else {
+            for (Placement value : values) {
+                if (iTabu != null && iTabu.contains(value))
+                    continue;
+                if (current != null && current.equals(value))
+                    continue;
 
-            Set<Placement> conflicts = value.variable().getModel().conflictValues(assignment, value);
-            
-            if (containsItselfSingletonOrCommited(model, conflicts, value))
-                continue;
+                Set<Placement> conflicts = value.variable().getModel().conflictValues(assignment, value);
 
-            if (iUseThreshold) {
-                Double flt = selector.firstLevelThreshold();
-                double[] costs = new double[NR_LEVELS];
-                for (int level = 0; level < NR_LEVELS; level++) {
-                    costs[level] = getCost(assignment, level, value, conflicts);
-                    if (level == 0 && flt != null && costs[0] > flt.doubleValue()) {
-                        break;
-                    }
-                }
-                if (flt != null && costs[0] > flt.doubleValue())
+                if (containsItselfSingletonOrCommited(model, conflicts, value))
                     continue;
-                selector.add(costs, value);
-            } else {
+
                 boolean fail = false;
                 boolean best = false;
                 for (int level = 0; !fail && level < 1; level++) {
@@ -373,6 +442,138 @@ public class PlacementSelection implements ValueSelection<Lecture, Placement> {
         return selectedValue;
     }
 
+    /**
+     * Evaluate the values of the given sub-list of the domain, using the threshold (multi-level) selection
+     * @param assignment current assignment
+     * @param model problem model
+     * @param values domain of the selected variable
+     * @param from index of the first value to evaluate
+     * @param to index after the last value to evaluate
+     * @param current current value of the selected variable (if assigned)
+     * @return selector containing the values that are good enough to be selected
+     */
+    protected HeuristicSelector<Placement> evaluate(Assignment<Lecture, Placement> assignment, TimetableModel model, List<Placement> values, int from, int to, Placement current) {
+        HeuristicSelector<Placement> selector = new HeuristicSelector<Placement>(iThresholdKoef);
+        for (int i = from; i < to; i++) {
+            Placement value = values.get(i);
+            if (iTabu != null && iTabu.contains(value))
+                continue;
+            if (current != null && current.equals(value))
+                continue;
+
+            Set<Placement> conflicts = model.conflictValues(assignment, value);
+            
+            if (containsItselfSingletonOrCommited(model, conflicts, value))
+                continue;
+
+            Double flt = selector.firstLevelThreshold();
+            double[] costs = new double[NR_LEVELS];
+            for (int level = 0; level < NR_LEVELS; level++) {
+                costs[level] = getCost(assignment, level, value, conflicts);
+                if (level == 0 && flt != null && costs[0] > flt.doubleValue()) {
+                    break;
+                }
+            }
+            if (flt != null && costs[0] > flt.doubleValue())
+                continue;
+            selector.add(costs, value);
+        }
+        return selector;
+    }
+
+    /**
+     * Evaluate the values of the domain in parallel. The domain is split into consecutive chunks that are
+     * evaluated on the evaluation pool, the resultant selectors are merged in the order of the chunks.
+     * @param assignment current assignment (it is not changed during the evaluation)
+     * @param model problem model
+     * @param values domain of the selected variable
+     * @param current current value of the selected variable (if assigned)
+     * @return selector containing the values that are good enough to be selected
+     */
+    protected HeuristicSelector<Placement> evaluateParallel(Assignment<Lecture, Placement> assignment, TimetableModel model, List<Placement> values, Placement current) {
+        // make sure that the lazily created contexts and caches are there before the threads start reading them
+        prepare(assignment, model, values.get(0).variable());
+        int chunkSize = Math.max(1, (values.size() + iNrEvaluationThreads - 1) / iNrEvaluationThreads);
+        return getEvaluationPool().invoke(new EvaluationTask(assignment, model, values, 0, values.size(), chunkSize, current));
+    }
+
+    /**
+     * Ensure that the assignment contexts of the model (its variables, constraints, global constraints and criteria) exist,
+     * so that they are not created concurrently. This is only done once for each assignment (and again when the number of
+     * variables or constraints changes). The pair caches of the group constraints of the selected variable are prepared
+     * on each call, as they depend on the domain of the variable.
+     */
+    @SuppressWarnings("unchecked")
+    private void prepare(Assignment<Lecture, Placement> assignment, TimetableModel model, Lecture variable) {
+        int size = model.variables().size() + model.constraints().size() + model.globalConstraints().size();
+        Integer prepared = iPreparedAssignments.get(assignment);
+        if (prepared == null || prepared.intValue() != size) {
+            model.getTopology();
+            model.getWeeks();
+            for (Lecture lecture : model.variables()) {
+                lecture.getContext(assignment);
+                lecture.values(assignment);
+            }
+            for (Constraint<Lecture, Placement> constraint : model.constraints())
+                if (constraint instanceof HasAssignmentContext)
+                    ((HasAssignmentContext<Lecture, Placement, ?>) constraint).getContext(assignment);
+            for (GlobalConstraint<Lecture, Placement> constraint : model.globalConstraints())
+                if (constraint instanceof HasAssignmentContext)
+                    ((HasAssignmentContext<Lecture, Placement, ?>) constraint).getContext(assignment);
+            for (Criterion<Lecture, Placement> criterion : model.getCriteria())
+                if (criterion instanceof HasAssignmentContext)
+                    ((HasAssignmentContext<Lecture, Placement, ?>) criterion).getContext(assignment);
+            iPreparedAssignments.put(assignment, size);
+        }
+        for (Constraint<Lecture, Placement> constraint : variable.constraints())
+            if (constraint instanceof GroupConstraint)
+                ((GroupConstraint) constraint).preparePairCache(variable);
+    }
+
+    /**
+     * Fork-join pool used by the parallel evaluation (created when needed)
+     */
+    private synchronized ForkJoinPool getEvaluationPool() {
+        if (iEvaluationPool == null)
+            iEvaluationPool = new ForkJoinPool(iNrEvaluationThreads);
+        return iEvaluationPool;
+    }
+
+    /**
+     * Evaluation of a part of the domain: when the part is bigger than the chunk size, it is split in halves, the second
+     * half is forked and its selector is merged into the selector of the first half.
+     */
+    private class EvaluationTask extends RecursiveTask<HeuristicSelector<Placement>> {
+        private static final long serialVersionUID = 1L;
+        private Assignment<Lecture, Placement> iAssignment;
+        private TimetableModel iModel;
+        private List<Placement> iValues;
+        private int iFrom, iTo, iChunkSize;
+        private Placement iCurrent;
+
+        private EvaluationTask(Assignment<Lecture, Placement> assignment, TimetableModel model, List<Placement> values, int from, int to, int chunkSize, Placement current) {
+            iAssignment = assignment;
+            iModel = model;
+            iValues = values;
+            iFrom = from;
+            iTo = to;
+            iChunkSize = chunkSize;
+            iCurrent = current;
+        }
+
+        @Override
+        protected HeuristicSelector<Placement> compute() {
+            if (iTo - iFrom <= iChunkSize)
+                return evaluate(iAssignment, iModel, iValues, iFrom, iTo, iCurrent);
+            int middle = iFrom + Math.max(1, (iTo - iFrom) / (2 * iChunkSize)) * iChunkSize;
+            EvaluationTask second = new EvaluationTask(iAssignment, iModel, iValues, middle, iTo, iChunkSize, iCurrent);
+            second.fork();
+            HeuristicSelector<Placement> selector = new EvaluationTask(iAssignment, iModel, iValues, iFrom, middle, iChunkSize, iCurrent).compute();
+            selector.merge(second.join());
+            return selector;
+        }
+    }
+
     public boolean containsItselfSingletonOrCommited(TimetableModel model, Set<Placement> values,
             Placement selectedValue) {
         if (values.contains(selectedValue))
@@ -400,7 +601,9 @@ public class PlacementSelection implements ValueSelection<Lecture, Placement> {
 
     private double getCost(Assignment<Lecture, Placement> assignment, int level, Placement value, Set<Placement> conflicts) {
         double ret = 0.0;
+        HotPathMetrics metrics = value.variable().getModel().getHotPathMetrics();
         for (Criterion<Lecture, Placement> criterion: value.variable().getModel().getCriteria()) {
+            long t0 = (metrics == null ? 0 : System.nanoTime());
             if (criterion instanceof TimetablingCriterion) {
                 double w = ((TimetablingCriterion)criterion).getPlacementSelectionWeight(level, assignment.getIndex() - 1);
                 if (w != 0.0)
@@ -408,6 +611,8 @@ public class PlacementSelection implements ValueSelection<Lecture, Placement> {
             } else {
                 ret += criterion.getWeightedValue(assignment, value, conflicts);
             }
+            if (metrics != null)
+                metrics.record(HotPathMetrics.Type.Criterion, criterion.getClass(), t0);
         }
         return ret;
     }
@@ -294,6 +294,17 @@ public class UniversalPerturbationsCounter extends DefaultPerturbationsCounter<L
                 iDeltaTimePreferenceWeight);
         iDistanceMetric = new DistanceMetric(properties);
     }
+    
+    /**
+     * The penalty can be updated incrementally unless it depends on the class limits, the student conflicts,
+     * or the instructor distance preferences (these depend on the assignments of the other classes as well)
+     */
+    @Override
+    protected boolean isPenaltyIncremental() {
+        return iAffectedStudentWeight == 0.0 && iAffectedStudentByTimeWeight == 0.0 && iAffectedStudentByRoomWeight == 0.0
+                && iAffectedStudentByBldgWeight == 0.0 && iTooFarForStudentsWeight == 0.0 && iDeltaStudentConflictsWeight == 0.0
+                && iNewStudentConflictsWeight == 0.0 && iDeltaInstructorDistancePreferenceWeight == 0.0;
+    }
 
     @Override
     protected double getPenalty(Assignment<Lecture, Placement> assignment, Placement assignedPlacement, Placement initialPlacement) {
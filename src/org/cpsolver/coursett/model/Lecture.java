@@ -494,6 +494,14 @@ public class Lecture extends VariableWithContext<Lecture, Placement, Lecture.Lec
     public void clearValueCache() {
         super.setValues(null);
     }
+    
+    /**
+     * Cached domain of the class, without computing it
+     * @return the cached domain, null if the domain is not (yet) cached
+     */
+    public List<Placement> getCachedValues() {
+        return super.values(null);
+    }
 
     /** All values */
     @Override
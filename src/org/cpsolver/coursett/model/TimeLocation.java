@@ -310,13 +310,15 @@ public class TimeLocation {
 
     private int[] iDaysCache = null;
     public int[] getDaysArray() {
-        if (iDaysCache == null) {
-            iDaysCache = new int[getNrMeetings()];
+        int[] days = iDaysCache;
+        if (days == null) {
+            days = new int[getNrMeetings()];
             int i = 0;
             for (Enumeration<Integer> e = getDays(); e.hasMoreElements();)
-                iDaysCache[i++] = e.nextElement();
+                days[i++] = e.nextElement();
+            iDaysCache = days;
         }
-        return iDaysCache;
+        return days;
     }
 
     /** Text representation 
@@ -9,6 +9,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.cpsolver.coursett.Constants;
 import org.cpsolver.coursett.constraint.ClassLimitConstraint;
@@ -101,12 +102,16 @@ public class TimetableModel extends ConstantModel<Lecture, Placement> {
     
     private StudentSectioning iStudentSectioning = null;
     private List<StudentGroup> iStudentGroups = new ArrayList<StudentGroup>();
+    
+    private long iPairCacheMaxTotalSize = 16777216;
+    private AtomicLong iPairCacheTotalSize = new AtomicLong(0);
 
     @SuppressWarnings("unchecked")
     public TimetableModel(DataProperties properties) {
         super();
         iProperties = properties;
         iDistanceMetric = new DistanceMetric(properties);
+        iPairCacheMaxTotalSize = properties.getPropertyLong("GroupConstraint.PairCacheMaxTotalSize", iPairCacheMaxTotalSize);
         if (properties.getPropertyBoolean("OnFlySectioning.Enabled", false)) {
             addModelListener(new OnFlySectioning(this)); iOnFlySectioning = true;
         }
@@ -484,7 +489,8 @@ public class TimetableModel extends ConstantModel<Lecture, Placement> {
      * @return a list of BitSets which represents the weeks of a semester.
      */
     public List<BitSet> getWeeks() {
-        if (iWeeks == null) {
+        List<BitSet> weeks = iWeeks;
+        if (weeks == null) {
             String defaultDatePattern = getProperties().getProperty("DatePattern.CustomDatePattern", null);
             if (defaultDatePattern == null){                
                 defaultDatePattern = getProperties().getProperty("DatePattern.Default");
@@ -521,7 +527,7 @@ public class TimetableModel extends ConstantModel<Lecture, Placement> {
             
             if (fullTerm == null) return null;
             
-            iWeeks = new ArrayList<BitSet>();
+            weeks = new ArrayList<BitSet>();
             if (getProperties().getPropertyBoolean("DatePattern.ShiftWeeks", false)) {
                 // Cut date pattern into weeks (each week takes 7 consecutive bits, starting on the next positive bit)
                 for (int i = fullTerm.nextSetBit(0); i < fullTerm.length(); ) {
@@ -531,7 +537,7 @@ public class TimetableModel extends ConstantModel<Lecture, Placement> {
                     BitSet w = new BitSet(i + 7);
                     for (int j = 0; j < 7; j++)
                         if (fullTerm.get(i + j)) w.set(i + j);
-                    iWeeks.add(w);
+                    weeks.add(w);
                     i += 7;
                 }                
             } else {
@@ -540,12 +546,43 @@ public class TimetableModel extends ConstantModel<Lecture, Placement> {
                     BitSet w = new BitSet(i + 7);
                     for (int j = 0; j < 7; j++)
                         if (fullTerm.get(i + j)) w.set(i + j);
-                    iWeeks.add(w);
+                    weeks.add(w);
                     i += 7;
                 }
             }
+            iWeeks = weeks;
         }
-        return iWeeks;
+        return weeks;
+    }
+    
+    /**
+     * Reserve a part of the model-wide budget of the pair caches of the group constraints (parameter GroupConstraint.PairCacheMaxTotalSize,
+     * the total number of cached pairs of all the constraints of the model, -1 for no limit)
+     * @param size number of pairs of the table that is to be created
+     * @return true if reserved, false if the budget would be exceeded (the table is not to be created)
+     */
+    public boolean reservePairCache(long size) {
+        while (true) {
+            long total = iPairCacheTotalSize.get();
+            if (iPairCacheMaxTotalSize >= 0 && total + size > iPairCacheMaxTotalSize) return false;
+            if (iPairCacheTotalSize.compareAndSet(total, total + size)) return true;
+        }
+    }
+    
+    /**
+     * Release a part of the model-wide budget of the pair caches of the group constraints, e.g., when a table is re-created or dropped
+     * @param size number of pairs of the table that has been dropped
+     */
+    public void releasePairCache(long size) {
+        iPairCacheTotalSize.addAndGet(-size);
+    }
+    
+    /**
+     * Total number of pairs cached by the group constraints of the model
+     * @return total size of the pair caches
+     */
+    public long getPairCacheSize() {
+        return iPairCacheTotalSize.get();
     }
     
     public List<StudentGroup> getStudentGroups() { return iStudentGroups; }
@@ -0,0 +1,103 @@
+package org.cpsolver.exam;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.cpsolver.exam.model.Exam;
+import org.cpsolver.exam.model.ExamModel;
+import org.cpsolver.exam.model.ExamPeriodPlacement;
+import org.cpsolver.exam.model.ExamPlacement;
+import org.cpsolver.exam.model.ExamRoomPlacement;
+import org.cpsolver.ifs.assignment.Assignment;
+import org.cpsolver.ifs.util.SolutionCheckpoint;
+
+/**
+ * Binary checkpoint of an examination timetabling solution. A placement is encoded as the index
+ * of its period in {@link Exam#getPeriodPlacements()} followed by the indexes of its rooms in {@link Exam#getRoomPlacements()},
+ * so that the exam's domain does not need to be computed when the checkpoint is restored.
+ * 
+ * @see SolutionCheckpoint
+ * 
+ * @version ExamTT 1.3 (Examination Timetabling)<br>
+ *          Copyright (C) 2017 Tomas Muller<br>
+ *          <a href="mailto:muller@unitime.org">muller@unitime.org</a><br>
+ *          <a href="http://muller.unitime.org">http://muller.unitime.org</a><br>
+ * <br>
+ *          This library is free software; you can redistribute it and/or modify
+ *          it under the terms of the GNU Lesser General Public License as
+ *          published by the Free Software Foundation; either version 3 of the
+ *          License, or (at your option) any later version. <br>
+ * <br>
+ *          This library is distributed in the hope that it will be useful, but
+ *          WITHOUT ANY WARRANTY; without even the implied warranty of
+ *          MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *          Lesser General Public License for more details. <br>
+ * <br>
+ *          You should have received a copy of the GNU Lesser General Public
+ *          License along with this library; if not see
+ *          <a href='http://www.gnu.org/licenses/'>http://www.gnu.org/licenses/</a>.
+ */
+public class ExamCheckpoint extends SolutionCheckpoint<Exam, ExamPlacement, ExamModel> {
+    private Map<Exam, ExamIndex> iIndexes = new HashMap<Exam, ExamIndex>();
+
+    /**
+     * Constructor
+     * @param model a loaded examination timetabling model
+     */
+    public ExamCheckpoint(ExamModel model) {
+        super(model);
+    }
+
+    @Override
+    protected int[] encode(Assignment<Exam, ExamPlacement> assignment, Exam exam, ExamPlacement placement) {
+        ExamIndex index = getIndex(exam);
+        int[] encoded = new int[1 + placement.getRoomPlacements().size()];
+        Integer period = index.iPeriods.get(placement.getPeriodPlacement());
+        if (period == null) return null;
+        encoded[0] = period;
+        int idx = 1;
+        for (ExamRoomPlacement room: placement.getRoomPlacements()) {
+            Integer r = index.iRooms.get(room);
+            if (r == null) return null;
+            encoded[idx++] = r;
+        }
+        return encoded;
+    }
+
+    @Override
+    protected ExamPlacement decode(Assignment<Exam, ExamPlacement> assignment, Exam exam, int[] encoded) {
+        if (encoded.length == 0 || encoded[0] < 0 || encoded[0] >= exam.getPeriodPlacements().size()) return null;
+        Set<ExamRoomPlacement> rooms = new HashSet<ExamRoomPlacement>();
+        for (int i = 1; i < encoded.length; i++) {
+            if (encoded[i] < 0 || encoded[i] >= exam.getRoomPlacements().size()) return null;
+            rooms.add(exam.getRoomPlacements().get(encoded[i]));
+        }
+        return new ExamPlacement(exam, exam.getPeriodPlacements().get(encoded[0]), rooms);
+    }
+
+    private ExamIndex getIndex(Exam exam) {
+        ExamIndex index = iIndexes.get(exam);
+        if (index == null) {
+            index = new ExamIndex(exam);
+            iIndexes.put(exam, index);
+        }
+        return index;
+    }
+
+    /**
+     * Indexes of the available periods and rooms of an exam, so that the lists are not searched for each placement
+     */
+    private static class ExamIndex {
+        private Map<ExamPeriodPlacement, Integer> iPeriods = new HashMap<ExamPeriodPlacement, Integer>();
+        private Map<ExamRoomPlacement, Integer> iRooms = new HashMap<ExamRoomPlacement, Integer>();
+
+        private ExamIndex(Exam exam) {
+            for (ExamPeriodPlacement period: exam.getPeriodPlacements())
+                if (!iPeriods.containsKey(period)) iPeriods.put(period, iPeriods.size());
+            for (ExamRoomPlacement room: exam.getRoomPlacements())
+                if (!iRooms.containsKey(room)) iRooms.put(room, iRooms.size());
+        }
+    }
+}
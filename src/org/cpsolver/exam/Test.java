@@ -53,6 +53,7 @@ import org.cpsolver.exam.reports.ExamCourseSectionAssignments;
 import org.cpsolver.exam.reports.ExamInstructorConflicts;
 import org.cpsolver.exam.reports.ExamNbrMeetingsPerDay;
 import org.cpsolver.exam.reports.ExamPeriodUsage;
+import org.cpsolver.exam.reports.ExamReport;
 import org.cpsolver.exam.reports.ExamRoomSchedule;
 import org.cpsolver.exam.reports.ExamRoomSplit;
 import org.cpsolver.exam.reports.ExamStudentBackToBackConflicts;
@@ -67,9 +68,13 @@ import org.cpsolver.ifs.assignment.DefaultParallelAssignment;
 import org.cpsolver.ifs.assignment.DefaultSingleAssignment;
 import org.cpsolver.ifs.solution.Solution;
 import org.cpsolver.ifs.solution.SolutionListener;
+import org.cpsolver.ifs.solver.DecompositionSolver;
+import org.cpsolver.ifs.solver.IncrementalSolver;
 import org.cpsolver.ifs.solver.ParallelSolver;
 import org.cpsolver.ifs.solver.Solver;
+import org.cpsolver.ifs.util.CSVOutput;
 import org.cpsolver.ifs.util.DataProperties;
+import org.cpsolver.ifs.util.ParallelReports;
 import org.cpsolver.ifs.util.Progress;
 import org.cpsolver.ifs.util.ToolBox;
 import org.dom4j.Document;
@@ -81,9 +86,10 @@ import org.dom4j.io.XMLWriter;
  * An examination timetabling test program. The following steps are performed:
  * <ul>
  * <li>Input properties are loaded
- * <li>Input problem is loaded (General.Input property)
+ * <li>Input problem is loaded (General.Input property), the solution is restored from a checkpoint when the
+ * General.Checkpoint property is set and the file exists
  * <li>Problem is solved (using the given properties)
- * <li>Solution is save (General.OutputFile property)
+ * <li>Solution is save (General.OutputFile property), a checkpoint is saved when General.Checkpoint property is set
  * </ul>
  * <br>
  * <br>
@@ -150,31 +156,37 @@ public class Test {
      * @throws IOException may be thrown when writing fails
      **/
     public static void createReports(ExamModel model, Assignment<Exam, ExamPlacement> assignment, File outDir, String outName) throws IOException {
-        new ExamAssignments(model).report(assignment).save(new File(outDir, outName + ".schdex.csv"));
-
-        new ExamCourseSectionAssignments(model).report(assignment).save(new File(outDir, outName + ".schdcs.csv"));
-
-        new ExamStudentConflicts(model).report(assignment).save(new File(outDir, outName + ".sconf.csv"));
-
-        new ExamInstructorConflicts(model).report(assignment).save(new File(outDir, outName + ".iconf.csv"));
-
-        new ExamStudentConflictsPerExam(model).report(assignment).save(new File(outDir, outName + ".sconfex.csv"));
-
-        new ExamStudentDirectConflicts(model).report(assignment).save(new File(outDir, outName + ".sdir.csv"));
-
-        new ExamStudentBackToBackConflicts(model).report(assignment).save(new File(outDir, outName + ".sbtb.csv"));
-
-        new ExamStudentMoreTwoADay(model).report(assignment).save(new File(outDir, outName + ".sm2d.csv"));
-
-        new ExamPeriodUsage(model).report(assignment).save(new File(outDir, outName + ".per.csv"));
-
-        new ExamRoomSchedule(model).report(assignment).save(new File(outDir, outName + ".schdr.csv"));
-
-        new ExamRoomSplit(model).report(assignment).save(new File(outDir, outName + ".rsplit.csv"));
-
-        new ExamNbrMeetingsPerDay(model).report(assignment).save(new File(outDir, outName + ".distmpd.csv"));
+        createReports(model, assignment, outDir, outName, model.getProperties().getPropertyInt("Reports.NrThreads", 1));
+    }
 
-        new ExamStudentConflictsBySectionCourse(model).report(assignment).save(new File(outDir, outName + ".sconfcs.csv"));
+    /** Generate exam reports. The reports are independent of each other, they are streamed into their files in parallel.
+     * @param model problem model
+     * @param assignment current assignment
+     * @param outDir output folder
+     * @param outName output file name prefix
+     * @param nrThreads number of threads to use, -1 for the number of available processors (the assignment contexts that the reports
+     * use need to exist beforehand, they are not created concurrently; Reports.NrThreads defaults to 1)
+     * @throws IOException thrown when some of the reports failed
+     **/
+    public static void createReports(ExamModel model, final Assignment<Exam, ExamPlacement> assignment, File outDir, String outName, int nrThreads) throws IOException {
+        String[] suffixes = new String[] {
+                "schdex", "schdcs", "sconf", "iconf", "sconfex", "sdir", "sbtb", "sm2d", "per", "schdr", "rsplit", "distmpd", "sconfcs" };
+        ExamReport[] instances = new ExamReport[] {
+                new ExamAssignments(model), new ExamCourseSectionAssignments(model), new ExamStudentConflicts(model),
+                new ExamInstructorConflicts(model), new ExamStudentConflictsPerExam(model), new ExamStudentDirectConflicts(model),
+                new ExamStudentBackToBackConflicts(model), new ExamStudentMoreTwoADay(model), new ExamPeriodUsage(model),
+                new ExamRoomSchedule(model), new ExamRoomSplit(model), new ExamNbrMeetingsPerDay(model),
+                new ExamStudentConflictsBySectionCourse(model) };
+        ParallelReports reports = new ParallelReports(nrThreads);
+        for (int i = 0; i < instances.length; i++) {
+            final ExamReport report = instances[i];
+            reports.add(new File(outDir, outName + "." + suffixes[i] + ".csv"), new ParallelReports.Report() {
+                @Override
+                public void write(CSVOutput csv) { report.report(assignment, csv); }
+            });
+        }
+        if (!reports.execute())
+            throw new IOException("Failed to create some of the reports, see the log for details.");
     }
 
     public static class ShutdownHook extends Thread {
@@ -192,6 +204,8 @@ public class Test {
                     iSolver.stopSolver();
                 Solution<Exam, ExamPlacement> solution = iSolver.lastSolution();
                 Progress.removeInstance(solution.getModel());
+                if (iSolver.getProperties().getProperty("General.Checkpoint") != null)
+                    new ExamCheckpoint((ExamModel) solution.getModel()).save(solution.getAssignment(), new File(iSolver.getProperties().getProperty("General.Checkpoint")));
                 if (solution.getBestInfo() == null) {
                     sLog.error("No best solution found.");
                 } else
@@ -391,7 +405,15 @@ public class Test {
             Assignment<Exam, ExamPlacement> assignment = (nrSolvers <= 1 ? new DefaultSingleAssignment<Exam, ExamPlacement>() : new DefaultParallelAssignment<Exam, ExamPlacement>());
             model.load(document, assignment);
 
-            Solver<Exam, ExamPlacement> solver = (nrSolvers == 1 ? new Solver<Exam, ExamPlacement>(cfg) : new ParallelSolver<Exam, ExamPlacement>(cfg));
+            Solver<Exam, ExamPlacement> solver = null;
+            if (nrSolvers != 1)
+                solver = new ParallelSolver<Exam, ExamPlacement>(cfg);
+            else if (cfg.getPropertyBoolean("Decomposition.Enabled", false))
+                solver = new DecompositionSolver<Exam, ExamPlacement>(cfg);
+            else if (cfg.getPropertyBoolean("Incremental.Enabled", false))
+                solver = new IncrementalSolver<Exam, ExamPlacement>(cfg);
+            else
+                solver = new Solver<Exam, ExamPlacement>(cfg);
             solver.setInitalSolution(new Solution<Exam, ExamPlacement>(model, assignment));
 
             solver.currentSolution().addSolutionListener(new SolutionListener<Exam, ExamPlacement>() {
@@ -1,5 +1,7 @@
 package org.cpsolver.exam.model;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashSet;
@@ -14,6 +16,7 @@ import java.util.TreeSet;
 
 import org.apache.log4j.Logger;
 import org.cpsolver.coursett.IdConvertor;
+import org.cpsolver.exam.ExamCheckpoint;
 import org.cpsolver.exam.criteria.DistributionPenalty;
 import org.cpsolver.exam.criteria.ExamCriterion;
 import org.cpsolver.exam.criteria.ExamRotationPenalty;
@@ -797,7 +800,9 @@ public class ExamModel extends ModelWithContext<Exam, ExamPlacement, ExamContext
     }
 
     /**
-     * Load model (including its solution) from XML.
+     * Load model (including its solution) from XML. When the General.Checkpoint property is set and the
+     * checkpoint file exists, the best and the current assignment are restored from the checkpoint (see {@link ExamCheckpoint})
+     * instead of the solution contained in the XML document.
      * @param document XML document
      * @param assignment assignment to be loaded
      * @param saveBest callback executed once the best assignment is loaded and assigned
@@ -1101,6 +1106,17 @@ public class ExamModel extends ModelWithContext<Exam, ExamPlacement, ExamContext
                 getDistributionConstraints().add(dc);
             }
         init();
+        if (assignment != null && getProperties().getProperty("General.Checkpoint") != null) {
+            File checkpoint = new File(getProperties().getProperty("General.Checkpoint"));
+            if (checkpoint.exists()) {
+                try {
+                    new ExamCheckpoint(this).load(assignment, checkpoint, saveBest);
+                    return true;
+                } catch (IOException e) {
+                    sLog.warn("Unable to restore checkpoint " + checkpoint + ": " + e.getMessage());
+                }
+            }
+        }
         if (loadBest && saveBest != null && assignment != null) {
             for (Exam exam : variables()) {
                 ExamPlacement placement = exam.getBestAssignment();
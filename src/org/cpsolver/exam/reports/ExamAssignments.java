@@ -9,6 +9,7 @@ import org.cpsolver.exam.model.ExamPlacement;
 import org.cpsolver.exam.model.ExamRoomPlacement;
 import org.cpsolver.ifs.assignment.Assignment;
 import org.cpsolver.ifs.util.CSVFile;
+import org.cpsolver.ifs.util.CSVOutput;
 import org.cpsolver.ifs.util.CSVFile.CSVField;
 
 
@@ -40,7 +41,7 @@ import org.cpsolver.ifs.util.CSVFile.CSVField;
  *          License along with this library; if not see
  *          <a href='http://www.gnu.org/licenses/'>http://www.gnu.org/licenses/</a>.
  */
-public class ExamAssignments {
+public class ExamAssignments implements ExamReport {
     private ExamModel iModel = null;
 
     /**
@@ -58,8 +59,20 @@ public class ExamAssignments {
      * @param assignment current assignment
      * @return resultant report
      */
+    @Override
     public CSVFile report(Assignment<Exam, ExamPlacement> assignment) {
         CSVFile csv = new CSVFile();
+        report(assignment, csv);
+        return csv;
+    }
+
+    /**
+     * generate report
+     * @param assignment current assignment
+     * @param csv output, e.g., a {@link org.cpsolver.ifs.util.CSVWriter} to stream the report into a file
+     */
+    @Override
+    public void report(Assignment<Exam, ExamPlacement> assignment, CSVOutput csv) {
         csv.setHeader(new CSVField[] { new CSVField("Exam"), new CSVField("Enrl"), new CSVField("Alt"),
                 new CSVField("Period"), new CSVField("Date"), new CSVField("Time"), new CSVField("Room"),
                 new CSVField("Cap") });
@@ -95,6 +108,5 @@ public class ExamAssignments {
             }
             csv.addLine(fields);
         }
-        return csv;
     }
 }
@@ -11,6 +11,7 @@ import org.cpsolver.exam.model.ExamPlacement;
 import org.cpsolver.exam.model.ExamRoomPlacement;
 import org.cpsolver.ifs.assignment.Assignment;
 import org.cpsolver.ifs.util.CSVFile;
+import org.cpsolver.ifs.util.CSVOutput;
 import org.cpsolver.ifs.util.CSVFile.CSVField;
 
 
@@ -43,7 +44,7 @@ import org.cpsolver.ifs.util.CSVFile.CSVField;
  *          License along with this library; if not see
  *          <a href='http://www.gnu.org/licenses/'>http://www.gnu.org/licenses/</a>.
  */
-public class ExamCourseSectionAssignments {
+public class ExamCourseSectionAssignments implements ExamReport {
     private ExamModel iModel = null;
 
     /**
@@ -61,8 +62,20 @@ public class ExamCourseSectionAssignments {
      * @param assignment current assignment
      * @return resultant report
      */
+    @Override
     public CSVFile report(Assignment<Exam, ExamPlacement> assignment) {
         CSVFile csv = new CSVFile();
+        report(assignment, csv);
+        return csv;
+    }
+
+    /**
+     * generate report
+     * @param assignment current assignment
+     * @param csv output, e.g., a {@link org.cpsolver.ifs.util.CSVWriter} to stream the report into a file
+     */
+    @Override
+    public void report(Assignment<Exam, ExamPlacement> assignment, CSVOutput csv) {
         csv.setHeader(new CSVField[] { new CSVField("Section/Course"), new CSVField("Enrl"), new CSVField("Alt"),
                 new CSVField("Period"), new CSVField("Date"), new CSVField("Time"), new CSVField("Room"),
                 new CSVField("Cap") });
@@ -100,6 +113,5 @@ public class ExamCourseSectionAssignments {
                 csv.addLine(fields);
             }
         }
-        return csv;
     }
 }
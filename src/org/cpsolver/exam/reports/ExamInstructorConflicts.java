@@ -11,6 +11,7 @@ import org.cpsolver.exam.model.ExamPlacement;
 import org.cpsolver.exam.model.ExamRoomPlacement;
 import org.cpsolver.ifs.assignment.Assignment;
 import org.cpsolver.ifs.util.CSVFile;
+import org.cpsolver.ifs.util.CSVOutput;
 import org.cpsolver.ifs.util.CSVFile.CSVField;
 
 /**
@@ -42,7 +43,7 @@ import org.cpsolver.ifs.util.CSVFile.CSVField;
  *          License along with this library; if not see
  *          <a href='http://www.gnu.org/licenses/'>http://www.gnu.org/licenses/</a>.
  */
-public class ExamInstructorConflicts {
+public class ExamInstructorConflicts implements ExamReport {
     private ExamModel iModel = null;
 
     /**
@@ -60,8 +61,20 @@ public class ExamInstructorConflicts {
      * @param assignment current assignment
      * @return resultant report
      */
+    @Override
     public CSVFile report(Assignment<Exam, ExamPlacement> assignment) {
         CSVFile csv = new CSVFile();
+        report(assignment, csv);
+        return csv;
+    }
+
+    /**
+     * generate report
+     * @param assignment current assignment
+     * @param csv output, e.g., a {@link org.cpsolver.ifs.util.CSVWriter} to stream the report into a file
+     */
+    @Override
+    public void report(Assignment<Exam, ExamPlacement> assignment, CSVOutput csv) {
         csv.setHeader(new CSVField[] { new CSVField("Instructor"), new CSVField("Type"),
                 new CSVField("Section/Course"), new CSVField("Period"), new CSVField("Day"), new CSVField("Time"),
                 new CSVField("Room"), new CSVField("Distance") });
@@ -247,6 +260,5 @@ public class ExamInstructorConflicts {
                 }
             }
         }
-        return csv;
     }
 }
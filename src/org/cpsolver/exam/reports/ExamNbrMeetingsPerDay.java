@@ -12,6 +12,7 @@ import org.cpsolver.exam.model.ExamPlacement;
 import org.cpsolver.exam.model.ExamStudent;
 import org.cpsolver.ifs.assignment.Assignment;
 import org.cpsolver.ifs.util.CSVFile;
+import org.cpsolver.ifs.util.CSVOutput;
 import org.cpsolver.ifs.util.CSVFile.CSVField;
 
 
@@ -44,7 +45,7 @@ import org.cpsolver.ifs.util.CSVFile.CSVField;
  *          License along with this library; if not see
  *          <a href='http://www.gnu.org/licenses/'>http://www.gnu.org/licenses/</a>.
  */
-public class ExamNbrMeetingsPerDay {
+public class ExamNbrMeetingsPerDay implements ExamReport {
     private ExamModel iModel = null;
 
     /**
@@ -62,8 +63,20 @@ public class ExamNbrMeetingsPerDay {
      * @param assignment current assignment
      * @return resultant report
      */
+    @Override
     public CSVFile report(Assignment<Exam, ExamPlacement> assignment) {
         CSVFile csv = new CSVFile();
+        report(assignment, csv);
+        return csv;
+    }
+
+    /**
+     * generate report
+     * @param assignment current assignment
+     * @param csv output, e.g., a {@link org.cpsolver.ifs.util.CSVWriter} to stream the report into a file
+     */
+    @Override
+    public void report(Assignment<Exam, ExamPlacement> assignment, CSVOutput csv) {
         List<CSVField> header = new ArrayList<CSVField>();
         header.add(new CSVField("Date"));
         header.add(new CSVField("None"));
@@ -113,6 +126,5 @@ public class ExamNbrMeetingsPerDay {
             line.add(new CSVField(nrExamsTotal[i]));
         line.add(new CSVField(btbTotal));
         csv.addLine(line);
-        return csv;
     }
 }
@@ -10,6 +10,7 @@ import org.cpsolver.exam.model.ExamPeriod;
 import org.cpsolver.exam.model.ExamPlacement;
 import org.cpsolver.ifs.assignment.Assignment;
 import org.cpsolver.ifs.util.CSVFile;
+import org.cpsolver.ifs.util.CSVOutput;
 import org.cpsolver.ifs.util.CSVFile.CSVField;
 
 
@@ -41,7 +42,7 @@ import org.cpsolver.ifs.util.CSVFile.CSVField;
  *          License along with this library; if not see
  *          <a href='http://www.gnu.org/licenses/'>http://www.gnu.org/licenses/</a>.
  */
-public class ExamPeriodUsage {
+public class ExamPeriodUsage implements ExamReport {
     private ExamModel iModel = null;
     /** Exam enrollment limits */
     public static int[] sLimits = new int[] { 10, 50, 100, 200 };
@@ -62,8 +63,20 @@ public class ExamPeriodUsage {
      * @param assignment current assignment
      * @return resultant report
      */
+    @Override
     public CSVFile report(Assignment<Exam, ExamPlacement> assignment) {
         CSVFile csv = new CSVFile();
+        report(assignment, csv);
+        return csv;
+    }
+
+    /**
+     * generate report
+     * @param assignment current assignment
+     * @param csv output, e.g., a {@link org.cpsolver.ifs.util.CSVWriter} to stream the report into a file
+     */
+    @Override
+    public void report(Assignment<Exam, ExamPlacement> assignment, CSVOutput csv) {
         List<CSVField> header = new ArrayList<CSVField>();
         header.add(new CSVField("Period"));
         header.add(new CSVField("Date"));
@@ -114,6 +127,5 @@ public class ExamPeriodUsage {
             }
             csv.addLine(line);
         }
-        return csv;
     }
 }
@@ -12,6 +12,7 @@ import org.cpsolver.exam.model.ExamPlacement;
 import org.cpsolver.exam.model.ExamRoom;
 import org.cpsolver.ifs.assignment.Assignment;
 import org.cpsolver.ifs.util.CSVFile;
+import org.cpsolver.ifs.util.CSVOutput;
 import org.cpsolver.ifs.util.CSVFile.CSVField;
 
 
@@ -43,7 +44,7 @@ import org.cpsolver.ifs.util.CSVFile.CSVField;
  *          License along with this library; if not see
  *          <a href='http://www.gnu.org/licenses/'>http://www.gnu.org/licenses/</a>.
  */
-public class ExamRoomSchedule {
+public class ExamRoomSchedule implements ExamReport {
     ExamModel iModel = null;
 
     /**
@@ -56,8 +57,20 @@ public class ExamRoomSchedule {
         iModel = model;
     }
 
+    @Override
     public CSVFile report(Assignment<Exam, ExamPlacement> assignment) {
         CSVFile csv = new CSVFile();
+        report(assignment, csv);
+        return csv;
+    }
+
+    /**
+     * generate report
+     * @param assignment current assignment
+     * @param csv output, e.g., a {@link org.cpsolver.ifs.util.CSVWriter} to stream the report into a file
+     */
+    @Override
+    public void report(Assignment<Exam, ExamPlacement> assignment, CSVOutput csv) {
         csv.setHeader(new CSVField[] { new CSVField("Room"), new CSVField("Cap"), new CSVField("AltCap"),
                 new CSVField("Period"), new CSVField("Date"), new CSVField("Time"), new CSVField("Exam"),
                 new CSVField("Enrl") });
@@ -91,6 +104,5 @@ public class ExamRoomSchedule {
                 }
             }
         }
-        return csv;
     }
 }
@@ -17,6 +17,7 @@ import org.cpsolver.exam.model.ExamRoomPlacement;
 import org.cpsolver.exam.model.ExamStudent;
 import org.cpsolver.ifs.assignment.Assignment;
 import org.cpsolver.ifs.util.CSVFile;
+import org.cpsolver.ifs.util.CSVOutput;
 import org.cpsolver.ifs.util.CSVFile.CSVField;
 
 
@@ -49,7 +50,7 @@ import org.cpsolver.ifs.util.CSVFile.CSVField;
  *          License along with this library; if not see
  *          <a href='http://www.gnu.org/licenses/'>http://www.gnu.org/licenses/</a>.
  */
-public class ExamStudentConflictsBySectionCourse {
+public class ExamStudentConflictsBySectionCourse implements ExamReport {
     private ExamModel iModel = null;
 
     /**
@@ -88,8 +89,20 @@ public class ExamStudentConflictsBySectionCourse {
      * @param assignment current assignment
      * @return resultant report
      */
+    @Override
     public CSVFile report(Assignment<Exam, ExamPlacement> assignment) {
         CSVFile csv = new CSVFile();
+        report(assignment, csv);
+        return csv;
+    }
+
+    /**
+     * generate report
+     * @param assignment current assignment
+     * @param csv output, e.g., a {@link org.cpsolver.ifs.util.CSVWriter} to stream the report into a file
+     */
+    @Override
+    public void report(Assignment<Exam, ExamPlacement> assignment, CSVOutput csv) {
         csv.setHeader(new CSVField[] { new CSVField("Section/Course"), new CSVField("Period"), new CSVField("Day"),
                 new CSVField("Time"), new CSVField("Room"), new CSVField("Student"), new CSVField("Type"),
                 new CSVField("Section/Course"), new CSVField("Period"), new CSVField("Time"), new CSVField("Room"),
@@ -238,6 +251,5 @@ public class ExamStudentConflictsBySectionCourse {
                 }
             }
         }
-        return csv;
     }
 }
@@ -1,5 +1,6 @@
 package org.cpsolver.exam.split;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -14,6 +15,7 @@ import org.cpsolver.exam.model.ExamPeriodPlacement;
 import org.cpsolver.exam.model.ExamPlacement;
 import org.cpsolver.exam.model.ExamRoomPlacement;
 import org.cpsolver.exam.model.ExamStudent;
+import org.cpsolver.exam.split.ExamSplitter.StudentProfile;
 import org.cpsolver.ifs.assignment.Assignment;
 import org.cpsolver.ifs.heuristics.NeighbourSelection;
 import org.cpsolver.ifs.model.Neighbour;
@@ -132,6 +134,17 @@ public class ExamSplitMoves implements NeighbourSelection<Exam, ExamPlacement> {
      * @return best neighbor that will do the split
      */
     public ExamSplitNeighbour bestSplit(Assignment<Exam, ExamPlacement> assignment, Exam exam) {
+        return bestSplit(assignment, exam, new SplitProfile(assignment, exam));
+    }
+    
+    /**
+     * Find a best split for the given exam. Only improving neighbors are considered.
+     * @param assignment current assignment
+     * @param exam an exam to be split
+     * @param profile student conflict profiles of the parent exam and all its children
+     * @return best neighbor that will do the split
+     */
+    protected ExamSplitNeighbour bestSplit(Assignment<Exam, ExamPlacement> assignment, Exam exam, SplitProfile profile) {
         ExamSplitNeighbour split = null;
         ExamPlacement placement = assignment.getValue(exam);
         int px = ToolBox.random(exam.getPeriodPlacements().size());
@@ -139,7 +152,7 @@ public class ExamSplitMoves implements NeighbourSelection<Exam, ExamPlacement> {
             ExamPeriodPlacement period = exam.getPeriodPlacements().get((p + px) % exam.getPeriodPlacements().size());
             if (placement != null && placement.getPeriod().equals(period)) continue;
             // Try to create a neighbor
-            ExamSplitNeighbour s = new ExamSplitNeighbour(assignment, exam, new ExamPlacement(exam, period, null));
+            ExamSplitNeighbour s = new ExamSplitNeighbour(profile, exam, new ExamPlacement(exam, period, null));
             if (split == null || s.value(assignment) < split.value(assignment)) {
                 // If improving, try to find available rooms
                 Set<ExamRoomPlacement> rooms = findBestAvailableRooms(assignment, exam, period, s.nrStudents());
@@ -168,27 +181,129 @@ public class ExamSplitMoves implements NeighbourSelection<Exam, ExamPlacement> {
         // Its children (if already split)
         List<Exam> children = iSplitter.children(parent);
         
+        // Student conflict profiles, shared by all the moves
+        SplitProfile profile = null;
+        
         // Already split -> try shuffle
         if (children != null && !children.isEmpty()) {
-            ExamShuffleNeighbour shuffle = new ExamShuffleNeighbour(assignment, exam);
+            profile = new SplitProfile(assignment, exam);
+            ExamShuffleNeighbour shuffle = new ExamShuffleNeighbour(profile, exam);
             if (shuffle.value(assignment) < 0.0) return shuffle;
         }
         
         // Can split -> try a split
         if (iSplitter.canSplit(exam)) {
-            ExamSplitNeighbour split = bestSplit(solution.getAssignment(), exam);
+            if (profile == null) profile = new SplitProfile(assignment, exam);
+            ExamSplitNeighbour split = bestSplit(solution.getAssignment(), exam, profile);
             if (split != null && split.value(assignment) < 0.0) return split;
         }
         
         // Can merge -> try to merge
         if (iSplitter.canMerge(exam)) {
-            ExamMergeNeighbour merge = new ExamMergeNeighbour(assignment, exam);
+            if (profile == null) profile = new SplitProfile(assignment, exam);
+            ExamMergeNeighbour merge = new ExamMergeNeighbour(profile, exam);
             if (merge.value(assignment) < 0.0) return merge;
         }
 
         return null;
     }
     
+    /**
+     * Student conflict profiles of all the students of a split exam (the parent exam and all its children).
+     * The profiles are computed once and then shared by the evaluation of all the split, merge, and shuffle
+     * moves, instead of looking up the exams of each student for every move and every period.
+     */
+    protected class SplitProfile {
+        private List<Exam> iExams = new ArrayList<Exam>();
+        private List<ExamPlacement> iPlacements = new ArrayList<ExamPlacement>();
+        private List<StudentProfile[]> iProfiles = new ArrayList<StudentProfile[]>();
+        private List<double[]> iRemovals = new ArrayList<double[]>();
+        
+        /**
+         * Compute student profiles of the parent of the given exam and all its children
+         * @param assignment current assignment
+         * @param exam an exam
+         */
+        public SplitProfile(Assignment<Exam, ExamPlacement> assignment, Exam exam) {
+            Exam parent = iSplitter.parent(exam);
+            List<Exam> children = iSplitter.children(parent);
+            iExams.add(parent);
+            if (children != null) iExams.addAll(children);
+            for (Exam x: iExams) {
+                ExamPlacement placement = assignment.getValue(x);
+                StudentProfile[] profiles = new StudentProfile[x.getStudents().size()];
+                double[] removals = new double[profiles.length];
+                int i = 0;
+                for (ExamStudent student: x.getStudents()) {
+                    profiles[i] = iSplitter.new StudentProfile(assignment, student);
+                    // Student conflicts that are removed when the student is moved away from the exam
+                    removals[i] = (placement == null ? 0.0 : -profiles[i].conflicts(placement.getPeriod(), x));
+                    i++;
+                }
+                iPlacements.add(placement);
+                iProfiles.add(profiles);
+                iRemovals.add(removals);
+            }
+        }
+        
+        /**
+         * Number of exams of the split
+         * @return number of exams, the parent exam is first
+         */
+        public int size() { return iExams.size(); }
+        
+        /**
+         * Exam of the split
+         * @param index exam index, parent is 0
+         * @return exam
+         */
+        public Exam getExam(int index) { return iExams.get(index); }
+        
+        /**
+         * Current placement of an exam of the split
+         * @param index exam index, parent is 0
+         * @return current placement
+         */
+        public ExamPlacement getPlacement(int index) { return iPlacements.get(index); }
+        
+        /**
+         * Number of students of an exam of the split
+         * @param index exam index, parent is 0
+         * @return number of students
+         */
+        public int nrStudents(int index) { return iProfiles.get(index).length; }
+        
+        /**
+         * Same as {@link ExamSplitter#delta(Assignment, ExamStudent, ExamPlacement, ExamPlacement)}, computed from the profiles
+         * @param index exam index, parent is 0
+         * @param student student index within the exam
+         * @param placement placement of the exam into which the student would be moved
+         * @return difference in the student conflict weight
+         */
+        public double delta(int index, int student, ExamPlacement placement) {
+            double delta = iRemovals.get(index)[student];
+            if (placement != null)
+                delta += iProfiles.get(index)[student].conflicts(placement.getPeriod(), placement.variable());
+            return delta;
+        }
+        
+        /**
+         * Best move of a student of the given exam to any other exam of the split
+         * @param index exam index, parent is 0
+         * @param student student index within the exam
+         * @return lowest difference in the student conflict weight, null if there are no other exams
+         */
+        public Double bestDelta(int index, int student) {
+            Double delta = null;
+            for (int x = 0; x < iExams.size(); x++) {
+                if (x == index) continue;
+                double d = delta(index, student, iPlacements.get(x));
+                if (delta == null || d < delta) delta = d;
+            }
+            return delta;
+        }
+    }
+    
     /**
      * Split an exam into two
      */
@@ -205,34 +320,31 @@ public class ExamSplitMoves implements NeighbourSelection<Exam, ExamPlacement> {
          * @param placement a placement to be assigned to the new exam
          */
         public ExamSplitNeighbour(Assignment<Exam, ExamPlacement> assignment, Exam exam, ExamPlacement placement) {
+            this(new SplitProfile(assignment, exam), exam, placement);
+        }
+        
+        /**
+         * Split an exam into two, assign the new exam into the given placement.
+         * @param profile student conflict profiles of the parent exam and all its children
+         * @param exam an exam to be split
+         * @param placement a placement to be assigned to the new exam
+         */
+        public ExamSplitNeighbour(SplitProfile profile, Exam exam, ExamPlacement placement) {
             iExam = exam;
             iPlacement = placement;
             
-            // Parent exam (its either the exam itself, or its parent if it has been already split)
-            Exam parent = iSplitter.parent(exam);
-            // Its children (if already split)
-            List<Exam> children = iSplitter.children(parent);
-            
             // Compute improvement
             // Consider moving all students of the parent exam to the new placement
-            for (ExamStudent student: parent.getStudents()) {
-                double delta = iSplitter.delta(assignment, student, assignment.getValue(parent), placement);
-                if (delta < 0.0) {
-                    iValue += delta;
-                    iNrStudents ++;
-                }
-            }
             // If there already are other children, consider moving students of these children to the
             // new placement as well
-            if (children != null)
-                for (Exam child: children)
-                    for (ExamStudent student: child.getStudents()) {
-                        double delta = iSplitter.delta(assignment, student, assignment.getValue(child), placement);
-                        if (delta < 0.0) {
-                            iValue += delta;
-                            iNrStudents ++;
-                        }
+            for (int x = 0; x < profile.size(); x++)
+                for (int s = 0; s < profile.nrStudents(x); s++) {
+                    double delta = profile.delta(x, s, placement);
+                    if (delta < 0.0) {
+                        iValue += delta;
+                        iNrStudents ++;
                     }
+                }
             
             // Increase the weight by the splitter criterion weight
             iValue += iSplitter.getWeight();
@@ -301,24 +413,24 @@ public class ExamSplitMoves implements NeighbourSelection<Exam, ExamPlacement> {
          * @param exam child exam to be merged back 
          */
         public ExamMergeNeighbour(Assignment<Exam, ExamPlacement> assignment, Exam exam) {
+            this(new SplitProfile(assignment, exam), exam);
+        }
+        
+        /**
+         * Child exam to be removed. 
+         * @param profile student conflict profiles of the parent exam and all its children
+         * @param exam child exam to be merged back 
+         */
+        public ExamMergeNeighbour(SplitProfile profile, Exam exam) {
             iExam = exam;
             
-            // Parent exam (its either the exam itself, or its parent if it has been already split)
-            Exam parent = iSplitter.parent(exam);
-            // Its children (if already split)
-            List<Exam> children = iSplitter.children(parent);
-
             // Compute improvement
-            for (ExamStudent student: exam.getStudents()) {
+            int x = profile.size() - 1;
+            while (x > 0 && !profile.getExam(x).equals(exam)) x--;
+            for (int s = 0; s < profile.nrStudents(x); s++) {
                 // Try to move each student either back to the parent exam or to any of the other
                 // children exams, if there are any
-                double delta = iSplitter.delta(assignment, student, assignment.getValue(exam), assignment.getValue(parent));
-                for (Exam child: children) {
-                    if (child.equals(exam)) continue;
-                    double d = iSplitter.delta(assignment, student, assignment.getValue(exam), assignment.getValue(child));
-                    if (d < delta) delta = d;
-                }
-                iValue += delta;
+                iValue += profile.bestDelta(x, s);
             }
             // Decrease the weight by the splitter criterion weight
             iValue -= iSplitter.getWeight();
@@ -378,36 +490,24 @@ public class ExamSplitMoves implements NeighbourSelection<Exam, ExamPlacement> {
          * @param exam child exam to be shuffled
          */
         public ExamShuffleNeighbour(Assignment<Exam, ExamPlacement> assignment, Exam exam) {
+            this(new SplitProfile(assignment, exam), exam);
+        }
+        
+        /**
+         * Exam to be shuffled.
+         * @param profile student conflict profiles of the parent exam and all its children
+         * @param exam child exam to be shuffled
+         */
+        public ExamShuffleNeighbour(SplitProfile profile, Exam exam) {
             iExam = exam;
 
-            // Parent exam (its either the exam itself, or its parent if it has been already split)
-            Exam parent = iSplitter.parent(exam);
-            // Its children (if already split)
-            List<Exam> children = iSplitter.children(parent);
-
             // Compute improvement
-            // Try moving students away from parent
-            for (ExamStudent student: parent.getStudents()) {
-                Double delta = null;
-                for (Exam x: children) {
-                    double d = iSplitter.delta(assignment, student, assignment.getValue(parent), assignment.getValue(x));
-                    if (delta == null || d < delta) delta = d;
+            // Try moving students away from parent, then away from any child
+            for (int x = 0; x < profile.size(); x++)
+                for (int s = 0; s < profile.nrStudents(x); s++) {
+                    Double delta = profile.bestDelta(x, s);
+                    if (delta != null && delta < 0) iValue += delta;
                 }
-                if (delta != null && delta < 0) iValue += delta;
-            }
-            
-            // Try moving students away from any child
-            for (Exam child: children) {
-                for (ExamStudent student: child.getStudents()) {
-                    double delta = iSplitter.delta(assignment, student, assignment.getValue(child), assignment.getValue(parent));
-                    for (Exam x: children) {
-                        if (x.equals(child)) continue;
-                        double d = iSplitter.delta(assignment, student, assignment.getValue(child), assignment.getValue(x));
-                        if (d < delta) delta = d;
-                    }
-                    if (delta < 0) iValue += delta;
-                }
-            }
         }
 
         /**
@@ -297,10 +297,94 @@ public class ExamSplitter extends ExamCriterion {
         return delta;
     }
     
+    /**
+     * Student conflict profile: periods and days of all the assigned exams of a student. It is used to evaluate
+     * {@link ExamSplitter#delta(Assignment, ExamStudent, ExamPlacement, ExamPlacement)} of a student for many
+     * placements without looking up the exams of the student again.
+     */
+    public class StudentProfile {
+        private ExamStudent iStudent;
+        private Exam[] iExams;
+        private int[] iPeriods, iDays;
+        private int iSize = 0;
+
+        /**
+         * Create the profile of a student
+         * @param assignment current assignment
+         * @param student a student
+         */
+        public StudentProfile(Assignment<Exam, ExamPlacement> assignment, ExamStudent student) {
+            iStudent = student;
+            int nrExams = student.variables().size();
+            iExams = new Exam[nrExams];
+            iPeriods = new int[nrExams];
+            iDays = new int[nrExams];
+            for (Exam exam: student.variables()) {
+                ExamPlacement placement = assignment.getValue(exam);
+                if (placement == null) continue;
+                iExams[iSize] = exam;
+                iPeriods[iSize] = placement.getPeriod().getIndex();
+                iDays[iSize] = placement.getPeriod().getDay();
+                iSize++;
+            }
+        }
+
+        /**
+         * Student of the profile
+         * @return student
+         */
+        public ExamStudent getStudent() { return iStudent; }
+
+        /**
+         * Weighted student conflicts (direct, back-to-back, and more than two a day) that the student would have
+         * with an exam placed in the given period
+         * @param period a period
+         * @param exclude an exam that is not to be counted (the exam in question), can be null
+         * @return weighted student conflicts
+         */
+        public double conflicts(ExamPeriod period, Exam exclude) {
+            int day = period.getDay();
+            ExamPeriod prev = period.prev(), next = period.next();
+            int prevIndex = (prev != null && (prev.getDay() == day || isDayBreakBackToBack()) ? prev.getIndex() : -1);
+            int nextIndex = (next != null && (next.getDay() == day || isDayBreakBackToBack()) ? next.getIndex() : -1);
+            boolean direct = false, prevBtb = false, nextBtb = false;
+            int sameDay = 0;
+            for (int i = 0; i < iSize; i++) {
+                if (iExams[i].equals(exclude)) continue;
+                if (iPeriods[i] == period.getIndex()) direct = true;
+                else if (iPeriods[i] == prevIndex) prevBtb = true;
+                else if (iPeriods[i] == nextIndex) nextBtb = true;
+                if (iDays[i] == day) sameDay++;
+            }
+            double conflicts = 0.0;
+            if (direct) conflicts += iStudentDirectConflicts.getWeight();
+            if (prevBtb) conflicts += iStudentBackToBackConflicts.getWeight();
+            if (nextBtb) conflicts += iStudentBackToBackConflicts.getWeight();
+            if (sameDay > 2) conflicts += iStudentMoreThan2ADayConflicts.getWeight();
+            return conflicts;
+        }
+
+        /**
+         * Same as {@link ExamSplitter#delta(Assignment, ExamStudent, ExamPlacement, ExamPlacement)}, computed from the profile
+         * @param oldPlacement placement of the exam in which the student is now
+         * @param newPlacement placement of the exam into which the student would be moved
+         * @return difference in the student conflict weight
+         */
+        public double delta(ExamPlacement oldPlacement, ExamPlacement newPlacement) {
+            double delta = 0.0;
+            if (oldPlacement != null)
+                delta -= conflicts(oldPlacement.getPeriod(), oldPlacement.variable());
+            if (newPlacement != null)
+                delta += conflicts(newPlacement.getPeriod(), newPlacement.variable());
+            return delta;
+        }
+    }
+
     /**
      * Shuffle students between the given exam and all the other exams in the split (if there are any).
      * Only moves between exams that improve {@link ExamSplitter#delta(Assignment, ExamStudent, ExamPlacement, ExamPlacement)} are
-     * considered.
+     * considered. Since all the exams of the split are unassigned during the shuffle, the delta of a student does not depend
+     * on the other students, so each student is moved into the exam of the split with the lowest delta (if negative).
      * @param assignment current assignment
      * @param exam an exam in question
      * @param iteration solver iteration
@@ -325,39 +409,40 @@ public class ExamSplitter extends ExamCriterion {
                 }
             }
             
-            // Move away from parent
-            for (ExamStudent student: new ArrayList<ExamStudent>(parent.getStudents())) {
-                Exam child = null; double delta = 0;
-                for (Exam x: children) {
-                    double d = delta(assignment, student, assignments.get(parent), assignments.get(x));
-                    if (child == null || d < delta) {
-                        delta = d; child = x;
-                    }
-                }
-                if (child != null && delta < 0) {
-                    student.removeVariable(parent);
-                    student.addVariable(child);
-                }
-            }
+            // Exams of the split, parent first
+            List<Exam> exams = new ArrayList<Exam>(children.size() + 1);
+            exams.add(parent);
+            exams.addAll(children);
             
-            // Move students away from a child
-            for (Exam child: children) {
-                for (ExamStudent student: new ArrayList<ExamStudent>(child.getStudents())) {
-                    Exam other = parent; double delta = delta(assignment, student, assignments.get(child), assignments.get(parent));
-                    for (Exam x: children) {
-                        if (x.equals(child)) continue;
-                        double d = delta(assignment, student, assignments.get(child), assignments.get(x));
-                        if (d < delta) {
-                            delta = d; other = x;
+            // Find the best exam for each student (parent first, then the children in their order)
+            List<ExamStudent> students = new ArrayList<ExamStudent>();
+            List<Exam> from = new ArrayList<Exam>(), to = new ArrayList<Exam>();
+            for (Exam x: exams) {
+                ExamPlacement current = assignments.get(x);
+                for (ExamStudent student: x.getStudents()) {
+                    StudentProfile profile = new StudentProfile(assignment, student);
+                    double remove = (current == null ? 0.0 : -profile.conflicts(current.getPeriod(), x));
+                    Exam best = null; double delta = 0;
+                    for (Exam y: exams) {
+                        if (y.equals(x)) continue;
+                        ExamPlacement placement = assignments.get(y);
+                        double d = remove + (placement == null ? 0.0 : profile.conflicts(placement.getPeriod(), y));
+                        if (best == null || d < delta) {
+                            delta = d; best = y;
                         }
                     }
-                    if (other != null && delta < 0) {
-                        student.removeVariable(child);
-                        student.addVariable(other);
+                    if (best != null && delta < 0) {
+                        students.add(student); from.add(x); to.add(best);
                     }
                 }
             }
             
+            // Move the students
+            for (int i = 0; i < students.size(); i++) {
+                students.get(i).removeVariable(from.get(i));
+                students.get(i).addVariable(to.get(i));
+            }
+            
             // Assign everything back
             ExamPlacement parentPlacement = assignments.get(parent);
             if (parentPlacement != null) assignment.assign(iteration, parentPlacement);
@@ -0,0 +1,179 @@
+package org.cpsolver.ifs.algorithms;
+
+import java.text.DecimalFormat;
+
+import org.cpsolver.ifs.util.ToolBox;
+
+/**
+ * Adaptive operator selection using a sliding window multi-armed bandit. Each operator (e.g., a neighbourhood
+ * of a {@link NeighbourSearch}) is an arm of the bandit. For each application of an operator, the objective
+ * improvement (gain, zero for a rejected or a non-improving move) and the time spent are recorded in a window
+ * of the last few applications. An operator is then selected using the upper confidence bound of its credit, which
+ * is the sum of the gains divided by the sum of the times within the window (i.e., the improvement per second),
+ * normalized by the best credit of all operators. Operators that are not in the window are tried first.<br>
+ * <br>
+ * The exploration term of an operator is multiplied by its bonus (relative to the highest bonus), so that
+ * operators with a low bonus (e.g., expensive neighbourhoods with bonus 0.01) are explored less often.
+ * 
+ * @see NeighbourSearch
+ * 
+ * @version IFS 1.3 (Iterative Forward Search)<br>
+ *          Copyright (C) 2017 Tomas Muller<br>
+ *          <a href="mailto:muller@unitime.org">muller@unitime.org</a><br>
+ *          <a href="http://muller.unitime.org">http://muller.unitime.org</a><br>
+ * <br>
+ *          This library is free software; you can redistribute it and/or modify
+ *          it under the terms of the GNU Lesser General Public License as
+ *          published by the Free Software Foundation; either version 3 of the
+ *          License, or (at your option) any later version. <br>
+ * <br>
+ *          This library is distributed in the hope that it will be useful, but
+ *          WITHOUT ANY WARRANTY; without even the implied warranty of
+ *          MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *          Lesser General Public License for more details. <br>
+ * <br>
+ *          You should have received a copy of the GNU Lesser General Public
+ *          License along with this library; if not see
+ *          <a href='http://www.gnu.org/licenses/'>http://www.gnu.org/licenses/</a>.
+ */
+public class AdaptiveOperatorSelection {
+    protected static DecimalFormat sDF = new DecimalFormat("0.00");
+    private double[] iBonus;
+    private double iExploration;
+    private int[] iWindowOperator;
+    private double[] iWindowGain, iWindowTime;
+    private int iHead = 0, iSize = 0;
+    private int[] iCalls;
+    private double[] iGain, iTime;
+    private int iPending = -1;
+    private double iPendingStart = 0.0;
+
+    /**
+     * Constructor
+     * @param bonus bonus of each operator (also defines the number of operators)
+     * @param windowSize number of the last applications considered
+     * @param exploration weight of the exploration term of the upper confidence bound
+     */
+    public AdaptiveOperatorSelection(double[] bonus, int windowSize, double exploration) {
+        iBonus = new double[bonus.length];
+        double max = 0.0;
+        for (double b: bonus) max = Math.max(max, b);
+        for (int i = 0; i < bonus.length; i++)
+            iBonus[i] = (max <= 0.0 ? 1.0 : bonus[i] / max);
+        iExploration = exploration;
+        iWindowOperator = new int[Math.max(1, windowSize)];
+        iWindowGain = new double[iWindowOperator.length];
+        iWindowTime = new double[iWindowOperator.length];
+        iCalls = new int[bonus.length];
+        iGain = new double[bonus.length];
+        iTime = new double[bonus.length];
+    }
+
+    /**
+     * Number of operators
+     * @return number of operators
+     */
+    public int size() {
+        return iBonus.length;
+    }
+
+    /**
+     * Select an operator
+     * @return index of the operator to be applied next
+     */
+    public int select() {
+        for (int i = 0; i < iBonus.length; i++)
+            if (iCalls[i] == 0 && iBonus[i] > 0.0) return i;
+        double bestRate = 0.0;
+        for (int i = 0; i < iBonus.length; i++)
+            bestRate = Math.max(bestRate, rate(i));
+        double logN = Math.log(iSize);
+        int best = -1, ties = 0;
+        double bestScore = 0.0;
+        for (int i = 0; i < iBonus.length; i++) {
+            if (iBonus[i] <= 0.0) continue;
+            double score = (bestRate > 0.0 ? rate(i) / bestRate : 0.0) + iExploration * iBonus[i] * Math.sqrt(2.0 * logN / iCalls[i]);
+            if (best < 0 || score > bestScore) {
+                best = i; bestScore = score; ties = 1;
+            } else if (score == bestScore && ToolBox.random(++ties) == 0) {
+                best = i;
+            }
+        }
+        return (best < 0 ? ToolBox.random(iBonus.length) : best);
+    }
+
+    /**
+     * Record an application of an operator
+     * @param operator operator index
+     * @param gain objective improvement (zero when the move was not accepted or it was not improving)
+     * @param time time spent in seconds
+     */
+    public void update(int operator, double gain, double time) {
+        if (iSize == iWindowOperator.length) {
+            int old = iWindowOperator[iHead];
+            iCalls[old]--;
+            iGain[old] -= iWindowGain[iHead];
+            iTime[old] -= iWindowTime[iHead];
+            if (iCalls[old] == 0) { iGain[old] = 0.0; iTime[old] = 0.0; }
+        } else {
+            iSize++;
+        }
+        iWindowOperator[iHead] = operator;
+        iWindowGain[iHead] = gain;
+        iWindowTime[iHead] = time;
+        iCalls[operator]++;
+        iGain[operator] += gain;
+        iTime[operator] += time;
+        iHead = (iHead + 1) % iWindowOperator.length;
+    }
+
+    /**
+     * Start an application of an operator whose gain and time are only known later (e.g., a lazy move that is
+     * evaluated when it is assigned). The application is recorded by {@link AdaptiveOperatorSelection#finish(double, double)};
+     * a previously started application that was not finished (e.g., a lazy move that was never assigned) is dropped.
+     * @param operator operator index
+     * @param startTime time when the application started, in seconds
+     */
+    public void start(int operator, double startTime) {
+        iPending = operator;
+        iPendingStart = startTime;
+    }
+
+    /**
+     * Record the application started by {@link AdaptiveOperatorSelection#start(int, double)}, if there is one
+     * @param gain objective improvement (zero when the move was not accepted or it was not improving)
+     * @param endTime time when the application finished, in seconds
+     */
+    public void finish(double gain, double endTime) {
+        if (iPending < 0) return;
+        update(iPending, gain, endTime - iPendingStart);
+        iPending = -1;
+    }
+
+    /**
+     * Credit of an operator: improvement per second within the window
+     * @param operator operator index
+     * @return sum of gains divided by sum of times
+     */
+    public double rate(int operator) {
+        return (iGain[operator] <= 0.0 ? 0.0 : iGain[operator] / Math.max(1e-6, iTime[operator]));
+    }
+
+    /**
+     * Share of the given operator in the window
+     * @param operator operator index
+     * @return number of applications of the operator in the window divided by the window size
+     */
+    public double share(int operator) {
+        return (iSize == 0 ? 0.0 : ((double) iCalls[operator]) / iSize);
+    }
+
+    /**
+     * Status of an operator
+     * @param operator operator index
+     * @return share in the window and the credit
+     */
+    public String toString(int operator) {
+        return sDF.format(100.0 * share(operator)) + "% of " + iSize + " calls, " + sDF.format(rate(operator)) + " gain/s";
+    }
+}
@@ -34,6 +34,12 @@ import org.cpsolver.ifs.util.ToolBox;
 /**
  * Base class for the search techniques like hill climber, great deluge, or simulated annealing.
  * It implements the {@link SolutionListener} and the variable neighbourhood selection.
+ * The neighbourhoods are selected randomly (Xxx.Random=true), using a roulette wheel selection
+ * weighted by their bonuses (default) or points (Xxx.Update=true, see {@link NeighbourSelector#getPoints()}),
+ * or using an adaptive operator selection (Xxx.Adaptive=true, see {@link AdaptiveOperatorSelection})
+ * that prefers the neighbourhoods with the highest objective improvement per second within a sliding window
+ * of the last Xxx.AdaptiveWindow iterations (defaults to 1000), with Xxx.AdaptiveExploration weight of the
+ * exploration (defaults to 0.5). Xxx is the parameter base name of the search (see {@link NeighbourSearch#getParameterBaseName()}).
  * 
  * <br>
  * 
@@ -68,6 +74,9 @@ public abstract class NeighbourSearch<V extends Variable<V, T>, T extends Value<
     private List<NeighbourSelector<V, T>> iNeighbours = null;
     private boolean iRandomSelection = false;
     private boolean iUpdatePoints = false;
+    private boolean iAdaptive = false;
+    private int iAdaptiveWindow = 1000;
+    private double iAdaptiveExploration = 0.5;
     private double iTotalBonus;
     private Solver<V, T> iSolver = null;
 
@@ -77,6 +86,9 @@ public abstract class NeighbourSearch<V extends Variable<V, T>, T extends Value<
         iLog = Logger.getLogger(getClass());
         iRandomSelection = properties.getPropertyBoolean(getParameterBaseName() + ".Random", iRandomSelection);
         iUpdatePoints = properties.getPropertyBoolean(getParameterBaseName() + ".Update", iUpdatePoints);
+        iAdaptive = properties.getPropertyBoolean(getParameterBaseName() + ".Adaptive", iAdaptive);
+        iAdaptiveWindow = properties.getPropertyInt(getParameterBaseName() + ".AdaptiveWindow", iAdaptiveWindow);
+        iAdaptiveExploration = properties.getPropertyDouble(getParameterBaseName() + ".AdaptiveExploration", iAdaptiveExploration);
         String neighbours = properties.getProperty(getParameterBaseName() + ".Neighbours",
                 RandomMove.class.getName() + ";" + RandomSwapMove.class.getName() + "@0.01;" + SuggestionMove.class.getName() + "@0.01");
         neighbours += ";" + properties.getProperty(getParameterBaseName() + ".AdditionalNeighbours", "");
@@ -212,6 +224,36 @@ public abstract class NeighbourSearch<V extends Variable<V, T>, T extends Value<
         return nextNeighbourSelection().selectNeighbour(solution);
     }
 
+    /**
+     * Generate a move using the adaptive operator selection and check whether it is to be accepted. The gain and the
+     * time spent are recorded in the {@link AdaptiveOperatorSelection} of the search context. A lazy move is only
+     * recorded once it was assigned and evaluated (see {@link NeighbourSearch#accept(Assignment, LazyNeighbour, double)}),
+     * so that its time includes the assignment.
+     * @param context search context
+     * @param solution current solution
+     * @return generated neighbour if it is to be assigned, null otherwise
+     */
+    protected Neighbour<V, T> generateAdaptiveMove(NeighbourSearchContext context, Solution<V, T> solution) {
+        AdaptiveOperatorSelection operators = context.getOperatorSelection();
+        int operator = operators.select();
+        double t0 = JProf.currentTimeSec();
+        Neighbour<V, T> n = iNeighbours.get(operator).selectNeighbour(solution);
+        if (n instanceof LazyNeighbour) {
+            ((LazyNeighbour<V, T>)n).setAcceptanceCriterion(this);
+            operators.start(operator, t0);
+            return n;
+        }
+        boolean accept = false;
+        double gain = 0.0;
+        if (n != null) {
+            double value = n.value(solution.getAssignment());
+            accept = context.accept(solution.getAssignment(), solution.getModel(), n, value, false);
+            if (accept && value < 0.0) gain = -value;
+        }
+        operators.update(operator, gain, JProf.currentTimeSec() - t0);
+        return (accept ? n : null);
+    }
+
     @Override
     public Neighbour<V, T> selectNeighbour(Solution<V, T> solution) {
         NeighbourSearchContext context = getContext(solution.getAssignment());
@@ -219,6 +261,11 @@ public abstract class NeighbourSearch<V extends Variable<V, T>, T extends Value<
         while (context.canContinue(solution)) {
             if (iSolver != null && iSolver.isStop()) return null;
             context.incIteration(solution);
+            if (context.getOperatorSelection() != null) {
+                Neighbour<V,T> n = generateAdaptiveMove(context, solution);
+                if (n != null) return n;
+                continue;
+            }
             Neighbour<V,T> n = generateMove(solution);
             if (n != null && accept(context, solution, n))
                 return n;
@@ -245,7 +292,11 @@ public abstract class NeighbourSearch<V extends Variable<V, T>, T extends Value<
     /** Accept lazy neighbour -- calling the acceptance criterion with lazy = true. */
     @Override
     public boolean accept(Assignment<V, T> assignment, LazyNeighbour<V, T> neighbour, double value) {
-        return getContext(assignment).accept(assignment, neighbour.getModel(), neighbour, value, true);
+        NeighbourSearchContext context = getContext(assignment);
+        boolean accept = context.accept(assignment, neighbour.getModel(), neighbour, value, true);
+        if (context.getOperatorSelection() != null)
+            context.getOperatorSelection().finish(accept && value < 0.0 ? -value : 0.0, JProf.currentTimeSec());
+        return accept;
     }
 
     /**
@@ -299,6 +350,33 @@ public abstract class NeighbourSearch<V extends Variable<V, T>, T extends Value<
     public abstract class NeighbourSearchContext implements AssignmentContext, SolutionListener<V, T> {
         protected long iT0 = -1;
         protected int iIter = 0;
+        private AdaptiveOperatorSelection iOperatorSelection = null;
+        
+        /**
+         * Adaptive operator selection of this context
+         * @return adaptive operator selection, null if not enabled (Xxx.Adaptive=false)
+         */
+        protected AdaptiveOperatorSelection getOperatorSelection() {
+            if (iAdaptive && iOperatorSelection == null) {
+                double[] bonus = new double[iNeighbours.size()];
+                for (int i = 0; i < bonus.length; i++)
+                    bonus[i] = iNeighbours.get(i).getBonus();
+                iOperatorSelection = new AdaptiveOperatorSelection(bonus, iAdaptiveWindow, iAdaptiveExploration);
+            }
+            return iOperatorSelection;
+        }
+        
+        /**
+         * Log some information about neigbour selections once in a while, including the state of the adaptive operator selection (if enabled)
+         */
+        protected void logNeibourStatus() {
+            NeighbourSearch.this.logNeibourStatus();
+            if (iOperatorSelection != null)
+                for (int i = 0; i < iNeighbours.size(); i++) {
+                    NeighbourSelection<V, T> selection = iNeighbours.get(i).selection();
+                    iLog.info("  " + selection.getClass().getSimpleName() + " " + iOperatorSelection.toString(i));
+                }
+        }
 
         /** Called just before the neighbourhood search is called for the first time. 
          * @param solution current solution
@@ -161,13 +161,21 @@ public class RandomSwapMove<V extends Variable<V, T>, T extends Value<V, T>> imp
         
         int valIdx = ToolBox.random(values.size());
         int attempts = 0;
+        // last conflict: the change in the solution value can be evaluated without assigning the value (when the criteria declare an exact delta)
+        double current = (index + 1 == conflicts.size() ? solution.getModel().getTotalValue(assignment) - total : 0.0);
         for (int i = 0; i < values.size(); i++) {
             T value = values.get((i + valIdx) % values.size());
             if (value.equals(conflict) || solution.getModel().inConflict(assignment, value)) continue;
             
-            assignment.assign(solution.getIteration(), value);
-            Double v = resolve(solution, total, startTime, assignments, conflicts, 1 + index);
-            assignment.unassign(solution.getIteration(), variable);
+            Double delta = (index + 1 == conflicts.size() ? solution.getModel().getTotalValueDelta(assignment, variable, value, null) : null);
+            Double v = null;
+            if (delta != null) {
+                v = current + delta;
+            } else {
+                assignment.assign(solution.getIteration(), value);
+                v = resolve(solution, total, startTime, assignments, conflicts, 1 + index);
+                assignment.unassign(solution.getIteration(), variable);
+            }
             attempts ++;
             
             if (v != null && (!iHC || v <= 0)) {
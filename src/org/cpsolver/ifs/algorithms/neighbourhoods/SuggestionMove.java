@@ -141,6 +141,20 @@ public class SuggestionMove<V extends Variable<V, T>, T extends Value<V, T>> ext
                 if (resolvedVariables.containsKey(c.variable()))
                     continue values;
             
+            if (conflicts.isEmpty() && (conflictsToResolve.isEmpty() || (conflictsToResolve.size() == 1 && conflictsToResolve.containsKey(variable)))) {
+                // last assignment of the suggestion: evaluate it without assigning the value (when the criteria declare an exact delta)
+                Double delta = model.getTotalValueDelta(assignment, variable, value, null);
+                if (delta != null) {
+                    nrAttempts ++;
+                    if (model.nrUnassignedVariables(assignment) - (cur == null ? 1 : 0) > un) continue;
+                    double v = model.getTotalValue(assignment) - total + delta;
+                    if (iHC && v > 0) continue;
+                    List<T> suggestion = new ArrayList<T>(resolvedVariables.values());
+                    suggestion.add(value);
+                    return new SwapNeighbour(suggestion, v);
+                }
+            }
+            
             for (T c: conflicts) assignment.unassign(solution.getIteration(), c.variable());
             if (cur != null) assignment.unassign(solution.getIteration(), variable);
             
@@ -0,0 +1,157 @@
+package org.cpsolver.ifs.assignment;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.cpsolver.ifs.assignment.context.AssignmentContext;
+import org.cpsolver.ifs.assignment.context.AssignmentContextReference;
+import org.cpsolver.ifs.model.Model;
+import org.cpsolver.ifs.model.Value;
+import org.cpsolver.ifs.model.Variable;
+
+/**
+ * A view of an assignment that only exposes a subset of the variables of the model. All the values
+ * are read from and written into the underlying assignment (including the assignment contexts), but
+ * the methods listing the assigned or unassigned variables (e.g., {@link Assignment#unassignedVariables(Model)}
+ * or {@link Assignment#nrAssignedVariables()}) only consider the given variables. This can be used to make
+ * a neighbour selection that picks its variables using these methods (e.g., {@link org.cpsolver.ifs.heuristics.StandardNeighbourSelection})
+ * work on a part of the problem only. The number of assigned variables of the view is kept in a counter, which
+ * is updated when a variable of the view is assigned or unassigned through the view; the variables of the view
+ * are not to be changed directly in the underlying assignment while the view is in use.
+ * 
+ * @see Assignment
+ * 
+ * @version IFS 1.3 (Iterative Forward Search)<br>
+ *          Copyright (C) 2017 Tomas Muller<br>
+ *          <a href="mailto:muller@unitime.org">muller@unitime.org</a><br>
+ *          <a href="http://muller.unitime.org">http://muller.unitime.org</a><br>
+ * <br>
+ *          This library is free software; you can redistribute it and/or modify
+ *          it under the terms of the GNU Lesser General Public License as
+ *          published by the Free Software Foundation; either version 3 of the
+ *          License, or (at your option) any later version. <br>
+ * <br>
+ *          This library is distributed in the hope that it will be useful, but
+ *          WITHOUT ANY WARRANTY; without even the implied warranty of
+ *          MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *          Lesser General Public License for more details. <br>
+ * <br>
+ *          You should have received a copy of the GNU Lesser General Public
+ *          License along with this library; if not see
+ *          <a href='http://www.gnu.org/licenses/'>http://www.gnu.org/licenses/</a>.
+ * @param <V> Variable
+ * @param <T> Value
+ **/
+public class RestrictedAssignment<V extends Variable<V, T>, T extends Value<V, T>> implements Assignment<V, T> {
+    private Assignment<V, T> iAssignment;
+    private Collection<V> iVariables;
+    private Set<V> iVariableSet;
+    private int iNrAssigned = 0;
+
+    /**
+     * Constructor
+     * @param assignment underlying assignment
+     * @param variables variables that are exposed by this assignment
+     */
+    public RestrictedAssignment(Assignment<V, T> assignment, Collection<V> variables) {
+        iAssignment = assignment;
+        iVariables = variables;
+        iVariableSet = new HashSet<V>(variables);
+        for (V variable: iVariableSet)
+            if (iAssignment.getValue(variable) != null) iNrAssigned++;
+    }
+
+    /**
+     * Underlying assignment
+     * @return the assignment this view is based on
+     */
+    public Assignment<V, T> getAssignment() {
+        return iAssignment;
+    }
+
+    /**
+     * Variables of this view
+     * @return variables exposed by this assignment
+     */
+    public Collection<V> getVariables() {
+        return iVariables;
+    }
+
+    @Override
+    public int getIndex() {
+        return iAssignment.getIndex();
+    }
+
+    @Override
+    public T getValue(V variable) {
+        return iAssignment.getValue(variable);
+    }
+
+    @Override
+    public long getIteration(V variable) {
+        return iAssignment.getIteration(variable);
+    }
+
+    @Override
+    public T assign(long iteration, T value) {
+        T old = iAssignment.assign(iteration, value);
+        if (old == null && iVariableSet.contains(value.variable())) iNrAssigned++;
+        return old;
+    }
+
+    @Override
+    public T unassign(long iteration, V variable) {
+        T old = iAssignment.unassign(iteration, variable);
+        if (old != null && iVariableSet.contains(variable)) iNrAssigned--;
+        return old;
+    }
+
+    @Override
+    public int nrAssignedVariables() {
+        return iNrAssigned;
+    }
+
+    @Override
+    public Collection<V> assignedVariables() {
+        List<V> assigned = new ArrayList<V>();
+        for (V variable: iVariables)
+            if (iAssignment.getValue(variable) != null) assigned.add(variable);
+        return assigned;
+    }
+
+    @Override
+    public Collection<T> assignedValues() {
+        List<T> values = new ArrayList<T>();
+        for (V variable: iVariables) {
+            T value = iAssignment.getValue(variable);
+            if (value != null) values.add(value);
+        }
+        return values;
+    }
+
+    @Override
+    public int nrUnassignedVariables(Model<V, T> model) {
+        return iVariableSet.size() - iNrAssigned;
+    }
+
+    @Override
+    public Collection<V> unassignedVariables(Model<V, T> model) {
+        List<V> unassigned = new ArrayList<V>();
+        for (V variable: iVariables)
+            if (iAssignment.getValue(variable) == null) unassigned.add(variable);
+        return unassigned;
+    }
+
+    @Override
+    public <C extends AssignmentContext> C getAssignmentContext(AssignmentContextReference<V, T, C> reference) {
+        return iAssignment.getAssignmentContext(reference);
+    }
+
+    @Override
+    public <C extends AssignmentContext> void clearContext(AssignmentContextReference<V, T, C> reference) {
+        iAssignment.clearContext(reference);
+    }
+}
@@ -44,6 +44,17 @@ public class InheritedAssignmentContextHolder<V extends Variable<V, T>, T extend
         iVersion = version;
     }
 
+    /**
+     * Change the version of the holder, e.g., when an inherited assignment is reused for a new parent assignment.
+     * The contexts held by the {@link CanHoldContext} classes are inherited again when accessed (as their version does not match),
+     * the other contexts are dropped.
+     * @param version new version (it must be different from any version used before with the same index)
+     */
+    public void setVersion(long version) {
+        iVersion = version;
+        iContexts.clear();
+    }
+
     /**
      * If the {@link AssignmentContextReference#getParent()} implements the {@link CanInheritContext} interface, this 
      * method will use the {@link CanInheritContext#inheritAssignmentContext(Assignment, AssignmentContext)} instead of the
@@ -110,21 +110,25 @@ public class ConstantModel<V extends Variable<V, T>, T extends Value<V, T>> exte
 
     /**
      * Called after a value is assigned to its variable. Constant variables are
-     * excluded from (re)assignment.
+     * excluded from (re)assignment, only the perturbation variables are updated.
      */
     @Override
     public void afterAssigned(Assignment<V, T> assignment, long iteration, T value) {
         if (!isConstant(value.variable()))
             super.afterAssigned(assignment, iteration, value);
+        else
+            updatePerturbationVariables(assignment, value, true);
     }
 
     /**
      * Called after a value is unassigned from its variable. Constant variables
-     * are excluded from (re)assignment.
+     * are excluded from (re)assignment, only the perturbation variables are updated.
      */
     @Override
     public void afterUnassigned(Assignment<V, T> assignment, long iteration, T value) {
         if (!isConstant(value.variable()))
             super.afterUnassigned(assignment, iteration, value);
+        else
+            updatePerturbationVariables(assignment, value, false);
     }
 }
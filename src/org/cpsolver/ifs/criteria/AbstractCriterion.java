@@ -196,6 +196,48 @@ public abstract class AbstractCriterion<V extends Variable<V, T>, T extends Valu
         return (getWeight() == 0.0 ? 0.0 : getWeight() * getValue(assignment, value, conflicts));
     }
     
+    /**
+     * True if the delta evaluation ({@link AbstractCriterion#getWeightedDelta(Assignment, Variable, Value, Set)}) of this criterion
+     * is exact, i.e., the returned change is the same as the change in {@link AbstractCriterion#getWeightedValue(Assignment)}
+     * when the value is assigned and the conflicts are unassigned. This is the case when the value of a placement does not depend on
+     * the values of the other variables. The delta evaluation is not used for criteria that do not declare it.
+     * @return true if the delta evaluation is exact, false by default
+     */
+    public boolean isDeltaExact() {
+        return false;
+    }
+    
+    /**
+     * Weighted change in this criterion value if the given variable takes the given value (replacing
+     * its current assignment, if any) and the given conflicting values are unassigned. The change is
+     * evaluated without modifying the assignment, so that a move can be rejected without
+     * an assign / undo cycle.<br>
+     * Default implementation: when the criterion declares the delta to be exact (see {@link AbstractCriterion#isDeltaExact()}),
+     * the weighted value of the new value minus the weighted values of the current value of the variable and of the conflicts.
+     * Otherwise, null is returned (unless the weight is zero) as the interactions between the new value and the other values
+     * are not known to this class.
+     * @param assignment current assignment (it is not changed)
+     * @param variable a variable
+     * @param value proposed value of the variable, null if the variable is to be unassigned
+     * @param conflicts values that would be unassigned as well (can be null)
+     * @return weighted change in this criterion value, null if it cannot be computed without changing the assignment
+     */
+    public Double getWeightedDelta(Assignment<V, T> assignment, V variable, T value, Set<T> conflicts) {
+        if (getWeight() == 0.0) return 0.0;
+        if (!isDeltaExact()) return null;
+        T old = assignment.getValue(variable);
+        double ret = 0.0;
+        if (old == null ? value != null : !old.equals(value)) {
+            if (value != null) ret += getWeightedValue(assignment, value, null);
+            if (old != null) ret -= getWeightedValue(assignment, old, null);
+        }
+        if (conflicts != null)
+            for (T conflict: conflicts)
+                if (!conflict.variable().equals(variable) && conflict.equals(assignment.getValue(conflict.variable())))
+                    ret -= getWeightedValue(assignment, conflict, null);
+        return ret;
+    }
+    
     @Override
     public double getWeightedValue(Assignment<V, T> assignment, Collection<V> variables) {
         return (getWeight() == 0.0 ? 0.0 : getWeight() * getValue(assignment, variables));
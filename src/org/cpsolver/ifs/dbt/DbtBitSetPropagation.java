@@ -0,0 +1,163 @@
+package org.cpsolver.ifs.dbt;
+
+import java.util.Arrays;
+
+import org.cpsolver.ifs.assignment.Assignment;
+import org.cpsolver.ifs.extension.MacBitSetPropagation;
+import org.cpsolver.ifs.model.Neighbour;
+import org.cpsolver.ifs.model.Value;
+import org.cpsolver.ifs.model.Variable;
+import org.cpsolver.ifs.solver.Solver;
+import org.cpsolver.ifs.solver.SolverListener;
+import org.cpsolver.ifs.util.DataProperties;
+
+
+/**
+ * Maintenance of arc consistency in dynamic backtracking on indexed explanations. <br>
+ * <br>
+ * This is the same as {@link DbtPropagation}, but it is built on {@link MacBitSetPropagation}:
+ * domains are bit sets over the dense indexes of the values, explanations are arrays of
+ * indexes of the assigned variables, and the removals explained by a variable are kept in
+ * a trail of the variable, so that they are returned in one pass when the variable is unassigned
+ * (instead of recomputing the explanations of all the removed values). When a dead end is reached,
+ * the union of the explanations of all the values of the selected variable is computed as a bit set
+ * over the variable indexes. <br>
+ * <br>
+ * This IFS solver extension is to be used only in case of dynamic backtracking
+ * (with {@link DbtVariableSelection} and {@link DbtValueSelection}).
+ *
+ *
+ * @version IFS 1.3 (Iterative Forward Search)<br>
+ *          Copyright (C) 2017 Tomas Muller<br>
+ *          <a href="mailto:muller@unitime.org">muller@unitime.org</a><br>
+ *          <a href="http://muller.unitime.org">http://muller.unitime.org</a><br>
+ * <br>
+ *          This library is free software; you can redistribute it and/or modify
+ *          it under the terms of the GNU Lesser General Public License as
+ *          published by the Free Software Foundation; either version 3 of the
+ *          License, or (at your option) any later version. <br>
+ * <br>
+ *          This library is distributed in the hope that it will be useful, but
+ *          WITHOUT ANY WARRANTY; without even the implied warranty of
+ *          MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *          Lesser General Public License for more details. <br>
+ * <br>
+ *          You should have received a copy of the GNU Lesser General Public
+ *          License along with this library; if not see <a href='http://www.gnu.org/licenses'>http://www.gnu.org/licenses</a>.
+ * @param <V> Variable
+ * @param <T> Value
+ *
+ */
+public class DbtBitSetPropagation<V extends Variable<V, T>, T extends Value<V, T>> extends MacBitSetPropagation<V, T> implements SolverListener<V, T> {
+    private static org.apache.log4j.Logger sLogger = org.apache.log4j.Logger.getLogger(DbtBitSetPropagation.class);
+
+    /**
+     * Constructor. No parameter is taken from properties.
+     * @param solver current solver
+     * @param properties solver configuration
+     */
+    public DbtBitSetPropagation(Solver<V, T> solver, DataProperties properties) {
+        super(solver, properties);
+        solver.addSolverListener(this);
+    }
+
+    /**
+     * If no variable is selected (all variables are assigned), unassign the
+     * last assigned variable (explanation is made of all the other assigned
+     * variables). Do not allow to select an assigned variable.
+     *
+     * @see DbtPropagation#variableSelected(Assignment, long, Variable)
+     */
+    @Override
+    public boolean variableSelected(Assignment<V, T> assignment, long iteration, V variable) {
+        if (variable == null) {
+            sLogger.debug("No variable selected -> backtrack.");
+            V lastVariable = null;
+            for (V var : assignment.assignedVariables()) {
+                if (lastVariable == null || assignment.getIteration(lastVariable) < assignment.getIteration(var)) {
+                    lastVariable = var;
+                }
+            }
+            if (lastVariable == null) {
+                sLogger.error("No assignment -> fail");
+                getSolver().stopSolver();
+                return false;
+            }
+            sLogger.debug("Unassign:" + lastVariable.getName());
+            Domains domains = domains(assignment);
+            int[] explanation = new int[assignment.nrAssignedVariables()];
+            int n = 0;
+            for (V var : assignment.assignedVariables()) {
+                if (var.equals(lastVariable)) continue;
+                int y = domains.getPosition(var);
+                if (y >= 0) explanation[n++] = y;
+            }
+            T value = assignment.getValue(lastVariable);
+            assignment.unassign(iteration, lastVariable);
+            domains.setNoGood(value, Arrays.copyOf(explanation, n));
+            return false;
+        }
+        if (assignment.getValue(variable) != null) {
+            sLogger.error("Assigned value selected -- not supported by DBT.");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * If no value is selected (because of a dead end), compute a union of the
+     * explanations of all values of the variable. Fail if it is empty, otherwise
+     * unassign the last assigned variable of the union (explanation is the rest
+     * of the union).
+     *
+     * @see DbtPropagation#valueSelected(Assignment, long, Variable, Value)
+     */
+    @Override
+    public boolean valueSelected(Assignment<V, T> assignment, long iteration, V variable, T value) {
+        if (variable != null && value == null) {
+            Domains domains = domains(assignment);
+            long[] union = new long[(domains.getNrVariables() + 63) >> 6];
+            int last = -1;
+            long lastIteration = 0;
+            int size = 0;
+            for (T val : variable.values(assignment)) {
+                int[] explanation = domains.getExplanation(val);
+                if (explanation == null) continue;
+                for (int y : explanation) {
+                    if ((union[y >> 6] & (1l << y)) != 0) continue;
+                    union[y >> 6] |= (1l << y);
+                    size++;
+                    long it = assignment.getIteration(domains.getVariable(y));
+                    if (last < 0 || lastIteration < it) {
+                        last = y; lastIteration = it;
+                    }
+                }
+            }
+            if (size == 0) {
+                sLogger.debug("Fail");
+                getSolver().stopSolver();
+                return false;
+            }
+            union[last >> 6] &= ~(1l << last);
+            int[] noGood = new int[size - 1];
+            int n = 0;
+            for (int w = 0; w < union.length; w++)
+                for (long word = union[w]; word != 0; word &= word - 1)
+                    noGood[n++] = (w << 6) + Long.numberOfTrailingZeros(word);
+            V lastVariable = domains.getVariable(last);
+            T current = assignment.getValue(lastVariable);
+            assignment.unassign(iteration, lastVariable);
+            domains.setNoGood(current, noGood);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean neighbourSelected(Assignment<V, T> assignment, long iteration, Neighbour<V, T> neighbour) {
+        return true;
+    }
+
+    @Override
+    public void neighbourFailed(Assignment<V, T> assignment, long iteration, Neighbour<V, T> neighbour) {
+    }
+}
@@ -22,7 +22,9 @@ import org.cpsolver.ifs.util.DataProperties;
  * Also, when a dead end is reached, unassignment or failure takes place. <br>
  * <br>
  * This IFS solver extension is to be used only in case of dynamic backtracking
- * and it has no parameters.
+ * and it has no parameters. See {@link DbtBitSetPropagation} for the same propagation
+ * with explanations kept on the indexes of the variables and values, which scales to
+ * much bigger problems.
  * 
  * 
  * @version IFS 1.3 (Iterative Forward Search)<br>
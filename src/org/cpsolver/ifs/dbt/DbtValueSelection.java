@@ -7,6 +7,7 @@ import java.util.Set;
 
 import org.cpsolver.ifs.assignment.Assignment;
 import org.cpsolver.ifs.extension.Extension;
+import org.cpsolver.ifs.extension.MacPropagation;
 import org.cpsolver.ifs.extension.ViolatedInitials;
 import org.cpsolver.ifs.heuristics.GeneralValueSelection;
 import org.cpsolver.ifs.heuristics.ValueSelection;
@@ -108,7 +109,7 @@ public class DbtValueSelection<V extends Variable<V, T>, T extends Value<V, T>>
     private double iWeightValue = 0.0;
 
     private boolean iMPP = false;
-    private DbtPropagation<V, T> iProp = null;
+    private MacPropagation<V, T> iProp = null;
     private ViolatedInitials<V, T> iViolatedInitials = null;
 
     public DbtValueSelection(DataProperties properties) {
@@ -132,8 +133,8 @@ public class DbtValueSelection<V extends Variable<V, T>, T extends Value<V, T>>
     @Override
     public void init(Solver<V, T> solver) {
         for (Extension<V, T> extension : solver.getExtensions()) {
-            if (DbtPropagation.class.isInstance(extension)) {
-                iProp = (DbtPropagation<V, T>) extension;
+            if (DbtPropagation.class.isInstance(extension) || DbtBitSetPropagation.class.isInstance(extension)) {
+                iProp = (MacPropagation<V, T>) extension;
             }
             if (ViolatedInitials.class.isInstance(extension)) {
                 iViolatedInitials = (ViolatedInitials<V, T>) extension;
@@ -194,7 +195,7 @@ public class DbtValueSelection<V extends Variable<V, T>, T extends Value<V, T>>
                 sLogger.debug("MPP Limit decreased to " + iMPPLimit);
             }
 
-            int nrPerts = solution.getModel().perturbVariables(assignment).size();
+            int nrPerts = solution.getModel().nrPerturbVariables(assignment);
 
             if (iMPPLimit >= 0 && iMPPLimit < nrPerts) {
                 return null;
@@ -248,7 +249,7 @@ public class DbtValueSelection<V extends Variable<V, T>, T extends Value<V, T>>
                         && !selectedVariable.getInitialAssignment().equals(value)) {
                     deltaInitialAssignments++;
                 }
-                if (iMPPLimit >= 0 && (solution.getModel().perturbVariables(assignment).size() + deltaInitialAssignments) > iMPPLimit) {
+                if (iMPPLimit >= 0 && (solution.getModel().nrPerturbVariables(assignment) + deltaInitialAssignments) > iMPPLimit) {
                     continue;
                 }
             }
@@ -1,6 +1,7 @@
 package org.cpsolver.ifs.dbt;
 
 import org.cpsolver.ifs.extension.Extension;
+import org.cpsolver.ifs.extension.MacPropagation;
 import org.cpsolver.ifs.heuristics.VariableSelection;
 import org.cpsolver.ifs.model.Value;
 import org.cpsolver.ifs.model.Variable;
@@ -44,7 +45,7 @@ import org.cpsolver.ifs.util.ToolBox;
  * @param <T> Value
  */
 public class DbtVariableSelection<V extends Variable<V, T>, T extends Value<V, T>> implements VariableSelection<V, T> {
-    private DbtPropagation<V, T> iProp = null;
+    private MacPropagation<V, T> iProp = null;
 
     public DbtVariableSelection(DataProperties properties) {
     }
@@ -57,8 +58,8 @@ public class DbtVariableSelection<V extends Variable<V, T>, T extends Value<V, T
     @Override
     public void init(Solver<V, T> solver) {
         for (Extension<V, T> extension : solver.getExtensions()) {
-            if (extension instanceof DbtPropagation<?, ?>) {
-                iProp = (DbtPropagation<V, T>) extension;
+            if (extension instanceof DbtPropagation<?, ?> || extension instanceof DbtBitSetPropagation<?, ?>) {
+                iProp = (MacPropagation<V, T>) extension;
             }
         }
     }
@@ -430,11 +430,11 @@ public class Test {
                                 + sDoubleFormat.format(100.0 * best.getModel().assignedVariables(best.getAssignment()).size()
                                         / best.getModel().variables().size())
                                 + (mpp ? ";"
-                                        + (best.getModel().perturbVariables(best.getAssignment()).size() + best.getModel()
+                                        + (best.getModel().nrPerturbVariables(best.getAssignment()) + best.getModel()
                                                 .unassignedVariables(best.getAssignment()).size())
                                         + ";"
                                         + sDoubleFormat.format(100.0
-                                                * (best.getModel().perturbVariables(best.getAssignment()).size() + best.getModel()
+                                                * (best.getModel().nrPerturbVariables(best.getAssignment()) + best.getModel()
                                                         .unassignedVariables(best.getAssignment()).size())
                                                 / best.getModel().variables().size()) : "") + ";" + val + ";"
                                 + totalVal);
@@ -464,12 +464,12 @@ public class Test {
                         log.println("    total value:  " + val);
                         if (mpp)
                             log.println("    perturbations:"
-                                    + (best.getModel().perturbVariables(best.getAssignment()).size() + best.getModel()
+                                    + (best.getModel().nrPerturbVariables(best.getAssignment()) + best.getModel()
                                             .unassignedVariables(best.getAssignment()).size())
                                     + " ("
                                     + sDoubleFormat
                                             .format(100.0
-                                                    * (best.getModel().perturbVariables(best.getAssignment()).size() + best.getModel()
+                                                    * (best.getModel().nrPerturbVariables(best.getAssignment()) + best.getModel()
                                                             .unassignedVariables(best.getAssignment()).size())
                                                     / best.getModel().variables().size()) + "%)");
                         log.print("    solution:     ");
@@ -493,11 +493,11 @@ public class Test {
                         sumTotalVal += totalVal;
                         sumTotalVal2 += totalVal * totalVal;
                         if (mpp) {
-                            sumPert += (best.getModel().perturbVariables(best.getAssignment()).size() + best.getModel()
+                            sumPert += (best.getModel().nrPerturbVariables(best.getAssignment()) + best.getModel()
                                     .unassignedVariables(best.getAssignment()).size());
-                            sumPert2 += (best.getModel().perturbVariables(best.getAssignment()).size() + best.getModel()
+                            sumPert2 += (best.getModel().nrPerturbVariables(best.getAssignment()) + best.getModel()
                                     .unassignedVariables(best.getAssignment()).size())
-                                    * (best.getModel().perturbVariables(best.getAssignment()).size() + best.getModel()
+                                    * (best.getModel().nrPerturbVariables(best.getAssignment()) + best.getModel()
                                             .unassignedVariables(best.getAssignment()).size());
                         }
                         log.flush();
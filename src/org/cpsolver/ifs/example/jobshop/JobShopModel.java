@@ -14,6 +14,7 @@ import java.util.StringTokenizer;
 
 import org.cpsolver.ifs.assignment.Assignment;
 import org.cpsolver.ifs.model.Model;
+import org.cpsolver.ifs.util.DataProperties;
 import org.cpsolver.ifs.util.ToolBox;
 
 
@@ -24,6 +25,9 @@ import org.cpsolver.ifs.util.ToolBox;
  * <br>
  * It can also load the model from a file and save the solution. <br>
  * <br>
+ * A random model can be generated as well (see
+ * {@link JobShopModel#generate(DataProperties)}). <br>
+ * <br>
  * <b>Input file format:</b>
  * First line:
  * <pre><code>&lt;number of jobs&gt; &lt;number of machines&gt;</code></pre>
@@ -141,6 +145,67 @@ public class JobShopModel extends Model<Operation, Location> {
         iMachines[machineNumber] = machine;
     }
 
+    /**
+     * Generates a random model using {@link ToolBox#random(int)}, so that the model is
+     * reproducible when {@link ToolBox#setSeed(long)} is called first. Each job visits all the
+     * machines in a random order, the processing times are uniformly distributed. The number of
+     * available time slots is computed from the trivial lower bound of the makespan (the
+     * maximal machine load or job length), multiplied by the given slack. The following
+     * parameters are used:
+     * <ul>
+     * <li>Generator.NrJobs ... number of jobs (defaults to 10)
+     * <li>Generator.NrMachines ... number of machines (defaults to 10)
+     * <li>Generator.MinProcessingTime ... minimal processing time of an operation (defaults to 1)
+     * <li>Generator.MaxProcessingTime ... maximal processing time of an operation (defaults to 99)
+     * <li>Generator.Slack ... ratio between the number of time slots and the makespan lower bound (defaults to 1.5)
+     * </ul>
+     * @param cfg problem configuration
+     * @return generated model
+     */
+    public static JobShopModel generate(DataProperties cfg) {
+        int nrJobs = cfg.getPropertyInt("Generator.NrJobs", 10);
+        int nrMachines = cfg.getPropertyInt("Generator.NrMachines", 10);
+        int minTime = cfg.getPropertyInt("Generator.MinProcessingTime", 1);
+        int maxTime = cfg.getPropertyInt("Generator.MaxProcessingTime", 99);
+        double slack = cfg.getPropertyDouble("Generator.Slack", 1.5);
+        JobShopModel model = new JobShopModel(nrMachines, nrJobs);
+        Machine[] machine = new Machine[nrMachines];
+        for (int i = 0; i < nrMachines; i++) {
+            machine[i] = new Machine(i);
+            model.addConstraint(machine[i]);
+            model.setMachine(i, machine[i]);
+        }
+        int[] machineLoad = new int[nrMachines];
+        int lowerBound = 0;
+        List<Integer> order = new ArrayList<Integer>(nrMachines);
+        for (int i = 0; i < nrJobs; i++) {
+            Job job = new Job(i);
+            model.addConstraint(job);
+            model.setJob(i, job);
+            order.clear();
+            for (int j = 0; j < nrMachines; j++)
+                order.add(j);
+            int jobLength = 0;
+            for (int j = 0; j < nrMachines; j++) {
+                int machineNumber = order.remove(ToolBox.random(order.size()));
+                int processingTime = minTime + ToolBox.random(1 + maxTime - minTime);
+                Operation operation = new Operation(job, machine[machineNumber], j, processingTime);
+                model.addVariable(operation);
+                job.addVariable(operation);
+                machine[machineNumber].addVariable(operation);
+                machineLoad[machineNumber] += processingTime;
+                jobLength += processingTime;
+            }
+            lowerBound = Math.max(lowerBound, jobLength);
+        }
+        for (int j = 0; j < nrMachines; j++)
+            lowerBound = Math.max(lowerBound, machineLoad[j]);
+        model.iTotalNumberOfSlots = (int) Math.ceil(slack * lowerBound);
+        for (Operation o : model.variables())
+            o.init();
+        return model;
+    }
+
     /** Loads the model from the given file 
      * @param file file to load
      * @return loaded model
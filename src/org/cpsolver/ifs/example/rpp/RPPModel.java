@@ -1,6 +1,8 @@
 package org.cpsolver.ifs.example.rpp;
 
 import org.cpsolver.ifs.model.Model;
+import org.cpsolver.ifs.util.DataProperties;
+import org.cpsolver.ifs.util.ToolBox;
 
 /**
  * RPP model. <br>
@@ -23,7 +25,9 @@ import org.cpsolver.ifs.model.Model;
  * one classroom only). Each course can be placed only in a classroom of
  * sufficient capacity - we can expect that the classrooms are ordered
  * increasingly in their size so each object will have a lower bound on its
- * y-coordinate.
+ * y-coordinate. <br>
+ * <br>
+ * A random instance can be generated using {@link RPPModel#generate(DataProperties)}.
  * 
  * @version IFS 1.3 (Iterative Forward Search)<br>
  *          Copyright (C) 2006 - 2014 Tomas Muller<br>
@@ -62,4 +66,44 @@ public class RPPModel extends Model<Rectangle, Location> {
         return null;
     }
 
+    /**
+     * Generates a random instance using {@link ToolBox#random(int)}, so that the instance is
+     * reproducible when {@link ToolBox#setSeed(long)} is called first. Objects of random sizes are
+     * created until the filled area ratio is reached, each object gets a random lower bound on its
+     * y-coordinate. The following parameters are used:
+     * <ul>
+     * <li>Generator.Width ... width of the placement area (defaults to 30)
+     * <li>Generator.Height ... height of the placement area (defaults to 30)
+     * <li>Generator.FilledRatio ... ratio between the total area of all objects and the placement area (defaults to 0.8)
+     * <li>Generator.MinWidth, Generator.MaxWidth ... width of an object (defaults to 2 .. 8)
+     * <li>Generator.MinHeight, Generator.MaxHeight ... height of an object (defaults to 1 .. 1)
+     * <li>Generator.MaxLowerBound ... maximal lower bound on the y-coordinate, as a ratio of the height (defaults to 0.5)
+     * </ul>
+     * @param cfg problem configuration
+     * @return generated model
+     */
+    public static RPPModel generate(DataProperties cfg) {
+        int width = cfg.getPropertyInt("Generator.Width", 30);
+        int height = cfg.getPropertyInt("Generator.Height", 30);
+        double filledRatio = cfg.getPropertyDouble("Generator.FilledRatio", 0.8);
+        int minWidth = cfg.getPropertyInt("Generator.MinWidth", 2);
+        int maxWidth = Math.min(width, cfg.getPropertyInt("Generator.MaxWidth", 8));
+        int minHeight = cfg.getPropertyInt("Generator.MinHeight", 1);
+        int maxHeight = Math.min(height, cfg.getPropertyInt("Generator.MaxHeight", 1));
+        double maxLowerBound = cfg.getPropertyDouble("Generator.MaxLowerBound", 0.5);
+        RPPModel model = new RPPModel();
+        ResourceConstraint constraint = new ResourceConstraint(width, height);
+        model.addConstraint(constraint);
+        int area = 0;
+        for (int i = 0; area < filledRatio * width * height; i++) {
+            int w = minWidth + ToolBox.random(1 + maxWidth - minWidth);
+            int h = minHeight + ToolBox.random(1 + maxHeight - minHeight);
+            int minY = ToolBox.random(1 + (int) Math.round(maxLowerBound * (height - h)));
+            Rectangle r = new Rectangle("rect" + i, w, h, 0, width - w, minY, height - h, null);
+            model.addVariable(r);
+            constraint.addVariable(r);
+            area += w * h;
+        }
+        return model;
+    }
 }
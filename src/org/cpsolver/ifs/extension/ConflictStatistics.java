@@ -1,9 +1,12 @@
 package org.cpsolver.ifs.extension;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -61,9 +64,9 @@ import org.cpsolver.ifs.util.DataProperties;
  * assignment Vb = vb is selected by {@link Model#conflictValues(Assignment, Value)} to be
  * unassigned, the array cell CBS[Va = va, Vb != vb] is incremented by one. <br>
  * <br>
- * The data structure is implemented as a hash table, storing information for
- * conflict-based statistics. A counter is maintained for the tuple A = a and B
- * != b. This counter is increased when the value a is assigned to the variable
+ * The data structure is implemented as a set of bounded hash tables with primitive
+ * counters, storing information for conflict-based statistics. A counter is maintained
+ * for the tuple A = a and B != b. This counter is increased when the value a is assigned to the variable
  * A and b is unassigned from B. The example of this structure
  * <pre><code>
  * A = a &nbsp;&nbsp;&nbsp; &#8594; &nbsp;&nbsp;&nbsp; 3 x B != b, &nbsp; 4 x B
@@ -129,6 +132,27 @@ import org.cpsolver.ifs.util.DataProperties;
  * <td>Another way how to express ageing: number of iterations to decrease a
  * conflict to 1/2 (default is 0 -- no ageing)</td>
  * </tr>
+ * <tr>
+ * <td>ConflictStatistics.MaxValues</td>
+ * <td>{@link Integer}</td>
+ * <td>Maximal number of values that are memorized. When reached, the quarter of the values
+ * that were not involved in a conflict for the longest time are forgotten, together with
+ * all their counters (default is 100000). The no-goods collected when ConflictStatistics.Print
+ * is set are limited the same way (the least recently used ones are forgotten).</td>
+ * </tr>
+ * <tr>
+ * <td>ConflictStatistics.MaxEntries</td>
+ * <td>{@link Integer}</td>
+ * <td>Maximal number of counters that are kept for a variable or a value. When reached,
+ * counters of forgotten values and aged counters are removed; if that is not enough, the
+ * quarter of the counters with the lowest value is dropped (default is 1000). This also limits
+ * the number of no-goods kept for an unassigned value.</td>
+ * </tr>
+ * <tr>
+ * <td>ConflictStatistics.MinCounter</td>
+ * <td>{@link Double}</td>
+ * <td>Aged counters below this limit are dropped when there are too many counters (default is 0.01).</td>
+ * </tr>
  * </table>
  * 
  * @see Solver
@@ -161,13 +185,38 @@ public class ConflictStatistics<V extends Variable<V, T>, T extends Value<V, T>>
     private static final String PARAM_AGEING = "ConflictStatistics.Ageing";
     private static final String PARAM_HALF_AGE = "ConflictStatistics.AgeingHalfTime";
     private static final String PARAM_PRINT = "ConflictStatistics.Print";
+    private static final String PARAM_MAX_VALUES = "ConflictStatistics.MaxValues";
+    private static final String PARAM_MAX_ENTRIES = "ConflictStatistics.MaxEntries";
+    private static final String PARAM_MIN_COUNTER = "ConflictStatistics.MinCounter";
 
     private double iAgeing = 1.0;
     private boolean iPrint = false;
+    private int iMaxValues = 100000;
+    private int iMaxEntries = 1000;
+    private double iMinCounter = 0.01;
+
+    // value dictionary: value -> id, id -> value (the id is combined with a version into a key, see key(int))
+    private Map<T, Integer> iValueIds = new HashMap<T, Integer>();
+    private Object[] iValues = new Object[64];
+    private int[] iVersions = new int[64];
+    private long[] iLastUsed = new long[64];
+    private int iNrIds = 0;
+    private int[] iFreeIds = new int[16];
+    private int iNrFreeIds = 0;
 
-    private Map<AssignedValue<T>, List<AssignedValue<T>>> iAssignments = new HashMap<AssignedValue<T>, List<AssignedValue<T>>>();
-    private Map<V, List<AssignedValue<T>>> iUnassignedVariables = new HashMap<V, List<AssignedValue<T>>>();
-    private Map<AssignedValue<T>, List<AssignedValue<T>>> iNoGoods = new HashMap<AssignedValue<T>, List<AssignedValue<T>>>();
+    // value id -> assignments that caused the value to be unassigned
+    private CounterTable[] iAssignments = new CounterTable[64];
+    // variable index -> assignments that caused the variable to be unassigned
+    private List<CounterTable> iUnassignedVariables = new ArrayList<CounterTable>();
+    private List<V> iVariables = new ArrayList<V>();
+    // no-goods (only collected when ConflictStatistics.Print is set), the least recently used first
+    private LinkedHashMap<AssignedValue<T>, Map<AssignedValue<T>, AssignedValue<T>>> iNoGoods = new LinkedHashMap<AssignedValue<T>, Map<AssignedValue<T>, AssignedValue<T>>>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<AssignedValue<T>, Map<AssignedValue<T>, AssignedValue<T>>> eldest) {
+            return size() > iMaxValues;
+        }
+    };
     
     private final ReentrantReadWriteLock iLock = new ReentrantReadWriteLock();
 
@@ -178,6 +227,9 @@ public class ConflictStatistics<V extends Variable<V, T>, T extends Value<V, T>>
         if (halfAge > 0)
             iAgeing = Math.exp(Math.log(0.5) / (halfAge));
         iPrint = properties.getPropertyBoolean(PARAM_PRINT, iPrint);
+        iMaxValues = Math.max(16, properties.getPropertyInt(PARAM_MAX_VALUES, iMaxValues));
+        iMaxEntries = Math.max(4, properties.getPropertyInt(PARAM_MAX_ENTRIES, iMaxEntries));
+        iMinCounter = properties.getPropertyDouble(PARAM_MIN_COUNTER, iMinCounter);
     }
 
     @Override
@@ -195,67 +247,186 @@ public class ConflictStatistics<V extends Variable<V, T>, T extends Value<V, T>>
         iLock.writeLock().lock();
         try {
             AssignedValue<T> unass = new AssignedValue<T>(iteration, unassignedValue, iAgeing);
-            List<AssignedValue<T>> noGoodsForUnassignment = iNoGoods.get(unass);
-            if (noGoodsForUnassignment != null) {
-                if (noGoodsForUnassignment.contains(noGood)) {
-                    (noGoodsForUnassignment.get(noGoodsForUnassignment.indexOf(noGood))).incCounter(iteration);
-                } else {
-                    noGoodsForUnassignment.add(noGood);
-                }
-            } else {
-                noGoodsForUnassignment = new ArrayList<AssignedValue<T>>();
-                noGoodsForUnassignment.add(noGood);
+            Map<AssignedValue<T>, AssignedValue<T>> noGoodsForUnassignment = iNoGoods.get(unass);
+            if (noGoodsForUnassignment == null) {
+                noGoodsForUnassignment = new HashMap<AssignedValue<T>, AssignedValue<T>>();
                 iNoGoods.put(unass, noGoodsForUnassignment);
             }
+            AssignedValue<T> counter = noGoodsForUnassignment.get(noGood);
+            if (counter != null) {
+                counter.incCounter(iteration);
+            } else {
+                if (noGoodsForUnassignment.size() >= iMaxEntries)
+                    compact(noGoodsForUnassignment, iteration);
+                noGoodsForUnassignment.put(noGood, noGood);
+            }
         } finally {
             iLock.writeLock().unlock();
         }
     }
 
+    /**
+     * Drop aged no-goods, if that is not enough, drop the quarter of the no-goods with the lowest counters
+     * (the same way as the counters of a variable or a value are compacted)
+     */
+    private void compact(Map<AssignedValue<T>, AssignedValue<T>> noGoods, long iteration) {
+        for (Iterator<AssignedValue<T>> i = noGoods.keySet().iterator(); i.hasNext(); )
+            if (i.next().getCounter(iteration) < iMinCounter) i.remove();
+        if (noGoods.size() < iMaxEntries) return;
+        double[] counters = new double[noGoods.size()];
+        int n = 0;
+        for (AssignedValue<T> noGood: noGoods.keySet())
+            counters[n++] = noGood.getCounter(iteration);
+        Arrays.sort(counters);
+        double limit = counters[n / 4];
+        for (Iterator<AssignedValue<T>> i = noGoods.keySet().iterator(); i.hasNext(); )
+            if (i.next().getCounter(iteration) <= limit) i.remove();
+    }
+
     public void reset() {
         iLock.writeLock().lock();
         try {
+            iNoGoods.clear();
             iUnassignedVariables.clear();
-            iAssignments.clear();
+            iVariables.clear();
+            for (int id = 0; id < iNrIds; id++)
+                if (iValues[id] != null) freeId(id);
         } finally {
             iLock.writeLock().unlock();
         }
     }
 
+    /**
+     * No-goods, only collected when ConflictStatistics.Print is set. At most ConflictStatistics.MaxValues unassigned values
+     * (the most recently used ones) are kept, each with at most ConflictStatistics.MaxEntries no-goods.
+     * @return a copy of the no-goods: unassigned value, list of the values that caused the unassignment
+     */
     public Map<AssignedValue<T>, List<AssignedValue<T>>> getNoGoods() {
-        return iNoGoods;
+        iLock.readLock().lock();
+        try {
+            Map<AssignedValue<T>, List<AssignedValue<T>>> ret = new HashMap<AssignedValue<T>, List<AssignedValue<T>>>();
+            for (Map.Entry<AssignedValue<T>, Map<AssignedValue<T>, AssignedValue<T>>> entry: iNoGoods.entrySet())
+                ret.put(entry.getKey(), new ArrayList<AssignedValue<T>>(entry.getValue().values()));
+            return ret;
+        } finally {
+            iLock.readLock().unlock();
+        }
+    }
+    
+    /** Key of a value id (combination of the id and its current version) */
+    private long key(int id) {
+        return (((long)iVersions[id]) << 32) | id;
+    }
+    
+    /** Check whether the value of a key is still memorized */
+    private boolean isValid(long key) {
+        int id = (int)key;
+        return id >= 0 && id < iNrIds && iVersions[id] == (int)(key >>> 32);
+    }
+    
+    /** Value of a key, null if the value has been evicted since */
+    @SuppressWarnings("unchecked")
+    private T value(long key) {
+        return (isValid(key) ? (T)iValues[(int)key] : null);
+    }
+    
+    /** Returns id of the given value, -1 if the value is not known (must be called with at least a read lock) */
+    private int lookup(T value) {
+        Integer id = iValueIds.get(value);
+        return (id == null ? -1 : id.intValue());
+    }
+
+    /** Returns id of the given value, registering the value if needed (must be called with a write lock) */
+    private int register(long iteration, T value) {
+        Integer id = iValueIds.get(value);
+        if (id != null) {
+            if (iLastUsed[id] < iteration) iLastUsed[id] = iteration;
+            return id;
+        }
+        if (iValueIds.size() >= iMaxValues) evictValues();
+        int newId;
+        if (iNrFreeIds > 0) {
+            newId = iFreeIds[--iNrFreeIds];
+        } else {
+            if (iNrIds == iValues.length) {
+                int size = 2 * iValues.length;
+                iValues = Arrays.copyOf(iValues, size);
+                iVersions = Arrays.copyOf(iVersions, size);
+                iLastUsed = Arrays.copyOf(iLastUsed, size);
+                iAssignments = Arrays.copyOf(iAssignments, size);
+            }
+            newId = iNrIds++;
+        }
+        iValues[newId] = value;
+        iVersions[newId]++;
+        iLastUsed[newId] = iteration;
+        iValueIds.put(value, newId);
+        return newId;
+    }
+    
+    /** Forget a value, all the counters referring to it become stale */
+    private void freeId(int id) {
+        iValueIds.remove(iValues[id]);
+        iValues[id] = null;
+        iVersions[id]++;
+        iAssignments[id] = null;
+        if (iNrFreeIds == iFreeIds.length)
+            iFreeIds = Arrays.copyOf(iFreeIds, 2 * iFreeIds.length);
+        iFreeIds[iNrFreeIds++] = id;
+    }
+    
+    /** Age-based eviction: forget about the quarter of the values that were not involved in a conflict for the longest time */
+    private void evictValues() {
+        long[] lastUsed = new long[iValueIds.size()];
+        int n = 0;
+        for (int id = 0; id < iNrIds; id++)
+            if (iValues[id] != null) lastUsed[n++] = iLastUsed[id];
+        if (n == 0) return;
+        Arrays.sort(lastUsed, 0, n);
+        long limit = lastUsed[n / 4];
+        boolean evicted = false;
+        for (int id = 0; id < iNrIds; id++)
+            if (iValues[id] != null && iLastUsed[id] < limit) {
+                freeId(id); evicted = true;
+            }
+        if (!evicted)
+            for (int id = 0; id < iNrIds; id++)
+                if (iValues[id] != null && iLastUsed[id] == limit) freeId(id);
     }
 
+    /**
+     * Increments appropriate counters when there is a value unassigned
+     * @param iteration current iteration
+     * @param unassignedValue value that was unassigned
+     * @param assignedValue value that was assigned (and caused the unassignment)
+     */
     public void variableUnassigned(long iteration, T unassignedValue, T assignedValue) {
         if (iteration <= 0) return;
-        AssignedValue<T> ass = new AssignedValue<T>(iteration, assignedValue, iAgeing);
-        AssignedValue<T> unass = new AssignedValue<T>(iteration, unassignedValue, iAgeing);
+        int index = unassignedValue.variable().getIndex();
+        if (index < 0) return;
         iLock.writeLock().lock();
         try {
-            if (iAssignments.containsKey(unass)) {
-                List<AssignedValue<T>> asss = iAssignments.get(unass);
-                if (asss.contains(ass)) {
-                    asss.get(asss.indexOf(ass)).incCounter(iteration);
-                } else {
-                    asss.add(ass);
-                }
-            } else {
-                List<AssignedValue<T>> asss = new ArrayList<AssignedValue<T>>();
-                asss.add(ass);
-                iAssignments.put(unass, asss);
+            long unass = key(register(iteration, unassignedValue));
+            long ass = key(register(iteration, assignedValue));
+            if (!isValid(unass)) return; // unassigned value got evicted while registering the assigned one
+            int unassId = (int)unass;
+            CounterTable asss = iAssignments[unassId];
+            if (asss == null) {
+                asss = new CounterTable(this);
+                iAssignments[unassId] = asss;
             }
-            if (iUnassignedVariables.containsKey(unassignedValue.variable())) {
-                List<AssignedValue<T>> asss = iUnassignedVariables.get(unassignedValue.variable());
-                if (asss.contains(ass)) {
-                    (asss.get(asss.indexOf(ass))).incCounter(iteration);
-                } else {
-                    asss.add(ass);
-                }
-            } else {
-                List<AssignedValue<T>> asss = new ArrayList<AssignedValue<T>>();
-                asss.add(ass);
-                iUnassignedVariables.put(unassignedValue.variable(), asss);
+            asss.inc(ass, iteration);
+            while (iUnassignedVariables.size() <= index) {
+                iUnassignedVariables.add(null);
+                iVariables.add(null);
             }
+            CounterTable vars = iUnassignedVariables.get(index);
+            if (vars == null) {
+                vars = new CounterTable(this);
+                iUnassignedVariables.set(index, vars);
+                iVariables.set(index, unassignedValue.variable());
+            }
+            vars.inc(ass, iteration);
         } finally {
             iLock.writeLock().unlock();
         }
@@ -287,16 +458,18 @@ public class ConflictStatistics<V extends Variable<V, T>, T extends Value<V, T>>
      * @return number of unassignments
      */
     public double countRemovals(long iteration, T conflictValue, T value) {
+        int index = conflictValue.variable().getIndex();
         iLock.readLock().lock();
         try {
-            List<AssignedValue<T>> asss = iUnassignedVariables.get(conflictValue.variable());
+            if (index < 0 || index >= iUnassignedVariables.size())
+                return 0;
+            CounterTable asss = iUnassignedVariables.get(index);
             if (asss == null)
                 return 0;
-            AssignedValue<T> ass = new AssignedValue<T>(iteration, value, iAgeing);
-            int idx = asss.indexOf(ass);
-            if (idx < 0)
+            int id = lookup(value);
+            if (id < 0)
                 return 0;
-            return (asss.get(idx)).getCounter(iteration);
+            return asss.get(key(id), iteration);
         } finally {
             iLock.readLock().unlock();
         }
@@ -314,16 +487,21 @@ public class ConflictStatistics<V extends Variable<V, T>, T extends Value<V, T>>
     public long countPotentialConflicts(Assignment<V, T> assignment, long iteration, T value, int limit) {
         iLock.readLock().lock();
         try {
-            List<AssignedValue<T>> asss = iAssignments.get(new AssignedValue<T>(iteration, value, iAgeing));
+            int id = lookup(value);
+            if (id < 0)
+                return 0;
+            CounterTable asss = iAssignments[id];
             if (asss == null)
                 return 0;
             long count = 0;
-            for (AssignedValue<T> ass : asss) {
-                if (ass.getValue().variable().getAssignment(assignment) == null) {
+            for (int i = 0; i < asss.iKeys.length; i++) {
+                if (asss.iKeys[i] == 0) continue;
+                T ass = value(asss.iKeys[i]);
+                if (ass != null && ass.variable().getAssignment(assignment) == null) {
                     if (limit >= 0) {
-                        count += ass.getCounter(iteration) * Math.max(0, 1 + limit - value.variable().getModel().conflictValues(assignment, ass.getValue()).size());
+                        count += asss.counter(i, iteration) * Math.max(0, 1 + limit - value.variable().getModel().conflictValues(assignment, ass).size());
                     } else {
-                        count += ass.getCounter(iteration);
+                        count += asss.counter(i, iteration);
                     }
                 }
             }
@@ -336,12 +514,12 @@ public class ConflictStatistics<V extends Variable<V, T>, T extends Value<V, T>>
     private int countAssignments(V variable) {
         iLock.readLock().lock();
         try {
-            List<AssignedValue<T>> assignments = iUnassignedVariables.get(variable);
-            if (assignments == null || assignments.isEmpty()) return 0;
+            CounterTable assignments = iUnassignedVariables.get(variable.getIndex());
+            if (assignments == null) return 0;
             int ret = 0;
-            for (AssignedValue<T> assignment: assignments) {
-                ret += assignment.getCounter(0);
-            }
+            for (int i = 0; i < assignments.iKeys.length; i++)
+                if (assignments.iKeys[i] != 0 && value(assignments.iKeys[i]) != null)
+                    ret += assignments.counter(i, 0);
             return ret;
         } finally {
             iLock.readLock().unlock();
@@ -362,13 +540,22 @@ public class ConflictStatistics<V extends Variable<V, T>, T extends Value<V, T>>
                     return v1.compareTo(v2);
                 }
             });
-            sortedUnassignedVariables.addAll(iUnassignedVariables.keySet());
+            for (V variable: iVariables)
+                if (variable != null) sortedUnassignedVariables.add(variable);
             int printedVariables = 0;
             for (V variable : sortedUnassignedVariables) {
                 sb.append("\n      ").append(countAssignments(variable) + "x ").append(variable.getName()).append(" <= {");
                 TreeSet<AssignedValue<T>> sortedAssignments = new TreeSet<AssignedValue<T>>(
                         new AssignedValue.AssignmentComparator<T>(0));
-                sortedAssignments.addAll(iUnassignedVariables.get(variable));
+                CounterTable assignments = iUnassignedVariables.get(variable.getIndex());
+                for (int i = 0; i < assignments.iKeys.length; i++) {
+                    if (assignments.iKeys[i] == 0) continue;
+                    T value = value(assignments.iKeys[i]);
+                    if (value == null) continue;
+                    AssignedValue<T> x = new AssignedValue<T>(0, value, iAgeing);
+                    x.setCounter(assignments.counter(i, 0));
+                    sortedAssignments.add(x);
+                }
                 int printedAssignments = 0;
                 for (AssignedValue<T> x : sortedAssignments) {
                     sb.append("\n        ").append(x.toString(0, true));
@@ -428,4 +615,100 @@ public class ConflictStatistics<V extends Variable<V, T>, T extends Value<V, T>>
     public void constraintRemoved(Constraint<V, T> constraint) {
         constraint.removeConstraintListener(this);
     }
+    
+    /**
+     * Bounded open addressing hash table of (aged) counters, keyed by value keys (see {@link ConflictStatistics#key(int)}).
+     * When the table is full (see ConflictStatistics.MaxEntries), counters of evicted values and counters that aged below
+     * ConflictStatistics.MinCounter are removed. If that is not enough, the quarter of the counters with the lowest value
+     * is dropped as well.
+     */
+    private static class CounterTable {
+        private ConflictStatistics<?, ?> iStatistics;
+        private long[] iKeys = new long[8];
+        private double[] iCounters = new double[8];
+        private long[] iRevisions = new long[8];
+        private int iSize = 0;
+        
+        private CounterTable(ConflictStatistics<?, ?> statistics) {
+            iStatistics = statistics;
+        }
+        
+        private int slot(long key) {
+            int h = (int)(key ^ (key >>> 32)) * 0x9E3779B9;
+            return (h ^ (h >>> 16)) & (iKeys.length - 1);
+        }
+        
+        private int indexOf(long key) {
+            for (int i = slot(key); ; i = (i + 1) & (iKeys.length - 1)) {
+                if (iKeys[i] == key) return i;
+                if (iKeys[i] == 0) return -1 - i;
+            }
+        }
+        
+        /** Counter at the given position, aged to the given iteration */
+        private double counter(int index, long iteration) {
+            if (iteration == 0l || iStatistics.iAgeing == 1.0)
+                return iCounters[index];
+            return iCounters[index] * Math.pow(iStatistics.iAgeing, iteration - iRevisions[index]);
+        }
+        
+        /** Counter of the given key, aged to the given iteration */
+        private double get(long key, long iteration) {
+            int index = indexOf(key);
+            return (index < 0 ? 0.0 : counter(index, iteration));
+        }
+        
+        /** Increment counter of the given key */
+        private void inc(long key, long iteration) {
+            int index = indexOf(key);
+            if (index >= 0) {
+                iCounters[index] = counter(index, iteration) + 1.0;
+                iRevisions[index] = iteration;
+                return;
+            }
+            if (iSize >= iStatistics.iMaxEntries) {
+                compact(iteration);
+                index = indexOf(key);
+            } else if (2 * (iSize + 1) > iKeys.length) {
+                rehash(2 * iKeys.length);
+                index = indexOf(key);
+            }
+            index = -1 - index;
+            iKeys[index] = key;
+            iCounters[index] = 1.0;
+            iRevisions[index] = iteration;
+            iSize ++;
+        }
+        
+        private void rehash(int capacity) {
+            long[] keys = iKeys; double[] counters = iCounters; long[] revisions = iRevisions;
+            iKeys = new long[capacity]; iCounters = new double[capacity]; iRevisions = new long[capacity];
+            iSize = 0;
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == 0) continue;
+                int index = -1 - indexOf(keys[i]);
+                iKeys[index] = keys[i]; iCounters[index] = counters[i]; iRevisions[index] = revisions[i];
+                iSize ++;
+            }
+        }
+        
+        private void compact(long iteration) {
+            for (int i = 0; i < iKeys.length; i++) {
+                if (iKeys[i] == 0) continue;
+                if (!iStatistics.isValid(iKeys[i]) || counter(i, iteration) < iStatistics.iMinCounter) iKeys[i] = 0;
+            }
+            rehash(iKeys.length);
+            if (iSize >= iStatistics.iMaxEntries) {
+                double[] counters = new double[iSize];
+                int n = 0;
+                for (int i = 0; i < iKeys.length; i++)
+                    if (iKeys[i] != 0) counters[n++] = counter(i, iteration);
+                Arrays.sort(counters);
+                double limit = counters[n / 4];
+                for (int i = 0; i < iKeys.length; i++)
+                    if (iKeys[i] != 0 && counter(i, iteration) <= limit) iKeys[i] = 0;
+                rehash(iKeys.length);
+            }
+        }
+    }
 }
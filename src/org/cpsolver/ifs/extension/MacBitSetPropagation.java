@@ -0,0 +1,762 @@
+package org.cpsolver.ifs.extension;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+import org.cpsolver.ifs.assignment.Assignment;
+import org.cpsolver.ifs.model.Constraint;
+import org.cpsolver.ifs.model.Value;
+import org.cpsolver.ifs.model.Variable;
+import org.cpsolver.ifs.solver.Solver;
+import org.cpsolver.ifs.util.DataProperties;
+import org.cpsolver.ifs.util.Progress;
+
+/**
+ * Incremental implementation of the {@link MacPropagation}. Arc-consistency is maintained over the same
+ * (binary projections of the) hard constraints, but using primitive data structures:
+ * <ul>
+ * <li>The domain of each variable is represented by a bit set of good values (values that are not removed by the propagation).
+ * <li>Supports are looked up using AC-2001 style last-support caches: for each arc and value the index of the last found
+ * support is remembered and the search continues from it (wrapping around, as removed values can return to the domain).
+ * <li>Each removal is explained by a (usually singleton) set of assigned variables and it is recorded on the trail of each
+ * of these variables. When a variable is unassigned, only the removals on its trail are undone and re-checked, instead of
+ * recomputing the explanations of the whole domain.
+ * </ul>
+ * Since this class extends {@link MacPropagation}, it can be used by all the heuristics that check for the
+ * presence of the MAC propagation (e.g., {@link org.cpsolver.ifs.heuristics.GeneralValueSelection}).
+ * The domains are taken when the propagation is initialized for an assignment (the first call of any of the
+ * methods). MacPropagation.JustForwardCheck parameter is supported as well.
+ * 
+ * @see MacPropagation
+ *
+ * @version IFS 1.3 (Iterative Forward Search)<br>
+ *          Copyright (C) 2017 Tomas Muller<br>
+ *          <a href="mailto:muller@unitime.org">muller@unitime.org</a><br>
+ *          <a href="http://muller.unitime.org">http://muller.unitime.org</a><br>
+ * <br>
+ *          This library is free software; you can redistribute it and/or modify
+ *          it under the terms of the GNU Lesser General Public License as
+ *          published by the Free Software Foundation; either version 3 of the
+ *          License, or (at your option) any later version. <br>
+ * <br>
+ *          This library is distributed in the hope that it will be useful, but
+ *          WITHOUT ANY WARRANTY; without even the implied warranty of
+ *          MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *          Lesser General Public License for more details. <br>
+ * <br>
+ *          You should have received a copy of the GNU Lesser General Public
+ *          License along with this library; if not see
+ *          <a href='http://www.gnu.org/licenses/'>http://www.gnu.org/licenses/</a>.
+ *
+ * @param <V> Variable
+ * @param <T> Value
+ */
+public class MacBitSetPropagation<V extends Variable<V, T>, T extends Value<V, T>> extends MacPropagation<V, T> {
+    private static Logger sLogger = Logger.getLogger(MacBitSetPropagation.class);
+    private static final int[] sEmpty = new int[0];
+    private boolean iJustForwardCheck = false;
+
+    /** Constructor 
+     * @param solver current solver 
+     * @param properties solver configuration
+     **/
+    public MacBitSetPropagation(Solver<V, T> solver, DataProperties properties) {
+        super(solver, properties);
+        iJustForwardCheck = properties.getPropertyBoolean("MacPropagation.JustForwardCheck", false);
+    }
+    
+    @Override
+    public NoGood createAssignmentContext(Assignment<V, T> assignment) {
+        return new Domains(assignment);
+    }
+    
+    /** Propagation context of the given assignment
+     * @param assignment current assignment
+     * @return bit set domains of the assignment
+     **/
+    protected Domains domains(Assignment<V, T> assignment) {
+        return (Domains) getContext(assignment);
+    }
+
+    /**
+     * Before a value is assigned: until the value is inconsistent with the
+     * current solution, a variable from its explanation is unassigned.
+     */
+    @Override
+    public void beforeAssigned(Assignment<V, T> assignment, long iteration, T value) {
+        iIteration = iteration;
+        if (value == null)
+            return;
+        Domains domains = domains(assignment);
+        int[] explanation = domains.explanation(value);
+        while (explanation != null && explanation.length > 0) {
+            V variable = domains.variable(explanation[0]);
+            if (assignment.getValue(variable) == null) {
+                sLogger.error("Something went wrong: " + variable.getName() + " is in the explanation of " + value + ", but it is not assigned.");
+                break;
+            }
+            assignment.unassign(iteration, variable);
+            explanation = domains.explanation(value);
+        }
+        if (!isGood(assignment, value))
+            sLogger.warn("Going to assign a bad value " + value + " with empty no-good.");
+    }
+
+    /**
+     * After a value is assigned: other values of the value's variable are removed (explained by the assignment),
+     * propagation over the assigned variable takes place.
+     */
+    @Override
+    public void afterAssigned(Assignment<V, T> assignment, long iteration, T value) {
+        iIteration = iteration;
+        Domains domains = domains(assignment);
+        if (!domains.isGood(value)) {
+            sLogger.warn(value.variable().getName() + " = " + value.getName() + " -- not good value assigned (noGood:" + domains.noGood(value) + ")");
+            domains.setGood(value);
+        }
+        domains.assigned(value);
+    }
+
+    /**
+     * After a value is unassigned: all removals explained by the unassigned variable are undone and the
+     * returned values are checked again.
+     */
+    @Override
+    public void afterUnassigned(Assignment<V, T> assignment, long iteration, T value) {
+        iIteration = iteration;
+        domains(assignment).unassigned(value.variable());
+    }
+
+    @Override
+    public Set<T> goodValues(Assignment<V, T> assignment, V variable) {
+        return domains(assignment).goodValues(variable);
+    }
+
+    @Override
+    public Set<T> noGood(Assignment<V, T> assignment, T value) {
+        return domains(assignment).noGood(value);
+    }
+
+    @Override
+    public boolean isGood(Assignment<V, T> assignment, T value) {
+        return domains(assignment).isGood(value);
+    }
+
+    @Override
+    protected void setGood(Assignment<V, T> assignment, T value) {
+        domains(assignment).setGood(value);
+    }
+
+    @Override
+    public void setNoGood(Assignment<V, T> assignment, T value, Set<T> reason) {
+        domains(assignment).setNoGood(value, reason);
+    }
+
+    @Override
+    protected void propagate(Assignment<V, T> assignment, V variable) {
+        domains(assignment).propagate(variable);
+    }
+
+    @Override
+    public void undoPropagate(Assignment<V, T> assignment, V variable) {
+        domains(assignment).unassigned(variable);
+    }
+
+    /**
+     * Assignment context: bit set domains, explanations, trails and last-support caches
+     */
+    public class Domains extends NoGood {
+        private Assignment<V, T> iAssignment;
+        private List<V> iVariables;
+        private int[] iPosition;
+        private Map<T, Integer> iValueIndex = new HashMap<T, Integer>();
+        private Object[][] iValues;
+        private long[][] iGood;
+        private int[] iNrGood;
+        private int[][][] iExplanation;
+        private int[][] iSingleton;
+        private List<Set<T>> iGoodValues;
+        // arcs: constraint, the other variable, index of the reverse arc, last supports
+        private Object[][] iArcConstraint;
+        private int[][] iArcVariable;
+        private int[][] iArcReverse;
+        private int[][][] iLastSupport;
+        // trails: removed values (pairs of variable and value indexes) explained by an assigned variable
+        private int[][] iTrail;
+        private int[] iTrailSize;
+        // propagation queue
+        private int[] iQueue;
+        private boolean[] iQueued;
+        private int iQueueHead = 0, iQueueSize = 0;
+        // scratch buffers
+        private int[] iMark;
+        private int iMarkStamp = 0;
+        private int[] iBuffer = new int[16];
+        private int[] iRestored = new int[16];
+
+        /**
+         * Initialization. Domains are created and arc-consistency is enforced
+         * over the current (initial) solution.
+         * @param assignment current assignment
+         */
+        public Domains(Assignment<V, T> assignment) {
+            iAssignment = assignment;
+            Progress progress = Progress.getInstance(getModel());
+            progress.save();
+            iVariables = new ArrayList<V>(getModel().variables());
+            int n = iVariables.size();
+            progress.setPhase("Initializing propagation:", 2 * n);
+            int maxIndex = 0;
+            for (V variable: iVariables)
+                maxIndex = Math.max(maxIndex, variable.getIndex() + 1);
+            iPosition = new int[maxIndex];
+            Arrays.fill(iPosition, -1);
+            iValues = new Object[n][];
+            iGood = new long[n][];
+            iNrGood = new int[n];
+            iExplanation = new int[n][][];
+            iSingleton = new int[n][];
+            iGoodValues = new ArrayList<Set<T>>(n);
+            iTrail = new int[n][];
+            iTrailSize = new int[n];
+            iQueue = new int[n];
+            iQueued = new boolean[n];
+            iMark = new int[n];
+            iLastSupport = new int[n][][];
+            for (int x = 0; x < n; x++) {
+                V variable = iVariables.get(x);
+                if (variable.getIndex() >= 0) iPosition[variable.getIndex()] = x;
+                List<T> values = variable.values(assignment);
+                iValues[x] = values.toArray();
+                for (int i = 0; i < iValues[x].length; i++)
+                    if (values.get(i).getIndex() != i) iValueIndex.put(values.get(i), i);
+                iGood[x] = new long[(iValues[x].length + 63) >> 6];
+                for (int i = 0; i < iValues[x].length; i++)
+                    iGood[x][i >> 6] |= (1l << i);
+                iNrGood[x] = iValues[x].length;
+                iExplanation[x] = new int[iValues[x].length][];
+                iSingleton[x] = new int[] { x };
+                iGoodValues.add(new GoodValues(x));
+                iTrail[x] = new int[16];
+            }
+            createArcs();
+            for (int x = 0; x < n; x++) {
+                T value = assignment.getValue(iVariables.get(x));
+                if (value != null) removeOthers(x, value);
+            }
+            for (int x = 0; x < n; x++) {
+                if (isAssigned(x)) continue;
+                boolean changed = false;
+                for (int k = 0; k < iArcVariable[x].length; k++)
+                    if (revise(x, k)) changed = true;
+                if (changed) enqueue(x);
+                progress.incProgress();
+            }
+            propagate();
+            for (int x = 0; x < n; x++) {
+                if (iNrGood[x] == 0 && !isAssigned(x))
+                    sLogger.error(iVariables.get(x).getName() + " has empty domain!");
+                progress.incProgress();
+            }
+            progress.restore();
+        }
+        
+        /** Create arcs of all hard constraints on which the arc-consistency is to be maintained */
+        private void createArcs() {
+            int n = iVariables.size();
+            List<List<Constraint<V, T>>> constraints = new ArrayList<List<Constraint<V, T>>>(n);
+            int[][] variables = new int[n][];
+            int[][] reverse = new int[n][];
+            int[] size = new int[n];
+            for (int x = 0; x < n; x++) {
+                constraints.add(new ArrayList<Constraint<V, T>>());
+                variables[x] = new int[4]; reverse[x] = new int[4];
+            }
+            for (Constraint<V, T> constraint: getModel().constraints()) {
+                if (!constraint.isHard() || !contains(constraint)) continue;
+                List<V> cv = constraint.variables();
+                int[] pos = new int[cv.size()];
+                for (int i = 0; i < pos.length; i++)
+                    pos[i] = position(cv.get(i));
+                for (int i = 0; i < pos.length; i++) {
+                    if (pos[i] < 0) continue;
+                    for (int j = i + 1; j < pos.length; j++) {
+                        if (pos[j] < 0 || pos[i] == pos[j]) continue;
+                        int x = pos[i], y = pos[j];
+                        if (size[x] == variables[x].length) { variables[x] = Arrays.copyOf(variables[x], 2 * size[x]); reverse[x] = Arrays.copyOf(reverse[x], 2 * size[x]); }
+                        if (size[y] == variables[y].length) { variables[y] = Arrays.copyOf(variables[y], 2 * size[y]); reverse[y] = Arrays.copyOf(reverse[y], 2 * size[y]); }
+                        constraints.get(x).add(constraint); variables[x][size[x]] = y; reverse[x][size[x]] = size[y];
+                        constraints.get(y).add(constraint); variables[y][size[y]] = x; reverse[y][size[y]] = size[x];
+                        size[x]++; size[y]++;
+                    }
+                }
+            }
+            iArcConstraint = new Object[n][];
+            iArcVariable = new int[n][];
+            iArcReverse = new int[n][];
+            for (int x = 0; x < n; x++) {
+                iArcConstraint[x] = constraints.get(x).toArray();
+                iArcVariable[x] = Arrays.copyOf(variables[x], size[x]);
+                iArcReverse[x] = Arrays.copyOf(reverse[x], size[x]);
+                iLastSupport[x] = new int[size[x]][];
+            }
+        }
+        
+        /** Index of a variable, -1 if not known */
+        private int position(V variable) {
+            int index = variable.getIndex();
+            if (index >= 0 && index < iPosition.length && iPosition[index] >= 0)
+                return iPosition[index];
+            return iVariables.indexOf(variable);
+        }
+        
+        /**
+         * Index of a value in the domain of its variable, -1 if not known. The index of the value
+         * (see {@link Value#getIndex()}) is used when it matches the domain, values of domains that are not
+         * cached (with no index) are looked up in a map.
+         */
+        private int index(T value) {
+            int i = value.getIndex();
+            int x = position(value.variable());
+            if (x >= 0 && i >= 0 && i < iValues[x].length && (iValues[x][i] == value || value.equals(iValues[x][i])))
+                return i;
+            Integer index = iValueIndex.get(value);
+            if (index != null) return index.intValue();
+            // a different instance of an indexed value
+            if (x >= 0)
+                for (int j = 0; j < iValues[x].length; j++)
+                    if (value.equals(iValues[x][j])) return j;
+            return -1;
+        }
+        
+        /** Variable of the given index */
+        private V variable(int x) {
+            return iVariables.get(x);
+        }
+        
+        @SuppressWarnings("unchecked")
+        private T value(int x, int i) {
+            return (T) iValues[x][i];
+        }
+        
+        private boolean isAssigned(int x) {
+            return iAssignment.getValue(iVariables.get(x)) != null;
+        }
+        
+        private boolean isGood(int x, int i) {
+            return (iGood[x][i >> 6] & (1l << i)) != 0;
+        }
+        
+        private int nextGood(int x, int from) {
+            long[] bits = iGood[x];
+            int w = from >> 6;
+            if (w >= bits.length) return -1;
+            long word = bits[w] & (-1l << from);
+            while (true) {
+                if (word != 0) return (w << 6) + Long.numberOfTrailingZeros(word);
+                if (++w == bits.length) return -1;
+                word = bits[w];
+            }
+        }
+        
+        /**
+         * Explanation of a removed value
+         * @param value a value
+         * @return indexes of the assigned variables that explain the removal, null if the value is good or not known
+         */
+        private int[] explanation(T value) {
+            int x = position(value.variable());
+            if (x < 0) return null;
+            int i = index(value);
+            return (i < 0 ? null : iExplanation[x][i]);
+        }
+        
+        /**
+         * Number of variables of the propagation
+         * @return number of variables
+         */
+        public int getNrVariables() {
+            return iVariables.size();
+        }
+        
+        /**
+         * Index of a variable in the propagation
+         * @param variable a variable
+         * @return index of the variable, -1 if not known
+         */
+        public int getPosition(V variable) {
+            return position(variable);
+        }
+        
+        /**
+         * Variable of the given index
+         * @param x index of a variable, see {@link Domains#getPosition(Variable)}
+         * @return variable
+         */
+        public V getVariable(int x) {
+            return variable(x);
+        }
+        
+        /**
+         * Explanation of a removed value in terms of the indexes of the assigned variables
+         * @param value a value
+         * @return indexes of the assigned variables that explain the removal (do not modify), null if the value is good
+         */
+        public int[] getExplanation(T value) {
+            return explanation(value);
+        }
+        
+        /**
+         * Remove the value from the domain of its variable
+         * @param value a value
+         * @param explanation indexes of the assigned variables causing the value to be removed
+         */
+        public void setNoGood(T value, int[] explanation) {
+            int x = position(value.variable());
+            int i = (x < 0 ? -1 : index(value));
+            if (i < 0) return;
+            remove(x, i, explanation.length == 1 ? iSingleton[explanation[0]] : explanation);
+        }
+        
+        /**
+         * Is value good (not removed from the domain of its variable)
+         * @param value a value
+         * @return true if the value has not been removed by the propagation
+         */
+        public boolean isGood(T value) {
+            return explanation(value) == null;
+        }
+        
+        /**
+         * Explanation of a removed value in terms of the assigned values
+         * @param value a value
+         * @return assigned values causing the value to be removed, null if the value is good
+         */
+        public Set<T> noGood(T value) {
+            int[] explanation = explanation(value);
+            if (explanation == null) return null;
+            Set<T> ret = new HashSet<T>();
+            for (int x: explanation) {
+                T assigned = iAssignment.getValue(iVariables.get(x));
+                if (assigned != null) ret.add(assigned);
+            }
+            return ret;
+        }
+        
+        /**
+         * Good values of a variable (a live view of the domain bit set)
+         * @param variable a variable
+         * @return values that are not removed from the domain of the variable
+         */
+        public Set<T> goodValues(V variable) {
+            int x = position(variable);
+            return (x < 0 ? new HashSet<T>() : iGoodValues.get(x));
+        }
+        
+        /**
+         * Return the value into the domain of its variable
+         * @param value a value
+         */
+        public void setGood(T value) {
+            int x = position(value.variable());
+            int i = (x < 0 ? -1 : index(value));
+            if (i >= 0 && !isGood(x, i)) restore(x, i);
+        }
+        
+        /**
+         * Remove the value from the domain of its variable
+         * @param value a value
+         * @param reason assigned values causing the value to be removed
+         */
+        public void setNoGood(T value, Set<T> reason) {
+            int x = position(value.variable());
+            int i = (x < 0 ? -1 : index(value));
+            if (i < 0) return;
+            int[] explanation = new int[reason.size()];
+            int n = 0;
+            for (T r: reason) {
+                int y = position(r.variable());
+                if (y >= 0) explanation[n++] = y;
+            }
+            remove(x, i, n == 1 ? iSingleton[explanation[0]] : Arrays.copyOf(explanation, n));
+        }
+        
+        private void restore(int x, int i) {
+            iExplanation[x][i] = null;
+            iGood[x][i >> 6] |= (1l << i);
+            iNrGood[x]++;
+        }
+        
+        private void remove(int x, int i, int[] explanation) {
+            if (isGood(x, i)) {
+                iGood[x][i >> 6] &= ~(1l << i);
+                iNrGood[x]--;
+            }
+            iExplanation[x][i] = explanation;
+            for (int y: explanation) {
+                if (iTrailSize[y] + 2 > iTrail[y].length) compactTrail(y);
+                iTrail[y][iTrailSize[y]++] = x;
+                iTrail[y][iTrailSize[y]++] = i;
+            }
+            if (explanation.length == 0)
+                variable(x).removeValue(iIteration, value(x, i));
+        }
+        
+        private boolean explains(int y, int x, int i) {
+            int[] explanation = iExplanation[x][i];
+            if (explanation == null) return false;
+            for (int z: explanation)
+                if (z == y) return true;
+            return false;
+        }
+        
+        /** Drop trail records that are no longer valid, grow the trail if needed */
+        private void compactTrail(int y) {
+            int[] trail = iTrail[y];
+            int size = 0;
+            for (int t = 0; t < iTrailSize[y]; t += 2) {
+                if (explains(y, trail[t], trail[t + 1])) {
+                    trail[size++] = trail[t]; trail[size++] = trail[t + 1];
+                }
+            }
+            iTrailSize[y] = size;
+            if (2 * size + 2 > trail.length)
+                iTrail[y] = Arrays.copyOf(trail, 2 * trail.length);
+        }
+        
+        /** Remove all the other values of an assigned variable */
+        private void removeOthers(int x, T value) {
+            int a = index(value);
+            for (int i = nextGood(x, 0); i >= 0; i = nextGood(x, i + 1))
+                if (i != a) remove(x, i, iSingleton[x]);
+        }
+        
+        /**
+         * Is there a support of the i-th value of variable x in the domain of the other variable of the k-th arc
+         */
+        @SuppressWarnings("unchecked")
+        private boolean hasSupport(int x, int k, int i) {
+            int y = iArcVariable[x][k];
+            Constraint<V, T> constraint = (Constraint<V, T>) iArcConstraint[x][k];
+            T value = value(x, i);
+            int[] last = iLastSupport[x][k];
+            if (last == null) {
+                last = new int[iValues[x].length];
+                iLastSupport[x][k] = last;
+            }
+            int start = last[i];
+            for (int j = nextGood(y, start); j >= 0; j = nextGood(y, j + 1)) {
+                if (constraint.isConsistent(value(y, j), value)) {
+                    last[i] = j; return true;
+                }
+            }
+            for (int j = nextGood(y, 0); j >= 0 && j < start; j = nextGood(y, j + 1)) {
+                if (constraint.isConsistent(value(y, j), value)) {
+                    last[i] = j; return true;
+                }
+            }
+            return false;
+        }
+        
+        /**
+         * Explanation of a value with no support on the k-th arc: union of the explanations of all the
+         * values of the other variable that are consistent with the value
+         */
+        @SuppressWarnings("unchecked")
+        private int[] explain(int x, int k, int i) {
+            int y = iArcVariable[x][k];
+            Constraint<V, T> constraint = (Constraint<V, T>) iArcConstraint[x][k];
+            T value = value(x, i);
+            if (++iMarkStamp == 0) { Arrays.fill(iMark, 0); iMarkStamp = 1; }
+            int n = 0;
+            for (int j = 0; j < iValues[y].length; j++) {
+                int[] explanation = iExplanation[y][j];
+                if (explanation == null || explanation.length == 0) continue;
+                if (!constraint.isConsistent(value(y, j), value)) continue;
+                for (int z: explanation) {
+                    if (iMark[z] == iMarkStamp) continue;
+                    iMark[z] = iMarkStamp;
+                    if (n == iBuffer.length) iBuffer = Arrays.copyOf(iBuffer, 2 * n);
+                    iBuffer[n++] = z;
+                }
+            }
+            if (n == 0) return sEmpty;
+            if (n == 1) return iSingleton[iBuffer[0]];
+            return Arrays.copyOf(iBuffer, n);
+        }
+        
+        /** Skip arcs to unassigned variables when only forward checking is done */
+        private boolean skip(int x, int k) {
+            return iJustForwardCheck && !isAssigned(iArcVariable[x][k]);
+        }
+        
+        /** Remove values of variable x that have no support on the k-th arc */
+        private boolean revise(int x, int k) {
+            if (skip(x, k)) return false;
+            boolean changed = false;
+            for (int i = nextGood(x, 0); i >= 0; i = nextGood(x, i + 1)) {
+                if (!hasSupport(x, k, i)) {
+                    remove(x, i, explain(x, k, i));
+                    changed = true;
+                }
+            }
+            return changed;
+        }
+        
+        private void enqueue(int x) {
+            if (iQueued[x]) return;
+            iQueued[x] = true;
+            iQueue[(iQueueHead + iQueueSize++) % iQueue.length] = x;
+        }
+        
+        /** Revise the neighbours of a variable whose domain has changed */
+        private void changed(int x) {
+            for (int k = 0; k < iArcVariable[x].length; k++) {
+                int y = iArcVariable[x][k];
+                if (isAssigned(y)) continue;
+                if (revise(y, iArcReverse[x][k]) && !iJustForwardCheck)
+                    enqueue(y);
+            }
+        }
+        
+        /** Process the propagation queue */
+        private void propagate() {
+            while (iQueueSize > 0) {
+                int x = iQueue[iQueueHead];
+                iQueueHead = (iQueueHead + 1) % iQueue.length; iQueueSize--;
+                iQueued[x] = false;
+                changed(x);
+            }
+        }
+        
+        /**
+         * Propagation over the given variable
+         * @param variable a variable
+         */
+        public void propagate(V variable) {
+            int x = position(variable);
+            if (x < 0) return;
+            changed(x);
+            propagate();
+        }
+        
+        /**
+         * A value has been assigned: remove the other values of its variable and propagate
+         * @param value assigned value
+         */
+        public void assigned(T value) {
+            int x = position(value.variable());
+            if (x < 0) return;
+            removeOthers(x, value);
+            changed(x);
+            propagate();
+        }
+        
+        /**
+         * A variable has been unassigned: return all the values explained by the variable and check them again
+         * @param variable unassigned variable
+         */
+        public void unassigned(V variable) {
+            int y = position(variable);
+            if (y < 0) return;
+            int[] trail = iTrail[y];
+            int n = 0;
+            for (int t = 0; t < iTrailSize[y]; t += 2) {
+                int x = trail[t], i = trail[t + 1];
+                if (!explains(y, x, i)) continue;
+                T assigned = iAssignment.getValue(variable(x));
+                if (assigned != null && i != index(assigned)) {
+                    // values of an assigned variable can only be explained by the assignment
+                    remove(x, i, iSingleton[x]);
+                    continue;
+                }
+                restore(x, i);
+                if (n + 2 > iRestored.length) iRestored = Arrays.copyOf(iRestored, 2 * iRestored.length);
+                iRestored[n++] = x; iRestored[n++] = i;
+            }
+            iTrailSize[y] = 0;
+            // the previously assigned value has not been revised while the variable was assigned
+            for (int i = nextGood(y, 0); i >= 0; i = nextGood(y, i + 1))
+                check(y, i);
+            for (int r = 0; r < n; r += 2) {
+                int x = iRestored[r], i = iRestored[r + 1];
+                if (isGood(x, i) && !isAssigned(x)) check(x, i);
+            }
+            propagate();
+        }
+        
+        /** Check a returned value against all the arcs of its variable, remove it when not supported */
+        private void check(int x, int i) {
+            for (int k = 0; k < iArcVariable[x].length; k++) {
+                if (skip(x, k)) continue;
+                if (!hasSupport(x, k, i)) {
+                    remove(x, i, explain(x, k, i));
+                    if (!iJustForwardCheck) enqueue(x);
+                    return;
+                }
+            }
+        }
+        
+        /** Live view of the good values of a variable */
+        private class GoodValues extends AbstractSet<T> {
+            private int iVariable;
+            
+            private GoodValues(int x) {
+                iVariable = x;
+            }
+            
+            @Override
+            public int size() {
+                return iNrGood[iVariable];
+            }
+            
+            @Override
+            public boolean isEmpty() {
+                return iNrGood[iVariable] == 0;
+            }
+            
+            @Override
+            @SuppressWarnings("unchecked")
+            public boolean contains(Object o) {
+                if (o == null || !(o instanceof Value<?, ?>)) return false;
+                T value = (T) o;
+                int i = index(value);
+                return i >= 0 && value.variable().equals(variable(iVariable)) && isGood(iVariable, i);
+            }
+            
+            @Override
+            public Iterator<T> iterator() {
+                return new Iterator<T>() {
+                    private int iNext = nextGood(iVariable, 0);
+                    
+                    @Override
+                    public boolean hasNext() {
+                        return iNext >= 0;
+                    }
+                    
+                    @Override
+                    public T next() {
+                        if (iNext < 0) throw new NoSuchElementException();
+                        T value = value(iVariable, iNext);
+                        iNext = nextGood(iVariable, iNext + 1);
+                        return value;
+                    }
+                    
+                    @Override
+                    public void remove() {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+            }
+        }
+    }
+}
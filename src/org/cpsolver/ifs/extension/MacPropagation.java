@@ -15,6 +15,7 @@ import org.cpsolver.ifs.assignment.Assignment;
 import org.cpsolver.ifs.assignment.context.AssignmentContext;
 import org.cpsolver.ifs.assignment.context.ExtensionWithContext;
 import org.cpsolver.ifs.model.Constraint;
+import org.cpsolver.ifs.model.ModelTopology;
 import org.cpsolver.ifs.model.Value;
 import org.cpsolver.ifs.model.Variable;
 import org.cpsolver.ifs.solver.Solver;
@@ -335,6 +336,14 @@ public class MacPropagation<V extends Variable<V, T>, T extends Value<V, T>> ext
         private Map<V, Set<T>[]> iNoGood = new HashMap<V, Set<T>[]>();
         private Map<V, Map<T, Set<T>>> iNoGoodVal = new HashMap<V, Map<T, Set<T>>>();
         
+        /**
+         * Empty context, no initialization is done (for contexts of extensions
+         * that maintain the arc-consistency using different data structures, e.g.,
+         * {@link MacBitSetPropagation}).
+         */
+        protected NoGood() {
+        }
+        
         /**
          * Initialization. Enforce arc-consistency over the current (initial)
          * solution. AC3 algorithm is used.
@@ -468,29 +477,53 @@ public class MacPropagation<V extends Variable<V, T>, T extends Value<V, T>> ext
                 return false;
             boolean ret = false;
             List<T> conflicts = null;
-            for (Constraint<V, T> constraint : anotherVariable.constraintVariables().get(aVariable)) {
-                for (T aValue : goodValues(aVariable)) {
-                    if (conflicts == null)
-                        conflicts = conflictValues(constraint, aValue, adepts);
-                    else
-                        conflicts = conflictValues(constraint, aValue, conflicts);
-                    if (conflicts == null || conflicts.isEmpty())
-                        break;
+            ModelTopology<V, T> topology = getModel().getTopology();
+            int x = topology.getPosition(anotherVariable), y = topology.getPosition(aVariable);
+            if (x < 0 || y < 0) {
+                List<Constraint<V, T>> constraints = anotherVariable.constraintVariables().get(aVariable);
+                if (constraints == null) return false;
+                for (Constraint<V, T> constraint : constraints) {
+                    conflicts = propagate(assignment, constraint, aVariable, adepts, conflicts);
+                    if (conflicts != null && !conflicts.isEmpty()) ret = true;
                 }
-                if (conflicts != null && !conflicts.isEmpty())
-                    for (T conflictValue : conflicts) {
-                        Set<T> reason = reason(assignment, constraint, aVariable, conflictValue);
-                        // sLogger.debug("  "+conflictValue+" become nogood (c:"+constraint.getName()+", r:"+reason+")");
-                        setNoGood(conflictValue, reason);
-                        adepts.remove(conflictValue);
-                        if (reason.isEmpty())
-                            (conflictValue.variable()).removeValue(iIteration, conflictValue);
-                        ret = true;
-                    }
+                return ret;
+            }
+            // constraints shared by the two variables, walking the sorted constraint positions of both of them
+            int[] index = topology.getConstraintIndex();
+            int i = topology.getConstraintStart(x), ie = topology.getConstraintStart(x + 1);
+            int j = topology.getConstraintStart(y), je = topology.getConstraintStart(y + 1);
+            while (i < ie && j < je) {
+                if (index[i] < index[j]) { i++; continue; }
+                if (index[i] > index[j]) { j++; continue; }
+                conflicts = propagate(assignment, topology.getConstraint(index[i]), aVariable, adepts, conflicts);
+                if (conflicts != null && !conflicts.isEmpty()) ret = true;
+                i++; j++;
             }
             return ret;
         }
 
+        /** propagation over a constraint linking the two variables, returns the remaining conflicts */
+        private List<T> propagate(Assignment<V, T> assignment, Constraint<V, T> constraint, V aVariable, List<T> adepts, List<T> conflicts) {
+            for (T aValue : goodValues(aVariable)) {
+                if (conflicts == null)
+                    conflicts = conflictValues(constraint, aValue, adepts);
+                else
+                    conflicts = conflictValues(constraint, aValue, conflicts);
+                if (conflicts == null || conflicts.isEmpty())
+                    break;
+            }
+            if (conflicts != null && !conflicts.isEmpty())
+                for (T conflictValue : conflicts) {
+                    Set<T> reason = reason(assignment, constraint, aVariable, conflictValue);
+                    // sLogger.debug("  "+conflictValue+" become nogood (c:"+constraint.getName()+", r:"+reason+")");
+                    setNoGood(conflictValue, reason);
+                    adepts.remove(conflictValue);
+                    if (reason.isEmpty())
+                        (conflictValue.variable()).removeValue(iIteration, conflictValue);
+                }
+            return conflicts;
+        }
+
         protected boolean propagate(Assignment<V, T> assignment, V aVariable, V anotherVariable) {
             if (goodValues(anotherVariable).isEmpty())
                 return false;
@@ -1,18 +1,33 @@
 package org.cpsolver.ifs.heuristics;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 
 
 import org.apache.log4j.Logger;
 import org.cpsolver.ifs.assignment.Assignment;
+import org.cpsolver.ifs.assignment.AssignmentAbstract;
+import org.cpsolver.ifs.assignment.InheritedAssignment;
 import org.cpsolver.ifs.assignment.context.AssignmentContext;
+import org.cpsolver.ifs.assignment.context.CanHoldContext;
+import org.cpsolver.ifs.assignment.context.InheritedAssignmentContextHolder;
 import org.cpsolver.ifs.constant.ConstantVariable;
 import org.cpsolver.ifs.extension.ConflictStatistics;
 import org.cpsolver.ifs.extension.Extension;
@@ -22,6 +37,7 @@ import org.cpsolver.ifs.model.Value;
 import org.cpsolver.ifs.model.Variable;
 import org.cpsolver.ifs.solution.Solution;
 import org.cpsolver.ifs.solver.Solver;
+import org.cpsolver.ifs.solver.SolverStopListener;
 import org.cpsolver.ifs.util.DataProperties;
 import org.cpsolver.ifs.util.JProf;
 
@@ -47,7 +63,26 @@ import org.cpsolver.ifs.util.JProf;
  * <td>{@link Integer}</td>
  * <td>Limit of search depth.</td>
  * </tr>
+ * <tr>
+ * <td>Neighbour.BackTrackThreads</td>
+ * <td>{@link Integer}</td>
+ * <td>Number of threads searching the values of the selected variable in parallel (defaults to 1, i.e., no parallelism).
+ * Each thread works on its own inherited assignment that reads through the current assignment and only keeps the changes, it is
+ * reused for all the searches of this neighbour selection. The inherited assignments use assignment indexes that are reserved
+ * for this neighbour selection, taken from the last ones (up to {@link CanHoldContext#sMaxSize}) and above the indexes of the
+ * solver threads (Parallel.NrSolvers), so that more searches can run in parallel (e.g., with a parallel solver).
+ * The best found value (see {@link BacktrackNeighbourSelectionContext#getBestValue()}), the time and the iteration limits are shared
+ * among the threads. The thread pool and the reserved indexes are released when the solver stops (see {@link SolverStopListener}).
+ * As in the case of the {@link org.cpsolver.ifs.solver.ParallelSolver}, model listeners and extensions must be thread-safe.
+ * The values are searched sequentially when there are no free indexes left or when the same neighbour selection is already
+ * searching in parallel in another thread.</td>
+ * </tr>
  * </table>
+ * <br>
+ * The search is done in place: the variables to resolve are kept on a single stack (the newly conflicting variables are
+ * pushed on the stack before going deeper and removed when backtracking) and the conflicting values are computed into a set
+ * that is reused for each value of the same depth (see {@link Model#conflictValues(Assignment, Value, Set)}). As the stack
+ * can never be longer than twice the search depth, it is searched sequentially.
  * 
  * @version StudentSct 1.3 (Student Sectioning)<br>
  *          Copyright (C) 2007 - 2014 Tomas Muller<br>
@@ -77,6 +112,14 @@ public class BacktrackNeighbourSelection<V extends Variable<V, T>, T extends Val
     private int iTimeout = 5000;
     private int iDepth = 4;
     private int iMaxIters = -1;
+    private int iNrThreads = 1;
+    private int iMinIndex = 1;
+    private ExecutorService iExecutor = null;
+    private List<BranchAssignment<V, T>> iBranches = null;
+    private AtomicBoolean iParallelSearch = new AtomicBoolean(false);
+    private SolverStopListener<V, T> iStopListener = null;
+    private static AtomicLong sVersion = new AtomicLong(-1);
+    private static BitSet sUsedIndexes = new BitSet();
 
     /**
      * Constructor
@@ -90,6 +133,8 @@ public class BacktrackNeighbourSelection<V extends Variable<V, T>, T extends Val
         iTimeout = properties.getPropertyInt("Neighbour.BackTrackTimeout", iTimeout);
         iDepth = properties.getPropertyInt("Neighbour.BackTrackDepth", iDepth);
         iMaxIters = properties.getPropertyInt("Neighbour.BackTrackMaxIters", iMaxIters);
+        iNrThreads = properties.getPropertyInt("Neighbour.BackTrackThreads", iNrThreads);
+        iMinIndex = Math.max(1, properties.getPropertyInt("Parallel.NrSolvers", 1) + 1);
     }
 
     /** Solver initialization */
@@ -100,6 +145,41 @@ public class BacktrackNeighbourSelection<V extends Variable<V, T>, T extends Val
             if (ConflictStatistics.class.isInstance(extension))
                 iStat = (ConflictStatistics<V, T>) extension;
         }
+        if (iNrThreads > 1) {
+            if (iStopListener == null)
+                iStopListener = new SolverStopListener<V, T>() {
+                    @Override
+                    public boolean variableSelected(Assignment<V, T> assignment, long iteration, V variable) { return true; }
+                    @Override
+                    public boolean valueSelected(Assignment<V, T> assignment, long iteration, V variable, T value) { return true; }
+                    @Override
+                    public boolean neighbourSelected(Assignment<V, T> assignment, long iteration, Neighbour<V, T> neighbour) { return true; }
+                    @Override
+                    public void neighbourFailed(Assignment<V, T> assignment, long iteration, Neighbour<V, T> neighbour) {}
+                    @Override
+                    public void solverStopped(Solver<V, T> solver) { shutdown(); }
+                };
+            solver.removeSolverListener(iStopListener);
+            solver.addSolverListener(iStopListener);
+        }
+    }
+
+    /**
+     * Release the resources of the parallel search: the thread pool is shut down and the reserved assignment indexes are released.
+     * This is called automatically when the solver stops, the resources are created again when needed.
+     */
+    public synchronized void shutdown() {
+        if (iExecutor != null) {
+            iExecutor.shutdownNow();
+            iExecutor = null;
+        }
+        if (iBranches != null) {
+            synchronized (sUsedIndexes) {
+                for (BranchAssignment<V, T> branch: iBranches)
+                    sUsedIndexes.clear(branch.getIndex());
+            }
+            iBranches = null;
+        }
     }
 
     /**
@@ -138,9 +218,13 @@ public class BacktrackNeighbourSelection<V extends Variable<V, T>, T extends Val
             if (sLog.isDebugEnabled())
                 sLog.debug("-- before BT (" + variable.getName() + "): nrAssigned=" + solution.getAssignment().nrAssignedVariables() + ",  value=" + solution.getModel().getTotalValue(solution.getAssignment()));
 
-            List<V> variables2resolve = new ArrayList<V>(1);
-            variables2resolve.add(variable);
-            backtrack(context, variables2resolve, 0, iDepth);
+            List<V> variables2resolve = context.getVariables2Resolve();
+            context.push(variables2resolve, variable);
+            if (iNrThreads > 1)
+                backtrackParallel(context, variables2resolve);
+            else
+                backtrack(context, variables2resolve, 0, iDepth);
+            context.pop(variables2resolve, 0);
 
             if (sLog.isDebugEnabled())
                 sLog.debug("-- after  BT (" + variable.getName() + "): nrAssigned=" + solution.getAssignment().nrAssignedVariables() + ",  value=" + solution.getModel().getTotalValue(solution.getAssignment()));
@@ -254,38 +338,188 @@ public class BacktrackNeighbourSelection<V extends Variable<V, T>, T extends Val
         V variable = variables2resolve.get(idx);
         if (sLog.isDebugEnabled())
             sLog.debug("    -- variable " + variable);
-        for (Iterator<T> e = values(context, variable); canContinueEvaluation(context) && e.hasNext();) {
+        for (Iterator<T> e = values(context, variable); canContinueEvaluation(context) && e.hasNext();)
+            backtrack(context, variables2resolve, idx, depth, e.next());
+    }
+    
+    /** Backtracking -- try the given value of the variable at the idx position. The conflicting variables are pushed
+     * on variables2resolve and removed again after the deeper levels are explored, so that the list is changed in place.
+     * @param context assignment context
+     * @param variables2resolve unassigned variables that are in conflict with the current solution
+     * @param idx position in variables2resolve
+     * @param depth current depth
+     * @param value value of the variable at the idx position to try
+     **/
+    protected void backtrack(BacktrackNeighbourSelectionContext context, List<V> variables2resolve, int idx, int depth, T value) {
+        V variable = variables2resolve.get(idx);
+        T current = context.getAssignment().getValue(variable);
+        if (value.equals(current))
+            return;
+        if (sLog.isDebugEnabled())
+            sLog.debug("      -- value " + value);
+        Set<T> conflicts = context.getConflicts(depth);
+        context.getModel().conflictValues(context.getAssignment(), value, conflicts);
+        if (sLog.isDebugEnabled())
+            sLog.debug("      -- conflicts " + conflicts);
+        if (!checkBound(variables2resolve, idx, depth, value, conflicts))
+            return;
+        int size = variables2resolve.size();
+        for (T conflict: conflicts) {
+            context.getAssignment().unassign(0, conflict.variable());
+            context.push(variables2resolve, conflict.variable());
+        }
+        if (current != null)
+            context.getAssignment().unassign(0, current.variable());
+        context.getAssignment().assign(0, value);
+        backtrack(context, variables2resolve, idx + 1, depth - 1);
+        if (current == null)
+            context.getAssignment().unassign(0, variable);
+        else
+            context.getAssignment().assign(0, current);
+        for (T conflict: conflicts)
+            context.getAssignment().assign(0, conflict);
+        context.pop(variables2resolve, size);
+    }
+    
+    /**
+     * Create a context for a parallel branch of the search, working on the given solution (with an inherited assignment).
+     * By default, a new {@link BacktrackNeighbourSelectionContext} is created when the given context is of this class,
+     * null is returned otherwise (the search is not parallelized when a subclass uses its own context, unless this method is overridden).
+     * @param context context of the search
+     * @param solution solution of the branch
+     * @return context of the branch, null if the search cannot be parallelized
+     */
+    protected BacktrackNeighbourSelectionContext createBranchContext(BacktrackNeighbourSelectionContext context, Solution<V, T> solution) {
+        if (context.getClass() != BacktrackNeighbourSelectionContext.class) return null;
+        return new BacktrackNeighbourSelectionContext(solution);
+    }
+    
+    private synchronized ExecutorService getExecutor() {
+        if (iExecutor == null) {
+            iExecutor = Executors.newFixedThreadPool(iNrThreads, new ThreadFactory() {
+                private AtomicInteger iCounter = new AtomicInteger(0);
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "Backtrack-" + iCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return iExecutor;
+    }
+    
+    /**
+     * Inherited assignments of the parallel branches, they are created (and their assignment indexes reserved) when first needed
+     * @return one assignment for each thread, there can be fewer assignments than threads when there are not enough free assignment indexes
+     */
+    private synchronized List<BranchAssignment<V, T>> getBranchAssignments() {
+        if (iBranches == null) {
+            iBranches = new ArrayList<BranchAssignment<V, T>>(iNrThreads);
+            synchronized (sUsedIndexes) {
+                for (int index = CanHoldContext.sMaxSize - 1; index >= iMinIndex && iBranches.size() < iNrThreads; index--) {
+                    if (sUsedIndexes.get(index)) continue;
+                    sUsedIndexes.set(index);
+                    iBranches.add(new BranchAssignment<V, T>(index));
+                }
+            }
+            if (iBranches.size() < iNrThreads)
+                sLog.warn("Only " + iBranches.size() + " of " + iNrThreads + " backtracking threads can be used, there are not enough free assignment indexes.");
+        }
+        return iBranches;
+    }
+    
+    /**
+     * Backtracking of the first variable, the values of the variable are split among {@link BacktrackNeighbourSelection#iNrThreads} threads.
+     * Each thread works on its own inherited assignment, the best found neighbour is shared (see {@link BacktrackNeighbourSelectionContext#saveBest(List)}).
+     * The values are searched sequentially when this neighbour selection is already searching in parallel in another thread.
+     * @param context assignment context
+     * @param variables2resolve the selected variable
+     **/
+    protected void backtrackParallel(BacktrackNeighbourSelectionContext context, List<V> variables2resolve) {
+        context.incIteration();
+        if (!canContinue(context, variables2resolve, 0, iDepth)) return;
+        V variable = variables2resolve.get(0);
+        List<T> values = new ArrayList<T>();
+        for (Iterator<T> e = values(context, variable); e.hasNext(); ) {
             T value = e.next();
-            T current = context.getAssignment().getValue(variable);
-            if (value.equals(current))
-                continue;
-            if (sLog.isDebugEnabled())
-                sLog.debug("      -- value " + value);
-            Set<T> conflicts = context.getModel().conflictValues(context.getAssignment(), value);
-            if (sLog.isDebugEnabled())
-                sLog.debug("      -- conflicts " + conflicts);
-            if (!checkBound(variables2resolve, idx, depth, value, conflicts))
-                continue;
-            List<V> newVariables2resolve = new ArrayList<V>(variables2resolve);
-            for (Iterator<T> i = conflicts.iterator(); i.hasNext();) {
-                T conflict = i.next();
-                context.getAssignment().unassign(0, conflict.variable());
-                if (!newVariables2resolve.contains(conflict.variable()))
-                    newVariables2resolve.add(conflict.variable());
+            if (!value.equals(context.getAssignment().getValue(variable))) values.add(value);
+        }
+        if (!iParallelSearch.compareAndSet(false, true)) {
+            for (T value: values) {
+                if (!canContinueEvaluation(context)) break;
+                backtrack(context, variables2resolve, 0, iDepth, value);
             }
-            if (current != null)
-                context.getAssignment().unassign(0, current.variable());
-            context.getAssignment().assign(0, value);
-            backtrack(context, newVariables2resolve, idx + 1, depth - 1);
-            if (current == null)
-                context.getAssignment().unassign(0, variable);
-            else
-                context.getAssignment().assign(0, current);
-            for (Iterator<T> i = conflicts.iterator(); i.hasNext();) {
-                T conflict = i.next();
-                context.getAssignment().assign(0, conflict); 
+            return;
+        }
+        try {
+            backtrackParallel(context, variables2resolve, variable, values);
+        } finally {
+            iParallelSearch.set(false);
+        }
+    }
+    
+    private void backtrackParallel(BacktrackNeighbourSelectionContext context, List<V> variables2resolve, V variable, List<T> values) {
+        List<BacktrackNeighbourSelectionContext> branches = new ArrayList<BacktrackNeighbourSelectionContext>(iNrThreads);
+        Model<V, T> model = context.getModel();
+        // each search gets a unique version, so that no assignment context of an earlier search with the same index is reused
+        long version = sVersion.decrementAndGet();
+        for (BranchAssignment<V, T> assignment: getBranchAssignments()) {
+            if (branches.size() >= values.size()) break;
+            if (assignment.getIndex() == context.getAssignment().getIndex()) continue;
+            assignment.reset(context.getAssignment(), version);
+            BacktrackNeighbourSelectionContext branch = createBranchContext(context, new Solution<V, T>(model, assignment, context.iSolution.getIteration(), context.iSolution.getTime()));
+            if (branch == null) break;
+            branch.iParent = context;
+            branch.push(branch.getVariables2Resolve(), variable);
+            branches.add(branch);
+        }
+        if (branches.size() <= 1) {
+            for (T value: values) {
+                if (!canContinueEvaluation(context)) break;
+                backtrack(context, variables2resolve, 0, iDepth, value);
+            }
+            return;
+        }
+        List<Future<Object>> results = new ArrayList<Future<Object>>(branches.size());
+        for (int i = 0; i < branches.size(); i++) {
+            final BacktrackNeighbourSelectionContext branch = branches.get(i);
+            final List<T> branchValues = new ArrayList<T>();
+            for (int j = i; j < values.size(); j += branches.size())
+                branchValues.add(values.get(j));
+            results.add(getExecutor().submit(new Callable<Object>() {
+                @Override
+                public Object call() throws Exception {
+                    List<V> stack = branch.getVariables2Resolve();
+                    for (T value: branchValues) {
+                        if (!canContinueEvaluation(branch)) break;
+                        backtrack(branch, stack, 0, iDepth, value);
+                    }
+                    return null;
+                }
+            }));
+        }
+        boolean interrupted = false, failed = false;
+        for (Future<Object> result: results) {
+            while (true) {
+                try {
+                    result.get();
+                    break;
+                } catch (InterruptedException e) {
+                    // stop the search, but wait for the branches as their assignments are reused by the next search
+                    interrupted = true;
+                    context.iTimeoutReached = true;
+                } catch (ExecutionException e) {
+                    if (!failed)
+                        sLog.error("Parallel backtrack failed: " + e.getCause().getMessage(), e.getCause());
+                    failed = true;
+                    context.iTimeoutReached = true;
+                    break;
+                }
             }
         }
+        if (interrupted)
+            Thread.currentThread().interrupt();
     }
 
     /** Backtracking neighbour */
@@ -437,13 +671,18 @@ public class BacktrackNeighbourSelection<V extends Variable<V, T>, T extends Val
     
     public class BacktrackNeighbourSelectionContext implements AssignmentContext {
         private long iT0, iT1;
-        private boolean iTimeoutReached = false;
-        private int iMaxIters = -1, iNrIters = 0;
+        private volatile boolean iTimeoutReached = false;
+        private int iMaxIters = -1;
+        private AtomicInteger iNrIters = new AtomicInteger(0);
         protected Solution<V, T> iSolution = null;
         protected BackTrackNeighbour iBackTrackNeighbour = null;
         protected double iValue = 0;
         private int iNrAssigned = 0;
-        private boolean iMaxItersReached = false;
+        private volatile boolean iMaxItersReached = false;
+        private AtomicLong iBestValue = new AtomicLong(Double.doubleToLongBits(Double.POSITIVE_INFINITY));
+        private List<V> iVariables2Resolve = new ArrayList<V>();
+        private List<Set<T>> iConflicts = new ArrayList<Set<T>>();
+        protected BacktrackNeighbourSelectionContext iParent = null;
         
         public BacktrackNeighbourSelectionContext(Solution<V, T> solution) {
             iSolution = solution;
@@ -451,7 +690,7 @@ public class BacktrackNeighbourSelection<V extends Variable<V, T>, T extends Val
             iValue = solution.getModel().getTotalValue(iSolution.getAssignment());
             iNrAssigned = iSolution.getAssignment().nrAssignedVariables();
             iT0 = JProf.currentTimeMillis();
-            iNrIters = 0;
+            iMaxIters = BacktrackNeighbourSelection.this.iMaxIters;
             iTimeoutReached = false;
             iMaxItersReached = false;
         }
@@ -465,11 +704,11 @@ public class BacktrackNeighbourSelection<V extends Variable<V, T>, T extends Val
 
         /**
          * True, if timeout was reached during the last call of selectNeighbour
-         * method
+         * method (the timeout is shared by all the branches of a parallel search)
          * @return true if the timeout was reached
          */
         public boolean isTimeoutReached() {
-            return iTimeoutReached;
+            return (iParent == null ? iTimeoutReached : iParent.isTimeoutReached());
         }
 
         /**
@@ -478,30 +717,95 @@ public class BacktrackNeighbourSelection<V extends Variable<V, T>, T extends Val
          * @return true if the maximum number of iterations was reached
          */
         public boolean isMaxItersReached() {
-            return iMaxItersReached;
+            return (iParent == null ? iMaxItersReached : iParent.isMaxItersReached());
+        }
+        
+        /**
+         * Total value of the best neighbour found so far, it is shared by all the branches of a parallel search
+         * and it can be used to prune the search (a neighbour with a higher total value is not saved).
+         * @return total value of the best neighbour, {@link Double#POSITIVE_INFINITY} if no neighbour has been found yet
+         */
+        public double getBestValue() {
+            return (iParent == null ? Double.longBitsToDouble(iBestValue.get()) : iParent.getBestValue());
         }
         
         public BackTrackNeighbour getBackTrackNeighbour() { return iBackTrackNeighbour; }
         
+        /** Variables to resolve, the list is changed in place during the search 
+         * @return a stack of variables to resolve
+         **/
+        public List<V> getVariables2Resolve() { return iVariables2Resolve; }
+        
+        /** Add a variable at the end of the variables to resolve (if not already present)
+         * @param variables2resolve variables to resolve
+         * @param variable a variable
+         * @return true if added
+         **/
+        public boolean push(List<V> variables2resolve, V variable) {
+            if (variables2resolve.contains(variable)) return false;
+            variables2resolve.add(variable);
+            return true;
+        }
+        
+        /** Remove the variables at the end of the variables to resolve, so that only the given number of variables remains
+         * @param variables2resolve variables to resolve
+         * @param size number of variables to keep
+         **/
+        public void pop(List<V> variables2resolve, int size) {
+            while (variables2resolve.size() > size)
+                variables2resolve.remove(variables2resolve.size() - 1);
+        }
+        
+        /** An empty set for the conflicting values, the same set is returned for the same depth
+         * @param depth current depth
+         * @return a cleared set of conflicts
+         **/
+        public Set<T> getConflicts(int depth) {
+            while (iConflicts.size() <= depth)
+                iConflicts.add(new HashSet<T>());
+            Set<T> conflicts = iConflicts.get(depth);
+            conflicts.clear();
+            return conflicts;
+        }
+        
+        /** Count an iteration and check the time and the iteration limits, the limits are shared by all the branches of a parallel search */
         public void incIteration() {
+            if (iParent != null) {
+                iParent.incIteration();
+                return;
+            }
             iT1 = JProf.currentTimeMillis();
             if (!iTimeoutReached && iTimeout > 0 && iT1 - iT0 > iTimeout)
                 iTimeoutReached = true;
-            if (!iMaxItersReached && iMaxIters > 0 && iNrIters++ > iMaxIters)
+            if (!iMaxItersReached && iMaxIters > 0 && iNrIters.getAndIncrement() > iMaxIters)
                 iMaxItersReached = true;
         }
         
         public void saveBest(List<V> variables2resolve) {
             if (sLog.isDebugEnabled())
                 sLog.debug("    -- all assigned");
-            if (iSolution.getAssignment().nrAssignedVariables() > iNrAssigned || (iSolution.getAssignment().nrAssignedVariables() == iNrAssigned && iValue > iSolution.getModel().getTotalValue(iSolution.getAssignment()))) {
+            int nrAssigned = iSolution.getAssignment().nrAssignedVariables();
+            if (nrAssigned < iNrAssigned) return;
+            double value = iSolution.getModel().getTotalValue(iSolution.getAssignment());
+            if (nrAssigned > iNrAssigned || iValue > value) {
                 if (sLog.isDebugEnabled())
                     sLog.debug("    -- better than current");
-                if (iBackTrackNeighbour == null || iBackTrackNeighbour.compareTo(iSolution) >= 0) {
-                    if (sLog.isDebugEnabled())
-                        sLog.debug("      -- better than best");
-                    iBackTrackNeighbour = new BackTrackNeighbour(this, variables2resolve);
-                }
+                if (value <= getBestValue())
+                    (iParent == null ? this : iParent).saveBest(this, variables2resolve, value);
+            }
+        }
+        
+        /** Save the best neighbour found by this search or by one of its parallel branches
+         * @param branch context of the branch (this context when the search is not parallel)
+         * @param variables2resolve resolved variables of the branch
+         * @param value total value of the branch's assignment
+         **/
+        protected synchronized void saveBest(BacktrackNeighbourSelectionContext branch, List<V> variables2resolve, double value) {
+            if (iBackTrackNeighbour == null || iBackTrackNeighbour.getTotalValue() >= value) {
+                if (sLog.isDebugEnabled())
+                    sLog.debug("      -- better than best");
+                iBackTrackNeighbour = new BackTrackNeighbour(branch, variables2resolve);
+                iBestValue.set(Double.doubleToLongBits(value));
             }
         }
         
@@ -509,4 +813,103 @@ public class BacktrackNeighbourSelection<V extends Variable<V, T>, T extends Val
         
         public Assignment<V, T> getAssignment() { return iSolution.getAssignment(); }
     }
+    
+    /**
+     * Inherited assignment of a parallel branch of the search. It reads the values through the parent assignment and only keeps the changes,
+     * so that it does not need to copy the parent assignment. It is reused for all the searches (see {@link BranchAssignment#reset(Assignment, long)}),
+     * its assignment index is reserved for the neighbour selection.
+     */
+    private static class BranchAssignment<V extends Variable<V, T>, T extends Value<V, T>> extends AssignmentAbstract<V, T> implements InheritedAssignment<V, T> {
+        private int iIndex;
+        private Assignment<V, T> iParent = null;
+        private long iVersion = -1;
+        private Map<V, T> iChanges = new HashMap<V, T>();
+        private Map<V, Long> iIterations = new HashMap<V, Long>();
+        private int iNrAssigned = 0;
+
+        private BranchAssignment(int index) {
+            super(new InheritedAssignmentContextHolder<V, T>(index, -1));
+            iIndex = index;
+        }
+
+        /**
+         * Start a new search from the given parent assignment
+         * @param parent parent assignment
+         * @param version unique version of the search, the assignment contexts are inherited again from the parent assignment
+         */
+        private void reset(Assignment<V, T> parent, long version) {
+            iParent = parent;
+            iVersion = version;
+            iChanges.clear();
+            iIterations.clear();
+            iNrAssigned = parent.nrAssignedVariables();
+            ((InheritedAssignmentContextHolder<V, T>)iContexts).setVersion(version);
+            iHasInitialzedContext = false;
+        }
+
+        @Override
+        public long getIteration(V variable) {
+            Long iteration = iIterations.get(variable);
+            if (iteration != null) return iteration;
+            return (iChanges.containsKey(variable) ? 0 : iParent.getIteration(variable));
+        }
+
+        @Override
+        public Collection<V> assignedVariables() {
+            if (iChanges.isEmpty()) return iParent.assignedVariables();
+            Set<V> variables = new HashSet<V>(iParent.assignedVariables());
+            for (Map.Entry<V, T> change: iChanges.entrySet()) {
+                if (change.getValue() == null)
+                    variables.remove(change.getKey());
+                else
+                    variables.add(change.getKey());
+            }
+            return variables;
+        }
+
+        @Override
+        public int nrAssignedVariables() {
+            return iNrAssigned;
+        }
+
+        @Override
+        protected T getValueInternal(V variable) {
+            if (iChanges.isEmpty()) return iParent.getValue(variable);
+            T value = iChanges.get(variable);
+            if (value != null || iChanges.containsKey(variable)) return value;
+            return iParent.getValue(variable);
+        }
+
+        @Override
+        protected void setValueInternal(long iteration, V variable, T value) {
+            if (getValueInternal(variable) != null) iNrAssigned--;
+            if (value != null) iNrAssigned++;
+            if (value == iParent.getValue(variable)) {
+                // back to the parent's value (e.g., when backtracking)
+                iChanges.remove(variable);
+                iIterations.remove(variable);
+            } else {
+                iChanges.put(variable, value);
+                if (value == null)
+                    iIterations.remove(variable);
+                else
+                    iIterations.put(variable, iteration);
+            }
+        }
+
+        @Override
+        public int getIndex() {
+            return iIndex;
+        }
+
+        @Override
+        public Assignment<V, T> getParentAssignment() {
+            return iParent;
+        }
+
+        @Override
+        public long getVersion() {
+            return iVersion;
+        }
+    }
 }
@@ -202,10 +202,10 @@ public class GeneralValueSelection<V extends Variable<V, T>, T extends Value<V,
         if (iMPP) {
             if (selectedVariable.getInitialAssignment() != null) {
                 if (solution.getModel().variables().size() == solution.getAssignment().nrAssignedVariables()) {
-                    if (solution.getModel().perturbVariables(solution.getAssignment()).size() <= iMPPLimit)
-                        iMPPLimit = solution.getModel().perturbVariables(solution.getAssignment()).size() - 1;
+                    if (solution.getModel().nrPerturbVariables(solution.getAssignment()) <= iMPPLimit)
+                        iMPPLimit = solution.getModel().nrPerturbVariables(solution.getAssignment()) - 1;
                 }
-                if (iMPPLimit >= 0 && solution.getModel().perturbVariables(solution.getAssignment()).size() > iMPPLimit)
+                if (iMPPLimit >= 0 && solution.getModel().nrPerturbVariables(solution.getAssignment()) > iMPPLimit)
                     return selectedVariable.getInitialAssignment();
                 if (selectedVariable.getInitialAssignment() != null && ToolBox.random() <= iInitialSelectionProb)
                     return selectedVariable.getInitialAssignment();
@@ -261,7 +261,7 @@ public class GeneralValueSelection<V extends Variable<V, T>, T extends Value<V,
                         && !selectedVariable.getInitialAssignment().equals(value)) {
                     deltaInitialAssignments++;
                 }
-                if (iMPPLimit >= 0 && (solution.getModel().perturbVariables(solution.getAssignment()).size() + deltaInitialAssignments) > iMPPLimit)
+                if (iMPPLimit >= 0 && (solution.getModel().nrPerturbVariables(solution.getAssignment()) + deltaInitialAssignments) > iMPPLimit)
                     continue;
             }
 
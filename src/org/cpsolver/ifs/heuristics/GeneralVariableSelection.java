@@ -130,7 +130,7 @@ public class GeneralVariableSelection<V extends Variable<V, T>, T extends Value<
     @Override
     public V selectVariable(Solution<V, T> solution) {
         if (solution.getModel().variables().size() == solution.getAssignment().nrAssignedVariables()) {
-            if (!solution.getModel().perturbVariables(solution.getAssignment()).isEmpty())
+            if (solution.getModel().nrPerturbVariables(solution.getAssignment()) > 0)
                 return ToolBox.random(solution.getModel().perturbVariables(solution.getAssignment()));
             else
                 return ToolBox.random(solution.getAssignment().assignedVariables());
@@ -16,6 +16,7 @@ import org.cpsolver.ifs.solution.Solution;
 import org.cpsolver.ifs.solver.Solver;
 import org.cpsolver.ifs.solver.SolverListener;
 import org.cpsolver.ifs.util.DataProperties;
+import org.cpsolver.ifs.util.HotPathMetrics;
 
 
 /**
@@ -179,7 +180,11 @@ public class StandardNeighbourSelection<V extends Variable<V, T>, T extends Valu
     @SuppressWarnings("unchecked")
     public T selectValue(Solution<V, T> solution, V variable) {
         // Value selection
+        HotPathMetrics metrics = solution.getModel().getHotPathMetrics();
+        long t0 = (metrics == null ? 0 : System.nanoTime());
         T value = getValueSelection().selectValue(solution, variable);
+        if (metrics != null)
+            metrics.record(HotPathMetrics.Type.ValueSelection, getValueSelection().getClass(), t0);
         for (SolverListener<V, T> listener : iSolver.getSolverListeners())
             if (!listener.valueSelected(solution.getAssignment(), solution.getIteration(), variable, value))
                 return null;
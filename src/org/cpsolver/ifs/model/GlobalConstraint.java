@@ -70,6 +70,18 @@ public abstract class GlobalConstraint<V extends Variable<V, T>, T extends Value
         throw new RuntimeException("A variable cannot be removed from a global constraint.");
     }
 
+    /**
+     * Objects on which the conflicts of the given value with this constraint depend. A value can only get into or out of a
+     * conflict with this constraint when a value that shares at least one of these objects with it is assigned or unassigned.
+     * It is used by {@link PerturbationVariables} to check only the affected variables when the assignment is changed.
+     * @param value a value
+     * @return objects on which the conflicts of the value depend (e.g., the instructor or the offering of the value), an empty collection
+     *         when the conflicts of the value do not depend on the other assignments, null when not known (the default, any change may affect the value)
+     */
+    public Collection<?> getConflictKeys(T value) {
+        return null;
+    }
+
     /**
      * Given value is to be assigned to its variable. In this method, the
      * constraint should unassigns all variables which are in conflict with the
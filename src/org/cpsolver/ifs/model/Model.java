@@ -22,9 +22,11 @@ import org.cpsolver.ifs.assignment.InheritedAssignment;
 import org.cpsolver.ifs.assignment.context.AssignmentContext;
 import org.cpsolver.ifs.assignment.context.AssignmentContextReference;
 import org.cpsolver.ifs.assignment.context.HasAssignmentContext;
+import org.cpsolver.ifs.criteria.AbstractCriterion;
 import org.cpsolver.ifs.criteria.Criterion;
 import org.cpsolver.ifs.solution.Solution;
 import org.cpsolver.ifs.solver.Solver;
+import org.cpsolver.ifs.util.HotPathMetrics;
 import org.cpsolver.ifs.util.ToolBox;
 
 
@@ -101,9 +103,13 @@ public class Model<V extends Variable<V, T>, T extends Value<V, T>> {
 
     private int iBestUnassignedVariables = -1;
     private int iBestPerturbations = 0;
+    private volatile long iInitialValuesVersion = 0;
+    private volatile PerturbationVariables<V, T> iPerturbationVariables = null;
     private double iBestValue = 0.0;
     private int iNextReferenceId = 0;
     private int iNextVariableIndex = 0;
+    private volatile ModelTopology<V, T> iTopology = null;
+    private volatile HotPathMetrics iHotPathMetrics = null;
     @Deprecated
     private Assignment<V, T> iAssignment = null;
     private Assignment<V, T> iEmptyAssignment = null;
@@ -140,6 +146,7 @@ public class Model<V extends Variable<V, T>, T extends Value<V, T>> {
         for (ModelListener<V, T> listener : iModelListeners)
             listener.variableAdded(variable);
         invalidateVariablesWithInitialValueCache();
+        invalidateTopology();
     }
 
     /** Removes a variable from the model
@@ -154,6 +161,7 @@ public class Model<V extends Variable<V, T>, T extends Value<V, T>> {
         for (ModelListener<V, T> listener : iModelListeners)
             listener.variableRemoved(variable);
         invalidateVariablesWithInitialValueCache();
+        invalidateTopology();
         if (variable instanceof HasAssignmentContext)
             removeReference((HasAssignmentContext<V, T, ?>)variable);
     }
@@ -183,6 +191,7 @@ public class Model<V extends Variable<V, T>, T extends Value<V, T>> {
             iInfoProviders.add((InfoProvider<V, T>) constraint);
         for (ModelListener<V, T> listener : iModelListeners)
             listener.constraintAdded(constraint);
+        invalidateTopology();
     }
 
     /** Removes a constraint from the model
@@ -196,10 +205,47 @@ public class Model<V extends Variable<V, T>, T extends Value<V, T>> {
             iInfoProviders.remove(constraint);
         for (ModelListener<V, T> listener : iModelListeners)
             listener.constraintRemoved(constraint);
+        invalidateTopology();
         if (constraint instanceof HasAssignmentContext)
             removeReference((HasAssignmentContext<V, T, ?>)constraint);
     }
 
+    /**
+     * Compact topology of the model (positions of the variables and constraints and the links between them
+     * in int arrays). It is created when first asked for, typically once the model is loaded, and it is dropped
+     * whenever a variable or a constraint is added or removed.
+     * @return model topology
+     **/
+    public ModelTopology<V, T> getTopology() {
+        ModelTopology<V, T> topology = iTopology;
+        if (topology == null) {
+            topology = new ModelTopology<V, T>(this);
+            iTopology = topology;
+        }
+        return topology;
+    }
+
+    /**
+     * Hot path metrics of the model
+     * @return metrics, null when the hot paths are not measured
+     **/
+    public HotPathMetrics getHotPathMetrics() {
+        return iHotPathMetrics;
+    }
+
+    /**
+     * Set hot path metrics of the model (see {@link HotPathMetrics}), called by the solver when it is started
+     * @param metrics metrics, null when the hot paths are not to be measured
+     **/
+    public void setHotPathMetrics(HotPathMetrics metrics) {
+        iHotPathMetrics = metrics;
+    }
+
+    /** Drop the model topology, it will be created again when needed */
+    protected void invalidateTopology() {
+        iTopology = null;
+    }
+
     /** The list of global constraints in the model
      * @return  list of global constraints in the model
      **/
@@ -332,7 +378,78 @@ public class Model<V extends Variable<V, T>, T extends Value<V, T>> {
      * @return list of perturbation variables in the model
      */
     public Collection<V> perturbVariables(Assignment<V, T> assignment) {
-        return perturbVariables(assignment, variablesWithInitialValue());
+        if (variablesWithInitialValue().isEmpty())
+            return new ArrayList<V>();
+        return getPerturbationVariables().perturbVariables(assignment);
+    }
+    
+    /**
+     * Number of perturbation variables in the model, i.e., the variables
+     * which has an initial value but which are not assigned with this value.
+     * The count is maintained incrementally (see {@link PerturbationVariables}).
+     * @param assignment current assignment
+     * @return number of perturbation variables in the model
+     */
+    public int nrPerturbVariables(Assignment<V, T> assignment) {
+        if (variablesWithInitialValue().isEmpty())
+            return 0;
+        return getPerturbationVariables().countPerturbVariables(assignment);
+    }
+    
+    /**
+     * Update the incremental computation of perturbation variables (see {@link PerturbationVariables}), if it is used.
+     * This is called by {@link Model#afterAssigned(Assignment, long, Value)} and {@link Model#afterUnassigned(Assignment, long, Value)},
+     * a model that does not always call these methods (e.g., for constant variables) needs to call it instead.
+     * @param assignment current assignment
+     * @param value a value that was assigned or unassigned
+     * @param assigned true if the value was assigned, false if it was unassigned
+     */
+    protected void updatePerturbationVariables(Assignment<V, T> assignment, T value, boolean assigned) {
+        PerturbationVariables<V, T> perturbations = iPerturbationVariables;
+        if (perturbations == null) return;
+        if (assigned)
+            perturbations.assigned(assignment, value);
+        else
+            perturbations.unassigned(assignment, value);
+    }
+    
+    /**
+     * Incremental computation of perturbation variables, created when it is first needed
+     * @return perturbation variables tracking
+     */
+    protected PerturbationVariables<V, T> getPerturbationVariables() {
+        if (iPerturbationVariables == null) {
+            synchronized (this) {
+                if (iPerturbationVariables == null)
+                    iPerturbationVariables = new PerturbationVariables<V, T>(this);
+            }
+        }
+        return iPerturbationVariables;
+    }
+    
+    /**
+     * Check whether the given variable is a perturbation, i.e., it has an initial value and it is either assigned
+     * with a different value or it is not assigned and its initial value is in a conflict with the current assignment
+     * @param assignment current assignment
+     * @param variable a variable
+     * @return true if the variable is a perturbation
+     */
+    protected boolean hasPerturbance(Assignment<V, T> assignment, V variable) {
+        T initial = variable.getInitialAssignment();
+        if (initial == null)
+            return false;
+        T value = assignment.getValue(variable);
+        if (value != null)
+            return !initial.equals(value);
+        for (Constraint<V, T> constraint : variable.hardConstraints()) {
+            if (constraint.inConflict(assignment, initial))
+                return true;
+        }
+        for (GlobalConstraint<V, T> constraint : globalConstraints()) {
+            if (constraint.inConflict(assignment, initial))
+                return true;
+        }
+        return false;
     }
     
     /**
@@ -359,30 +476,8 @@ public class Model<V extends Variable<V, T>, T extends Value<V, T>> {
     public List<V> perturbVariables(Assignment<V, T> assignment, Collection<V> variables) {
         List<V> perturbances = new ArrayList<V>();
         for (V variable : variables) {
-            if (variable.getInitialAssignment() == null)
-                continue;
-            T value = assignment.getValue(variable);
-            if (value != null) {
-                if (!variable.getInitialAssignment().equals(value))
-                    perturbances.add(variable);
-            } else {
-                boolean hasPerturbance = false;
-                for (Constraint<V, T> constraint : variable.hardConstraints()) {
-                    if (constraint.inConflict(assignment, variable.getInitialAssignment())) {
-                        hasPerturbance = true;
-                        break;
-                    }
-                }
-                if (!hasPerturbance)
-                    for (GlobalConstraint<V, T> constraint : globalConstraints()) {
-                        if (constraint.inConflict(assignment, variable.getInitialAssignment())) {
-                            hasPerturbance = true;
-                            break;
-                        }
-                    }
-                if (hasPerturbance)
-                    perturbances.add(variable);
-            }
+            if (hasPerturbance(assignment, variable))
+                perturbances.add(variable);
         }
         return perturbances;
     }
@@ -408,11 +503,29 @@ public class Model<V extends Variable<V, T>, T extends Value<V, T>> {
      */
     public Set<T> conflictValues(Assignment<V, T> assignment, T value) {
         Set<T> conflictValues = new HashSet<T>();
-        for (Constraint<V, T> constraint : value.variable().hardConstraints())
+        conflictValues(assignment, value, conflictValues);
+        return conflictValues;
+    }
+    
+    /**
+     * Adds all the values conflicting with the given value into the provided set, so that a caller
+     * evaluating many values can reuse the same set.
+     * @param assignment current assignment
+     * @param value given value
+     * @param conflictValues set into which the conflicting values are added (it is not cleared)
+     */
+    public void conflictValues(Assignment<V, T> assignment, T value, Set<T> conflictValues) {
+        HotPathMetrics metrics = iHotPathMetrics;
+        for (Constraint<V, T> constraint : value.variable().hardConstraints()) {
+            long t0 = (metrics == null ? 0 : System.nanoTime());
             constraint.computeConflicts(assignment, value, conflictValues);
-        for (GlobalConstraint<V, T> constraint : globalConstraints())
+            if (metrics != null) metrics.record(HotPathMetrics.Type.Constraint, constraint.getClass(), t0);
+        }
+        for (GlobalConstraint<V, T> constraint : globalConstraints()) {
+            long t0 = (metrics == null ? 0 : System.nanoTime());
             constraint.computeConflicts(assignment, value, conflictValues);
-        return conflictValues;
+            if (metrics != null) metrics.record(HotPathMetrics.Type.Constraint, constraint.getClass(), t0);
+        }
     }
 
     /**
@@ -432,12 +545,19 @@ public class Model<V extends Variable<V, T>, T extends Value<V, T>> {
      * @return true if there is a conflict, i.e., there is at least one value that would have to be unassigned if the given value is assigned to its variable
      **/
     public boolean inConflict(Assignment<V, T> assignment, T value) {
-        for (Constraint<V, T> constraint : value.variable().hardConstraints())
-            if (constraint.inConflict(assignment, value))
-                return true;
-        for (GlobalConstraint<V, T> constraint : globalConstraints())
-            if (constraint.inConflict(assignment, value))
-                return true;
+        HotPathMetrics metrics = iHotPathMetrics;
+        for (Constraint<V, T> constraint : value.variable().hardConstraints()) {
+            long t0 = (metrics == null ? 0 : System.nanoTime());
+            boolean conflict = constraint.inConflict(assignment, value);
+            if (metrics != null) metrics.record(HotPathMetrics.Type.Constraint, constraint.getClass(), t0);
+            if (conflict) return true;
+        }
+        for (GlobalConstraint<V, T> constraint : globalConstraints()) {
+            long t0 = (metrics == null ? 0 : System.nanoTime());
+            boolean conflict = constraint.inConflict(assignment, value);
+            if (metrics != null) metrics.record(HotPathMetrics.Type.Constraint, constraint.getClass(), t0);
+            if (conflict) return true;
+        }
         return false;
     }
 
@@ -471,9 +591,18 @@ public class Model<V extends Variable<V, T>, T extends Value<V, T>> {
     protected void invalidateVariablesWithInitialValueCache() {
         iVariablesWithInitialValueLock.writeLock().lock();
         iVariablesWithInitialValueCache = null;
+        iInitialValuesVersion++;
         iVariablesWithInitialValueLock.writeLock().unlock();
     }
     
+    /**
+     * Version of the initial values, it is increased every time {@link Model#invalidateVariablesWithInitialValueCache()} is called
+     * @return version of the initial values
+     */
+    public long getInitialValuesVersion() {
+        return iInitialValuesVersion;
+    }
+    
     /** Called before a value is assigned to its variable
      * @param iteration current iteration
      * @param value a value to be assigned
@@ -527,6 +656,7 @@ public class Model<V extends Variable<V, T>, T extends Value<V, T>> {
      **/
     public void afterAssigned(Assignment<V, T> assignment,  long iteration, T value) {
         afterAssigned(iteration, value);
+        updatePerturbationVariables(assignment, value, true);
         for (ModelListener<V, T> listener : iModelListeners)
             listener.afterAssigned(assignment, iteration, value);
     }
@@ -546,6 +676,7 @@ public class Model<V extends Variable<V, T>, T extends Value<V, T>> {
      **/
     public void afterUnassigned(Assignment<V, T> assignment, long iteration, T value) {
         afterUnassigned(iteration, value);
+        updatePerturbationVariables(assignment, value, false);
         for (ModelListener<V, T> listener : iModelListeners)
             listener.afterUnassigned(assignment, iteration, value);
     }
@@ -613,8 +744,8 @@ public class Model<V extends Variable<V, T>, T extends Value<V, T>> {
         ret.put("Assigned variables", getPercRev(assignment.nrAssignedVariables(), 0, variables().size()) + "% (" + assignment.nrAssignedVariables() + "/" + variables().size() + ")");
         int nrVarsWithInitialValue = variablesWithInitialValue().size();
         if (nrVarsWithInitialValue > 0) {
-            Collection<V> pv = perturbVariables(assignment);
-            ret.put("Perturbation variables", getPercRev(pv.size(), 0, nrVarsWithInitialValue) + "% (" + pv.size() + " + " + (variables().size() - nrVarsWithInitialValue) + ")");
+            int pv = nrPerturbVariables(assignment);
+            ret.put("Perturbation variables", getPercRev(pv, 0, nrVarsWithInitialValue) + "% (" + pv + " + " + (variables().size() - nrVarsWithInitialValue) + ")");
         }
         ret.put("Overall solution value", sDoubleFormat.format(getTotalValue(assignment)));
         for (InfoProvider<V, T> provider : iInfoProviders)
@@ -760,7 +891,7 @@ public class Model<V extends Variable<V, T>, T extends Value<V, T>> {
      **/
     public void saveBest(Assignment<V, T> assignment) {
         iBestUnassignedVariables = iVariables.size() - assignment.nrAssignedVariables();
-        iBestPerturbations = perturbVariables(assignment).size();
+        iBestPerturbations = nrPerturbVariables(assignment);
         iBestValue = getTotalValue(assignment);
         for (V variable : iVariables) {
             variable.setBestAssignment(assignment.getValue(variable), assignment.getIteration(variable));
@@ -941,15 +1072,45 @@ public class Model<V extends Variable<V, T>, T extends Value<V, T>> {
      */
     public double getTotalValue(Assignment<V, T> assignment) {
         double ret = 0.0;
-        if (getCriteria().isEmpty())
+        if (getCriteria().isEmpty()) {
             for (T t: assignment.assignedValues())
                 ret += t.toDouble(assignment);
-        else
-            for (Criterion<V, T> c: getCriteria())
+        } else {
+            HotPathMetrics metrics = iHotPathMetrics;
+            for (Criterion<V, T> c: getCriteria()) {
+                long t0 = (metrics == null ? 0 : System.nanoTime());
                 ret += c.getWeightedValue(assignment);
+                if (metrics != null) metrics.record(HotPathMetrics.Type.Criterion, c.getClass(), t0);
+            }
+        }
         return ret;
     }
 
+    /**
+     * Change in the value of the current solution if the given variable takes the given value and the given conflicts are
+     * unassigned, computed without modifying the assignment (see {@link AbstractCriterion#getWeightedDelta(Assignment, Variable, Value, Set)}).
+     * Criteria that do not extend {@link AbstractCriterion} do not support the delta evaluation, the delta is only computed
+     * when all the criteria declare it to be exact (see {@link AbstractCriterion#isDeltaExact()}).
+     * @param assignment current assignment (it is not changed)
+     * @param variable a variable
+     * @param value proposed value of the variable, null if the variable is to be unassigned
+     * @param conflicts values that would be unassigned as well (can be null)
+     * @return change in {@link Model#getTotalValue(Assignment)}, null if it cannot be computed without changing the assignment
+     *         (e.g., when the model has no criteria or when one of the criteria does not support an exact delta evaluation)
+     */
+    public Double getTotalValueDelta(Assignment<V, T> assignment, V variable, T value, Set<T> conflicts) {
+        if (getCriteria().isEmpty()) return null;
+        double ret = 0.0;
+        for (Criterion<V, T> c: getCriteria()) {
+            if (!(c instanceof AbstractCriterion)) return null;
+            if (c.getWeight() != 0.0 && !((AbstractCriterion<V, T>) c).isDeltaExact()) return null;
+            Double delta = ((AbstractCriterion<V, T>) c).getWeightedDelta(assignment, variable, value, conflicts);
+            if (delta == null) return null;
+            ret += delta;
+        }
+        return ret;
+    }
+    
     /**
      * Value of the current solution. It is the sum of all assigned values,
      * i.e., {@link Value#toDouble(Assignment)}. Only variables from the given set are
@@ -0,0 +1,438 @@
+package org.cpsolver.ifs.model;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Compact topology of a model. The variables and the constraints of the model are given dense
+ * positions and the links between them are kept in int arrays in a compressed sparse row format:
+ * the constraints of each variable (see {@link Variable#constraints()}), the variables of each constraint
+ * (see {@link Constraint#variables()}), and the variables linked with each variable by a constraint
+ * (see {@link Variable#constraintVariables()}). Hard constraints come first, so the hard constraints of
+ * a variable are a prefix of its constraints. Global constraints are not included. The linked variables
+ * are only computed when they are needed for the first time, as their size grows with the square of the
+ * constraint sizes.<br>
+ * <br>
+ * The topology is a snapshot, it is created by {@link Model#getTopology()} once the model is loaded and it is dropped
+ * whenever a variable or a constraint is added to or removed from the model. The object API is kept as a view
+ * (see {@link ModelTopology#constraintVariables(int)}), so that the variables do not need to keep their own
+ * tables of the linked variables.
+ *
+ * @version IFS 1.3 (Iterative Forward Search)<br>
+ *          Copyright (C) 2017 Tomas Muller<br>
+ *          <a href="mailto:muller@unitime.org">muller@unitime.org</a><br>
+ *          <a href="http://muller.unitime.org">http://muller.unitime.org</a><br>
+ * <br>
+ *          This library is free software; you can redistribute it and/or modify
+ *          it under the terms of the GNU Lesser General Public License as
+ *          published by the Free Software Foundation; either version 3 of the
+ *          License, or (at your option) any later version. <br>
+ * <br>
+ *          This library is distributed in the hope that it will be useful, but
+ *          WITHOUT ANY WARRANTY; without even the implied warranty of
+ *          MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *          Lesser General Public License for more details. <br>
+ * <br>
+ *          You should have received a copy of the GNU Lesser General Public
+ *          License along with this library; if not see
+ *          <a href='http://www.gnu.org/licenses/'>http://www.gnu.org/licenses/</a>.
+ *
+ * @param <V> Variable
+ * @param <T> Value
+ */
+public class ModelTopology<V extends Variable<V, T>, T extends Value<V, T>> {
+    private Object[] iVariables;
+    private int[] iPosition;
+    private Object[] iConstraints;
+    private Map<Constraint<V, T>, Integer> iConstraintPosition;
+    private int iNrHardConstraints;
+    // variable -> constraints (sorted, hard constraints first)
+    private int[] iConstraintStart, iConstraintIndex, iHardConstraintEnd;
+    // constraint -> variables
+    private int[] iVariableStart, iVariableIndex;
+    // variable -> linked variables (sorted), computed lazily
+    private volatile int[] iNeighbourStart = null, iNeighbourIndex = null;
+
+    /**
+     * Create topology of the given model
+     * @param model problem model
+     */
+    public ModelTopology(Model<V, T> model) {
+        List<V> variables = model.variables();
+        int n = variables.size();
+        iVariables = variables.toArray();
+        int maxIndex = 0;
+        for (V variable: variables)
+            maxIndex = Math.max(maxIndex, variable.getIndex() + 1);
+        iPosition = new int[maxIndex];
+        Arrays.fill(iPosition, -1);
+        for (int x = 0; x < n; x++)
+            if (variables.get(x).getIndex() >= 0) iPosition[variables.get(x).getIndex()] = x;
+
+        // constraints of the model and of its variables, hard constraints first
+        List<Constraint<V, T>> hard = new ArrayList<Constraint<V, T>>(), soft = new ArrayList<Constraint<V, T>>();
+        iConstraintPosition = new HashMap<Constraint<V, T>, Integer>();
+        for (Constraint<V, T> constraint: model.constraints())
+            if (!iConstraintPosition.containsKey(constraint)) {
+                iConstraintPosition.put(constraint, -1);
+                (constraint.isHard() ? hard : soft).add(constraint);
+            }
+        for (V variable: variables)
+            for (Constraint<V, T> constraint: variable.constraints())
+                if (!iConstraintPosition.containsKey(constraint)) {
+                    iConstraintPosition.put(constraint, -1);
+                    (constraint.isHard() ? hard : soft).add(constraint);
+                }
+        iNrHardConstraints = hard.size();
+        hard.addAll(soft);
+        iConstraints = hard.toArray();
+        int m = iConstraints.length;
+        for (int c = 0; c < m; c++)
+            iConstraintPosition.put(hard.get(c), c);
+
+        // constraint -> variables
+        iVariableStart = new int[m + 1];
+        for (int c = 0; c < m; c++)
+            for (V variable: hard.get(c).variables())
+                if (getPosition(variable) >= 0) iVariableStart[c + 1]++;
+        for (int c = 0; c < m; c++)
+            iVariableStart[c + 1] += iVariableStart[c];
+        iVariableIndex = new int[iVariableStart[m]];
+        for (int c = 0; c < m; c++) {
+            int k = iVariableStart[c];
+            for (V variable: hard.get(c).variables()) {
+                int x = getPosition(variable);
+                if (x >= 0) iVariableIndex[k++] = x;
+            }
+        }
+
+        // variable -> constraints
+        iConstraintStart = new int[n + 1];
+        for (int x = 0; x < n; x++)
+            iConstraintStart[x + 1] = iConstraintStart[x] + variables.get(x).constraints().size();
+        iConstraintIndex = new int[iConstraintStart[n]];
+        iHardConstraintEnd = new int[n];
+        for (int x = 0; x < n; x++) {
+            int k = iConstraintStart[x];
+            for (Constraint<V, T> constraint: variables.get(x).constraints())
+                iConstraintIndex[k++] = iConstraintPosition.get(constraint);
+            Arrays.sort(iConstraintIndex, iConstraintStart[x], k);
+            int h = iConstraintStart[x];
+            while (h < k && iConstraintIndex[h] < iNrHardConstraints) h++;
+            iHardConstraintEnd[x] = h;
+        }
+    }
+
+    /**
+     * Compute the variables linked with each variable (if not computed already)
+     */
+    private synchronized void buildNeighbours() {
+        if (iNeighbourIndex != null) return;
+        int n = iVariables.length;
+        int[] neighbourStart = new int[n + 1];
+        int[] neighbours = new int[Math.max(16, iConstraintIndex.length)];
+        int[] mark = new int[n];
+        int size = 0;
+        for (int x = 0; x < n; x++) {
+            mark[x] = x + 1;
+            int start = size;
+            for (int k = iConstraintStart[x]; k < iConstraintStart[x + 1]; k++) {
+                int c = iConstraintIndex[k];
+                for (int l = iVariableStart[c]; l < iVariableStart[c + 1]; l++) {
+                    int y = iVariableIndex[l];
+                    if (mark[y] == x + 1) continue;
+                    mark[y] = x + 1;
+                    if (size == neighbours.length) neighbours = Arrays.copyOf(neighbours, 2 * size);
+                    neighbours[size++] = y;
+                }
+            }
+            Arrays.sort(neighbours, start, size);
+            neighbourStart[x + 1] = size;
+        }
+        iNeighbourStart = neighbourStart;
+        iNeighbourIndex = Arrays.copyOf(neighbours, size);
+    }
+
+    /**
+     * Number of variables
+     * @return number of variables of the model
+     */
+    public int getNrVariables() {
+        return iVariables.length;
+    }
+
+    /**
+     * Number of constraints
+     * @return number of constraints, hard and soft
+     */
+    public int getNrConstraints() {
+        return iConstraints.length;
+    }
+
+    /**
+     * Number of hard constraints, hard constraints have positions 0 ... {@link ModelTopology#getNrHardConstraints()} - 1
+     * @return number of hard constraints
+     */
+    public int getNrHardConstraints() {
+        return iNrHardConstraints;
+    }
+
+    /**
+     * Position of a variable
+     * @param variable a variable
+     * @return position of the variable, -1 if not in the topology
+     */
+    public int getPosition(V variable) {
+        int index = variable.getIndex();
+        if (index < 0 || index >= iPosition.length) return -1;
+        int x = iPosition[index];
+        return (x >= 0 && iVariables[x] == variable ? x : -1);
+    }
+
+    /**
+     * Position of a constraint
+     * @param constraint a constraint
+     * @return position of the constraint, -1 if not in the topology
+     */
+    public int getPosition(Constraint<V, T> constraint) {
+        Integer c = iConstraintPosition.get(constraint);
+        return (c == null ? -1 : c.intValue());
+    }
+
+    /**
+     * Variable of the given position
+     * @param x variable position
+     * @return variable
+     */
+    @SuppressWarnings("unchecked")
+    public V getVariable(int x) {
+        return (V) iVariables[x];
+    }
+
+    /**
+     * Constraint of the given position
+     * @param c constraint position
+     * @return constraint
+     */
+    @SuppressWarnings("unchecked")
+    public Constraint<V, T> getConstraint(int c) {
+        return (Constraint<V, T>) iConstraints[c];
+    }
+
+    /**
+     * True if the constraint of the given position is hard
+     * @param c constraint position
+     * @return true if hard
+     */
+    public boolean isHard(int c) {
+        return c < iNrHardConstraints;
+    }
+
+    /**
+     * Constraints of a variable are {@link ModelTopology#getConstraintIndex()}[i] for i in [getConstraintStart(x), getConstraintStart(x + 1))
+     * @param x variable position
+     * @return first index of the constraints of the variable
+     */
+    public int getConstraintStart(int x) {
+        return iConstraintStart[x];
+    }
+
+    /**
+     * Hard constraints of a variable are {@link ModelTopology#getConstraintIndex()}[i] for i in [getConstraintStart(x), getHardConstraintEnd(x))
+     * @param x variable position
+     * @return index after the last hard constraint of the variable
+     */
+    public int getHardConstraintEnd(int x) {
+        return iHardConstraintEnd[x];
+    }
+
+    /**
+     * Positions of the constraints of all variables (must not be modified)
+     * @return constraint positions, indexed by {@link ModelTopology#getConstraintStart(int)}
+     */
+    public int[] getConstraintIndex() {
+        return iConstraintIndex;
+    }
+
+    /**
+     * Variables of a constraint are {@link ModelTopology#getVariableIndex()}[i] for i in [getVariableStart(c), getVariableStart(c + 1))
+     * @param c constraint position
+     * @return first index of the variables of the constraint
+     */
+    public int getVariableStart(int c) {
+        return iVariableStart[c];
+    }
+
+    /**
+     * Positions of the variables of all constraints (must not be modified)
+     * @return variable positions, indexed by {@link ModelTopology#getVariableStart(int)}
+     */
+    public int[] getVariableIndex() {
+        return iVariableIndex;
+    }
+
+    /**
+     * Variables linked with a variable are {@link ModelTopology#getNeighbourIndex()}[i] for i in [getNeighbourStart(x), getNeighbourStart(x + 1))
+     * @param x variable position
+     * @return first index of the linked variables
+     */
+    public int getNeighbourStart(int x) {
+        if (iNeighbourIndex == null) buildNeighbours();
+        return iNeighbourStart[x];
+    }
+
+    /**
+     * Positions of the linked variables of all variables (must not be modified), sorted for each variable
+     * @return variable positions, indexed by {@link ModelTopology#getNeighbourStart(int)}
+     */
+    public int[] getNeighbourIndex() {
+        if (iNeighbourIndex == null) buildNeighbours();
+        return iNeighbourIndex;
+    }
+
+    /**
+     * True if the two variables are linked by a constraint
+     * @param x variable position
+     * @param y another variable position
+     * @return true if there is a constraint containing both variables
+     */
+    public boolean isLinked(int x, int y) {
+        return x != y && Arrays.binarySearch(getNeighbourIndex(), getNeighbourStart(x), getNeighbourStart(x + 1), y) >= 0;
+    }
+
+    /**
+     * Constraints linking the two variables
+     * @param x variable position
+     * @param y another variable position
+     * @return constraints containing both variables
+     */
+    public List<Constraint<V, T>> getConstraints(int x, int y) {
+        List<Constraint<V, T>> constraints = new ArrayList<Constraint<V, T>>();
+        int i = iConstraintStart[x], ie = iConstraintStart[x + 1];
+        int j = iConstraintStart[y], je = iConstraintStart[y + 1];
+        while (i < ie && j < je) {
+            if (iConstraintIndex[i] < iConstraintIndex[j]) i++;
+            else if (iConstraintIndex[i] > iConstraintIndex[j]) j++;
+            else {
+                constraints.add(getConstraint(iConstraintIndex[i]));
+                i++; j++;
+            }
+        }
+        return constraints;
+    }
+
+    /**
+     * Variables linked with the given variable by a constraint
+     * @param x variable position
+     * @return list of variables (a view)
+     */
+    public List<V> getNeighbours(final int x) {
+        return new AbstractList<V>() {
+            @Override
+            public V get(int index) {
+                return getVariable(getNeighbourIndex()[getNeighbourStart(x) + index]);
+            }
+
+            @Override
+            public int size() {
+                return getNeighbourStart(x + 1) - getNeighbourStart(x);
+            }
+        };
+    }
+
+    /**
+     * Table of all variables linked with the given variable by a constraint (a read-only view, see {@link Variable#constraintVariables()}).
+     * The constraints linking the two variables are computed when asked for (hot paths should rather walk the constraint
+     * positions of the two variables, see {@link ModelTopology#getConstraintIndex()}). Unlike the table that a variable
+     * outside of a model computes, only the variables of the model are included.
+     * @param x variable position
+     * @return table (variable, constraints)
+     */
+    public Map<V, List<Constraint<V, T>>> constraintVariables(final int x) {
+        return new AbstractMap<V, List<Constraint<V, T>>>() {
+            @Override
+            public int size() {
+                return getNeighbourStart(x + 1) - getNeighbourStart(x);
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public boolean containsKey(Object key) {
+                if (!(key instanceof Variable)) return false;
+                int y = getPosition((V) key);
+                return y >= 0 && isLinked(x, y);
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public List<Constraint<V, T>> get(Object key) {
+                if (!(key instanceof Variable)) return null;
+                int y = getPosition((V) key);
+                return (y >= 0 && isLinked(x, y) ? getConstraints(x, y) : null);
+            }
+
+            @Override
+            public Set<V> keySet() {
+                return new AbstractSet<V>() {
+                    @Override
+                    public boolean contains(Object o) {
+                        return containsKey(o);
+                    }
+
+                    @Override
+                    public Iterator<V> iterator() {
+                        return getNeighbours(x).iterator();
+                    }
+
+                    @Override
+                    public int size() {
+                        return getNeighbourStart(x + 1) - getNeighbourStart(x);
+                    }
+                };
+            }
+
+            @Override
+            public Set<Map.Entry<V, List<Constraint<V, T>>>> entrySet() {
+                return new AbstractSet<Map.Entry<V, List<Constraint<V, T>>>>() {
+                    @Override
+                    public Iterator<Map.Entry<V, List<Constraint<V, T>>>> iterator() {
+                        return new Iterator<Map.Entry<V, List<Constraint<V, T>>>>() {
+                            private int iNext = getNeighbourStart(x);
+
+                            @Override
+                            public boolean hasNext() {
+                                return iNext < getNeighbourStart(x + 1);
+                            }
+
+                            @Override
+                            public Map.Entry<V, List<Constraint<V, T>>> next() {
+                                if (!hasNext()) throw new NoSuchElementException();
+                                int y = getNeighbourIndex()[iNext++];
+                                return new AbstractMap.SimpleImmutableEntry<V, List<Constraint<V, T>>>(getVariable(y), getConstraints(x, y));
+                            }
+
+                            @Override
+                            public void remove() {
+                                throw new UnsupportedOperationException();
+                            }
+                        };
+                    }
+
+                    @Override
+                    public int size() {
+                        return getNeighbourStart(x + 1) - getNeighbourStart(x);
+                    }
+                };
+            }
+        };
+    }
+}
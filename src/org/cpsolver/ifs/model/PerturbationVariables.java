@@ -0,0 +1,332 @@
+package org.cpsolver.ifs.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.cpsolver.ifs.assignment.Assignment;
+import org.cpsolver.ifs.assignment.context.AbstractClassWithContext;
+import org.cpsolver.ifs.assignment.context.AssignmentConstraintContext;
+import org.cpsolver.ifs.assignment.context.CanInheritContext;
+
+/**
+ * Incremental computation of perturbation variables (see {@link Model#perturbVariables(Assignment)}).
+ * For each assignment, the context keeps the set of assigned variables that are not assigned with
+ * their initial value, the set of unassigned variables that have an initial value, and the subset of
+ * these unassigned variables whose initial value is in a conflict with the current assignment. The context
+ * is updated by the model whenever a variable is assigned or unassigned: only the unassigned variables that
+ * share a hard constraint with the changed variable are checked again, together with the unassigned variables
+ * whose initial value shares a conflict key with the changed value in a global constraint (see
+ * {@link GlobalConstraint#getConflictKeys(Value)}). When a global constraint does not provide the conflict keys,
+ * the affected variables are only marked and checked again when the perturbation variables are requested.
+ * The context is reloaded when an initial value is changed (see
+ * {@link Model#invalidateVariablesWithInitialValueCache()}).
+ * 
+ * @version IFS 1.3 (Iterative Forward Search)<br>
+ *          Copyright (C) 2017 Tomas Muller<br>
+ *          <a href="mailto:muller@unitime.org">muller@unitime.org</a><br>
+ *          <a href="http://muller.unitime.org">http://muller.unitime.org</a><br>
+ * <br>
+ *          This library is free software; you can redistribute it and/or modify
+ *          it under the terms of the GNU Lesser General Public License as
+ *          published by the Free Software Foundation; either version 3 of the
+ *          License, or (at your option) any later version. <br>
+ * <br>
+ *          This library is distributed in the hope that it will be useful, but
+ *          WITHOUT ANY WARRANTY; without even the implied warranty of
+ *          MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *          Lesser General Public License for more details. <br>
+ * <br>
+ *          You should have received a copy of the GNU Lesser General Public
+ *          License along with this library; if not see
+ *          <a href='http://www.gnu.org/licenses/'>http://www.gnu.org/licenses/</a>.
+ *
+ * @param <V> Variable
+ * @param <T> Value
+ */
+public class PerturbationVariables<V extends Variable<V, T>, T extends Value<V, T>> extends AbstractClassWithContext<V, T, PerturbationVariables<V, T>.PerturbationVariablesContext> implements CanInheritContext<V, T, PerturbationVariables<V, T>.PerturbationVariablesContext> {
+    private Model<V, T> iModel;
+    private ConflictKeys iConflictKeys = null;
+    
+    /**
+     * Constructor
+     * @param model problem model
+     */
+    public PerturbationVariables(Model<V, T> model) {
+        iModel = model;
+    }
+
+    @Override
+    public Model<V, T> getModel() {
+        return iModel;
+    }
+    
+    /**
+     * Current context, the context is reloaded when the initial values have changed since it was created
+     */
+    private PerturbationVariablesContext context(Assignment<V, T> assignment) {
+        PerturbationVariablesContext context = getContext(assignment);
+        if (context.iVersion != getModel().getInitialValuesVersion())
+            context.load(assignment);
+        return context;
+    }
+    
+    /**
+     * Number of perturbation variables
+     * @param assignment current assignment
+     * @return number of variables which have an initial value but which are not assigned with this value
+     */
+    public int countPerturbVariables(Assignment<V, T> assignment) {
+        return context(assignment).countPerturbVariables(assignment);
+    }
+    
+    /**
+     * List of perturbation variables, ordered the same way as in {@link Model#variables()}
+     * @param assignment current assignment
+     * @return variables which have an initial value but which are not assigned with this value
+     */
+    public List<V> perturbVariables(Assignment<V, T> assignment) {
+        return context(assignment).perturbVariables(assignment);
+    }
+    
+    /**
+     * Update the context after a value has been assigned
+     * @param assignment current assignment
+     * @param value assigned value
+     */
+    public void assigned(Assignment<V, T> assignment, T value) {
+        context(assignment).assigned(assignment, value);
+    }
+    
+    /**
+     * Update the context after a value has been unassigned
+     * @param assignment current assignment
+     * @param value unassigned value
+     */
+    public void unassigned(Assignment<V, T> assignment, T value) {
+        context(assignment).unassigned(assignment, value);
+    }
+
+    /**
+     * Conflict keys of the initial values in the global constraints, the index is rebuilt when the initial values or the global constraints have changed
+     */
+    private synchronized ConflictKeys getConflictKeys() {
+        if (iConflictKeys == null || iConflictKeys.iVersion != getModel().getInitialValuesVersion() || iConflictKeys.iNrGlobalConstraints != getModel().globalConstraints().size())
+            iConflictKeys = new ConflictKeys();
+        return iConflictKeys;
+    }
+
+    @Override
+    public PerturbationVariablesContext createAssignmentContext(Assignment<V, T> assignment) {
+        return new PerturbationVariablesContext(assignment);
+    }
+
+    @Override
+    public PerturbationVariablesContext inheritAssignmentContext(Assignment<V, T> assignment, PerturbationVariablesContext parentContext) {
+        if (parentContext.iVersion != getModel().getInitialValuesVersion())
+            return new PerturbationVariablesContext(assignment);
+        return new PerturbationVariablesContext(parentContext);
+    }
+    
+    /**
+     * Variables with an initial value indexed by the conflict keys of their initial values in the global constraints
+     */
+    private class ConflictKeys {
+        private long iVersion;
+        private int iNrGlobalConstraints;
+        private Map<Object, List<V>> iVariables = new HashMap<Object, List<V>>();
+        private List<V> iUnknown = new ArrayList<V>();
+        
+        private ConflictKeys() {
+            iVersion = getModel().getInitialValuesVersion();
+            iNrGlobalConstraints = getModel().globalConstraints().size();
+            variables: for (V variable: getModel().variablesWithInitialValue()) {
+                Set<Object> keys = new HashSet<Object>();
+                for (GlobalConstraint<V, T> constraint: getModel().globalConstraints()) {
+                    Collection<?> k = constraint.getConflictKeys(variable.getInitialAssignment());
+                    if (k == null) {
+                        iUnknown.add(variable);
+                        continue variables;
+                    }
+                    keys.addAll(k);
+                }
+                for (Object key: keys) {
+                    List<V> variables = iVariables.get(key);
+                    if (variables == null) {
+                        variables = new ArrayList<V>();
+                        iVariables.put(key, variables);
+                    }
+                    variables.add(variable);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Assignment context: assigned variables that are not assigned with their initial value,
+     * unassigned variables with an initial value, unassigned variables with an initial value that
+     * is in a conflict with the current assignment
+     */
+    public class PerturbationVariablesContext implements AssignmentConstraintContext<V, T> {
+        private long iVersion;
+        private Set<V> iPerturbations;
+        private Set<V> iUnassigned;
+        private Set<V> iConflicting;
+        private boolean iDirty = false, iUnknownDirty = false;
+        
+        /**
+         * Create the context from the given assignment
+         * @param assignment current assignment
+         */
+        public PerturbationVariablesContext(Assignment<V, T> assignment) {
+            load(assignment);
+        }
+        
+        /**
+         * Copy the context of the parent assignment
+         * @param parent parent context
+         */
+        public PerturbationVariablesContext(PerturbationVariablesContext parent) {
+            iVersion = parent.iVersion;
+            iPerturbations = new HashSet<V>(parent.iPerturbations);
+            iUnassigned = new HashSet<V>(parent.iUnassigned);
+            iConflicting = new HashSet<V>(parent.iConflicting);
+            iDirty = parent.iDirty;
+            iUnknownDirty = parent.iUnknownDirty;
+        }
+        
+        /**
+         * (Re)load the context from the given assignment
+         * @param assignment current assignment
+         */
+        protected void load(Assignment<V, T> assignment) {
+            iVersion = getModel().getInitialValuesVersion();
+            iPerturbations = new HashSet<V>();
+            iUnassigned = new HashSet<V>();
+            iConflicting = new HashSet<V>();
+            iDirty = false; iUnknownDirty = false;
+            for (V variable: getModel().variablesWithInitialValue()) {
+                T value = assignment.getValue(variable);
+                if (value == null) {
+                    iUnassigned.add(variable);
+                    if (getModel().hasPerturbance(assignment, variable))
+                        iConflicting.add(variable);
+                } else if (!variable.getInitialAssignment().equals(value))
+                    iPerturbations.add(variable);
+            }
+        }
+
+        @Override
+        public void assigned(Assignment<V, T> assignment, T value) {
+            V variable = value.variable();
+            if (variable.getInitialAssignment() != null) {
+                iUnassigned.remove(variable);
+                iConflicting.remove(variable);
+                if (variable.getInitialAssignment().equals(value))
+                    iPerturbations.remove(variable);
+                else
+                    iPerturbations.add(variable);
+            }
+            updateUnassigned(assignment, value);
+        }
+
+        @Override
+        public void unassigned(Assignment<V, T> assignment, T value) {
+            V variable = value.variable();
+            if (variable.getInitialAssignment() != null) {
+                iPerturbations.remove(variable);
+                iUnassigned.add(variable);
+                update(assignment, variable);
+            }
+            updateUnassigned(assignment, value);
+        }
+        
+        /**
+         * Check the unassigned variables with an initial value that can be affected by a change of the given variable
+         */
+        private void updateUnassigned(Assignment<V, T> assignment, T value) {
+            if (iUnassigned.isEmpty()) return;
+            V variable = value.variable();
+            for (Constraint<V, T> constraint: variable.hardConstraints())
+                for (V other: constraint.variables())
+                    if (!other.equals(variable) && iUnassigned.contains(other)) update(assignment, other);
+            if (getModel().globalConstraints().isEmpty() || iDirty) return;
+            Set<Object> keys = new HashSet<Object>();
+            for (GlobalConstraint<V, T> constraint: getModel().globalConstraints()) {
+                Collection<?> k = constraint.getConflictKeys(value);
+                if (k == null) {
+                    iDirty = true;
+                    return;
+                }
+                keys.addAll(k);
+            }
+            ConflictKeys conflictKeys = getConflictKeys();
+            for (Object key: keys) {
+                List<V> variables = conflictKeys.iVariables.get(key);
+                if (variables != null)
+                    for (V other: variables)
+                        if (!other.equals(variable) && iUnassigned.contains(other)) update(assignment, other);
+            }
+            if (!conflictKeys.iUnknown.isEmpty()) iUnknownDirty = true;
+        }
+        
+        /**
+         * Check the unassigned variables that have been marked as affected by a global constraint with unknown conflict keys
+         */
+        private void refresh(Assignment<V, T> assignment) {
+            if (iDirty) {
+                for (V other: iUnassigned)
+                    update(assignment, other);
+            } else if (iUnknownDirty) {
+                for (V other: getConflictKeys().iUnknown)
+                    if (iUnassigned.contains(other)) update(assignment, other);
+            }
+            iDirty = false; iUnknownDirty = false;
+        }
+        
+        /**
+         * Check whether the initial value of an unassigned variable is in a conflict with the current assignment
+         */
+        private void update(Assignment<V, T> assignment, V variable) {
+            if (getModel().hasPerturbance(assignment, variable))
+                iConflicting.add(variable);
+            else
+                iConflicting.remove(variable);
+        }
+        
+        /**
+         * Number of perturbation variables
+         * @param assignment current assignment
+         * @return number of perturbation variables
+         */
+        public int countPerturbVariables(Assignment<V, T> assignment) {
+            refresh(assignment);
+            return iPerturbations.size() + iConflicting.size();
+        }
+        
+        /**
+         * List of perturbation variables
+         * @param assignment current assignment
+         * @return perturbation variables, ordered by {@link Variable#getIndex()}
+         */
+        public List<V> perturbVariables(Assignment<V, T> assignment) {
+            refresh(assignment);
+            List<V> perturbations = new ArrayList<V>(iPerturbations.size() + iConflicting.size());
+            perturbations.addAll(iPerturbations);
+            perturbations.addAll(iConflicting);
+            Collections.sort(perturbations, new Comparator<V>() {
+                @Override
+                public int compare(V v1, V v2) {
+                    return (v1.getIndex() < v2.getIndex() ? -1 : v1.getIndex() == v2.getIndex() ? 0 : 1);
+                }
+            });
+            return perturbations;
+        }
+    }
+}
@@ -85,11 +85,25 @@ public class SimpleNeighbour<V extends Variable<V, T>, T extends Value<V, T>> im
             assignment.unassign(iteration, iVariable);
     }
 
-    /** Improvement in the solution value if this neighbour is accepted. */
+    /**
+     * Improvement in the solution value if this neighbour is accepted. It is evaluated without changing the assignment,
+     * using {@link Model#getTotalValueDelta(Assignment, Variable, Value, Set)} when all the criteria of the model declare
+     * an exact delta, or using {@link Value#toDouble(Assignment)} of the new value, the current value, and the conflicts otherwise.
+     */
     @Override
     public double value(Assignment<V, T> assignment) {
+        if (iVariable == null) return 0.0;
+        if (iVariable.getModel() != null) {
+            Double delta = iVariable.getModel().getTotalValueDelta(assignment, iVariable, iValue, iConflicts);
+            if (delta != null) return delta;
+        }
         T old = assignment.getValue(iVariable);
-        return (iValue == null ? 0 : iValue.toDouble(assignment)) - (iVariable == null || old == null ? 0 : old.toDouble(assignment));
+        double ret = (iValue == null ? 0 : iValue.toDouble(assignment)) - (old == null ? 0 : old.toDouble(assignment));
+        if (iConflicts != null)
+            for (T conflict: iConflicts)
+                if (!conflict.variable().equals(iVariable) && conflict.equals(assignment.getValue(conflict.variable())))
+                    ret -= conflict.toDouble(assignment);
+        return ret;
     }
 
     @Override
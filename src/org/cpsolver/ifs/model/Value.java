@@ -8,6 +8,7 @@ import org.cpsolver.ifs.assignment.AssignmentComparable;
 import org.cpsolver.ifs.assignment.ValueComparator;
 import org.cpsolver.ifs.assignment.context.ExtensionWithContext;
 import org.cpsolver.ifs.criteria.Criterion;
+import org.cpsolver.ifs.util.HotPathMetrics;
 import org.cpsolver.ifs.util.IdGenerator;
 
 
@@ -49,6 +50,7 @@ public class Value<V extends Variable<V, T>, T extends Value<V, T>> implements C
     private static IdGenerator sIdGenerator = new IdGenerator();
 
     private long iId;
+    private int iIndex = -1;
     private V iVariable = null;
 
     /** Integer value */
@@ -106,6 +108,23 @@ public class Value<V extends Variable<V, T>, T extends Value<V, T>> implements C
         return iId;
     }
 
+    /**
+     * Index of the value in the domain of its variable, see {@link Variable#setValues(java.util.List)}. The indexes are
+     * dense and zero-based, so that per-value information can be kept in arrays or bit sets.
+     * @return value index, -1 if the value is not a part of a cached domain
+     **/
+    public int getIndex() {
+        return iIndex;
+    }
+    
+    /**
+     * Set the index of the value in the domain of its variable, see {@link Variable#setValues(java.util.List)}
+     * @param index value index
+     **/
+    public void setIndex(int index) {
+        iIndex = index;
+    }
+
     /** Values name -- for printing purposes (E.g., Monday 7:30) 
      * @return value name
      **/
@@ -132,8 +151,12 @@ public class Value<V extends Variable<V, T>, T extends Value<V, T>> implements C
         if (iValue != null)
             return iValue;
         double ret = 0.0;
-        for (Criterion<V, T> criterion: variable().getModel().getCriteria())
+        HotPathMetrics metrics = variable().getModel().getHotPathMetrics();
+        for (Criterion<V, T> criterion: variable().getModel().getCriteria()) {
+            long t0 = (metrics == null ? 0 : System.nanoTime());
             ret += criterion.getWeightedValue(assignment, (T)this, null);
+            if (metrics != null) metrics.record(HotPathMetrics.Type.Criterion, criterion.getClass(), t0);
+        }
         return ret;
     }
     
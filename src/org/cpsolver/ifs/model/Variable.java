@@ -121,10 +121,15 @@ public class Variable<V extends Variable<V, T>, T extends Value<V, T>> implement
         return iValues;
     }
 
-    /** Sets the domain 
+    /** Sets the domain, the values are given dense zero-based indexes (see {@link Value#getIndex()}) 
      * @param values variable's domain to cache 
      **/
     protected void setValues(List<T> values) {
+        if (values != null) {
+            int index = 0;
+            for (T value: values)
+                value.setIndex(index++);
+        }
         iValues = values;
     }
 
@@ -311,6 +316,8 @@ public class Variable<V extends Variable<V, T>, T extends Value<V, T>> implement
             iConstraintVariables = null;
         } else
             iSoftConstraints.add(constraint);
+        if (iModel != null)
+            iModel.invalidateTopology();
     }
 
     /**
@@ -328,6 +335,8 @@ public class Variable<V extends Variable<V, T>, T extends Value<V, T>> implement
             iConstraintVariables = null;
         } else
             iSoftConstraints.remove(constraint);
+        if (iModel != null)
+            iModel.invalidateTopology();
     }
 
     /** Return the list of constraints associated with this variable 
@@ -474,6 +483,7 @@ public class Variable<V extends Variable<V, T>, T extends Value<V, T>> implement
     /**
      * Permanently remove a value from variable's domain.
      * The variable should not have this value assigned in any existing assignment.
+     * The domain is replaced by a new list, so that the remaining values get new indexes (see {@link Value#getIndex()}).
      * @param iteration current iteration
      * @param value value to be removed from this variable's domain
      **/
@@ -483,7 +493,7 @@ public class Variable<V extends Variable<V, T>, T extends Value<V, T>> implement
     		getModel().getDefaultAssignment().unassign(iteration, (V) this);
         if (iValues == null)
             return;
-        iValues.remove(value);
+        removeFromDomain(value);
         if (iInitialValue != null && iInitialValue.equals(value)) {
             iInitialValue = null;
             if (iModel != null)
@@ -497,11 +507,20 @@ public class Variable<V extends Variable<V, T>, T extends Value<V, T>> implement
 
     /**
      * Returns a table of all variables linked with this variable by a
-     * constraint.
+     * constraint. When the variable is in a model, this is a read-only view
+     * of the model topology (see {@link Model#getTopology()}), which only contains
+     * the variables of the model (a variable of a constraint that has not been
+     * added into the model is not listed).
      * 
      * @return table (variable, constraint)
      */
+    @SuppressWarnings("unchecked")
     public Map<V, List<Constraint<V, T>>> constraintVariables() {
+        if (iModel != null) {
+            ModelTopology<V, T> topology = iModel.getTopology();
+            int x = topology.getPosition((V) this);
+            if (x >= 0) return topology.constraintVariables(x);
+        }
         if (iConstraintVariables == null) {
             iConstraintVariables = new HashMap<V, List<Constraint<V, T>>>();
             for (Constraint<V, T> constraint : constraints()) {
@@ -529,12 +548,26 @@ public class Variable<V extends Variable<V, T>, T extends Value<V, T>> implement
             return;
         if (iValues == null)
             return;
-        iValues.remove(iInitialValue);
+        removeFromDomain(iInitialValue);
         if (iModel != null)
             iModel.invalidateVariablesWithInitialValueCache();
         iInitialValue = null;
     }
  
+    /**
+     * Remove a value from the cached domain. The domain is not changed in place: a new list is set instead
+     * (see {@link Variable#setValues(List)}), so that the indexes of the remaining values are kept dense and the
+     * caches that are based on the domain (and its value indexes) can notice the change.
+     * @param value value to be removed
+     */
+    private void removeFromDomain(T value) {
+        if (!iValues.contains(value)) return;
+        List<T> values = new ArrayList<T>(iValues);
+        values.remove(value);
+        setValues(values);
+        value.setIndex(-1);
+    }
+ 
     /**
      * Unique index of a variable, only to be assigned by {@link Model#addVariable(Variable)}.
      * @param index an index
@@ -1,14 +1,21 @@
 package org.cpsolver.ifs.perturbations;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 
 import org.cpsolver.ifs.assignment.Assignment;
+import org.cpsolver.ifs.assignment.context.AbstractClassWithContext;
+import org.cpsolver.ifs.assignment.context.AssignmentContext;
+import org.cpsolver.ifs.assignment.context.CanInheritContext;
 import org.cpsolver.ifs.extension.Extension;
 import org.cpsolver.ifs.extension.ViolatedInitials;
+import org.cpsolver.ifs.model.Constraint;
 import org.cpsolver.ifs.model.Model;
+import org.cpsolver.ifs.model.ModelListener;
 import org.cpsolver.ifs.model.Value;
 import org.cpsolver.ifs.model.Variable;
 import org.cpsolver.ifs.solution.Solution;
@@ -72,6 +79,7 @@ import org.cpsolver.ifs.util.DataProperties;
  */
 public class DefaultPerturbationsCounter<V extends Variable<V, T>, T extends Value<V, T>> implements PerturbationsCounter<V, T> {
     private ViolatedInitials<V, T> iViolatedInitials = null;
+    private PerturbationPenalty iPerturbationPenalty = null;
     protected static java.text.DecimalFormat sDoubleFormat = new java.text.DecimalFormat("0.00", new java.text.DecimalFormatSymbols(Locale.US));
 
     /**
@@ -90,12 +98,38 @@ public class DefaultPerturbationsCounter<V extends Variable<V, T>, T extends Val
             if (ViolatedInitials.class.isInstance(extension))
                 iViolatedInitials = (ViolatedInitials<V, T>) extension;
         }
+        Model<V, T> model = solver.currentSolution().getModel();
+        for (ModelListener<V, T> listener : new ArrayList<ModelListener<V, T>>(model.getModelListeners())) {
+            if (listener instanceof DefaultPerturbationsCounter.PerturbationPenalty) {
+                ((DefaultPerturbationsCounter<?, ?>.PerturbationPenalty) listener).iRegistered = false;
+                model.removeModelListener(listener);
+            }
+        }
+        iPerturbationPenalty = null;
+        if (isPenaltyIncremental()) {
+            iPerturbationPenalty = new PerturbationPenalty(model);
+            model.addModelListener(iPerturbationPenalty);
+        }
+    }
+    
+    /**
+     * Whether the perturbation penalty of a variable only depends on its assigned and initial value (see
+     * {@link DefaultPerturbationsCounter#getPenaltyD(Assignment, Value, Value)}). If so, the total perturbation
+     * penalty is kept incrementally for each assignment (see {@link PerturbationPenalty}).
+     * A counter whose penalty also depends on the assignments of the other variables must return false.
+     * @return true if the total perturbation penalty can be updated incrementally
+     */
+    protected boolean isPenaltyIncremental() {
+        return true;
     }
 
     @Override
     public double getPerturbationPenalty(Assignment<V, T> assignment, Model<V, T> model) {
+        PerturbationPenalty perturbationPenalty = iPerturbationPenalty;
+        if (perturbationPenalty != null && perturbationPenalty.iRegistered && perturbationPenalty.getModel() == model)
+            return perturbationPenalty.getPerturbationPenalty(assignment);
         double penalty = 0.0;
-        for (V variable : model.variablesWithInitialValue()) {
+        for (V variable : model.perturbVariables(assignment)) {
             T value = assignment.getValue(variable);
             if (value != null && variable.getInitialAssignment() != null && !value.equals(variable.getInitialAssignment()))
                 penalty += getPenaltyD(assignment, value, variable.getInitialAssignment());
@@ -239,4 +273,177 @@ public class DefaultPerturbationsCounter<V extends Variable<V, T>, T extends Val
         if (model.variablesWithInitialValue().size() > 0)
             info.put("Perturbations: Total penalty", sDoubleFormat.format(getPerturbationPenalty(assignment, model, variables)));
     }
+    
+    /**
+     * Incremental computation of the total perturbation penalty. It is registered as a model listener and, for each assignment,
+     * it keeps the penalties of the variables that are assigned with a different value than the initial one.
+     * The context is reloaded when an initial value is changed (see {@link Model#getInitialValuesVersion()}).
+     */
+    protected class PerturbationPenalty extends AbstractClassWithContext<V, T, DefaultPerturbationsCounter<V, T>.PerturbationPenaltyContext> implements ModelListener<V, T>, CanInheritContext<V, T, DefaultPerturbationsCounter<V, T>.PerturbationPenaltyContext> {
+        private Model<V, T> iModel;
+        private boolean iRegistered = true;
+        
+        /**
+         * Constructor
+         * @param model problem model
+         */
+        public PerturbationPenalty(Model<V, T> model) {
+            iModel = model;
+        }
+        
+        @Override
+        public Model<V, T> getModel() {
+            return iModel;
+        }
+        
+        /**
+         * Current context, the context is reloaded when the initial values have changed since it was created
+         */
+        private PerturbationPenaltyContext context(Assignment<V, T> assignment) {
+            PerturbationPenaltyContext context = getContext(assignment);
+            if (context.iVersion != getModel().getInitialValuesVersion())
+                context.load(assignment);
+            return context;
+        }
+        
+        /**
+         * Total perturbation penalty
+         * @param assignment current assignment
+         * @return sum of the penalties of the variables that are assigned with a different value than the initial one
+         */
+        public double getPerturbationPenalty(Assignment<V, T> assignment) {
+            return context(assignment).getTotal();
+        }
+
+        @Override
+        public PerturbationPenaltyContext createAssignmentContext(Assignment<V, T> assignment) {
+            return new PerturbationPenaltyContext(getModel(), assignment);
+        }
+
+        @Override
+        public PerturbationPenaltyContext inheritAssignmentContext(Assignment<V, T> assignment, PerturbationPenaltyContext parentContext) {
+            if (parentContext.iVersion != getModel().getInitialValuesVersion())
+                return new PerturbationPenaltyContext(getModel(), assignment);
+            return new PerturbationPenaltyContext(parentContext);
+        }
+
+        @Override
+        public void variableAdded(V variable) {
+        }
+
+        @Override
+        public void variableRemoved(V variable) {
+        }
+
+        @Override
+        public void constraintAdded(Constraint<V, T> constraint) {
+        }
+
+        @Override
+        public void constraintRemoved(Constraint<V, T> constraint) {
+        }
+
+        @Override
+        public void beforeAssigned(Assignment<V, T> assignment, long iteration, T value) {
+        }
+
+        @Override
+        public void beforeUnassigned(Assignment<V, T> assignment, long iteration, T value) {
+        }
+
+        @Override
+        public void afterAssigned(Assignment<V, T> assignment, long iteration, T value) {
+            context(assignment).assigned(assignment, value);
+        }
+
+        @Override
+        public void afterUnassigned(Assignment<V, T> assignment, long iteration, T value) {
+            context(assignment).unassigned(assignment, value);
+        }
+
+        @Override
+        public boolean init(Solver<V, T> solver) {
+            return true;
+        }
+    }
+    
+    /**
+     * Assignment context: penalties of the variables that are assigned with a different value than the initial one and their sum
+     */
+    public class PerturbationPenaltyContext implements AssignmentContext {
+        private Model<V, T> iModel;
+        private long iVersion;
+        private Map<V, Double> iPenalties;
+        private double iTotal;
+        
+        /**
+         * Create the context from the given assignment
+         * @param model problem model
+         * @param assignment current assignment
+         */
+        public PerturbationPenaltyContext(Model<V, T> model, Assignment<V, T> assignment) {
+            iModel = model;
+            load(assignment);
+        }
+        
+        /**
+         * Copy the context of the parent assignment
+         * @param parent parent context
+         */
+        public PerturbationPenaltyContext(PerturbationPenaltyContext parent) {
+            iModel = parent.iModel;
+            iVersion = parent.iVersion;
+            iPenalties = new HashMap<V, Double>(parent.iPenalties);
+            iTotal = parent.iTotal;
+        }
+        
+        /**
+         * (Re)load the context from the given assignment
+         * @param assignment current assignment
+         */
+        protected void load(Assignment<V, T> assignment) {
+            iVersion = iModel.getInitialValuesVersion();
+            iPenalties = new HashMap<V, Double>();
+            iTotal = 0.0;
+            for (V variable : iModel.variablesWithInitialValue()) {
+                T value = assignment.getValue(variable);
+                if (value != null)
+                    assigned(assignment, value);
+            }
+        }
+        
+        /**
+         * Update the penalty of the variable of the given value, it is safe to call it for a value that is already counted
+         * @param assignment current assignment
+         * @param value recently assigned value
+         */
+        public void assigned(Assignment<V, T> assignment, T value) {
+            unassigned(assignment, value);
+            T initial = value.variable().getInitialAssignment();
+            if (initial != null && !initial.equals(value)) {
+                double penalty = getPenaltyD(assignment, value, initial);
+                iPenalties.put(value.variable(), penalty);
+                iTotal += penalty;
+            }
+        }
+        
+        /**
+         * Remove the penalty of the variable of the given value
+         * @param assignment current assignment
+         * @param value recently unassigned value
+         */
+        public void unassigned(Assignment<V, T> assignment, T value) {
+            Double penalty = iPenalties.remove(value.variable());
+            if (penalty != null)
+                iTotal = (iPenalties.isEmpty() ? 0.0 : iTotal - penalty);
+        }
+        
+        /**
+         * Total perturbation penalty
+         * @return sum of the penalties of the variables that are assigned with a different value than the initial one
+         */
+        public double getTotal() {
+            return iTotal;
+        }
+    }
 }
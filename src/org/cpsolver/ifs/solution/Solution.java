@@ -227,6 +227,8 @@ public class Solution<V extends Variable<V, T>, T extends Value<V, T>> {
         ret.put("Iteration", getIteration() + (getFailedIterations() > 0 ? " (" + sTimeFormat.format(100.0 * getFailedIterations() / getIteration())+ "% failed)" : ""));
         if (getTime() > 0)
             ret.put("Speed", sTimeFormat.format((getIteration()) / getTime()) + " it/s");
+        if (getModel().getHotPathMetrics() != null)
+            getModel().getHotPathMetrics().getInfo(ret);
         for (SolutionListener<V, T> listener : iSolutionListeners)
             listener.getInfo(this, ret);
         return ret;
@@ -251,6 +253,8 @@ public class Solution<V extends Variable<V, T>, T extends Value<V, T>> {
             ret.put("Best Iteration", getBestIteration() + (getBestFailedIterations() > 0 ? " (" + sTimeFormat.format(100.0 * getBestFailedIterations() / getBestIteration())+ "% failed)" : ""));
         if (getBestTime() > 0)
             ret.put("Best Time", sTimeFormat.format(getBestTime() / 60.0) + " min (" + sTimeFormat.format((getBestIteration()) / getBestTime()) + " it/s)");
+        if (getModel().getHotPathMetrics() != null)
+            getModel().getHotPathMetrics().getInfo(ret);
         for (SolutionListener<V, T> listener : iSolutionListeners)
             listener.getInfo(this, ret);
         return ret;
@@ -0,0 +1,338 @@
+package org.cpsolver.ifs.solution;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+import org.cpsolver.ifs.assignment.Assignment;
+import org.cpsolver.ifs.criteria.Criterion;
+import org.cpsolver.ifs.model.Model;
+import org.cpsolver.ifs.model.Value;
+import org.cpsolver.ifs.model.Variable;
+import org.cpsolver.ifs.util.DataProperties;
+
+/**
+ * Solution trajectory recorder. A {@link SolutionListener} that samples numeric characteristics of
+ * a solution at a configurable time interval into primitive ring buffers, one for each solution (i.e., one
+ * for each solver thread of the {@link org.cpsolver.ifs.solver.ParallelSolver}, unless the threads share
+ * a single solution). Each sample contains the solver time, the iteration, the number of iterations per
+ * second and the acceptance rate (ratio of iterations that were not failed) since the last sample, the number of
+ * unassigned variables and the total value of the current and of the best solution, and the current and the best
+ * value of each criterion of the model. When a ring buffer is full, the oldest samples are overwritten.<br>
+ * <br>
+ * The recorder is created by the solver when the Trajectory.Enabled parameter is set to true. It is
+ * not registered otherwise, so that it does not add any work to the solver iterations when disabled. When parameter
+ * Trajectory.Output is set, the trajectory is saved into the given file when the solver is finished,
+ * as a CSV file when the file name ends with .csv, in a compact binary format otherwise
+ * (see {@link TrajectoryRecorder#saveBinary(File)}). Other parameters are Trajectory.Interval (sampling interval
+ * in seconds, defaults to 1.0) and Trajectory.Capacity (number of samples kept for each solution, defaults to 3600).
+ *
+ * @version IFS 1.3 (Iterative Forward Search)<br>
+ *          Copyright (C) 2017 Tomas Muller<br>
+ *          <a href="mailto:muller@unitime.org">muller@unitime.org</a><br>
+ *          <a href="http://muller.unitime.org">http://muller.unitime.org</a><br>
+ * <br>
+ *          This library is free software; you can redistribute it and/or modify
+ *          it under the terms of the GNU Lesser General Public License as
+ *          published by the Free Software Foundation; either version 3 of the
+ *          License, or (at your option) any later version. <br>
+ * <br>
+ *          This library is distributed in the hope that it will be useful, but
+ *          WITHOUT ANY WARRANTY; without even the implied warranty of
+ *          MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *          Lesser General Public License for more details. <br>
+ * <br>
+ *          You should have received a copy of the GNU Lesser General Public
+ *          License along with this library; if not see
+ *          <a href='http://www.gnu.org/licenses/'>http://www.gnu.org/licenses/</a>.
+ *
+ * @param <V> Variable
+ * @param <T> Value
+ */
+public class TrajectoryRecorder<V extends Variable<V, T>, T extends Value<V, T>> implements SolutionListener<V, T> {
+    private static Logger sLogger = Logger.getLogger(TrajectoryRecorder.class);
+    /** Binary trajectory file signature (CPTR) */
+    public static final int MAGIC = 0x43505452;
+    /** Binary trajectory format version */
+    public static final int VERSION = 1;
+    /** Columns that are present in every sample, followed by the current and the best value of each criterion */
+    public static final String[] COLUMNS = new String[] {
+        "Time", "Iteration", "Speed", "Acceptance", "Unassigned", "Value", "Best Unassigned", "Best Value"
+    };
+
+    private long iInterval;
+    private int iCapacity;
+    private String iOutput;
+    private long iStartTime;
+    private List<Criterion<V, T>> iCriteria = null;
+    private Map<Solution<V, T>, Track> iTracks = new IdentityHashMap<Solution<V, T>, Track>();
+    private List<Track> iTrackList = new ArrayList<Track>();
+    private ThreadLocal<Track> iLastTrack = new ThreadLocal<Track>();
+
+    /**
+     * Constructor
+     * @param properties solver configuration
+     */
+    public TrajectoryRecorder(DataProperties properties) {
+        iInterval = Math.round(1000000000.0 * properties.getPropertyDouble("Trajectory.Interval", 1.0));
+        iCapacity = Math.max(1, properties.getPropertyInt("Trajectory.Capacity", 3600));
+        iOutput = properties.getProperty("Trajectory.Output");
+        iStartTime = System.nanoTime();
+    }
+
+    /**
+     * Sampling interval
+     * @return sampling interval in nanoseconds
+     */
+    public long getInterval() { return iInterval; }
+
+    /**
+     * Capacity of a ring buffer
+     * @return number of samples that are kept for each solution
+     */
+    public int getCapacity() { return iCapacity; }
+
+    /**
+     * Names of all the columns of a sample
+     * @return column names (an empty array when nothing has been recorded yet)
+     */
+    public synchronized String[] getColumns() {
+        if (iCriteria == null) return new String[0];
+        String[] columns = new String[COLUMNS.length + 2 * iCriteria.size()];
+        System.arraycopy(COLUMNS, 0, columns, 0, COLUMNS.length);
+        for (int i = 0; i < iCriteria.size(); i++) {
+            columns[COLUMNS.length + 2 * i] = iCriteria.get(i).getName();
+            columns[COLUMNS.length + 2 * i + 1] = iCriteria.get(i).getName() + " Best";
+        }
+        return columns;
+    }
+
+    /**
+     * Recorded trajectories, one for each solution
+     * @return list of tracks (in the order in which the solutions were first updated)
+     */
+    public synchronized List<Track> getTracks() {
+        return new ArrayList<Track>(iTrackList);
+    }
+
+    private Track getTrack(Solution<V, T> solution) {
+        Track track = iLastTrack.get();
+        if (track != null && track.iSolution == solution) return track;
+        synchronized (this) {
+            track = iTracks.get(solution);
+            if (track == null) {
+                if (iCriteria == null)
+                    iCriteria = new ArrayList<Criterion<V, T>>(solution.getModel().getCriteria());
+                track = new Track(solution, iTrackList.size(), COLUMNS.length + 2 * iCriteria.size());
+                iTracks.put(solution, track);
+                iTrackList.add(track);
+            }
+        }
+        iLastTrack.set(track);
+        return track;
+    }
+
+    @Override
+    public void solutionUpdated(Solution<V, T> solution) {
+        Track track = getTrack(solution);
+        long now = System.nanoTime();
+        if (now >= track.iNextSample) {
+            track.sample(now);
+            track.iNextSample = now + iInterval;
+        }
+    }
+
+    @Override
+    public void getInfo(Solution<V, T> solution, Map<String, String> info) {
+    }
+
+    @Override
+    public void getInfo(Solution<V, T> solution, Map<String, String> info, Collection<V> variables) {
+    }
+
+    @Override
+    public void bestCleared(Solution<V, T> solution) {
+    }
+
+    @Override
+    public void bestSaved(Solution<V, T> solution) {
+    }
+
+    @Override
+    public void bestRestored(Solution<V, T> solution) {
+    }
+
+    /**
+     * Save the trajectory into the file given by the Trajectory.Output parameter (if set).
+     * A final sample of each solution is taken first.
+     */
+    public void save() {
+        if (iOutput == null || iOutput.isEmpty()) return;
+        long now = System.nanoTime();
+        for (Track track: getTracks())
+            track.sample(now);
+        try {
+            File file = new File(iOutput);
+            if (iOutput.toLowerCase().endsWith(".csv"))
+                saveCSV(file);
+            else
+                saveBinary(file);
+        } catch (IOException e) {
+            sLogger.error("Unable to save solution trajectory: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Save the trajectory as a CSV file, the first two columns being the solution index and the thread name.
+     * @param file output file
+     * @throws IOException thrown when the file cannot be written
+     */
+    public void saveCSV(File file) throws IOException {
+        PrintWriter out = new PrintWriter(new FileWriter(file));
+        try {
+            out.print("Solution,Thread");
+            for (String column: getColumns())
+                out.print(",\"" + column.replace("\"", "\"\"") + "\"");
+            out.println();
+            double[] sample = null;
+            for (Track track: getTracks()) {
+                for (int i = 0; i < track.size(); i++) {
+                    sample = track.get(i, sample);
+                    out.print(track.getIndex() + ",\"" + track.getThreadName() + "\"");
+                    for (double value: sample)
+                        out.print("," + (value == Math.rint(value) && Math.abs(value) < 1e15 ? String.valueOf((long)value) : String.format(Locale.US, "%.6g", value)));
+                    out.println();
+                }
+            }
+            out.flush();
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Save the trajectory in a compact binary format: signature ({@link TrajectoryRecorder#MAGIC}), version,
+     * number of columns and the column names, followed by the number of tracks and, for each track, its index,
+     * thread name, number of samples and the samples (as doubles, oldest first).
+     * @param file output file
+     * @throws IOException thrown when the file cannot be written
+     */
+    public void saveBinary(File file) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 65536));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            String[] columns = getColumns();
+            out.writeInt(columns.length);
+            for (String column: columns)
+                out.writeUTF(column);
+            List<Track> tracks = getTracks();
+            out.writeInt(tracks.size());
+            double[] sample = null;
+            for (Track track: tracks) {
+                out.writeInt(track.getIndex());
+                out.writeUTF(track.getThreadName());
+                out.writeInt(track.size());
+                for (int i = 0; i < track.size(); i++) {
+                    sample = track.get(i, sample);
+                    for (double value: sample)
+                        out.writeDouble(value);
+                }
+            }
+            out.flush();
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Trajectory of a single solution, kept in a primitive ring buffer
+     */
+    public class Track {
+        private Solution<V, T> iSolution;
+        private int iIndex;
+        private String iThreadName;
+        private int iColumns;
+        private double[] iData;
+        private int iHead = 0, iSize = 0;
+        private long iNextSample = 0;
+        private long iLastTime = -1, iLastIteration = 0, iLastFailed = 0;
+
+        private Track(Solution<V, T> solution, int index, int columns) {
+            iSolution = solution;
+            iIndex = index;
+            iThreadName = Thread.currentThread().getName();
+            iColumns = columns;
+            iData = new double[columns * iCapacity];
+        }
+
+        /**
+         * Index of the solution (in the order in which the solutions were first updated)
+         * @return solution index
+         */
+        public int getIndex() { return iIndex; }
+
+        /**
+         * Name of the thread that updated the solution first
+         * @return thread name
+         */
+        public String getThreadName() { return iThreadName; }
+
+        /**
+         * Number of recorded samples
+         * @return number of samples in the ring buffer
+         */
+        public synchronized int size() { return iSize; }
+
+        /**
+         * Get a recorded sample
+         * @param index sample index, 0 being the oldest sample in the buffer
+         * @param sample array to be filled in (a new one is created when null or of a different size)
+         * @return the sample, see {@link TrajectoryRecorder#getColumns()}
+         */
+        public synchronized double[] get(int index, double[] sample) {
+            if (sample == null || sample.length != iColumns)
+                sample = new double[iColumns];
+            int row = (iHead + iCapacity - iSize + index) % iCapacity;
+            System.arraycopy(iData, row * iColumns, sample, 0, iColumns);
+            return sample;
+        }
+
+        private synchronized void sample(long now) {
+            Model<V, T> model = iSolution.getModel();
+            Assignment<V, T> assignment = iSolution.getAssignment();
+            long iteration = iSolution.getIteration();
+            long failed = iSolution.getFailedIterations();
+            int offset = iHead * iColumns;
+            iData[offset] = (now - iStartTime) / 1e9;
+            iData[offset + 1] = iteration;
+            iData[offset + 2] = (iLastTime < 0 || now == iLastTime ? 0.0 : 1e9 * (iteration - iLastIteration) / (now - iLastTime));
+            iData[offset + 3] = (iteration == iLastIteration ? 1.0 : 1.0 - ((double)(failed - iLastFailed)) / (iteration - iLastIteration));
+            iData[offset + 4] = assignment.nrUnassignedVariables(model);
+            iData[offset + 5] = model.getTotalValue(assignment);
+            iData[offset + 6] = model.getBestUnassignedVariables();
+            iData[offset + 7] = model.getBestValue();
+            for (int i = 0; i < iCriteria.size(); i++) {
+                Criterion<V, T> criterion = iCriteria.get(i);
+                iData[offset + COLUMNS.length + 2 * i] = criterion.getValue(assignment);
+                iData[offset + COLUMNS.length + 2 * i + 1] = criterion.getBest();
+            }
+            iHead = (iHead + 1) % iCapacity;
+            if (iSize < iCapacity) iSize++;
+            iLastTime = now;
+            iLastIteration = iteration;
+            iLastFailed = failed;
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package org.cpsolver.ifs.solver;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+
+import org.cpsolver.ifs.assignment.Assignment;
+import org.cpsolver.ifs.assignment.DefaultParallelAssignment;
+import org.cpsolver.ifs.assignment.RestrictedAssignment;
+import org.cpsolver.ifs.assignment.context.CanHoldContext;
+import org.cpsolver.ifs.model.Model;
+import org.cpsolver.ifs.model.Neighbour;
+import org.cpsolver.ifs.model.Value;
+import org.cpsolver.ifs.model.Variable;
+import org.cpsolver.ifs.solution.Solution;
+import org.cpsolver.ifs.util.DataProperties;
+import org.cpsolver.ifs.util.JProf;
+import org.cpsolver.ifs.util.ModelDecomposition;
+
+/**
+ * Solver that decomposes the problem into independent components first. The model is split into components
+ * using {@link ModelDecomposition} (variables linked by a constraint are in the same component) and the
+ * components are grouped into a number of bins of a similar size. Each bin is then solved on a separate thread,
+ * using its own {@link Solution} with its own {@link DefaultParallelAssignment}. The neighbour selection of a bin
+ * sees the solution through a {@link RestrictedAssignment}, so that only the variables of the bin are considered
+ * unassigned or assigned. Neighbours that would change a variable outside of the bin are ignored.<br>
+ * <br>
+ * When the decomposition phase is over, the best assignments of the bins are put together into the current solution
+ * and the search continues on the whole problem (just like with {@link Solver}) as a global polishing phase. The time
+ * spent in the decomposition phase is included in the solver time.<br>
+ * <br>
+ * Parameters:
+ * <table border='1' summary='Related Solver Parameters'>
+ * <tr>
+ * <th>Parameter</th>
+ * <th>Type</th>
+ * <th>Comment</th>
+ * </tr>
+ * <tr>
+ * <td>Decomposition.NrThreads</td>
+ * <td>{@link Integer}</td>
+ * <td>Number of threads (bins) to use in the decomposition phase, -1 for the number of available processors (default)</td>
+ * </tr>
+ * <tr>
+ * <td>Decomposition.TimeOut</td>
+ * <td>{@link Double}</td>
+ * <td>Time limit of the decomposition phase in seconds (defaults to 75% of Termination.TimeOut)</td>
+ * </tr>
+ * <tr>
+ * <td>Decomposition.HardConstraintsOnly</td>
+ * <td>{@link Boolean}</td>
+ * <td>When true, only hard constraints are used to link the variables into components, soft constraints spanning
+ * over multiple bins are then left to the polishing phase (defaults to false)</td>
+ * </tr>
+ * </table>
+ * 
+ * @see Solver
+ * @see ModelDecomposition
+ * 
+ * @version IFS 1.3 (Iterative Forward Search)<br>
+ *          Copyright (C) 2017 Tomas Muller<br>
+ *          <a href="mailto:muller@unitime.org">muller@unitime.org</a><br>
+ *          <a href="http://muller.unitime.org">http://muller.unitime.org</a><br>
+ * <br>
+ *          This library is free software; you can redistribute it and/or modify
+ *          it under the terms of the GNU Lesser General Public License as
+ *          published by the Free Software Foundation; either version 3 of the
+ *          License, or (at your option) any later version. <br>
+ * <br>
+ *          This library is distributed in the hope that it will be useful, but
+ *          WITHOUT ANY WARRANTY; without even the implied warranty of
+ *          MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *          Lesser General Public License for more details. <br>
+ * <br>
+ *          You should have received a copy of the GNU Lesser General Public
+ *          License along with this library; if not see
+ *          <a href='http://www.gnu.org/licenses/'>http://www.gnu.org/licenses/</a>.
+ *
+ * @param <V> Variable
+ * @param <T> Value
+ **/
+public class DecompositionSolver<V extends Variable<V, T>, T extends Value<V, T>> extends Solver<V, T> {
+
+    private double iDecompositionTime = 0.0;
+
+    public DecompositionSolver(DataProperties properties) {
+        super(properties);
+    }
+
+    /** Run the decomposition phase before the global search starts */
+    @Override
+    protected void onStart() {
+        super.onStart();
+        double t0 = JProf.currentTimeSec();
+        try {
+            decompose();
+        } finally {
+            iDecompositionTime = JProf.currentTimeSec() - t0;
+        }
+    }
+
+    /** The decomposition phase is counted in the solver time, so that it is a part of the Termination.TimeOut limit */
+    @Override
+    protected double getTimeSpentOnStart() {
+        return iDecompositionTime;
+    }
+
+    /** Solve the independent components of the problem in parallel, merge their best assignments into the current solution */
+    protected void decompose() {
+        int nrThreads = getProperties().getPropertyInt("Decomposition.NrThreads", -1);
+        if (nrThreads < 0) nrThreads = Runtime.getRuntime().availableProcessors();
+        nrThreads = Math.min(nrThreads, CanHoldContext.sMaxSize - 1);
+        if (nrThreads <= 1 || iStop) return;
+
+        Model<V, T> model = iCurrentSolution.getModel();
+        ModelDecomposition<V, T> decomposition = new ModelDecomposition<V, T>(model, getProperties().getPropertyBoolean("Decomposition.HardConstraintsOnly", false));
+        List<List<V>> bins = decomposition.getBins(nrThreads);
+        sLogger.info("Model has " + decomposition.size() + " independent components, solved in " + bins.size() + " bins " + sizes(bins) + ".");
+        if (bins.size() <= 1) return;
+
+        double timeOut = getProperties().getPropertyDouble("Decomposition.TimeOut", 0.75 * getProperties().getPropertyInt("Termination.TimeOut", 1800));
+        iProgress.setPhase("Solving " + bins.size() + " components ...");
+
+        List<ComponentThread> threads = new ArrayList<ComponentThread>();
+        for (int i = 0; i < bins.size(); i++) {
+            ComponentThread thread = new ComponentThread(i + 1, bins.get(i), timeOut);
+            thread.setPriority(THREAD_PRIORITY);
+            thread.setName("Component-" + (i + 1));
+            thread.start();
+            threads.add(thread);
+        }
+        for (ComponentThread thread: threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {}
+        }
+
+        merge(threads);
+    }
+    
+    private static <V> String sizes(List<List<V>> bins) {
+        StringBuffer sb = new StringBuffer();
+        for (List<V> bin: bins)
+            sb.append(sb.length() == 0 ? "[" : ", ").append(bin.size());
+        return sb.append("]").toString();
+    }
+
+    /**
+     * Put together the best assignments of the bins into the current solution
+     * @param threads component threads (already finished)
+     */
+    protected void merge(List<ComponentThread> threads) {
+        Model<V, T> model = iCurrentSolution.getModel();
+        Assignment<V, T> assignment = iCurrentSolution.getAssignment();
+        int failed = 0;
+        Lock lock = iCurrentSolution.getLock().writeLock();
+        lock.lock();
+        try {
+            for (ComponentThread thread: threads) {
+                Map<V, T> best = thread.getBest();
+                if (best == null) continue;
+                for (Map.Entry<V, T> entry: best.entrySet()) {
+                    T current = assignment.getValue(entry.getKey());
+                    if (current != null && !current.equals(entry.getValue()))
+                        assignment.unassign(iCurrentSolution.getIteration(), entry.getKey());
+                }
+            }
+            for (ComponentThread thread: threads) {
+                Map<V, T> best = thread.getBest();
+                if (best == null) continue;
+                for (T value: best.values()) {
+                    if (value == null || value.equals(assignment.getValue(value.variable()))) continue;
+                    if (model.inConflict(assignment, value)) {
+                        failed++; continue;
+                    }
+                    assignment.assign(iCurrentSolution.getIteration(), value);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (failed > 0)
+            sLogger.info(failed + " values of the decomposition phase could not be assigned due to conflicts.");
+        if ((iSaveBestUnassigned < 0 || iSaveBestUnassigned >= assignment.nrUnassignedVariables(model)) && (iCurrentSolution.getBestInfo() == null || getSolutionComparator().isBetterThanBestSolution(iCurrentSolution)))
+            iCurrentSolution.saveBest();
+        sLogger.info("Decomposition phase done, unassigned: " + assignment.nrUnassignedVariables(model) + ", value: " + model.getTotalValue(assignment));
+    }
+
+    /**
+     * Solver thread working on a bin of components
+     */
+    protected class ComponentThread extends Thread {
+        private List<V> iVariables;
+        private Set<V> iVariableSet;
+        private Solution<V, T> iSolution;
+        private double iTimeOut;
+        private Map<V, T> iBest = null;
+        private int iBestUnassigned = 0;
+        private double iBestValue = 0.0;
+        private long iNrNonLocal = 0;
+
+        /**
+         * Constructor
+         * @param index assignment index
+         * @param variables variables of the bin
+         * @param timeOut time limit in seconds
+         */
+        public ComponentThread(int index, List<V> variables, double timeOut) {
+            iVariables = variables;
+            iVariableSet = new HashSet<V>(variables);
+            iTimeOut = timeOut;
+            Model<V, T> model = iCurrentSolution.getModel();
+            Assignment<V, T> assignment = new DefaultParallelAssignment<V, T>(index, model, iCurrentSolution.getAssignment());
+            model.createAssignmentContexts(assignment, true);
+            iSolution = new Solution<V, T>(model, new RestrictedAssignment<V, T>(assignment, variables), 0, 0);
+        }
+
+        /**
+         * Best assignment of the variables of the bin
+         * @return variable to value map (unassigned variables are mapped to null), null if the thread has failed to start
+         */
+        public Map<V, T> getBest() {
+            return iBest;
+        }
+
+        /**
+         * Check whether the neighbour only changes the variables of the bin. A neighbour that is not able to
+         * list its assignments (see {@link Neighbour#assignments()}) is not considered local.
+         * @param neighbour selected neighbour
+         * @return false if a variable outside of the bin is changed or if the changed variables are not known
+         */
+        protected boolean isLocal(Neighbour<V, T> neighbour) {
+            Map<V, T> assignments = null;
+            try {
+                assignments = neighbour.assignments();
+            } catch (UnsupportedOperationException e) {}
+            if (assignments == null) return false;
+            for (V variable: assignments.keySet())
+                if (!iVariableSet.contains(variable)) return false;
+            return true;
+        }
+
+        private void saveBestIfImproving() {
+            Assignment<V, T> assignment = iSolution.getAssignment();
+            int unassigned = assignment.nrUnassignedVariables(iSolution.getModel());
+            if (iBest != null && unassigned > iBestUnassigned) return;
+            double value = iSolution.getModel().getTotalValue(assignment);
+            if (iBest != null && unassigned == iBestUnassigned && value >= iBestValue) return;
+            iBest = new HashMap<V, T>();
+            for (V variable: iVariables)
+                iBest.put(variable, assignment.getValue(variable));
+            iBestUnassigned = unassigned;
+            iBestValue = value;
+        }
+
+        @Override
+        public void run() {
+            double startTime = JProf.currentTimeSec();
+            try {
+                saveBestIfImproving();
+                while (!iStop && getTerminationCondition().canContinue(iSolution)) {
+                    double time = JProf.currentTimeSec() - startTime;
+                    if (time > iTimeOut) break;
+
+                    Neighbour<V, T> neighbour = null;
+                    try {
+                        neighbour = getNeighbourSelection().selectNeighbour(iSolution);
+                    } catch (Exception e) {
+                        sLogger.warn("Failed to select a neighbour: " + (e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage()));
+                    }
+                    if (neighbour == null) {
+                        iSolution.update(time, false);
+                        continue;
+                    }
+                    if (!isLocal(neighbour)) {
+                        iNrNonLocal++;
+                        iSolution.update(time, false);
+                        continue;
+                    }
+
+                    neighbour.assign(iSolution.getAssignment(), iSolution.getIteration());
+                    iSolution.update(time, true);
+
+                    saveBestIfImproving();
+                }
+            } catch (Exception ex) {
+                sLogger.error(getName() + " failed: " + ex.getMessage(), ex);
+            }
+            sLogger.debug(getName() + " finished after " + iSolution.getIteration() + " iterations (" + iNrNonLocal + " non-local neighbours rejected), " + iVariables.size() + " variables, unassigned: " + iBestUnassigned + ", value: " + iBestValue);
+        }
+    }
+}
@@ -0,0 +1,372 @@
+package org.cpsolver.ifs.solver;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+
+import org.cpsolver.ifs.assignment.Assignment;
+import org.cpsolver.ifs.assignment.RestrictedAssignment;
+import org.cpsolver.ifs.model.Model;
+import org.cpsolver.ifs.model.ModelTopology;
+import org.cpsolver.ifs.model.Neighbour;
+import org.cpsolver.ifs.model.Value;
+import org.cpsolver.ifs.model.Variable;
+import org.cpsolver.ifs.solution.Solution;
+import org.cpsolver.ifs.termination.TerminationCondition;
+import org.cpsolver.ifs.util.DataProperties;
+import org.cpsolver.ifs.util.JProf;
+
+/**
+ * Solver for incremental re-solves of a previously saved solution. When a small part of the problem changes
+ * (e.g., one class, exam, or instructor), the saved solution is loaded and only the variables impacted by the
+ * change are made searchable. The changed variables are either given by {@link IncrementalSolver#setChangedVariables(Collection)}
+ * or, when not set, they are the variables that are not assigned in the initial solution together with the variables
+ * that are not assigned to their initial assignments (see {@link Variable#getInitialAssignment()}).<br>
+ * <br>
+ * The searchable region consists of the variables that are at most Incremental.Hops constraints away from the changed
+ * variables. The region is solved on the current solution seen through a {@link RestrictedAssignment}, so that
+ * only the variables of the region are considered unassigned or assigned. All the other variables are frozen: neighbours
+ * that would change or unassign a variable outside of the region are ignored. If no complete assignment of the region
+ * is found within the phase limits, the best assignment of the region is kept and the region is expanded by one more hop
+ * (up to Incremental.MaxHops). When the region covers the whole problem or the maximal number of hops is reached, the search
+ * continues on the whole problem (just like with {@link Solver}). Once the region is repaired, the solver stops unless
+ * Incremental.Polish is set, in which case the search continues on the whole problem as a global polishing phase.<br>
+ * <br>
+ * This is complementary to the minimal perturbation mode (General.MPP): the perturbations are still penalized by the model,
+ * but the search does not leave the neighbourhood of the change.<br>
+ * <br>
+ * Parameters:
+ * <table border='1' summary='Related Solver Parameters'>
+ * <tr>
+ * <th>Parameter</th>
+ * <th>Type</th>
+ * <th>Comment</th>
+ * </tr>
+ * <tr>
+ * <td>Incremental.Hops</td>
+ * <td>{@link Integer}</td>
+ * <td>Number of hops (via constraints) from the changed variables that are searchable in the first phase (defaults to 1)</td>
+ * </tr>
+ * <tr>
+ * <td>Incremental.MaxHops</td>
+ * <td>{@link Integer}</td>
+ * <td>Maximal number of hops, the search continues on the whole problem if the region is not repaired by then (defaults to 3)</td>
+ * </tr>
+ * <tr>
+ * <td>Incremental.PhaseTimeOut</td>
+ * <td>{@link Double}</td>
+ * <td>Time limit of one phase (one size of the region) in seconds (defaults to 10), the time spent in these phases is counted towards Termination.TimeOut</td>
+ * </tr>
+ * <tr>
+ * <td>Incremental.MaxIdle</td>
+ * <td>{@link Integer}</td>
+ * <td>Maximal number of iterations of one phase without an improvement of the region (defaults to 10000)</td>
+ * </tr>
+ * <tr>
+ * <td>Incremental.Polish</td>
+ * <td>{@link Boolean}</td>
+ * <td>When true, the search continues on the whole problem after the region is repaired (defaults to false)</td>
+ * </tr>
+ * <tr>
+ * <td>Incremental.HardConstraintsOnly</td>
+ * <td>{@link Boolean}</td>
+ * <td>When true, only hard constraints are followed when the region is computed (defaults to false)</td>
+ * </tr>
+ * </table>
+ *
+ * @see Solver
+ * @see DecompositionSolver
+ *
+ * @version IFS 1.3 (Iterative Forward Search)<br>
+ *          Copyright (C) 2017 Tomas Muller<br>
+ *          <a href="mailto:muller@unitime.org">muller@unitime.org</a><br>
+ *          <a href="http://muller.unitime.org">http://muller.unitime.org</a><br>
+ * <br>
+ *          This library is free software; you can redistribute it and/or modify
+ *          it under the terms of the GNU Lesser General Public License as
+ *          published by the Free Software Foundation; either version 3 of the
+ *          License, or (at your option) any later version. <br>
+ * <br>
+ *          This library is distributed in the hope that it will be useful, but
+ *          WITHOUT ANY WARRANTY; without even the implied warranty of
+ *          MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *          Lesser General Public License for more details. <br>
+ * <br>
+ *          You should have received a copy of the GNU Lesser General Public
+ *          License along with this library; if not see
+ *          <a href='http://www.gnu.org/licenses/'>http://www.gnu.org/licenses/</a>.
+ *
+ * @param <V> Variable
+ * @param <T> Value
+ **/
+public class IncrementalSolver<V extends Variable<V, T>, T extends Value<V, T>> extends Solver<V, T> {
+    private Collection<V> iChangedVariables = null;
+    private boolean iRepaired = false;
+    private double iIncrementalTime = 0.0;
+    private TerminationCondition<V, T> iRepairedCondition = new TerminationCondition<V, T>() {
+        @Override
+        public boolean canContinue(Solution<V, T> currentSolution) {
+            return false;
+        }
+    };
+
+    public IncrementalSolver(DataProperties properties) {
+        super(properties);
+    }
+
+    /**
+     * Set the variables that are impacted by the change
+     * @param variables changed variables, null to use the unassigned and perturbed variables of the initial solution
+     */
+    public void setChangedVariables(Collection<V> variables) {
+        iChangedVariables = variables;
+    }
+
+    /**
+     * Variables impacted by the change
+     * @return changed variables, null if not set
+     */
+    public Collection<V> getChangedVariables() {
+        return iChangedVariables;
+    }
+
+    /** Once the region is repaired (and there is no polishing phase), the solver is done */
+    @Override
+    public TerminationCondition<V, T> getTerminationCondition() {
+        if (iRepaired && !getProperties().getPropertyBoolean("Incremental.Polish", false))
+            return iRepairedCondition;
+        return super.getTerminationCondition();
+    }
+
+    /** Run the incremental phases before the global search starts */
+    @Override
+    protected void onStart() {
+        super.onStart();
+        iRepaired = false;
+        double t0 = JProf.currentTimeSec();
+        try {
+            repair();
+        } finally {
+            iIncrementalTime = JProf.currentTimeSec() - t0;
+        }
+    }
+
+    /** The incremental phases are counted in the solver time, so that they are a part of the Termination.TimeOut limit */
+    @Override
+    protected double getTimeSpentOnStart() {
+        return iIncrementalTime;
+    }
+
+    /** Repair the neighbourhood of the changed variables, extending the region by one hop at a time until it is repaired */
+    protected void repair() {
+        if (iStop) return;
+
+        Model<V, T> model = iCurrentSolution.getModel();
+        Collection<V> changed = getSeeds();
+        if (changed.isEmpty()) {
+            sLogger.info("No changed variables, nothing to repair.");
+            iRepaired = true;
+            return;
+        }
+
+        int hops = Math.max(0, getProperties().getPropertyInt("Incremental.Hops", 1));
+        int maxHops = Math.max(hops, getProperties().getPropertyInt("Incremental.MaxHops", 3));
+        double timeOut = getProperties().getPropertyDouble("Incremental.PhaseTimeOut", 10.0);
+        long maxIdle = getProperties().getPropertyLong("Incremental.MaxIdle", 10000);
+        boolean hardOnly = getProperties().getPropertyBoolean("Incremental.HardConstraintsOnly", false);
+
+        for (; hops <= maxHops && !iStop; hops++) {
+            List<V> region = getNeighbourhood(changed, hops, hardOnly);
+            if (region.size() >= model.variables().size()) {
+                sLogger.info("Region of " + hops + " hops covers the whole problem.");
+                break;
+            }
+            iProgress.setPhase("Repairing " + region.size() + " variables ...");
+            if (solve(region, timeOut, maxIdle)) {
+                sLogger.info("Region of " + hops + " hops (" + region.size() + " of " + model.variables().size() + " variables) repaired.");
+                iRepaired = true;
+                break;
+            }
+            sLogger.info("Region of " + hops + " hops (" + region.size() + " of " + model.variables().size() + " variables) not repaired.");
+        }
+        Assignment<V, T> assignment = iCurrentSolution.getAssignment();
+        if ((iSaveBestUnassigned < 0 || iSaveBestUnassigned >= assignment.nrUnassignedVariables(model)) && (iCurrentSolution.getBestInfo() == null || getSolutionComparator().isBetterThanBestSolution(iCurrentSolution)))
+            iCurrentSolution.saveBest();
+        sLogger.info("Incremental phase done, unassigned: " + assignment.nrUnassignedVariables(model) + ", value: " + model.getTotalValue(assignment));
+    }
+
+    /**
+     * Variables from which the region is computed
+     * @return changed variables if set, unassigned and perturbed variables of the current solution otherwise
+     */
+    protected Collection<V> getSeeds() {
+        if (iChangedVariables != null) return iChangedVariables;
+        Assignment<V, T> assignment = iCurrentSolution.getAssignment();
+        List<V> seeds = new ArrayList<V>();
+        for (V variable: iCurrentSolution.getModel().variables()) {
+            T value = assignment.getValue(variable);
+            if (value == null || (variable.getInitialAssignment() != null && !variable.getInitialAssignment().equals(value)))
+                seeds.add(variable);
+        }
+        return seeds;
+    }
+
+    /**
+     * Variables that are at most the given number of hops (via constraints) away from the changed variables
+     * @param changed changed variables
+     * @param hops number of hops
+     * @param hardOnly follow hard constraints only
+     * @return searchable variables, in the order in which they were reached
+     */
+    protected List<V> getNeighbourhood(Collection<V> changed, int hops, boolean hardOnly) {
+        ModelTopology<V, T> topology = iCurrentSolution.getModel().getTopology();
+        int[] constraints = topology.getConstraintIndex(), variables = topology.getVariableIndex();
+        boolean[] reached = new boolean[topology.getNrVariables()];
+        int[] queue = new int[topology.getNrVariables()];
+        int size = 0;
+        for (V variable: changed) {
+            int x = topology.getPosition(variable);
+            if (x >= 0 && !reached[x]) {
+                reached[x] = true; queue[size++] = x;
+            }
+        }
+        int first = 0;
+        for (int hop = 0; hop < hops && first < size; hop++) {
+            int last = size;
+            for (int i = first; i < last; i++) {
+                int x = queue[i];
+                int end = (hardOnly ? topology.getHardConstraintEnd(x) : topology.getConstraintStart(x + 1));
+                for (int k = topology.getConstraintStart(x); k < end; k++) {
+                    int c = constraints[k];
+                    for (int l = topology.getVariableStart(c); l < topology.getVariableStart(c + 1); l++) {
+                        int y = variables[l];
+                        if (!reached[y]) {
+                            reached[y] = true; queue[size++] = y;
+                        }
+                    }
+                }
+            }
+            first = last;
+        }
+        List<V> region = new ArrayList<V>(size);
+        for (int i = 0; i < size; i++)
+            region.add(topology.getVariable(queue[i]));
+        return region;
+    }
+
+    /**
+     * Check whether the neighbour only changes the variables of the region and does not conflict with a frozen variable
+     * @param assignment current assignment
+     * @param region searchable variables
+     * @param neighbour selected neighbour
+     * @return false if a variable outside of the region would be changed (or if the changes of the neighbour are not known)
+     */
+    protected boolean isLocal(Assignment<V, T> assignment, Set<V> region, Neighbour<V, T> neighbour) {
+        Map<V, T> assignments = null;
+        try {
+            assignments = neighbour.assignments();
+        } catch (UnsupportedOperationException e) {}
+        if (assignments == null) return false;
+        Model<V, T> model = iCurrentSolution.getModel();
+        for (Map.Entry<V, T> entry: assignments.entrySet()) {
+            if (!region.contains(entry.getKey())) return false;
+            if (entry.getValue() == null || entry.getValue().equals(assignment.getValue(entry.getKey()))) continue;
+            for (T conflict: model.conflictValues(assignment, entry.getValue()))
+                if (!region.contains(conflict.variable())) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Solve the given region, the variables outside of the region are frozen. When done, the best
+     * assignment of the region is restored.
+     * @param variables searchable variables
+     * @param timeOut time limit in seconds
+     * @param maxIdle maximal number of iterations without an improvement
+     * @return true if all the variables of the region are assigned
+     */
+    protected boolean solve(List<V> variables, double timeOut, long maxIdle) {
+        Model<V, T> model = iCurrentSolution.getModel();
+        Set<V> region = new HashSet<V>(variables);
+        Solution<V, T> solution = new Solution<V, T>(model, new RestrictedAssignment<V, T>(iCurrentSolution.getAssignment(), variables), iCurrentSolution.getIteration(), iCurrentSolution.getTime());
+        Map<V, T> best = null;
+        int bestUnassigned = 0;
+        double bestValue = 0.0;
+        long bestIteration = solution.getIteration();
+        long nrNonLocal = 0;
+        double startTime = JProf.currentTimeSec();
+        while (true) {
+            Assignment<V, T> assignment = solution.getAssignment();
+            int unassigned = assignment.nrUnassignedVariables(model);
+            double value = model.getTotalValue(assignment);
+            if (best == null || unassigned < bestUnassigned || (unassigned == bestUnassigned && value < bestValue)) {
+                best = new HashMap<V, T>();
+                for (V variable: variables)
+                    best.put(variable, assignment.getValue(variable));
+                bestUnassigned = unassigned;
+                bestValue = value;
+                bestIteration = solution.getIteration();
+            }
+            double time = JProf.currentTimeSec() - startTime;
+            if (iStop || time > timeOut || solution.getIteration() - bestIteration > maxIdle || !getTerminationCondition().canContinue(solution))
+                break;
+
+            Neighbour<V, T> neighbour = null;
+            try {
+                neighbour = getNeighbourSelection().selectNeighbour(solution);
+            } catch (Exception e) {
+                sLogger.warn("Failed to select a neighbour: " + (e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage()));
+            }
+            if (neighbour == null) {
+                solution.update(time, false);
+                continue;
+            }
+            if (!isLocal(assignment, region, neighbour)) {
+                nrNonLocal++;
+                solution.update(time, false);
+                continue;
+            }
+
+            Lock lock = iCurrentSolution.getLock().writeLock();
+            lock.lock();
+            try {
+                neighbour.assign(assignment, solution.getIteration());
+            } finally {
+                lock.unlock();
+            }
+            solution.update(time, true);
+        }
+        restore(best);
+        sLogger.debug("Region of " + variables.size() + " variables finished after " + (solution.getIteration() - iCurrentSolution.getIteration()) + " iterations (" + nrNonLocal + " non-local neighbours rejected), unassigned: " + bestUnassigned + ", value: " + bestValue);
+        return bestUnassigned == 0;
+    }
+
+    /**
+     * Put the best assignment of the region back into the current solution
+     * @param best variable to value map (unassigned variables are mapped to null)
+     */
+    protected void restore(Map<V, T> best) {
+        Model<V, T> model = iCurrentSolution.getModel();
+        Assignment<V, T> assignment = iCurrentSolution.getAssignment();
+        Lock lock = iCurrentSolution.getLock().writeLock();
+        lock.lock();
+        try {
+            for (Map.Entry<V, T> entry: best.entrySet()) {
+                T current = assignment.getValue(entry.getKey());
+                if (current != null && !current.equals(entry.getValue()))
+                    assignment.unassign(iCurrentSolution.getIteration(), entry.getKey());
+            }
+            for (T value: best.values()) {
+                if (value == null || value.equals(assignment.getValue(value.variable())) || model.inConflict(assignment, value)) continue;
+                assignment.assign(iCurrentSolution.getIteration(), value);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -214,6 +214,8 @@ public class ParallelSolver<V extends Variable<V, T>, T extends Value<V, T>> ext
             iProgress.incProgress();
 
             iSynchronizationThread = null;
+            saveHotPathMetrics();
+            saveTrajectory();
             if (stop) {
                 sLogger.debug("Solver stopped.");
                 iProgress.setStatus("Solver stopped.");
@@ -223,6 +225,7 @@ public class ParallelSolver<V extends Variable<V, T>, T extends Value<V, T>> ext
                 iProgress.setStatus("Solver done.");
                 onFinish();
             }
+            fireSolverStopped();
         }
     }
     
@@ -26,9 +26,11 @@ import org.cpsolver.ifs.perturbations.PerturbationsCounter;
 import org.cpsolver.ifs.solution.GeneralSolutionComparator;
 import org.cpsolver.ifs.solution.Solution;
 import org.cpsolver.ifs.solution.SolutionComparator;
+import org.cpsolver.ifs.solution.TrajectoryRecorder;
 import org.cpsolver.ifs.termination.GeneralTerminationCondition;
 import org.cpsolver.ifs.termination.TerminationCondition;
 import org.cpsolver.ifs.util.DataProperties;
+import org.cpsolver.ifs.util.HotPathMetrics;
 import org.cpsolver.ifs.util.JProf;
 import org.cpsolver.ifs.util.Progress;
 import org.cpsolver.ifs.util.ToolBox;
@@ -132,6 +134,13 @@ import org.cpsolver.ifs.util.ToolBox;
  * ${General.Output}/${General.ProblemName}.properties)</td>
  * </tr>
  * <tr>
+ * <td>Trajectory.Enabled</td>
+ * <td>{@link Boolean}</td>
+ * <td>If true, the solution trajectory is sampled during the search (see
+ * {@link TrajectoryRecorder}) and saved into the file given by the Trajectory.Output
+ * parameter when the solver is finished</td>
+ * </tr>
+ * <tr>
  * <td>Solver.AutoConfigure</td>
  * <td>{@link Boolean}</td>
  * <td>If true, IFS Solver is configured according to the following parameters</td>
@@ -225,6 +234,7 @@ public class Solver<V extends Variable<V, T>, T extends Value<V, T>> {
     private List<Extension<V, T>> iExtensions = new ArrayList<Extension<V, T>>();
     protected List<SolverListener<V, T>> iSolverListeners = new ArrayList<SolverListener<V, T>>();
     protected int iSaveBestUnassigned = 0;
+    private TrajectoryRecorder<V, T> iTrajectory = null;
 
     private boolean iUpdateProgress = true;
 
@@ -493,6 +503,16 @@ public class Solver<V extends Variable<V, T>, T extends Value<V, T>> {
         iSaveBestUnassigned = getProperties().getPropertyInt("General.SaveBestUnassigned", 0);
 
         clearBest();
+        if (iCurrentSolution != null)
+            iCurrentSolution.getModel().setHotPathMetrics(iProperties.getPropertyBoolean("HotPathMetrics.Enabled", false) ? new HotPathMetrics() : null);
+        if (iTrajectory != null) {
+            iCurrentSolution.removeSolutionListener(iTrajectory);
+            iTrajectory = null;
+        }
+        if (iProperties.getPropertyBoolean("Trajectory.Enabled", false)) {
+            iTrajectory = new TrajectoryRecorder<V, T>(iProperties);
+            iCurrentSolution.addSolutionListener(iTrajectory);
+        }
         if (iProperties.getPropertyBoolean("Solver.AutoConfigure", true)) {
             autoConfigure();
         }
@@ -562,6 +582,32 @@ public class Solver<V extends Variable<V, T>, T extends Value<V, T>> {
         return (getSolverThread() != null);
     }
 
+    /** Save hot path metrics into the file given by the HotPathMetrics.Output parameter (if enabled) */
+    protected void saveHotPathMetrics() {
+        String output = getProperties().getProperty("HotPathMetrics.Output");
+        HotPathMetrics metrics = (iCurrentSolution == null ? null : iCurrentSolution.getModel().getHotPathMetrics());
+        if (output == null || metrics == null) return;
+        try {
+            metrics.toCSVFile().save(new File(output));
+        } catch (IOException e) {
+            sLogger.error("Unable to save hot path metrics: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Solution trajectory recorder, registered when the Trajectory.Enabled parameter is set to true
+     * @return trajectory recorder of the last run, null if disabled
+     */
+    public TrajectoryRecorder<V, T> getTrajectoryRecorder() {
+        return iTrajectory;
+    }
+
+    /** Save solution trajectory into the file given by the Trajectory.Output parameter (if enabled) */
+    protected void saveTrajectory() {
+        if (iTrajectory != null)
+            iTrajectory.save();
+    }
+
     /** Called when the solver is stopped */
     protected void onStop() {
     }
@@ -570,6 +616,15 @@ public class Solver<V extends Variable<V, T>, T extends Value<V, T>> {
     protected void onStart() {
     }
 
+    /**
+     * Time spent in {@link Solver#onStart()} that is to be counted in the solver time (e.g., towards the
+     * Termination.TimeOut limit), none by default
+     * @return time in seconds
+     */
+    protected double getTimeSpentOnStart() {
+        return 0.0;
+    }
+
     /** Called when the solver is finished */
     protected void onFinish() {
     }
@@ -578,6 +633,14 @@ public class Solver<V extends Variable<V, T>, T extends Value<V, T>> {
     protected void onFailure() {
     }
 
+    /** Called when the solver thread has ended, notifies the solver listeners that implement {@link SolverStopListener} */
+    protected void fireSolverStopped() {
+        for (SolverListener<V, T> listener : new ArrayList<SolverListener<V, T>>(iSolverListeners)) {
+            if (listener instanceof SolverStopListener)
+                ((SolverStopListener<V, T>) listener).solverStopped(this);
+        }
+    }
+
     /** Called in each iteration, after a neighbour is assigned 
      * @param startTime solver start time in seconds
      * @param solution current solution
@@ -611,7 +674,7 @@ public class Solver<V extends Variable<V, T>, T extends Value<V, T>> {
                 initSolver();
                 onStart();
 
-                double startTime = JProf.currentTimeSec();
+                double startTime = JProf.currentTimeSec() - getTimeSpentOnStart();
                 int timeout = getProperties().getPropertyInt("Termination.TimeOut", 1800);
                 if (isUpdateProgress()) {
                     if (iCurrentSolution.getBestInfo() == null) {
@@ -692,6 +755,8 @@ public class Solver<V extends Variable<V, T>, T extends Value<V, T>> {
                 iProgress.incProgress();
 
                 iSolverThread = null;
+                saveHotPathMetrics();
+                saveTrajectory();
                 if (iStop) {
                     sLogger.debug("Solver stopped.");
                     iProgress.setStatus("Solver stopped.");
@@ -708,6 +773,7 @@ public class Solver<V extends Variable<V, T>, T extends Value<V, T>> {
                 onFailure();
             }
             iSolverThread = null;
+            fireSolverStopped();
         }
     }
     
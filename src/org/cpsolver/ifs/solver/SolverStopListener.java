@@ -0,0 +1,43 @@
+package org.cpsolver.ifs.solver;
+
+import org.cpsolver.ifs.model.Value;
+import org.cpsolver.ifs.model.Variable;
+
+/**
+ * A solver listener that is also notified when the solver has stopped, i.e., when the solver thread
+ * has ended (the solver was stopped, it has finished, or it has failed). It can be used to release
+ * resources that are held during the search (e.g., a thread pool of a neighbour selection).
+ * 
+ * @see Solver#addSolverListener(SolverListener)
+ * 
+ * @version IFS 1.3 (Iterative Forward Search)<br>
+ *          Copyright (C) 2017 Tomas Muller<br>
+ *          <a href="mailto:muller@unitime.org">muller@unitime.org</a><br>
+ *          <a href="http://muller.unitime.org">http://muller.unitime.org</a><br>
+ * <br>
+ *          This library is free software; you can redistribute it and/or modify
+ *          it under the terms of the GNU Lesser General Public License as
+ *          published by the Free Software Foundation; either version 3 of the
+ *          License, or (at your option) any later version. <br>
+ * <br>
+ *          This library is distributed in the hope that it will be useful, but
+ *          WITHOUT ANY WARRANTY; without even the implied warranty of
+ *          MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *          Lesser General Public License for more details. <br>
+ * <br>
+ *          You should have received a copy of the GNU Lesser General Public
+ *          License along with this library; if not see <a href='http://www.gnu.org/licenses'>http://www.gnu.org/licenses</a>.
+ *
+ * @param <V> Variable
+ * @param <T> Value
+ **/
+public interface SolverStopListener<V extends Variable<V, T>, T extends Value<V, T>> extends SolverListener<V, T> {
+
+    /**
+     * The solver has stopped
+     * 
+     * @param solver the solver
+     */
+    public void solverStopped(Solver<V, T> solver);
+
+}
@@ -39,7 +39,7 @@ import java.util.Locale;
  *          <a href='http://www.gnu.org/licenses/'>http://www.gnu.org/licenses/</a>.
  */
 
-public class CSVFile implements Serializable {
+public class CSVFile implements Serializable, CSVOutput {
     private static final long serialVersionUID = 1L;
     HashMap<String, Integer> iHeaderMap = null;
     CSVLine iHeader = null;
@@ -174,30 +174,35 @@ public class CSVFile implements Serializable {
         return ret;
     }
 
+    @Override
     public CSVLine addLine() {
         CSVLine line = new CSVLine();
         addLine(line);
         return line;
     }
 
+    @Override
     public CSVLine addLine(CSVField fields[]) {
         CSVLine line = new CSVLine(fields);
         addLine(line);
         return line;
     }
 
+    @Override
     public CSVLine addLine(Collection<CSVField> fields) {
         CSVLine line = new CSVLine(fields);
         addLine(line);
         return line;
     }
 
+    @Override
     public CSVLine setHeader(CSVField fields[]) {
         CSVLine header = new CSVLine(fields);
         setHeader(header);
         return header;
     }
 
+    @Override
     public CSVLine setHeader(Collection<CSVField> fields) {
         CSVLine header = new CSVLine(fields);
         setHeader(header);
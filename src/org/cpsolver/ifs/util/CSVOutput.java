@@ -0,0 +1,67 @@
+package org.cpsolver.ifs.util;
+
+import java.util.Collection;
+
+import org.cpsolver.ifs.util.CSVFile.CSVField;
+import org.cpsolver.ifs.util.CSVFile.CSVLine;
+
+/**
+ * An output of a CSV report: a header and a list of lines. It is implemented by {@link CSVFile}, which keeps
+ * the lines in memory, and by {@link CSVWriter}, which writes the lines into a file as soon as they are added.
+ * A report that only sets the header and adds its lines can be written into either of them.
+ *
+ * @version IFS 1.3 (Iterative Forward Search)<br>
+ *          Copyright (C) 2017 Tomas Muller<br>
+ *          <a href="mailto:muller@unitime.org">muller@unitime.org</a><br>
+ *          <a href="http://muller.unitime.org">http://muller.unitime.org</a><br>
+ * <br>
+ *          This library is free software; you can redistribute it and/or modify
+ *          it under the terms of the GNU Lesser General Public License as
+ *          published by the Free Software Foundation; either version 3 of the
+ *          License, or (at your option) any later version. <br>
+ * <br>
+ *          This library is distributed in the hope that it will be useful, but
+ *          WITHOUT ANY WARRANTY; without even the implied warranty of
+ *          MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *          Lesser General Public License for more details. <br>
+ * <br>
+ *          You should have received a copy of the GNU Lesser General Public
+ *          License along with this library; if not see
+ *          <a href='http://www.gnu.org/licenses/'>http://www.gnu.org/licenses/</a>.
+ */
+public interface CSVOutput {
+
+    /**
+     * Set the header, it must be set before any line is added
+     * @param fields header fields
+     * @return the header line
+     */
+    public CSVLine setHeader(CSVField fields[]);
+
+    /**
+     * Set the header, it must be set before any line is added
+     * @param fields header fields
+     * @return the header line
+     */
+    public CSVLine setHeader(Collection<CSVField> fields);
+
+    /**
+     * Add an empty line
+     * @return the added line (it is not to be changed, the line may have been written already)
+     */
+    public CSVLine addLine();
+
+    /**
+     * Add a line
+     * @param fields line fields
+     * @return the added line (it is not to be changed, the line may have been written already)
+     */
+    public CSVLine addLine(CSVField fields[]);
+
+    /**
+     * Add a line
+     * @param fields line fields
+     * @return the added line (it is not to be changed, the line may have been written already)
+     */
+    public CSVLine addLine(Collection<CSVField> fields);
+}
@@ -0,0 +1,180 @@
+package org.cpsolver.ifs.util;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.Collection;
+import java.util.zip.GZIPOutputStream;
+
+import org.cpsolver.ifs.util.CSVFile.CSVField;
+import org.cpsolver.ifs.util.CSVFile.CSVLine;
+
+/**
+ * Streaming variant of {@link CSVFile}. The header and the lines are written to the underlying writer
+ * (a file, a gzipped file, or any output stream) as soon as they are added, instead of being kept in memory.
+ * Any report that writes into a {@link CSVOutput} (using {@link CSVOutput#setHeader(CSVField[])} and
+ * {@link CSVOutput#addLine(CSVField[])}, or their variants) can write into this class directly.
+ * The lines that have been written cannot be accessed afterwards, only their number is kept.<br>
+ * <br>
+ * The writer must be closed using {@link CSVWriter#close()}, which also reports any error that happened
+ * while writing.
+ * 
+ * @version IFS 1.3 (Iterative Forward Search)<br>
+ *          Copyright (C) 2017 Tomas Muller<br>
+ *          <a href="mailto:muller@unitime.org">muller@unitime.org</a><br>
+ *          <a href="http://muller.unitime.org">http://muller.unitime.org</a><br>
+ * <br>
+ *          This library is free software; you can redistribute it and/or modify
+ *          it under the terms of the GNU Lesser General Public License as
+ *          published by the Free Software Foundation; either version 3 of the
+ *          License, or (at your option) any later version. <br>
+ * <br>
+ *          This library is distributed in the hope that it will be useful, but
+ *          WITHOUT ANY WARRANTY; without even the implied warranty of
+ *          MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *          Lesser General Public License for more details. <br>
+ * <br>
+ *          You should have received a copy of the GNU Lesser General Public
+ *          License along with this library; if not see
+ *          <a href='http://www.gnu.org/licenses/'>http://www.gnu.org/licenses/</a>.
+ */
+public class CSVWriter implements CSVOutput {
+    private CSVFile iFormat = new CSVFile();
+    private PrintWriter iWriter;
+    private int iNrLines = 0;
+
+    /**
+     * Write into the given writer
+     * @param writer output writer
+     */
+    public CSVWriter(Writer writer) {
+        iWriter = (writer instanceof PrintWriter ? (PrintWriter) writer : new PrintWriter(new BufferedWriter(writer, 65536)));
+    }
+
+    /**
+     * Write into the given output stream (e.g., a pipe), using the UTF-8 encoding
+     * @param out output stream
+     * @throws IOException when the UTF-8 encoding is not supported
+     */
+    public CSVWriter(OutputStream out) throws IOException {
+        this(new OutputStreamWriter(out, "UTF-8"));
+    }
+
+    /**
+     * Write into the given file. The file is compressed using gzip when its name ends with .gz
+     * @param file output file
+     * @throws IOException when the file cannot be created
+     */
+    public CSVWriter(File file) throws IOException {
+        this(file.getName().endsWith(".gz") ? new GZIPOutputStream(new FileOutputStream(file), 65536) : new FileOutputStream(file));
+    }
+
+    /**
+     * Set the field separator (defaults to comma), it must be set before the header
+     * @param separator field separator
+     */
+    public void setSeparator(String separator) {
+        iFormat.setSeparator(separator);
+    }
+
+    /**
+     * Set the quotation mark (defaults to double quote), it must be set before the header
+     * @param quotationMark quotation mark
+     */
+    public void setQuotationMark(String quotationMark) {
+        iFormat.setQuotationMark(quotationMark);
+    }
+
+    /**
+     * Header that has been written
+     * @return header line, null if not set
+     */
+    public CSVLine getHeader() {
+        return iFormat.getHeader();
+    }
+
+    @Override
+    public CSVLine setHeader(CSVField fields[]) {
+        return writeHeader(iFormat.setHeader(fields));
+    }
+
+    @Override
+    public CSVLine setHeader(Collection<CSVField> fields) {
+        return writeHeader(iFormat.setHeader(fields));
+    }
+
+    @Override
+    public CSVLine addLine() {
+        return writeLine(iFormat.new CSVLine());
+    }
+
+    @Override
+    public CSVLine addLine(CSVField fields[]) {
+        return writeLine(iFormat.new CSVLine(fields));
+    }
+
+    @Override
+    public CSVLine addLine(Collection<CSVField> fields) {
+        return writeLine(iFormat.new CSVLine(fields));
+    }
+
+    /**
+     * Add a line that is already formatted
+     * @param line a line of the CSV file
+     */
+    public void addLine(String line) {
+        iWriter.println(line);
+        iNrLines++;
+    }
+
+    private CSVLine writeHeader(CSVLine header) {
+        iWriter.println(header.toString());
+        return header;
+    }
+
+    private CSVLine writeLine(CSVLine line) {
+        iWriter.println(line.toString());
+        iNrLines++;
+        return line;
+    }
+
+    /**
+     * Number of lines written so far (the header is not counted)
+     * @return number of lines
+     */
+    public int size() {
+        return iNrLines;
+    }
+
+    /**
+     * True if no line has been written so far
+     * @return true if there are no lines
+     */
+    public boolean isEmpty() {
+        return iNrLines == 0;
+    }
+
+    /**
+     * Flush the underlying writer
+     */
+    public void flush() {
+        iWriter.flush();
+    }
+
+    /**
+     * Close the underlying writer
+     * @throws IOException when an error happened while writing
+     */
+    public void close() throws IOException {
+        iWriter.flush();
+        boolean error = iWriter.checkError();
+        iWriter.close();
+        if (error)
+            throw new IOException("Failed to write CSV file.");
+    }
+}
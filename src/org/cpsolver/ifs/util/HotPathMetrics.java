@@ -0,0 +1,195 @@
+package org.cpsolver.ifs.util;
+
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.cpsolver.ifs.util.CSVFile.CSVField;
+
+/**
+ * Low overhead instrumentation of the solver hot paths. When enabled (the HotPathMetrics.Enabled solver parameter,
+ * or an instance set on the model using {@link org.cpsolver.ifs.model.Model#setHotPathMetrics(HotPathMetrics)}),
+ * the number of calls and the time spent (in nanoseconds) is counted for each {@link org.cpsolver.ifs.model.Constraint}
+ * class (conflict checking), {@link org.cpsolver.ifs.criteria.Criterion} class (value and solution evaluation), and
+ * {@link org.cpsolver.ifs.heuristics.ValueSelection} class (value selection).
+ * The metrics are disabled by default, in which case the only overhead is a null check.<br>
+ * <br>
+ * The metrics are kept by the model, a solver creates a new instance when it is started (and removes it from the model
+ * when the metrics are not enabled), so the metrics of different solvers are not mixed. The metrics of a model are shared
+ * by all its solver threads. The collected metrics are included in the solution info (see {@link org.cpsolver.ifs.solution.Solution#getInfo()})
+ * and they can be exported using {@link HotPathMetrics#toCSVFile()}. When parameter HotPathMetrics.Output is set, the
+ * metrics are saved into the given CSV file when the solver is finished.
+ * 
+ * @version IFS 1.3 (Iterative Forward Search)<br>
+ *          Copyright (C) 2017 Tomas Muller<br>
+ *          <a href="mailto:muller@unitime.org">muller@unitime.org</a><br>
+ *          <a href="http://muller.unitime.org">http://muller.unitime.org</a><br>
+ * <br>
+ *          This library is free software; you can redistribute it and/or modify
+ *          it under the terms of the GNU Lesser General Public License as
+ *          published by the Free Software Foundation; either version 3 of the
+ *          License, or (at your option) any later version. <br>
+ * <br>
+ *          This library is distributed in the hope that it will be useful, but
+ *          WITHOUT ANY WARRANTY; without even the implied warranty of
+ *          MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *          Lesser General Public License for more details. <br>
+ * <br>
+ *          You should have received a copy of the GNU Lesser General Public
+ *          License along with this library; if not see
+ *          <a href='http://www.gnu.org/licenses/'>http://www.gnu.org/licenses/</a>.
+ */
+public class HotPathMetrics {
+    private List<ConcurrentHashMap<Class<?>, Counter>> iCounters = new ArrayList<ConcurrentHashMap<Class<?>, Counter>>();
+
+    /** Create new (empty) metrics */
+    public HotPathMetrics() {
+        for (int i = 0; i < Type.values().length; i++)
+            iCounters.add(new ConcurrentHashMap<Class<?>, Counter>());
+    }
+
+    /** Type of the instrumented class */
+    public static enum Type {
+        /** Conflict checking of a hard constraint */
+        Constraint,
+        /** Evaluation of an optimization criterion */
+        Criterion,
+        /** Value selection */
+        ValueSelection,
+    }
+
+    /** Clear all the collected metrics */
+    public void reset() {
+        for (Map<Class<?>, Counter> counters: iCounters)
+            counters.clear();
+    }
+
+    /**
+     * Record a call
+     * @param type instrumented type
+     * @param clazz instrumented class (e.g., constraint.getClass())
+     * @param startTime time of the start of the call, as returned by {@link System#nanoTime()}
+     */
+    public void record(Type type, Class<?> clazz, long startTime) {
+        long time = System.nanoTime() - startTime;
+        ConcurrentHashMap<Class<?>, Counter> counters = iCounters.get(type.ordinal());
+        Counter counter = counters.get(clazz);
+        if (counter == null) {
+            counter = new Counter(type, clazz);
+            Counter other = counters.putIfAbsent(clazz, counter);
+            if (other != null) counter = other;
+        }
+        counter.inc(time);
+    }
+
+    /**
+     * All collected counters, sorted by the total time (the most expensive first)
+     * @return list of counters
+     */
+    public List<Counter> getCounters() {
+        List<Counter> ret = new ArrayList<Counter>();
+        for (Map<Class<?>, Counter> counters: iCounters)
+            ret.addAll(counters.values());
+        Collections.sort(ret, new Comparator<Counter>() {
+            @Override
+            public int compare(Counter c1, Counter c2) {
+                int cmp = -Double.compare(c1.getTime(), c2.getTime());
+                if (cmp != 0) return cmp;
+                return c1.getName().compareTo(c2.getName());
+            }
+        });
+        return ret;
+    }
+
+    /**
+     * Put the collected metrics into the info table
+     * @param info info table
+     */
+    public void getInfo(Map<String, String> info) {
+        for (Counter counter: getCounters())
+            info.put("Hot path " + counter.getType().name() + " " + counter.getName(), counter.toString());
+    }
+
+    /**
+     * Export the collected metrics into a CSV file
+     * @return CSV file with the collected metrics
+     */
+    public CSVFile toCSVFile() {
+        DecimalFormat df = new DecimalFormat("0.00");
+        CSVFile csv = new CSVFile();
+        csv.setHeader(new CSVField[] {
+                new CSVField("Type"), new CSVField("Class"), new CSVField("Calls"),
+                new CSVField("Time [ms]"), new CSVField("Average [ns]")
+        });
+        for (Counter counter: getCounters()) {
+            csv.addLine(new CSVField[] {
+                    new CSVField(counter.getType().name()), new CSVField(counter.getClazz().getName()), new CSVField(counter.getCalls()),
+                    new CSVField(df.format(counter.getTime() / 1000000.0)), new CSVField(df.format(counter.getAverage()))
+            });
+        }
+        return csv;
+    }
+
+    /**
+     * Number of calls and the total time spent for an instrumented class
+     */
+    public static class Counter {
+        private Type iType;
+        private Class<?> iClazz;
+        private AtomicLong iCalls = new AtomicLong(0);
+        private AtomicLong iTime = new AtomicLong(0);
+
+        private Counter(Type type, Class<?> clazz) {
+            iType = type; iClazz = clazz;
+        }
+
+        private void inc(long time) {
+            iCalls.incrementAndGet();
+            iTime.addAndGet(time);
+        }
+
+        /** Instrumented type
+         * @return type
+         **/
+        public Type getType() { return iType; }
+
+        /** Instrumented class
+         * @return class
+         **/
+        public Class<?> getClazz() { return iClazz; }
+
+        /** Simple name of the instrumented class
+         * @return class name
+         **/
+        public String getName() { return iClazz.getSimpleName(); }
+
+        /** Number of calls
+         * @return number of calls
+         **/
+        public long getCalls() { return iCalls.get(); }
+
+        /** Total time in nanoseconds
+         * @return time spent
+         **/
+        public long getTime() { return iTime.get(); }
+
+        /** Average time of a call in nanoseconds
+         * @return average time
+         **/
+        public double getAverage() {
+            long calls = getCalls();
+            return (calls == 0 ? 0.0 : ((double)getTime()) / calls);
+        }
+
+        @Override
+        public String toString() {
+            DecimalFormat df = new DecimalFormat("0.00");
+            return getCalls() + "x, " + df.format(getTime() / 1000000.0) + " ms (" + df.format(getAverage() / 1000.0) + " us/call)";
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package org.cpsolver.ifs.util;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * ID generator.
  * 
@@ -23,13 +25,13 @@ package org.cpsolver.ifs.util;
  *          <a href='http://www.gnu.org/licenses/'>http://www.gnu.org/licenses/</a>.
  */
 public class IdGenerator {
-    private int iLastId = 0;
+    private AtomicLong iLastId = new AtomicLong(0);
 
-    /** Generates new id 
+    /** Generates new id (thread-safe, i.e., ids generated concurrently by multiple threads do not collide)
      * @return new unique id
      **/
     public long newId() {
-        return ++iLastId;
+        return iLastId.incrementAndGet();
     }
 
 }
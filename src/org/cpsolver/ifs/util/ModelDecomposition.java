@@ -0,0 +1,154 @@
+package org.cpsolver.ifs.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.cpsolver.ifs.model.Model;
+import org.cpsolver.ifs.model.ModelTopology;
+import org.cpsolver.ifs.model.Value;
+import org.cpsolver.ifs.model.Variable;
+
+/**
+ * Decomposition of a model into independent components. Two variables are in the same component
+ * when they are (transitively) linked by a constraint of the model ({@link Model#constraints()}), which
+ * includes, e.g., the joint enrollment constraints of the course timetabling or the student constraints
+ * of the examination timetabling. Global constraints ({@link Model#globalConstraints()}) are not considered,
+ * since they link all the variables of the model.<br>
+ * <br>
+ * When only hard constraints are to be considered (see {@link ModelDecomposition#ModelDecomposition(Model, boolean)}),
+ * the resultant components are only near-independent: there are no hard conflicts between them, but there
+ * can be soft constraints (e.g., student conflicts) spanning over multiple components.<br>
+ * <br>
+ * The components can be grouped into a given number of bins of a similar size using {@link ModelDecomposition#getBins(int)},
+ * e.g., so that each bin can be solved by a different thread.
+ * 
+ * @version IFS 1.3 (Iterative Forward Search)<br>
+ *          Copyright (C) 2017 Tomas Muller<br>
+ *          <a href="mailto:muller@unitime.org">muller@unitime.org</a><br>
+ *          <a href="http://muller.unitime.org">http://muller.unitime.org</a><br>
+ * <br>
+ *          This library is free software; you can redistribute it and/or modify
+ *          it under the terms of the GNU Lesser General Public License as
+ *          published by the Free Software Foundation; either version 3 of the
+ *          License, or (at your option) any later version. <br>
+ * <br>
+ *          This library is distributed in the hope that it will be useful, but
+ *          WITHOUT ANY WARRANTY; without even the implied warranty of
+ *          MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *          Lesser General Public License for more details. <br>
+ * <br>
+ *          You should have received a copy of the GNU Lesser General Public
+ *          License along with this library; if not see
+ *          <a href='http://www.gnu.org/licenses/'>http://www.gnu.org/licenses/</a>.
+ *
+ * @param <V> Variable
+ * @param <T> Value
+ */
+public class ModelDecomposition<V extends Variable<V, T>, T extends Value<V, T>> {
+    private List<List<V>> iComponents;
+
+    /**
+     * Decompose the given model, considering all its constraints
+     * @param model problem model
+     */
+    public ModelDecomposition(Model<V, T> model) {
+        this(model, false);
+    }
+
+    /**
+     * Decompose the given model
+     * @param model problem model
+     * @param hardOnly when true, only hard constraints are considered
+     */
+    public ModelDecomposition(Model<V, T> model, boolean hardOnly) {
+        ModelTopology<V, T> topology = model.getTopology();
+        int[] parent = new int[topology.getNrVariables()];
+        for (int i = 0; i < parent.length; i++)
+            parent[i] = i;
+        int[] variables = topology.getVariableIndex();
+        int nrConstraints = (hardOnly ? topology.getNrHardConstraints() : topology.getNrConstraints());
+        for (int c = 0; c < nrConstraints; c++) {
+            int first = -1;
+            for (int k = topology.getVariableStart(c); k < topology.getVariableStart(c + 1); k++) {
+                if (first < 0)
+                    first = find(parent, variables[k]);
+                else
+                    parent[find(parent, variables[k])] = first;
+            }
+        }
+        Map<Integer, List<V>> components = new HashMap<Integer, List<V>>();
+        iComponents = new ArrayList<List<V>>();
+        for (int i = 0; i < parent.length; i++) {
+            int root = find(parent, i);
+            List<V> component = components.get(root);
+            if (component == null) {
+                component = new ArrayList<V>();
+                components.put(root, component);
+                iComponents.add(component);
+            }
+            component.add(topology.getVariable(i));
+        }
+        Collections.sort(iComponents, new Comparator<List<V>>() {
+            @Override
+            public int compare(List<V> c1, List<V> c2) {
+                return c2.size() - c1.size();
+            }
+        });
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    /**
+     * Independent components, the largest component first
+     * @return list of components, each a list of variables
+     */
+    public List<List<V>> getComponents() {
+        return iComponents;
+    }
+
+    /**
+     * Number of components
+     * @return number of independent components
+     */
+    public int size() {
+        return iComponents.size();
+    }
+
+    /**
+     * Group the components into at most the given number of bins, so that the bins have a similar number of variables.
+     * The components are taken from the largest one and each is put into the bin with the least number of variables.
+     * @param nrBins maximal number of bins
+     * @return list of bins, each a list of variables, the largest bin first (no empty bins are returned)
+     */
+    public List<List<V>> getBins(int nrBins) {
+        List<List<V>> bins = new ArrayList<List<V>>();
+        for (List<V> component: iComponents) {
+            if (bins.size() < nrBins) {
+                bins.add(new ArrayList<V>(component));
+                continue;
+            }
+            List<V> smallest = null;
+            for (List<V> bin: bins)
+                if (smallest == null || bin.size() < smallest.size())
+                    smallest = bin;
+            smallest.addAll(component);
+        }
+        Collections.sort(bins, new Comparator<List<V>>() {
+            @Override
+            public int compare(List<V> b1, List<V> b2) {
+                return b2.size() - b1.size();
+            }
+        });
+        return bins;
+    }
+}
@@ -0,0 +1,146 @@
+package org.cpsolver.ifs.util;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Generate a number of independent reports, each streamed into its own file using a {@link CSVWriter}.
+ * The reports are computed in parallel using a fixed number of threads (or sequentially when only one
+ * thread is to be used). The reports are expected to only read the solution, so it is safe to compute them
+ * at the same time once the solver is finished.
+ * 
+ * @version IFS 1.3 (Iterative Forward Search)<br>
+ *          Copyright (C) 2017 Tomas Muller<br>
+ *          <a href="mailto:muller@unitime.org">muller@unitime.org</a><br>
+ *          <a href="http://muller.unitime.org">http://muller.unitime.org</a><br>
+ * <br>
+ *          This library is free software; you can redistribute it and/or modify
+ *          it under the terms of the GNU Lesser General Public License as
+ *          published by the Free Software Foundation; either version 3 of the
+ *          License, or (at your option) any later version. <br>
+ * <br>
+ *          This library is distributed in the hope that it will be useful, but
+ *          WITHOUT ANY WARRANTY; without even the implied warranty of
+ *          MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *          Lesser General Public License for more details. <br>
+ * <br>
+ *          You should have received a copy of the GNU Lesser General Public
+ *          License along with this library; if not see
+ *          <a href='http://www.gnu.org/licenses/'>http://www.gnu.org/licenses/</a>.
+ */
+public class ParallelReports {
+    private static Logger sLogger = Logger.getLogger(ParallelReports.class);
+    private List<File> iFiles = new ArrayList<File>();
+    private List<Report> iReports = new ArrayList<Report>();
+    private int iNrThreads;
+
+    /**
+     * Constructor
+     * @param nrThreads number of threads to use, -1 for the number of available processors
+     */
+    public ParallelReports(int nrThreads) {
+        iNrThreads = (nrThreads < 0 ? Runtime.getRuntime().availableProcessors() : Math.max(1, nrThreads));
+    }
+
+    /**
+     * Register a report
+     * @param file output file (compressed using gzip when its name ends with .gz)
+     * @param report report to be written into the file
+     */
+    public void add(File file, Report report) {
+        iFiles.add(file);
+        iReports.add(report);
+    }
+
+    /**
+     * Number of registered reports
+     * @return number of reports
+     */
+    public int size() {
+        return iReports.size();
+    }
+
+    /**
+     * Generate all registered reports, wait for all of them to finish.
+     * @return true if all the reports were written successfully
+     */
+    public boolean execute() {
+        if (iNrThreads <= 1 || iReports.size() <= 1) {
+            boolean ok = true;
+            for (int i = 0; i < iReports.size(); i++)
+                if (!write(iFiles.get(i), iReports.get(i))) ok = false;
+            return ok;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(iNrThreads, iReports.size()), new ThreadFactory() {
+            private int iCount = 0;
+            @Override
+            public synchronized Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "Report-" + (++iCount));
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        try {
+            List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+            for (int i = 0; i < iReports.size(); i++) {
+                final File file = iFiles.get(i);
+                final Report report = iReports.get(i);
+                results.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() {
+                        return write(file, report);
+                    }
+                }));
+            }
+            boolean ok = true;
+            for (Future<Boolean> result: results) {
+                try {
+                    if (!result.get()) ok = false;
+                } catch (Exception e) {
+                    sLogger.error("Report failed: " + e.getMessage(), e);
+                    ok = false;
+                }
+            }
+            return ok;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private boolean write(File file, Report report) {
+        CSVWriter csv = null;
+        try {
+            csv = new CSVWriter(file);
+            report.write(csv);
+            csv.close();
+            csv = null;
+            return true;
+        } catch (Exception e) {
+            sLogger.error("Failed to write " + file + ": " + e.getMessage(), e);
+            return false;
+        } finally {
+            if (csv != null)
+                try { csv.close(); } catch (Exception e) {}
+        }
+    }
+
+    /**
+     * A report that writes its lines into the given {@link CSVOutput} (which is a {@link CSVWriter} here)
+     */
+    public static interface Report {
+        /**
+         * Compute the report
+         * @param csv output
+         * @throws Exception when the report fails
+         */
+        public void write(CSVOutput csv) throws Exception;
+    }
+}
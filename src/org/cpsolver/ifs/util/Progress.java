@@ -4,9 +4,19 @@ import java.io.Serializable;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.dom4j.Element;
 
@@ -36,6 +46,14 @@ import org.dom4j.Element;
  * ...
  * </code>
  * </pre>
+ * <br>
+ * The message log is bounded: messages of level {@link Progress#MSGLEVEL_INFO} or higher are kept in a ring buffer
+ * of {@link Progress#sLogCapacity} messages, messages of a lower level (trace, debug, progress) in a separate ring
+ * buffer of {@link Progress#sDetailLogCapacity} messages, so that the detailed messages of a long run do not push out
+ * the important ones. Appending a message does not lock. The {@link ProgressListener}s are notified asynchronously,
+ * in batches, by a dispatcher thread of the progress instance (in the order in which the events happened), so that the
+ * solver threads do not wait for the listeners and a slow listener only delays the events of its own progress.
+ * Use {@link Progress#flush()} to wait for the listeners to be notified.
  * 
  * @version IFS 1.3 (Iterative Forward Search)<br>
  *          Copyright (C) 2006 - 2014 Tomas Muller<br>
@@ -68,21 +86,52 @@ public class Progress {
     public static final int MSGLEVEL_WARN = 5;
     public static final int MSGLEVEL_ERROR = 6;
     public static final int MSGLEVEL_FATAL = 7;
-
-    private String iStatus = "";
-    private String iPhase = "";
-    private long iProgressMax = 0;
-    private long iProgressCurrent = 0;
-    private List<ProgressListener> iListeners = new ArrayList<ProgressListener>(5);
+    /** Number of messages of level {@link Progress#MSGLEVEL_INFO} or higher that are kept in the log (system property Progress.LogCapacity, defaults to 10000) */
+    public static final int sLogCapacity = getCapacity("Progress.LogCapacity", 10000);
+    /** Number of messages of level below {@link Progress#MSGLEVEL_INFO} that are kept in the log (system property Progress.DetailLogCapacity, defaults to 1000) */
+    public static final int sDetailLogCapacity = getCapacity("Progress.DetailLogCapacity", 1000);
+
+    private volatile String iStatus = "";
+    private volatile String iPhase = "";
+    private volatile long iProgressMax = 0;
+    private volatile long iProgressCurrent = 0;
+    private List<ProgressListener> iListeners = new CopyOnWriteArrayList<ProgressListener>();
     private List<Object[]> iSave = new ArrayList<Object[]>(5);
-    private List<Message> iLog = new ArrayList<Message>(1000);
-    private boolean iDisposed = false;
+    private volatile MessageLog iLog = new MessageLog();
+    private volatile boolean iDisposed = false;
+    private ConcurrentLinkedQueue<Event> iEvents = new ConcurrentLinkedQueue<Event>();
+    private AtomicBoolean iDispatching = new AtomicBoolean(false);
+    private volatile Event iLastProgressEvent = null;
+    private Runnable iDispatcher = new Runnable() {
+        @Override
+        public void run() {
+            dispatch();
+        }
+    };
+    private volatile Thread iDispatcherThread = null;
+    // each instance has its own dispatcher, the thread is only kept while there are events to deliver
+    private ThreadPoolExecutor iExecutor = new ThreadPoolExecutor(0, 1, 500, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "ProgressDispatcher");
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        }
+    });
 
-    private static HashMap<Object, Progress> sInstances = new HashMap<Object, Progress>();
+    private static ConcurrentHashMap<Object, Progress> sInstances = new ConcurrentHashMap<Object, Progress>();
 
     private Progress() {
     }
 
+    private static int getCapacity(String property, int defaultCapacity) {
+        try {
+            return Math.max(1, Integer.parseInt(System.getProperty(property, String.valueOf(defaultCapacity))));
+        } catch (NumberFormatException e) {
+            return defaultCapacity;
+        }
+    }
+
     /** Progress default instance 
      * @return progress instance
      **/
@@ -98,7 +147,8 @@ public class Progress {
         Progress progress = sInstances.get(key);
         if (progress == null) {
             progress = new Progress();
-            sInstances.put(key, progress);
+            Progress other = sInstances.putIfAbsent(key, progress);
+            if (other != null) progress = other;
         }
         return progress;
     }
@@ -109,22 +159,19 @@ public class Progress {
      **/
     public static void changeInstance(Object oldKey, Object newKey) {
         removeInstance(newKey);
-        Progress progress = sInstances.get(oldKey);
-        if (progress != null) {
-            sInstances.remove(oldKey);
+        Progress progress = sInstances.remove(oldKey);
+        if (progress != null)
             sInstances.put(newKey, progress);
-        }
     }
 
     /** Remove progress instance for the given key 
      * @param key old instance
      **/
     public static void removeInstance(Object key) {
-        Progress progress = sInstances.get(key);
+        Progress progress = sInstances.remove(key);
         if (progress != null) {
             progress.iListeners.clear();
             progress.iDisposed = true;
-            sInstances.remove(key);
         }
     }
 
@@ -288,9 +335,7 @@ public class Progress {
                 sLogger.fatal(message, t);
                 break;
         }
-        synchronized (iLog) {
-            iLog.add(m);
-        }
+        iLog.add(m);
         fireMessagePrinted(m);
     }
 
@@ -396,11 +441,11 @@ public class Progress {
         message(MSGLEVEL_FATAL, message, e);
     }
 
-    /** Returns log (list of messages) 
-     * @return list of logged messages
+    /** Returns log (list of messages, oldest first) 
+     * @return list of logged messages (a snapshot of the log)
      **/
     public List<Message> getLog() {
-        return iLog;
+        return iLog.getMessages();
     }
 
     /**
@@ -411,12 +456,10 @@ public class Progress {
      */
     public String getLog(int level) {
         StringBuffer sb = new StringBuffer();
-        synchronized (iLog) {
-            for (Message m : iLog) {
-                String s = m.toString(level);
-                if (s != null)
-                    sb.append(s + "\n");
-            }
+        for (Message m : getLog()) {
+            String s = m.toString(level);
+            if (s != null)
+                sb.append(s + "\n");
         }
         return sb.toString();
     }
@@ -428,12 +471,10 @@ public class Progress {
      */
     public String getHtmlLog(int level, boolean includeDate) {
         StringBuffer sb = new StringBuffer();
-        synchronized (iLog) {
-            for (Message m : iLog) {
-                String s = m.toHtmlString(level, includeDate);
-                if (s != null)
-                    sb.append(s + "<br>");
-            }
+        for (Message m : getLog()) {
+            String s = m.toHtmlString(level, includeDate);
+            if (s != null)
+                sb.append(s + "<br>");
         }
         return sb.toString();
     }
@@ -448,58 +489,210 @@ public class Progress {
      */
     public String getHtmlLog(int level, boolean includeDate, String fromStage) {
         StringBuffer sb = new StringBuffer();
-        synchronized (iLog) {
-            for (Message m : iLog) {
-                if (m.getLevel() == MSGLEVEL_STAGE && m.getMessage().equals(fromStage))
-                    sb = new StringBuffer();
-                String s = m.toHtmlString(level, includeDate);
-                if (s != null)
-                    sb.append(s + "<br>");
-            }
+        for (Message m : getLog()) {
+            if (m.getLevel() == MSGLEVEL_STAGE && m.getMessage().equals(fromStage))
+                sb = new StringBuffer();
+            String s = m.toHtmlString(level, includeDate);
+            if (s != null)
+                sb.append(s + "<br>");
         }
         return sb.toString();
     }
 
     /** Clear the log */
     public void clear() {
-        synchronized (iLog) {
-            iLog.clear();
+        iLog = new MessageLog();
+    }
+
+    /**
+     * Wait until all the progress listeners have been notified about the events that happened so far.
+     * Does nothing when called from a listener of this progress.
+     */
+    public void flush() {
+        if (Thread.currentThread() == iDispatcherThread) return;
+        try {
+            do {
+                // the dispatcher is single threaded, all the previously scheduled batches are done when this task is executed
+                iExecutor.submit(new Runnable() {
+                    @Override
+                    public void run() {}
+                }).get();
+            } while (iDispatching.get() || !iEvents.isEmpty());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+        }
+    }
+
+    private void fire(Event event) {
+        if (event.iType != Event.PROGRESS) iLastProgressEvent = null;
+        iEvents.add(event);
+        if (iDispatching.compareAndSet(false, true))
+            iExecutor.execute(iDispatcher);
+    }
+
+    private void dispatch() {
+        iDispatcherThread = Thread.currentThread();
+        try {
+            while (true) {
+                Event event = null;
+                while ((event = iEvents.poll()) != null) {
+                    event.iDispatched = true;
+                    for (ProgressListener listener : iListeners) {
+                        try {
+                            event.notify(listener);
+                        } catch (Exception e) {
+                            sLogger.error("Progress listener failed: " + e.getMessage(), e);
+                        }
+                    }
+                }
+                iDispatching.set(false);
+                if (iEvents.isEmpty() || !iDispatching.compareAndSet(false, true)) return;
+            }
+        } finally {
+            iDispatcherThread = null;
         }
     }
 
     private void fireStatusChanged() {
-        for (ProgressListener listener : iListeners) {
-            listener.statusChanged(iStatus);
-        }
+        if (!iListeners.isEmpty())
+            fire(new Event(Event.STATUS, iStatus));
     }
 
     private void firePhaseChanged() {
-        for (ProgressListener listener : iListeners) {
-            listener.phaseChanged(iPhase);
-        }
+        if (!iListeners.isEmpty())
+            fire(new Event(Event.PHASE, iPhase));
     }
 
     private void fireProgressChanged() {
-        for (ProgressListener listener : iListeners) {
-            listener.progressChanged(iProgressCurrent, iProgressMax);
-        }
+        if (iListeners.isEmpty()) return;
+        Event last = iLastProgressEvent;
+        if (last != null && last.update(iProgressCurrent, iProgressMax)) return;
+        Event event = new Event(Event.PROGRESS, null);
+        event.iCurrent = iProgressCurrent;
+        event.iMax = iProgressMax;
+        iLastProgressEvent = event;
+        fire(event);
     }
 
     private void fireProgressSaved() {
-        for (ProgressListener listener : iListeners) {
-            listener.progressSaved();
-        }
+        if (!iListeners.isEmpty())
+            fire(new Event(Event.SAVED, null));
     }
 
     private void fireProgressRestored() {
-        for (ProgressListener listener : iListeners) {
-            listener.progressRestored();
-        }
+        if (!iListeners.isEmpty())
+            fire(new Event(Event.RESTORED, null));
     }
 
     private void fireMessagePrinted(Message message) {
-        for (ProgressListener listener : iListeners) {
-            listener.progressMessagePrinted(message);
+        if (!iListeners.isEmpty())
+            fire(new Event(Event.MESSAGE, message));
+    }
+
+    /** A progress event waiting for the listeners to be notified */
+    private static class Event {
+        private static final int STATUS = 0, PHASE = 1, PROGRESS = 2, SAVED = 3, RESTORED = 4, MESSAGE = 5;
+        private int iType;
+        private Object iObject;
+        private volatile long iCurrent, iMax;
+        private volatile boolean iDispatched = false;
+
+        private Event(int type, Object object) {
+            iType = type; iObject = object;
+        }
+
+        /** Update a pending progress event, returns false when the event has been dispatched already */
+        private boolean update(long current, long max) {
+            iMax = max;
+            iCurrent = current;
+            return !iDispatched;
+        }
+
+        private void notify(ProgressListener listener) {
+            switch (iType) {
+                case STATUS:
+                    listener.statusChanged((String) iObject);
+                    break;
+                case PHASE:
+                    listener.phaseChanged((String) iObject);
+                    break;
+                case PROGRESS:
+                    listener.progressChanged(iCurrent, iMax);
+                    break;
+                case SAVED:
+                    listener.progressSaved();
+                    break;
+                case RESTORED:
+                    listener.progressRestored();
+                    break;
+                case MESSAGE:
+                    listener.progressMessagePrinted((Message) iObject);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Bounded message log: two lock-free ring buffers, one for the messages of level {@link Progress#MSGLEVEL_INFO}
+     * or higher and one for the detailed messages. Each message gets a sequence number, so that the original order
+     * can be restored when the two buffers are merged.
+     */
+    private static class MessageLog {
+        private AtomicLong iSequence = new AtomicLong(0);
+        private Ring iMain = new Ring(sLogCapacity);
+        private Ring iDetail = new Ring(sDetailLogCapacity);
+
+        private void add(Message message) {
+            message.iSequence = iSequence.getAndIncrement();
+            (message.getLevel() >= MSGLEVEL_INFO ? iMain : iDetail).add(message);
+        }
+
+        private List<Message> getMessages() {
+            List<Message> main = iMain.getMessages();
+            List<Message> detail = iDetail.getMessages();
+            if (detail.isEmpty()) return main;
+            if (main.isEmpty()) return detail;
+            List<Message> ret = new ArrayList<Message>(main.size() + detail.size());
+            int i = 0, j = 0;
+            while (i < main.size() && j < detail.size()) {
+                if (main.get(i).iSequence < detail.get(j).iSequence)
+                    ret.add(main.get(i++));
+                else
+                    ret.add(detail.get(j++));
+            }
+            while (i < main.size()) ret.add(main.get(i++));
+            while (j < detail.size()) ret.add(detail.get(j++));
+            return ret;
+        }
+    }
+
+    /** Lock-free ring buffer of messages, the oldest message is overwritten when full */
+    private static class Ring {
+        private AtomicReferenceArray<Message> iMessages;
+        private AtomicLong iNext = new AtomicLong(0);
+
+        private Ring(int capacity) {
+            iMessages = new AtomicReferenceArray<Message>(Math.max(1, capacity));
+        }
+
+        private void add(Message message) {
+            long index = iNext.getAndIncrement();
+            message.iIndex = index;
+            iMessages.set((int) (index % iMessages.length()), message);
+        }
+
+        private List<Message> getMessages() {
+            long last = iNext.get();
+            long first = Math.max(0, last - iMessages.length());
+            List<Message> ret = new ArrayList<Message>((int) (last - first));
+            for (long index = first; index < last; index++) {
+                Message message = iMessages.get((int) (index % iMessages.length()));
+                // skip slots that are being written or that have been overwritten in the meantime
+                if (message != null && message.iIndex == index)
+                    ret.add(message);
+            }
+            return ret;
         }
     }
 
@@ -510,6 +703,7 @@ public class Progress {
         private String iMessage;
         private Date iDate = null;
         private String[] iStakTrace = null;
+        private transient long iSequence = 0, iIndex = 0;
 
         private Message(int level, String message, Throwable e) {
             iLevel = level;
@@ -708,10 +902,8 @@ public class Progress {
      **/
     public void save(Element root) {
         Element log = root.addElement("log");
-        synchronized (iLog) {
-            for (Message m : iLog) {
-                m.save(log.addElement("msg"));
-            }
+        for (Message m : getLog()) {
+            m.save(log.addElement("msg"));
         }
     }
 
@@ -720,14 +912,13 @@ public class Progress {
      * @param clear clear the log first
      **/
     public void load(Element root, boolean clear) {
-        synchronized (iLog) {
-            if (clear)
-                iLog.clear();
-            Element log = root.element("log");
-            if (log != null) {
-                for (Iterator<?> i = log.elementIterator("msg"); i.hasNext();)
-                    iLog.add(new Message((Element) i.next()));
-            }
+        if (clear)
+            clear();
+        Element log = root.element("log");
+        if (log != null) {
+            MessageLog messages = iLog;
+            for (Iterator<?> i = log.elementIterator("msg"); i.hasNext();)
+                messages.add(new Message((Element) i.next()));
         }
     }
 }
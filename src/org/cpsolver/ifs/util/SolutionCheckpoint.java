@@ -0,0 +1,363 @@
+package org.cpsolver.ifs.util;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+import org.cpsolver.ifs.assignment.Assignment;
+import org.cpsolver.ifs.model.Model;
+import org.cpsolver.ifs.model.Value;
+import org.cpsolver.ifs.model.Variable;
+import org.cpsolver.ifs.solution.Solution;
+
+/**
+ * Compact binary checkpoint of a solution. The checkpoint contains the identifiers of all the variables
+ * of the model (as a fingerprint), the best ever found assignment and the current assignment. Each value
+ * is stored as an array of indexes (by default the index of the value in the variable's domain, see
+ * {@link SolutionCheckpoint#encode(Assignment, Variable, Value)}), which makes the checkpoint independent
+ * of the generated value ids. A checkpoint is written using a {@link DataOutputStream} and it is read back
+ * using a memory mapped buffer, so that a solver can be warm restarted from the last checkpoint (e.g., after
+ * a crash or for a what-if run) without having to load and check the solution part of the XML file.<br>
+ * <br>
+ * The checkpoint does not contain the model itself (variables, domains, constraints, criteria): the model has
+ * to be loaded (e.g., from the XML input, without a solution) before the checkpoint is restored. Problem specific
+ * subclasses (e.g., {@link org.cpsolver.coursett.TimetableCheckpoint}) encode the values in terms of the model
+ * objects, so that variables with domains that are not cached can be restored without computing the domain.<br>
+ * <br>
+ * The variables are matched by their ids. When the ids do not match the model, the checkpoint is not restored,
+ * unless matching by the order of the variables is explicitly allowed by {@link SolutionCheckpoint#setMatchByOrder(boolean)}.
+ *
+ * @version IFS 1.3 (Iterative Forward Search)<br>
+ *          Copyright (C) 2017 Tomas Muller<br>
+ *          <a href="mailto:muller@unitime.org">muller@unitime.org</a><br>
+ *          <a href="http://muller.unitime.org">http://muller.unitime.org</a><br>
+ * <br>
+ *          This library is free software; you can redistribute it and/or modify
+ *          it under the terms of the GNU Lesser General Public License as
+ *          published by the Free Software Foundation; either version 3 of the
+ *          License, or (at your option) any later version. <br>
+ * <br>
+ *          This library is distributed in the hope that it will be useful, but
+ *          WITHOUT ANY WARRANTY; without even the implied warranty of
+ *          MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *          Lesser General Public License for more details. <br>
+ * <br>
+ *          You should have received a copy of the GNU Lesser General Public
+ *          License along with this library; if not see
+ *          <a href='http://www.gnu.org/licenses/'>http://www.gnu.org/licenses/</a>.
+ *
+ * @param <V> Variable
+ * @param <T> Value
+ * @param <M> Model
+ */
+public class SolutionCheckpoint<V extends Variable<V, T>, T extends Value<V, T>, M extends Model<V, T>> {
+    private static Logger sLogger = Logger.getLogger(SolutionCheckpoint.class);
+    /** Checkpoint file signature (CPSS) */
+    public static final int MAGIC = 0x43505353;
+    /** Checkpoint format version */
+    public static final int VERSION = 1;
+
+    private M iModel;
+    private boolean iCheckConflicts = true;
+    private boolean iMatchByOrder = false;
+
+    /**
+     * Constructor
+     * @param model a loaded model
+     */
+    public SolutionCheckpoint(M model) {
+        iModel = model;
+    }
+
+    /**
+     * Problem model
+     * @return model of which the checkpoint is taken
+     */
+    public M getModel() {
+        return iModel;
+    }
+
+    /**
+     * Check for hard conflicts when the checkpoint is restored (defaults to true).
+     * When disabled, the values are assigned without any checking, which is the fastest option
+     * when it is known that the model has not changed since the checkpoint was taken. In either case, weakening
+     * constraints are weakened first (see {@link Model#weaken(Assignment, Value)}), as when a solution is loaded.
+     * @param checkConflicts true if the restored values are to be checked for conflicts
+     */
+    public void setCheckConflicts(boolean checkConflicts) {
+        iCheckConflicts = checkConflicts;
+    }
+
+    /**
+     * Check for hard conflicts when the checkpoint is restored
+     * @return true if the restored values are to be checked for conflicts
+     */
+    public boolean isCheckConflicts() {
+        return iCheckConflicts;
+    }
+
+    /**
+     * Allow to match the variables by their order in the model when their ids do not match (defaults to false).
+     * This is only safe when the model was loaded from the same input as the model of which the checkpoint was taken
+     * (only with newly generated ids), otherwise the values would be restored onto the wrong variables.
+     * @param matchByOrder true if the variables can be matched by their order
+     */
+    public void setMatchByOrder(boolean matchByOrder) {
+        iMatchByOrder = matchByOrder;
+    }
+
+    /**
+     * Allow to match the variables by their order in the model when their ids do not match
+     * @return true if the variables can be matched by their order
+     */
+    public boolean isMatchByOrder() {
+        return iMatchByOrder;
+    }
+
+    /**
+     * Encode a value into an array of indexes. By default, the index of the value in {@link Variable#values(Assignment)} is returned.
+     * The index of the value ({@link Value#getIndex()}) is used when the value is a part of a cached domain, the domain is only
+     * searched for values that are not indexed.
+     * @param assignment current assignment
+     * @param variable a variable
+     * @param value a value of the variable
+     * @return encoded value, null if the value cannot be encoded
+     */
+    protected int[] encode(Assignment<V, T> assignment, V variable, T value) {
+        int index = value.getIndex();
+        if (index >= 0) {
+            List<T> values = variable.values(assignment);
+            if (index < values.size() && values.get(index) == value)
+                return new int[] { index };
+        }
+        index = variable.values(assignment).indexOf(value);
+        return (index < 0 ? null : new int[] { index });
+    }
+
+    /**
+     * Decode a value from an array of indexes, inverse of {@link SolutionCheckpoint#encode(Assignment, Variable, Value)}.
+     * @param assignment current assignment
+     * @param variable a variable
+     * @param encoded encoded value
+     * @return decoded value, null if the value cannot be decoded
+     */
+    protected T decode(Assignment<V, T> assignment, V variable, int[] encoded) {
+        List<T> values = variable.values(assignment);
+        if (encoded.length != 1 || encoded[0] < 0 || encoded[0] >= values.size())
+            return null;
+        return values.get(encoded[0]);
+    }
+
+    /**
+     * Save the best and the current assignment into a checkpoint file
+     * @param assignment current assignment
+     * @param file checkpoint file
+     * @throws IOException thrown when the checkpoint cannot be written
+     */
+    public void save(Assignment<V, T> assignment, File file) throws IOException {
+        List<V> variables = getModel().variables();
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 65536));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(variables.size());
+            for (V variable: variables)
+                out.writeLong(variable.getId());
+            out.writeBoolean(getModel().getBestUnassignedVariables() >= 0);
+            for (V variable: variables) {
+                T value = variable.getBestAssignment();
+                writeValue(out, value == null ? null : encode(assignment, variable, value));
+                out.writeLong(variable.getBestAssignmentIteration());
+            }
+            for (V variable: variables) {
+                T value = assignment.getValue(variable);
+                writeValue(out, value == null ? null : encode(assignment, variable, value));
+                out.writeLong(assignment.getIteration(variable));
+            }
+            out.flush();
+        } finally {
+            out.close();
+        }
+    }
+
+    private void writeValue(DataOutputStream out, int[] encoded) throws IOException {
+        if (encoded == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(encoded.length);
+            for (int index: encoded)
+                out.writeInt(index);
+        }
+    }
+
+    private int[] readValue(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) return null;
+        int[] encoded = new int[length];
+        buffer.asIntBuffer().get(encoded);
+        buffer.position(buffer.position() + 4 * length);
+        return encoded;
+    }
+
+    /**
+     * Restore the best and the current assignment from a checkpoint file. The model must be already loaded.
+     * The given assignment is cleared first, the best assignment is then assigned and saved (using {@link Model#saveBest(Assignment)}),
+     * before the assignment is changed to the current assignment of the checkpoint.
+     * @param assignment assignment to be restored
+     * @param file checkpoint file
+     * @throws IOException thrown when the checkpoint cannot be read or when it does not match the model
+     */
+    public void load(Assignment<V, T> assignment, File file) throws IOException {
+        load(assignment, file, null);
+    }
+
+    /**
+     * Restore the best and the current assignment of a solution from a checkpoint file, the best assignment is saved
+     * using {@link Solution#saveBest()}.
+     * @param solution solution to be restored
+     * @param file checkpoint file
+     * @throws IOException thrown when the checkpoint cannot be read or when it does not match the model
+     */
+    public void load(final Solution<V, T> solution, File file) throws IOException {
+        load(solution.getAssignment(), file, new Callback() {
+            @Override
+            public void execute() {
+                solution.saveBest();
+            }
+        });
+    }
+
+    /**
+     * Restore the best and the current assignment from a checkpoint file. The model must be already loaded.
+     * The given assignment is cleared first (constant variables are kept), the best assignment is then assigned
+     * and saved, before the assignment is changed to the current assignment of the checkpoint. Only the best values
+     * that could have been assigned are saved as the best assignment, so that the best assignment is always consistent.
+     * @param assignment assignment to be restored
+     * @param file checkpoint file
+     * @param saveBest callback executed once the best assignment is assigned, {@link Model#saveBest(Assignment)} is used when null
+     * @throws IOException thrown when the checkpoint cannot be read or when it does not match the model
+     */
+    public void load(Assignment<V, T> assignment, File file, Callback saveBest) throws IOException {
+        FileInputStream in = new FileInputStream(file);
+        try {
+            FileChannel channel = in.getChannel();
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC)
+                throw new IOException("File " + file + " is not a solution checkpoint.");
+            int version = buffer.getInt();
+            if (version != VERSION)
+                throw new IOException("Unsupported checkpoint version " + version + " (expected " + VERSION + ").");
+            List<V> variables = resolveVariables(buffer);
+            boolean hasBest = buffer.get() != 0;
+
+            List<T> best = new ArrayList<T>(variables.size());
+            final Map<T, Long> iterations = new HashMap<T, Long>();
+            for (V variable: variables) {
+                int[] encoded = readValue(buffer);
+                long iteration = buffer.getLong();
+                T value = (encoded == null || variable == null ? null : decode(assignment, variable, encoded));
+                if (encoded != null && variable != null && value == null)
+                    sLogger.warn("Unable to restore best assignment of " + variable.getName() + ".");
+                best.add(value);
+                if (value != null) iterations.put(value, iteration);
+            }
+            List<T> current = new ArrayList<T>(variables.size());
+            for (V variable: variables) {
+                int[] encoded = readValue(buffer);
+                long iteration = buffer.getLong();
+                T value = (encoded == null || variable == null ? null : decode(assignment, variable, encoded));
+                if (encoded != null && variable != null && value == null)
+                    sLogger.warn("Unable to restore assignment of " + variable.getName() + ".");
+                current.add(value);
+                if (value != null && !iterations.containsKey(value)) iterations.put(value, iteration);
+            }
+
+            Comparator<T> byIteration = new Comparator<T>() {
+                @Override
+                public int compare(T t1, T t2) {
+                    int cmp = iterations.get(t1).compareTo(iterations.get(t2));
+                    if (cmp != 0) return cmp;
+                    return t1.variable().compareTo(t2.variable());
+                }
+            };
+
+            for (V variable: getModel().variables())
+                if (assignment.getValue(variable) != null)
+                    assignment.unassign(0, variable);
+
+            if (hasBest) {
+                restore(assignment, best, iterations, byIteration);
+                if (saveBest == null)
+                    getModel().saveBest(assignment);
+                else
+                    saveBest.execute();
+            } else {
+                getModel().clearBest();
+            }
+
+            for (int i = 0; i < variables.size(); i++) {
+                V variable = variables.get(i);
+                if (variable == null) continue;
+                T value = assignment.getValue(variable);
+                if (value != null && !value.equals(current.get(i)))
+                    assignment.unassign(0, variable);
+            }
+            restore(assignment, current, iterations, byIteration);
+        } finally {
+            in.close();
+        }
+    }
+
+    private List<V> resolveVariables(ByteBuffer buffer) throws IOException {
+        int nrVariables = buffer.getInt();
+        Map<Long, V> id2variable = new HashMap<Long, V>();
+        for (V variable: getModel().variables())
+            id2variable.put(variable.getId(), variable);
+        List<V> variables = new ArrayList<V>(nrVariables);
+        int missing = 0;
+        for (int i = 0; i < nrVariables; i++) {
+            V variable = id2variable.get(buffer.getLong());
+            if (variable == null) missing++;
+            variables.add(variable);
+        }
+        if (missing > 0) {
+            if (!isMatchByOrder() || nrVariables != getModel().variables().size())
+                throw new IOException("Checkpoint does not match the model (" + missing + " of " + nrVariables + " variables not found).");
+            sLogger.warn("Variable ids do not match the model, using variable order instead.");
+            return new ArrayList<V>(getModel().variables());
+        }
+        return variables;
+    }
+
+    private void restore(Assignment<V, T> assignment, List<T> values, Map<T, Long> iterations, Comparator<T> order) {
+        List<T> toAssign = new ArrayList<T>();
+        for (T value: values)
+            if (value != null && !value.equals(assignment.getValue(value.variable())))
+                toAssign.add(value);
+        Collections.sort(toAssign, order);
+        for (T value: toAssign) {
+            getModel().weaken(assignment, value);
+            if (isCheckConflicts()) {
+                Set<T> conflicts = getModel().conflictValues(assignment, value);
+                if (!conflicts.isEmpty()) {
+                    sLogger.warn("Unable to assign " + value.variable().getName() + " := " + value.getName() + " (conflicts: " + conflicts + ")");
+                    continue;
+                }
+            }
+            assignment.assign(iterations.get(value), value);
+        }
+    }
+}
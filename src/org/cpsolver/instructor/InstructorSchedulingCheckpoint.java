@@ -0,0 +1,60 @@
+package org.cpsolver.instructor;
+
+import org.cpsolver.ifs.assignment.Assignment;
+import org.cpsolver.ifs.util.SolutionCheckpoint;
+import org.cpsolver.instructor.model.Instructor;
+import org.cpsolver.instructor.model.InstructorSchedulingModel;
+import org.cpsolver.instructor.model.TeachingAssignment;
+import org.cpsolver.instructor.model.TeachingRequest;
+
+/**
+ * Binary checkpoint of an instructor scheduling solution. A teaching assignment is encoded as the index
+ * of its instructor in {@link InstructorSchedulingModel#getInstructors()}.
+ * 
+ * @see SolutionCheckpoint
+ * 
+ * @version IFS 1.3 (Instructor Sectioning)<br>
+ *          Copyright (C) 2017 Tomas Muller<br>
+ *          <a href="mailto:muller@unitime.org">muller@unitime.org</a><br>
+ *          <a href="http://muller.unitime.org">http://muller.unitime.org</a><br>
+ * <br>
+ *          This library is free software; you can redistribute it and/or modify
+ *          it under the terms of the GNU Lesser General Public License as
+ *          published by the Free Software Foundation; either version 3 of the
+ *          License, or (at your option) any later version. <br>
+ * <br>
+ *          This library is distributed in the hope that it will be useful, but
+ *          WITHOUT ANY WARRANTY; without even the implied warranty of
+ *          MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *          Lesser General Public License for more details. <br>
+ * <br>
+ *          You should have received a copy of the GNU Lesser General Public
+ *          License along with this library; if not see
+ *          <a href='http://www.gnu.org/licenses/'>http://www.gnu.org/licenses/</a>.
+ */
+public class InstructorSchedulingCheckpoint extends SolutionCheckpoint<TeachingRequest.Variable, TeachingAssignment, InstructorSchedulingModel> {
+
+    /**
+     * Constructor
+     * @param model a loaded instructor scheduling model
+     */
+    public InstructorSchedulingCheckpoint(InstructorSchedulingModel model) {
+        super(model);
+    }
+
+    @Override
+    protected int[] encode(Assignment<TeachingRequest.Variable, TeachingAssignment> assignment, TeachingRequest.Variable variable, TeachingAssignment value) {
+        int index = getModel().getInstructors().indexOf(value.getInstructor());
+        return (index < 0 ? null : new int[] { index });
+    }
+
+    @Override
+    protected TeachingAssignment decode(Assignment<TeachingRequest.Variable, TeachingAssignment> assignment, TeachingRequest.Variable variable, int[] encoded) {
+        if (encoded.length != 1 || encoded[0] < 0 || encoded[0] >= getModel().getInstructors().size()) return null;
+        Instructor instructor = getModel().getInstructors().get(encoded[0]);
+        for (TeachingAssignment value: variable.values(assignment))
+            if (value.getInstructor().equals(instructor))
+                return value;
+        return null;
+    }
+}
@@ -1,6 +1,8 @@
 package org.cpsolver.instructor.constraints;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
@@ -91,6 +93,14 @@ public class InstructorConstraint extends GlobalConstraint<TeachingRequest.Varia
         }
     }
     
+    /**
+     * The conflicts of a teaching assignment only depend on the other assignments of the same instructor
+     */
+    @Override
+    public Collection<?> getConflictKeys(TeachingAssignment value) {
+        return Collections.singleton(value.getInstructor());
+    }
+    
     @Override
     public String getName() {
         return "Instructor Constraint";
@@ -0,0 +1,93 @@
+package org.cpsolver.studentsct;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.cpsolver.ifs.assignment.Assignment;
+import org.cpsolver.ifs.util.SolutionCheckpoint;
+import org.cpsolver.studentsct.model.Config;
+import org.cpsolver.studentsct.model.Course;
+import org.cpsolver.studentsct.model.CourseRequest;
+import org.cpsolver.studentsct.model.Enrollment;
+import org.cpsolver.studentsct.model.FreeTimeRequest;
+import org.cpsolver.studentsct.model.Request;
+import org.cpsolver.studentsct.model.Section;
+import org.cpsolver.studentsct.model.Subpart;
+import org.cpsolver.studentsct.reservation.Reservation;
+
+/**
+ * Binary checkpoint of a student sectioning solution. An enrollment of a course request is encoded as
+ * the index of the course in {@link CourseRequest#getCourses()}, the index of the configuration in
+ * {@link org.cpsolver.studentsct.model.Offering#getConfigs()}, the index of the used reservation in
+ * {@link org.cpsolver.studentsct.model.Offering#getReservations()} (-1 when no reservation is used),
+ * followed by the index of the selected section of each subpart of the configuration (-1 when the enrollment
+ * has no section of the subpart). This way, the enrollments of a request do not need to be computed when the checkpoint is restored.
+ * An enrollment of a free time request is encoded as an empty array.
+ * 
+ * @see SolutionCheckpoint
+ * 
+ * @version StudentSct 1.3 (Student Sectioning)<br>
+ *          Copyright (C) 2017 Tomas Muller<br>
+ *          <a href="mailto:muller@unitime.org">muller@unitime.org</a><br>
+ *          <a href="http://muller.unitime.org">http://muller.unitime.org</a><br>
+
+ */
+public class StudentSectioningCheckpoint extends SolutionCheckpoint<Request, Enrollment, StudentSectioningModel> {
+
+    /**
+     * Constructor
+     * @param model a loaded student sectioning model
+     */
+    public StudentSectioningCheckpoint(StudentSectioningModel model) {
+        super(model);
+    }
+
+    @Override
+    protected int[] encode(Assignment<Request, Enrollment> assignment, Request request, Enrollment enrollment) {
+        if (request instanceof FreeTimeRequest)
+            return new int[0];
+        if (!(request instanceof CourseRequest) || !enrollment.isCourseRequest())
+            return null;
+        Config config = enrollment.getConfig();
+        int[] encoded = new int[3 + config.getSubparts().size()];
+        encoded[0] = ((CourseRequest)request).getCourses().indexOf(enrollment.getCourse());
+        encoded[1] = config.getOffering().getConfigs().indexOf(config);
+        encoded[2] = (enrollment.getReservation() == null ? -1 : config.getOffering().getReservations().indexOf(enrollment.getReservation()));
+        if (encoded[0] < 0 || encoded[1] < 0) return null;
+        Arrays.fill(encoded, 3, encoded.length, -1);
+        for (Section section: enrollment.getSections()) {
+            int subpart = config.getSubparts().indexOf(section.getSubpart());
+            if (subpart < 0) return null;
+            encoded[3 + subpart] = section.getSubpart().getSections().indexOf(section);
+        }
+        return encoded;
+    }
+
+    @Override
+    protected Enrollment decode(Assignment<Request, Enrollment> assignment, Request request, int[] encoded) {
+        if (request instanceof FreeTimeRequest)
+            return (encoded.length == 0 ? ((FreeTimeRequest)request).createEnrollment() : null);
+        if (!(request instanceof CourseRequest) || encoded.length < 3)
+            return null;
+        CourseRequest cr = (CourseRequest)request;
+        if (encoded[0] < 0 || encoded[0] >= cr.getCourses().size()) return null;
+        Course course = cr.getCourses().get(encoded[0]);
+        if (encoded[1] < 0 || encoded[1] >= course.getOffering().getConfigs().size()) return null;
+        Config config = course.getOffering().getConfigs().get(encoded[1]);
+        if (encoded.length != 3 + config.getSubparts().size()) return null;
+        Reservation reservation = null;
+        if (encoded[2] >= 0) {
+            if (encoded[2] >= config.getOffering().getReservations().size()) return null;
+            reservation = config.getOffering().getReservations().get(encoded[2]);
+        }
+        Set<Section> sections = new HashSet<Section>();
+        for (int i = 0; i < config.getSubparts().size(); i++) {
+            Subpart subpart = config.getSubparts().get(i);
+            if (encoded[3 + i] < 0) continue; // no section of the subpart
+            if (encoded[3 + i] >= subpart.getSections().size()) return null;
+            sections.add(subpart.getSections().get(encoded[3 + i]));
+        }
+        return new Enrollment(request, encoded[0], course, config, sections, reservation);
+    }
+}
@@ -4,6 +4,7 @@ import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -21,6 +22,7 @@ import org.cpsolver.ifs.model.ConstraintListener;
 import org.cpsolver.ifs.model.InfoProvider;
 import org.cpsolver.ifs.model.Model;
 import org.cpsolver.ifs.solution.Solution;
+import org.cpsolver.ifs.solver.Solver;
 import org.cpsolver.ifs.util.DataProperties;
 import org.cpsolver.studentsct.constraint.CancelledSections;
 import org.cpsolver.studentsct.constraint.ConfigLimit;
@@ -33,6 +35,7 @@ import org.cpsolver.studentsct.constraint.SectionLimit;
 import org.cpsolver.studentsct.constraint.StudentConflict;
 import org.cpsolver.studentsct.constraint.StudentNotAvailable;
 import org.cpsolver.studentsct.extension.DistanceConflict;
+import org.cpsolver.studentsct.extension.SectionConflictIndex;
 import org.cpsolver.studentsct.extension.TimeOverlapsCounter;
 import org.cpsolver.studentsct.model.Config;
 import org.cpsolver.studentsct.model.Course;
@@ -257,7 +260,7 @@ public class StudentSectioningModel extends ModelWithContext<Request, Enrollment
     public void requestWeightsChanged(Assignment<Request, Enrollment> assignment) {
         getContext(assignment).requestWeightsChanged(assignment);
     }
-
+    
     /**
      * Remove a student from the model
      * @param student a student to be removed from the problem
@@ -432,26 +435,16 @@ public class StudentSectioningModel extends ModelWithContext<Request, Enrollment
     }
 
     /**
-     * Overall solution value
+     * Overall solution value. The value is kept incrementally, when precise is true the weights of the enrollments
+     * (and of their distance and time overlapping conflicts) that may have changed since they were counted are
+     * updated first (see {@link StudentSectioningModelContext#getPreciseValue(Assignment)}).
      * @param assignment current assignment
      * @param precise true if should be computed
      * @return solution value
      */
     public double getTotalValue(Assignment<Request, Enrollment> assignment, boolean precise) {
-        if (precise) {
-            double total = 0;
-            for (Request r: assignment.assignedVariables())
-                total += r.getWeight() * iStudentWeights.getWeight(assignment, assignment.getValue(r));
-            if (iDistanceConflict != null)
-                for (DistanceConflict.Conflict c: iDistanceConflict.computeAllConflicts(assignment))
-                    total -= avg(c.getR1().getWeight(), c.getR2().getWeight()) * iStudentWeights.getDistanceConflictWeight(assignment, c);
-            if (iTimeOverlaps != null)
-                for (TimeOverlapsCounter.Conflict c: iTimeOverlaps.getContext(assignment).computeAllConflicts(assignment)) {
-                    if (c.getR1() != null) total -= c.getR1Weight() * iStudentWeights.getTimeOverlapConflictWeight(assignment, c.getE1(), c);
-                    if (c.getR2() != null) total -= c.getR2Weight() * iStudentWeights.getTimeOverlapConflictWeight(assignment, c.getE2(), c);
-                }
-            return -total;
-        }
+        if (precise)
+            return getContext(assignment).getPreciseValue(assignment);
         return getContext(assignment).getTotalValue();
     }
     
@@ -604,6 +597,31 @@ public class StudentSectioningModel extends ModelWithContext<Request, Enrollment
         return iTimeOverlaps;
     }
 
+    /**
+     * Build the section conflict index (see {@link SectionConflictIndex}) for all the sections of the model and
+     * pass it to the distance conflict extension. The index needs to be built again when the placement of
+     * a section changes.
+     * @return section conflict index, null if there is no distance conflict extension
+     */
+    public SectionConflictIndex buildSectionConflictIndex() {
+        if (iDistanceConflict == null) return null;
+        SectionConflictIndex index = new SectionConflictIndex(getOfferings(), iDistanceConflict);
+        iDistanceConflict.setSectionConflictIndex(index);
+        return index;
+    }
+
+    /**
+     * Model initialization, the section conflict index is built ahead of the search when Sectioning.SectionConflictIndex is enabled
+     * (defaults to true) and there is a distance conflict extension. Otherwise, the index is built on its first use
+     * (see {@link DistanceConflict#getSectionConflictIndex()}).
+     */
+    @Override
+    public boolean init(Solver<Request, Enrollment> solver) {
+        if (iDistanceConflict != null)
+            iDistanceConflict.getSectionConflictIndex();
+        return super.init(solver);
+    }
+
     /**
      * Average priority of unassigned requests (see
      * {@link Request#getPriority()})
@@ -978,6 +996,9 @@ public class StudentSectioningModel extends ModelWithContext<Request, Enrollment
     public class StudentSectioningModelContext implements AssignmentConstraintContext<Request, Enrollment>, InfoProvider<Request, Enrollment>{
         private Set<Student> iCompleteStudents = new HashSet<Student>();
         private double iTotalValue = 0.0;
+        private Map<DistanceConflict.Conflict, Double> iDistancePenalties = new HashMap<DistanceConflict.Conflict, Double>();
+        private Map<TimeOverlapsCounter.Conflict, Double> iTimeOverlapPenalties = new HashMap<TimeOverlapsCounter.Conflict, Double>();
+        private Set<Config> iChangedConfigs = new HashSet<Config>();
         private int iNrAssignedDummyRequests = 0, iNrCompleteDummyStudents = 0;
         private double iAssignedCRWeight = 0.0, iAssignedDummyCRWeight = 0.0;
         private double iReservedSpace = 0.0, iTotalReservedSpace = 0.0;
@@ -1004,6 +1025,8 @@ public class StudentSectioningModel extends ModelWithContext<Request, Enrollment
             double value = enrollment.getRequest().getWeight() * iStudentWeights.getWeight(assignment, enrollment);
             iTotalValue -= value;
             enrollment.variable().getContext(assignment).setLastWeight(value);
+            if (enrollment.getConfig() != null)
+                iChangedConfigs.add(enrollment.getConfig());
             if (enrollment.isCourseRequest())
                 iAssignedCRWeight += enrollment.getRequest().getWeight();
             if (enrollment.getRequest().isMPP()) {
@@ -1046,6 +1069,8 @@ public class StudentSectioningModel extends ModelWithContext<Request, Enrollment
                 value = enrollment.getRequest().getWeight() * iStudentWeights.getWeight(assignment, enrollment);
             iTotalValue += value;
             cx.setLastWeight(null);
+            if (enrollment.getConfig() != null)
+                iChangedConfigs.add(enrollment.getConfig());
             if (enrollment.isCourseRequest())
                 iAssignedCRWeight -= enrollment.getRequest().getWeight();
             if (enrollment.getRequest().isMPP()) {
@@ -1069,21 +1094,86 @@ public class StudentSectioningModel extends ModelWithContext<Request, Enrollment
         }
         
         public void add(Assignment<Request, Enrollment> assignment, DistanceConflict.Conflict c) {
-            iTotalValue += avg(c.getR1().getWeight(), c.getR2().getWeight()) * iStudentWeights.getDistanceConflictWeight(assignment, c);
+            double penalty = getPenalty(assignment, c);
+            Double old = iDistancePenalties.put(c, penalty);
+            iTotalValue += penalty - (old == null ? 0.0 : old.doubleValue());
         }
 
         public void remove(Assignment<Request, Enrollment> assignment, DistanceConflict.Conflict c) {
-            iTotalValue -= avg(c.getR1().getWeight(), c.getR2().getWeight()) * iStudentWeights.getDistanceConflictWeight(assignment, c);
+            Double old = iDistancePenalties.remove(c);
+            iTotalValue -= (old == null ? getPenalty(assignment, c) : old.doubleValue());
         }
         
         public void add(Assignment<Request, Enrollment> assignment, TimeOverlapsCounter.Conflict c) {
-            if (c.getR1() != null) iTotalValue += c.getR1Weight() * iStudentWeights.getTimeOverlapConflictWeight(assignment, c.getE1(), c);
-            if (c.getR2() != null) iTotalValue += c.getR2Weight() * iStudentWeights.getTimeOverlapConflictWeight(assignment, c.getE2(), c);
+            double penalty = getPenalty(assignment, c);
+            Double old = iTimeOverlapPenalties.put(c, penalty);
+            iTotalValue += penalty - (old == null ? 0.0 : old.doubleValue());
         }
 
         public void remove(Assignment<Request, Enrollment> assignment, TimeOverlapsCounter.Conflict c) {
-            if (c.getR1() != null) iTotalValue -= c.getR1Weight() * iStudentWeights.getTimeOverlapConflictWeight(assignment, c.getE1(), c);
-            if (c.getR2() != null) iTotalValue -= c.getR2Weight() * iStudentWeights.getTimeOverlapConflictWeight(assignment, c.getE2(), c);
+            Double old = iTimeOverlapPenalties.remove(c);
+            iTotalValue -= (old == null ? getPenalty(assignment, c) : old.doubleValue());
+        }
+        
+        private double getPenalty(Assignment<Request, Enrollment> assignment, DistanceConflict.Conflict c) {
+            return avg(c.getR1().getWeight(), c.getR2().getWeight()) * iStudentWeights.getDistanceConflictWeight(assignment, c);
+        }
+        
+        private double getPenalty(Assignment<Request, Enrollment> assignment, TimeOverlapsCounter.Conflict c) {
+            double penalty = 0.0;
+            if (c.getR1() != null) penalty += c.getR1Weight() * iStudentWeights.getTimeOverlapConflictWeight(assignment, c.getE1(), c);
+            if (c.getR2() != null) penalty += c.getR2Weight() * iStudentWeights.getTimeOverlapConflictWeight(assignment, c.getE2(), c);
+            return penalty;
+        }
+        
+        /**
+         * Update the weight of an assigned enrollment and the penalties of its distance and time overlapping conflicts,
+         * only the difference from the values that have been counted so far is applied to the overall solution value
+         * @param assignment current assignment
+         * @param enrollment an assigned enrollment
+         */
+        protected void update(Assignment<Request, Enrollment> assignment, Enrollment enrollment) {
+            Request.RequestContext cx = enrollment.variable().getContext(assignment);
+            double value = enrollment.getRequest().getWeight() * iStudentWeights.getWeight(assignment, enrollment);
+            Double last = cx.getLastWeight();
+            iTotalValue -= value - (last == null ? 0.0 : last.doubleValue());
+            cx.setLastWeight(value);
+            if (iDistanceConflict != null && !iDistancePenalties.isEmpty())
+                for (DistanceConflict.Conflict c: iDistanceConflict.allConflicts(assignment, enrollment)) {
+                    Double old = iDistancePenalties.get(c);
+                    if (old != null) {
+                        double penalty = getPenalty(assignment, c);
+                        iDistancePenalties.put(c, penalty);
+                        iTotalValue += penalty - old.doubleValue();
+                    }
+                }
+            if (iTimeOverlaps != null && !iTimeOverlapPenalties.isEmpty())
+                for (TimeOverlapsCounter.Conflict c: iTimeOverlaps.allConflicts(assignment, enrollment)) {
+                    Double old = iTimeOverlapPenalties.get(c);
+                    if (old != null) {
+                        double penalty = getPenalty(assignment, c);
+                        iTimeOverlapPenalties.put(c, penalty);
+                        iTotalValue += penalty - old.doubleValue();
+                    }
+                }
+        }
+        
+        /**
+         * Precise overall solution value. The weight of an enrollment may depend on the other enrollments of the same
+         * configuration (e.g., section balancing, see {@link PriorityStudentWeights}), so the enrollments of the configurations
+         * that have been changed since the last call are updated (see {@link StudentSectioningModelContext#update(Assignment, Enrollment)})
+         * before the overall solution value is returned.
+         * @param assignment current assignment
+         * @return overall solution value
+         */
+        public double getPreciseValue(Assignment<Request, Enrollment> assignment) {
+            if (!iChangedConfigs.isEmpty()) {
+                for (Config config: iChangedConfigs)
+                    for (Enrollment enrollment: new ArrayList<Enrollment>(config.getEnrollments(assignment)))
+                        update(assignment, enrollment);
+                iChangedConfigs.clear();
+            }
+            return iTotalValue;
         }
         
         /**
@@ -1103,10 +1193,12 @@ public class StudentSectioningModel extends ModelWithContext<Request, Enrollment
         }
         
         /** 
-         * Recompute cached request weights
+         * Recompute cached request weights, the overall solution value is updated by the differences of the enrollment weights
          * @param assignment curent assignment
          */
         public void requestWeightsChanged(Assignment<Request, Enrollment> assignment) {
+            iAssignedSameSectionWeight = 0.0; iAssignedSameChoiceWeight = 0.0; iAssignedSameTimeWeight = 0.0;
+            iAssignedSelectedSectionWeight = 0.0; iAssignedSelectedConfigWeight = 0.0;
             iTotalCRWeight = 0.0;
             iTotalDummyWeight = 0.0; iTotalDummyCRWeight = 0.0;
             iAssignedCRWeight = 0.0;
@@ -1131,6 +1223,7 @@ public class StudentSectioningModel extends ModelWithContext<Request, Enrollment
                     iTotalSelCRWeight += request.getWeight();
                 Enrollment e = assignment.getValue(request);
                 if (e != null) {
+                    update(assignment, e);
                     if (cr)
                         iAssignedCRWeight += request.getWeight();
                     if (request.isMPP()) {
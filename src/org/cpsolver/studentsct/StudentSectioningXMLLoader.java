@@ -1,6 +1,7 @@
 package org.cpsolver.studentsct;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.HashSet;
@@ -94,6 +95,12 @@ import org.dom4j.io.SAXReader;
  * <td>{@link StudentFilter}</td>
  * <td>If provided, students are filtered by the given student filter</td>
  * </tr>
+ * <tr>
+ * <td>General.Checkpoint</td>
+ * <td>{@link String}</td>
+ * <td>Solution checkpoint file (see {@link StudentSectioningCheckpoint}); when the file exists, the best and the current
+ * assignment are restored from the checkpoint instead of the best and current enrollments contained in the XML file</td>
+ * </tr>
  * </table>
  * 
  * <br>
@@ -130,6 +137,7 @@ public class StudentSectioningXMLLoader extends StudentSectioningLoader {
 
     private File iInputFile;
     private File iTimetableFile = null;
+    private File iCheckpointFile = null;
     private boolean iLoadBest = false;
     private boolean iLoadInitial = false;
     private boolean iLoadCurrent = false;
@@ -150,6 +158,8 @@ public class StudentSectioningXMLLoader extends StudentSectioningLoader {
                 "." + File.separator + "solution.xml"));
         if (getModel().getProperties().getProperty("General.InputTimetable") != null)
             iTimetableFile = new File(getModel().getProperties().getProperty("General.InputTimetable"));
+        if (getModel().getProperties().getProperty("General.Checkpoint") != null)
+            iCheckpointFile = new File(getModel().getProperties().getProperty("General.Checkpoint"));
         iLoadBest = getModel().getProperties().getPropertyBoolean("Xml.LoadBest", true);
         iLoadInitial = getModel().getProperties().getPropertyBoolean("Xml.LoadInitial", true);
         iLoadCurrent = getModel().getProperties().getPropertyBoolean("Xml.LoadCurrent", true);
@@ -173,6 +183,13 @@ public class StudentSectioningXMLLoader extends StudentSectioningLoader {
         iInputFile = inputFile;
     }
 
+    /** Set solution checkpoint file (e.g., if it is not set by General.Checkpoint property) 
+     * @param checkpointFile checkpoint file
+     **/
+    public void setCheckpointFile(File checkpointFile) {
+        iCheckpointFile = checkpointFile;
+    }
+
     /** Set student filter 
      * @param filter student filter 
      **/
@@ -703,6 +720,15 @@ public class StudentSectioningXMLLoader extends StudentSectioningLoader {
             getModel().addStudent(student);
         }
 
+        if (iCheckpointFile != null && iCheckpointFile.exists()) {
+            try {
+                new StudentSectioningCheckpoint(getModel()).load(getAssignment(), iCheckpointFile);
+                return;
+            } catch (IOException e) {
+                sLogger.warn("Unable to restore checkpoint " + iCheckpointFile + ": " + e.getMessage());
+            }
+        }
+
         if (!bestEnrollments.isEmpty()) {
             // Enrollments with a reservation must go first
             for (Enrollment enrollment : bestEnrollments) {
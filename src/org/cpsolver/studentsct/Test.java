@@ -39,13 +39,15 @@ import org.cpsolver.ifs.solution.SolutionListener;
 import org.cpsolver.ifs.solver.ParallelSolver;
 import org.cpsolver.ifs.solver.Solver;
 import org.cpsolver.ifs.solver.SolverListener;
+import org.cpsolver.ifs.util.CSVOutput;
+import org.cpsolver.ifs.util.CSVWriter;
 import org.cpsolver.ifs.util.DataProperties;
 import org.cpsolver.ifs.util.JProf;
+import org.cpsolver.ifs.util.ParallelReports;
 import org.cpsolver.ifs.util.Progress;
 import org.cpsolver.ifs.util.ProgressWriter;
 import org.cpsolver.ifs.util.ToolBox;
-import org.cpsolver.studentsct.check.CourseLimitCheck;
-import org.cpsolver.studentsct.check.InevitableStudentConflicts;
+import org.cpsolver.studentsct.check.ModelCheck;
 import org.cpsolver.studentsct.check.OverlapCheck;
 import org.cpsolver.studentsct.check.SectionLimitCheck;
 import org.cpsolver.studentsct.extension.DistanceConflict;
@@ -73,6 +75,7 @@ import org.cpsolver.studentsct.report.CourseConflictTable;
 import org.cpsolver.studentsct.report.DistanceConflictTable;
 import org.cpsolver.studentsct.report.RequestGroupTable;
 import org.cpsolver.studentsct.report.SectionConflictTable;
+import org.cpsolver.studentsct.report.StudentSectioningReport;
 import org.cpsolver.studentsct.report.TimeOverlapConflictTable;
 import org.cpsolver.studentsct.report.UnbalancedSectionsTable;
 import org.dom4j.Document;
@@ -109,7 +112,8 @@ import org.dom4j.io.XMLWriter;
  * {@link StudentSectioningXMLLoader#load()}).
  * <li>Solver is executed (see {@link Solver}).
  * <li>Resultant solution is saved to an XML file (calling
- * {@link StudentSectioningXMLSaver#save()}.
+ * {@link StudentSectioningXMLSaver#save()}. A solution checkpoint is also saved when General.Checkpoint
+ * property is set (see {@link StudentSectioningCheckpoint}), it is restored by {@link StudentSectioningXMLLoader} on the next run.
  * </ul>
  * Also, a log and some reports (e.g., {@link CourseConflictTable} and
  * {@link DistanceConflictTable}) are created in the output folder.
@@ -529,43 +533,61 @@ public class Test {
      *            {@link SectionLimitCheck} are to be performed as well
      */
     public static void printInfo(Solution<Request, Enrollment> solution, boolean computeTables, boolean computeSectInfos, boolean runChecks) {
-        StudentSectioningModel model = (StudentSectioningModel) solution.getModel();
+        final StudentSectioningModel model = (StudentSectioningModel) solution.getModel();
 
         if (computeTables) {
             if (solution.getModel().assignedVariables(solution.getAssignment()).size() > 0) {
                 try {
                     File outDir = new File(model.getProperties().getProperty("General.Output", "."));
                     outDir.mkdirs();
-                    CourseConflictTable cct = new CourseConflictTable((StudentSectioningModel) solution.getModel());
-                    cct.createTable(solution.getAssignment(), true, false, true).save(new File(outDir, "conflicts-lastlike.csv"));
-                    cct.createTable(solution.getAssignment(), false, true, true).save(new File(outDir, "conflicts-real.csv"));
-
-                    DistanceConflictTable dct = new DistanceConflictTable((StudentSectioningModel) solution.getModel());
-                    dct.createTable(solution.getAssignment(), true, false, true).save(new File(outDir, "distances-lastlike.csv"));
-                    dct.createTable(solution.getAssignment(), false, true, true).save(new File(outDir, "distances-real.csv"));
-                    
-                    SectionConflictTable sct = new SectionConflictTable((StudentSectioningModel) solution.getModel(), SectionConflictTable.Type.OVERLAPS);
-                    sct.createTable(solution.getAssignment(), true, false, true).save(new File(outDir, "time-conflicts-lastlike.csv"));
-                    sct.createTable(solution.getAssignment(), false, true, true).save(new File(outDir, "time-conflicts-real.csv"));
-                    
-                    SectionConflictTable ust = new SectionConflictTable((StudentSectioningModel) solution.getModel(), SectionConflictTable.Type.UNAVAILABILITIES);
-                    ust.createTable(solution.getAssignment(), true, false, true).save(new File(outDir, "availability-conflicts-lastlike.csv"));
-                    ust.createTable(solution.getAssignment(), false, true, true).save(new File(outDir, "availability-conflicts-real.csv"));
-                    
-                    SectionConflictTable ct = new SectionConflictTable((StudentSectioningModel) solution.getModel(), SectionConflictTable.Type.OVERLAPS_AND_UNAVAILABILITIES);
-                    ct.createTable(solution.getAssignment(), true, false, true).save(new File(outDir, "section-conflicts-lastlike.csv"));
-                    ct.createTable(solution.getAssignment(), false, true, true).save(new File(outDir, "section-conflicts-real.csv"));
-                    
-                    UnbalancedSectionsTable ubt = new UnbalancedSectionsTable((StudentSectioningModel) solution.getModel());
-                    ubt.createTable(solution.getAssignment(), true, false, true).save(new File(outDir, "unbalanced-lastlike.csv"));
-                    ubt.createTable(solution.getAssignment(), false, true, true).save(new File(outDir, "unbalanced-real.csv"));
-                    
-                    TimeOverlapConflictTable toc = new TimeOverlapConflictTable((StudentSectioningModel) solution.getModel());
-                    toc.createTable(solution.getAssignment(), true, false, true).save(new File(outDir, "time-overlaps-lastlike.csv"));
-                    toc.createTable(solution.getAssignment(), false, true, true).save(new File(outDir, "time-overlaps-real.csv"));
-                    
-                    RequestGroupTable rqt = new RequestGroupTable((StudentSectioningModel) solution.getModel());
-                    rqt.create(solution.getAssignment(), model.getProperties()).save(new File(outDir, "request-groups.csv"));
+                    final Assignment<Request, Enrollment> assignment = solution.getAssignment();
+                    // course conflict table may fix an assignment, it is computed before the other reports
+                    CourseConflictTable cct = new CourseConflictTable(model);
+                    CSVWriter csv = new CSVWriter(new File(outDir, "conflicts-lastlike.csv"));
+                    try {
+                        cct.createTable(assignment, true, false, true, csv);
+                    } finally {
+                        csv.close();
+                    }
+                    csv = new CSVWriter(new File(outDir, "conflicts-real.csv"));
+                    try {
+                        cct.createTable(assignment, false, true, true, csv);
+                    } finally {
+                        csv.close();
+                    }
+
+                    ParallelReports reports = new ParallelReports(model.getProperties().getPropertyInt("Reports.NrThreads", 1));
+
+                    String[] names = new String[] {
+                            "distances", "time-conflicts", "availability-conflicts", "section-conflicts", "unbalanced", "time-overlaps" };
+                    StudentSectioningReport[] instances = new StudentSectioningReport[] {
+                            new DistanceConflictTable(model),
+                            new SectionConflictTable(model, SectionConflictTable.Type.OVERLAPS),
+                            new SectionConflictTable(model, SectionConflictTable.Type.UNAVAILABILITIES),
+                            new SectionConflictTable(model, SectionConflictTable.Type.OVERLAPS_AND_UNAVAILABILITIES),
+                            new UnbalancedSectionsTable(model), new TimeOverlapConflictTable(model) };
+                    for (int i = 0; i < instances.length; i++) {
+                        final StudentSectioningReport report = instances[i];
+                        for (boolean lastLike: new boolean[] { true, false }) {
+                            final DataProperties properties = new DataProperties();
+                            properties.setProperty("lastlike", lastLike ? "true" : "false");
+                            properties.setProperty("real", lastLike ? "false" : "true");
+                            properties.setProperty("useAmPm", "true");
+                            reports.add(new File(outDir, names[i] + (lastLike ? "-lastlike.csv" : "-real.csv")), new ParallelReports.Report() {
+                                @Override
+                                public void write(CSVOutput csv) { report.create(assignment, properties, csv); }
+                            });
+                        }
+                    }
+
+                    final RequestGroupTable rqt = new RequestGroupTable(model);
+                    reports.add(new File(outDir, "request-groups.csv"), new ParallelReports.Report() {
+                        @Override
+                        public void write(CSVOutput csv) { rqt.create(assignment, model.getProperties(), csv); }
+                    });
+
+                    if (!reports.execute())
+                        sLog.error("Failed to create some of the reports.");
                 } catch (IOException e) {
                     sLog.error(e.getMessage(), e);
                 }
@@ -578,25 +600,14 @@ public class Test {
             model.computeOnlineSectioningInfos(solution.getAssignment());
 
         if (runChecks) {
+            ModelCheck ch = new ModelCheck(model, model.getProperties().getPropertyBoolean("Test.InevitableStudentConflictsCheck", false));
+            ch.check(solution.getAssignment());
             try {
-                if (model.getProperties().getPropertyBoolean("Test.InevitableStudentConflictsCheck", false)) {
-                    InevitableStudentConflicts ch = new InevitableStudentConflicts(model);
-                    if (!ch.check(solution.getAssignment()))
-                        ch.getCSVFile().save(
-                                new File(new File(model.getProperties().getProperty("General.Output", ".")),
-                                        "inevitable-conflicts.csv"));
-                }
-            } catch (IOException e) {
-                sLog.error(e.getMessage(), e);
-            }
-            new OverlapCheck(model).check(solution.getAssignment());
-            new SectionLimitCheck(model).check(solution.getAssignment());
-            try {
-                CourseLimitCheck ch = new CourseLimitCheck(model);
-                if (!ch.check())
-                    ch.getCSVFile().save(
-                            new File(new File(model.getProperties().getProperty("General.Output", ".")),
-                                    "course-limits.csv"));
+                File outDir = new File(model.getProperties().getProperty("General.Output", "."));
+                if (!ch.isInevitableStudentConflictsOk())
+                    ch.getInevitableStudentConflicts().getCSVFile().save(new File(outDir, "inevitable-conflicts.csv"));
+                if (!ch.isCourseLimitsOk())
+                    ch.getCourseLimitCheck().getCSVFile().save(new File(outDir, "course-limits.csv"));
             } catch (IOException e) {
                 sLog.error(e.getMessage(), e);
             }
@@ -1381,8 +1392,15 @@ public class Test {
             try {
                 if (iSolver.isRunning()) iSolver.stopSolver();
                 Solution<Request, Enrollment> solution = iSolver.lastSolution();
-                solution.restoreBest();
                 DataProperties cfg = iSolver.getProperties();
+                if (cfg.getProperty("General.Checkpoint") != null) {
+                    try {
+                        new StudentSectioningCheckpoint((StudentSectioningModel) solution.getModel()).save(solution.getAssignment(), new File(cfg.getProperty("General.Checkpoint")));
+                    } catch (Exception e) {
+                        sLog.error("Unable to save checkpoint, reason: " + e.getMessage(), e);
+                    }
+                }
+                solution.restoreBest();
                 
                 printInfo(solution,
                         cfg.getPropertyBoolean("Test.CreateReports", true),
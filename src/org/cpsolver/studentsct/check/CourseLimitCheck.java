@@ -1,6 +1,8 @@
 package org.cpsolver.studentsct.check;
 
 import java.text.DecimalFormat;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.cpsolver.ifs.util.CSVFile;
 import org.cpsolver.studentsct.StudentSectioningModel;
@@ -131,6 +133,42 @@ public class CourseLimitCheck {
      * @return false, if there is such a case
      */
     public boolean check() {
+        Map<Course, double[]> requested = new HashMap<Course, double[]>();
+        for (Request request : getModel().variables())
+            addRequest(requested, request);
+        return check(requested);
+    }
+
+    /**
+     * Add the weight of the given request to the requested weights of its courses
+     * @param requested requested weights of courses (total, real, and last-like students) 
+     * @param request a request
+     */
+    public static void addRequest(Map<Course, double[]> requested, Request request) {
+        if (!(request instanceof CourseRequest)) return;
+        for (Course course : ((CourseRequest) request).getCourses()) {
+            double[] weights = requested.get(course);
+            if (weights == null) {
+                weights = new double[] { 0.0, 0.0, 0.0 };
+                requested.put(course, weights);
+            }
+            weights[0] += request.getWeight();
+            if (request.getStudent().isDummy())
+                weights[2] += request.getWeight();
+            else
+                weights[1] += request.getWeight();
+        }
+    }
+
+    /**
+     * Check for courses where the limit is below the number of students that
+     * request the course
+     * 
+     * @param requested requested weights of courses (total, real, and last-like students), see
+     *            {@link CourseLimitCheck#addRequest(Map, Request)}
+     * @return false, if there is such a case
+     */
+    public boolean check(Map<Course, double[]> requested) {
         sLog.info("Checking for course limits...");
         boolean ret = true;
         for (Offering offering : getModel().getOfferings()) {
@@ -157,17 +195,9 @@ public class CourseLimitCheck {
                     offeringLimit = -1;
                     continue;
                 }
-                double total = 0;
-                double lastLike = 0, real = 0;
-                for (Request request : getModel().variables()) {
-                    if (request instanceof CourseRequest && ((CourseRequest) request).getCourses().contains(course)) {
-                        total += request.getWeight();
-                        if (request.getStudent().isDummy())
-                            lastLike += request.getWeight();
-                        else
-                            real += request.getWeight();
-                    }
-                }
+                double[] weights = requested.get(course);
+                double total = (weights == null ? 0.0 : weights[0]);
+                double real = (weights == null ? 0.0 : weights[1]), lastLike = (weights == null ? 0.0 : weights[2]);
                 nrStudents += Math.round(total);
                 offeringLimit += course.getLimit();
                 if (Math.round(total) > course.getLimit()) {
@@ -9,6 +9,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeSet;
 
 import org.cpsolver.ifs.assignment.Assignment;
@@ -85,6 +86,12 @@ public class InevitableStudentConflicts {
     private CSVFile iCSVFile = null;
     public static boolean sDebug = false;
     private boolean iDeleteInevitable;
+    private static Comparator<Object> sSimpleCmp = new Comparator<Object>() {
+        @Override
+        public int compare(Object o1, Object o2) {
+            return o1.toString().compareTo(o2.toString());
+        }
+    };
 
     /**
      * Constructor
@@ -123,84 +130,99 @@ public class InevitableStudentConflicts {
      **/
     public boolean check(Assignment<Request, Enrollment> assignment) {
         sLog.info("Checking for inevitable student conflicts...");
-        HashMap<TreeSet<Object>, Object[]> noGoods = new HashMap<TreeSet<Object>, Object[]>();
-        long studentWithoutCompleteSchedule = 0;
-        long inevitableRequests = 0;
-        double inevitableRequestWeight = 0.0;
-        long incompleteInevitableRequests = 0;
-        double incompleteInevitableRequestWeight = 0.0;
-        long total = 0;
-        Comparator<Object> simpleCmp = new Comparator<Object>() {
-            @Override
-            public int compare(Object o1, Object o2) {
-                return o1.toString().compareTo(o2.toString());
-            }
-        };
-        HashSet<Request> requests2remove = new HashSet<Request>();
-        for (Student student : getModel().getStudents()) {
-            sLog.debug("  Checking " + (++total) + ". student " + student + "...");
-            if (student.isComplete(assignment)) {
-                for (Request request : student.getRequests()) {
-                    if (assignment.getValue(request) == null) {
-                        inevitableRequests++;
-                        inevitableRequestWeight += request.getWeight();
-                    }
-                }
-            } else {
-                StudentCheck ch = new StudentCheck(student.getRequests());
-                ch.check(assignment);
-                if (!ch.isBestComplete()) {
-                    sLog.info("    Student " + student + " cannot have a complete schedule");
-                    studentWithoutCompleteSchedule++;
+        StudentResult result = new StudentResult();
+        for (Student student : getModel().getStudents())
+            result.add(check(assignment, student));
+        return report(assignment, result);
+    }
+
+    /**
+     * Check one student for inevitable student conflicts. This method does not change the model or this
+     * class, so the students can be checked in parallel (see {@link ModelCheck}); the results are then to be
+     * merged using {@link StudentResult#add(StudentResult)} and passed to
+     * {@link InevitableStudentConflicts#report(Assignment, StudentResult)}.
+     * @param assignment current assignment
+     * @param student a student to check
+     * @return inevitable student conflicts of the student
+     */
+    public StudentResult check(Assignment<Request, Enrollment> assignment, Student student) {
+        sLog.debug("  Checking student " + student + "...");
+        StudentResult result = new StudentResult();
+        if (student.isComplete(assignment)) {
+            for (Request request : student.getRequests()) {
+                if (assignment.getValue(request) == null) {
+                    result.iInevitableRequests++;
+                    result.iInevitableRequestWeight += request.getWeight();
                 }
-                int idx = 0;
-                for (Iterator<Request> f = student.getRequests().iterator(); f.hasNext(); idx++) {
-                    Request request = f.next();
-                    Enrollment enrollment = ch.getBestAssignment()[idx];
-                    if (enrollment == null) {
-                        if (!ch.isBestComplete()) {
-                            List<Request> noGood = noGood(assignment, student, ch, idx);
-                            sLog.info("      Request " + request + " cannot be assigned");
+            }
+        } else {
+            // Enrollments of each course request are computed once, shared by all the checks of the student
+            Map<Request, List<Enrollment>> values = new HashMap<Request, List<Enrollment>>();
+            StudentCheck ch = new StudentCheck(student.getRequests(), values);
+            ch.check(assignment);
+            if (!ch.isBestComplete()) {
+                sLog.info("    Student " + student + " cannot have a complete schedule");
+                result.iStudentWithoutCompleteSchedule++;
+            }
+            int idx = 0;
+            for (Iterator<Request> f = student.getRequests().iterator(); f.hasNext(); idx++) {
+                Request request = f.next();
+                Enrollment enrollment = ch.getBestAssignment()[idx];
+                if (enrollment == null) {
+                    if (!ch.isBestComplete()) {
+                        List<Request> noGood = noGood(assignment, student, ch, idx, values);
+                        sLog.info("      Request " + request + " cannot be assigned");
+                        if (sLog.isDebugEnabled())
                             for (Request r : noGood) {
                                 sLog.debug("        " + r);
-                                Collection<Enrollment> values = null;
-                                if (r instanceof CourseRequest) {
-                                    values = ((CourseRequest) r).getEnrollmentsSkipSameTime(assignment);
-                                } else {
-                                    values = request.computeEnrollments(assignment);
-                                }
-                                for (Enrollment en : values) {
+                                Collection<Enrollment> rValues = values.get(r);
+                                if (rValues == null)
+                                    rValues = request.computeEnrollments(assignment);
+                                for (Enrollment en : rValues) {
                                     sLog.debug("          " + enrollment2string(en));
                                 }
                             }
-                            if (iDeleteInevitable) {
-                                requests2remove.add(request); // noGood.lastElement()
-                                sLog.info("        -- request " + request + " picked to be removed from the model");
-                            }
-                            TreeSet<Object> key = new TreeSet<Object>(simpleCmp);
-                            for (Request r : noGood) {
-                                if (r instanceof CourseRequest) {
-                                    key.add(((CourseRequest) r).getCourses().get(0));
-                                } else {
-                                    key.add("Free " + ((FreeTimeRequest) r).getTime().getLongName(true));
-                                }
-                            }
-                            Object[] counter = noGoods.get(key);
-                            int ir = (counter == null ? 1 : ((Integer) counter[0]).intValue() + 1);
-                            double irw = (counter == null ? 0.0 : ((Double) counter[1]).doubleValue())
-                                    + request.getWeight();
-                            noGoods.put(key, new Object[] { new Integer(ir), new Double(irw) });
-                            if (ch.canAssign(request, idx)) {
-                                incompleteInevitableRequests++;
-                                incompleteInevitableRequestWeight += request.getWeight();
+                        if (iDeleteInevitable) {
+                            result.iRequests2remove.add(request); // noGood.lastElement()
+                            sLog.info("        -- request " + request + " picked to be removed from the model");
+                        }
+                        TreeSet<Object> key = new TreeSet<Object>(sSimpleCmp);
+                        for (Request r : noGood) {
+                            if (r instanceof CourseRequest) {
+                                key.add(((CourseRequest) r).getCourses().get(0));
+                            } else {
+                                key.add("Free " + ((FreeTimeRequest) r).getTime().getLongName(true));
                             }
                         }
-                        inevitableRequests++;
-                        inevitableRequestWeight += request.getWeight();
+                        result.addNoGood(key, 1, request.getWeight());
+                        if (ch.canAssign(request, idx)) {
+                            result.iIncompleteInevitableRequests++;
+                            result.iIncompleteInevitableRequestWeight += request.getWeight();
+                        }
                     }
+                    result.iInevitableRequests++;
+                    result.iInevitableRequestWeight += request.getWeight();
                 }
             }
         }
+        return result;
+    }
+
+    /**
+     * Create the report from the merged results of all the students, remove the inevitable requests from the
+     * model when InevitableStudentConflicts.DeleteInevitable is set.
+     * @param assignment current assignment
+     * @param result merged results of all the students
+     * @return true if there are no inevitable student conflicts
+     */
+    public boolean report(Assignment<Request, Enrollment> assignment, StudentResult result) {
+        Map<TreeSet<Object>, Object[]> noGoods = result.iNoGoods;
+        Set<Request> requests2remove = result.iRequests2remove;
+        long studentWithoutCompleteSchedule = result.iStudentWithoutCompleteSchedule;
+        long inevitableRequests = result.iInevitableRequests;
+        double inevitableRequestWeight = result.iInevitableRequestWeight;
+        long incompleteInevitableRequests = result.iIncompleteInevitableRequests;
+        double incompleteInevitableRequestWeight = result.iIncompleteInevitableRequestWeight;
         for (Map.Entry<TreeSet<Object>, Object[]> entry : noGoods.entrySet()) {
             TreeSet<Object> noGood = entry.getKey();
             Object[] counter = entry.getValue();
@@ -267,6 +289,49 @@ public class InevitableStudentConflicts {
         return (inevitableRequests == 0);
     }
 
+    /**
+     * Inevitable student conflicts of one or more students
+     */
+    public static class StudentResult {
+        private Map<TreeSet<Object>, Object[]> iNoGoods = new HashMap<TreeSet<Object>, Object[]>();
+        private Set<Request> iRequests2remove = new HashSet<Request>();
+        private long iStudentWithoutCompleteSchedule = 0;
+        private long iInevitableRequests = 0;
+        private double iInevitableRequestWeight = 0.0;
+        private long iIncompleteInevitableRequests = 0;
+        private double iIncompleteInevitableRequestWeight = 0.0;
+
+        private void addNoGood(TreeSet<Object> key, int nrRequests, double weight) {
+            Object[] counter = iNoGoods.get(key);
+            int ir = (counter == null ? 0 : ((Integer) counter[0]).intValue()) + nrRequests;
+            double irw = (counter == null ? 0.0 : ((Double) counter[1]).doubleValue()) + weight;
+            iNoGoods.put(key, new Object[] { new Integer(ir), new Double(irw) });
+        }
+
+        /**
+         * Requests that are to be removed from the model (InevitableStudentConflicts.DeleteInevitable is set)
+         * @return requests to remove
+         */
+        public Set<Request> getRequests2remove() {
+            return iRequests2remove;
+        }
+
+        /**
+         * Merge the given result into this one
+         * @param result result of some other students
+         */
+        public void add(StudentResult result) {
+            for (Map.Entry<TreeSet<Object>, Object[]> entry : result.iNoGoods.entrySet())
+                addNoGood(entry.getKey(), ((Integer) entry.getValue()[0]).intValue(), ((Double) entry.getValue()[1]).doubleValue());
+            iRequests2remove.addAll(result.iRequests2remove);
+            iStudentWithoutCompleteSchedule += result.iStudentWithoutCompleteSchedule;
+            iInevitableRequests += result.iInevitableRequests;
+            iInevitableRequestWeight += result.iInevitableRequestWeight;
+            iIncompleteInevitableRequests += result.iIncompleteInevitableRequests;
+            iIncompleteInevitableRequestWeight += result.iIncompleteInevitableRequestWeight;
+        }
+    }
+
     /** Remove given request from the model */
     private void removeRequest(Request request) {
         request.getStudent().getRequests().remove(request);
@@ -318,10 +383,12 @@ public class InevitableStudentConflicts {
      *            student checked that failed to find a complete schedule
      * @param idx
      *            index of unassigned course in the best found schedule
+     * @param values
+     *            enrollments of the course requests of the student
      * @return the smallest set of requests that cannot be assigned all
      *         together, containing the request with the given index
      */
-    private List<Request> noGood(Assignment<Request, Enrollment> assignment, Student student, StudentCheck ch, int idx) {
+    private List<Request> noGood(Assignment<Request, Enrollment> assignment, Student student, StudentCheck ch, int idx, Map<Request, List<Enrollment>> values) {
         List<Request> noGood = new ArrayList<Request>();
         Request rx = student.getRequests().get(idx);
         for (int i = 0; i < student.getRequests().size(); i++) {
@@ -335,7 +402,7 @@ public class InevitableStudentConflicts {
                 continue;
             List<Request> newNoGood = new ArrayList<Request>(noGood);
             newNoGood.remove(r);
-            StudentCheck chx = new StudentCheck(newNoGood);
+            StudentCheck chx = new StudentCheck(newNoGood, values);
             chx.check(assignment);
             if (!chx.isBestComplete())
                 noGood = newNoGood;
@@ -350,7 +417,7 @@ public class InevitableStudentConflicts {
     public static class StudentCheck {
         private List<Request> iRequests;
         private Enrollment[] iAssignment, iBestAssignment;
-        private HashMap<Request, List<Enrollment>> iValues;
+        private Map<Request, List<Enrollment>> iValues, iSharedValues;
         private int iBestNrAssigned = 0;
         private boolean iBestComplete = false;
 
@@ -361,7 +428,21 @@ public class InevitableStudentConflicts {
          *            course and free time requests of a student
          */
         public StudentCheck(List<Request> requests) {
+            this(requests, null);
+        }
+
+        /**
+         * Constructor
+         * 
+         * @param requests
+         *            course and free time requests of a student
+         * @param values
+         *            cache of the enrollments of the course requests, shared by
+         *            the checks of the same student (null if not shared)
+         */
+        public StudentCheck(List<Request> requests, Map<Request, List<Enrollment>> values) {
             iRequests = requests;
+            iSharedValues = values;
         }
 
         /**
@@ -374,7 +455,7 @@ public class InevitableStudentConflicts {
             iBestAssignment = null;
             iBestNrAssigned = 0;
             iBestComplete = false;
-            iValues = new HashMap<Request, List<Enrollment>>();
+            iValues = (iSharedValues == null ? new HashMap<Request, List<Enrollment>>() : iSharedValues);
             backTrack(assignment, 0);
         }
 
@@ -0,0 +1,292 @@
+package org.cpsolver.studentsct.check;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.cpsolver.ifs.assignment.Assignment;
+import org.cpsolver.studentsct.StudentSectioningModel;
+import org.cpsolver.studentsct.model.Config;
+import org.cpsolver.studentsct.model.Course;
+import org.cpsolver.studentsct.model.CourseRequest;
+import org.cpsolver.studentsct.model.Enrollment;
+import org.cpsolver.studentsct.model.Offering;
+import org.cpsolver.studentsct.model.Request;
+import org.cpsolver.studentsct.model.Section;
+import org.cpsolver.studentsct.model.Student;
+import org.cpsolver.studentsct.model.Subpart;
+import org.cpsolver.studentsct.reservation.Reservation;
+
+/**
+ * This class runs all the model checks ({@link InevitableStudentConflicts}, {@link OverlapCheck},
+ * {@link SectionLimitCheck}, and {@link CourseLimitCheck}) in one pass. The students are split
+ * into a number of blocks that are checked in parallel, each student is checked for inevitable
+ * conflicts and overlaps and its requests are counted towards the course limits, while the section
+ * limits are checked at the same time. Once all the students are checked, the results are merged
+ * and the reports (and model changes) of the individual checks are made in the same order
+ * as when the checks are run one after the other.
+ *
+ * <br>
+ * <br>
+ *
+ * Usage:
+ * <pre><code>
+ * &nbsp;&nbsp;&nbsp;&nbsp; ModelCheck ch = new ModelCheck(model, true);
+ * &nbsp;&nbsp;&nbsp;&nbsp; ch.check(assignment);
+ * &nbsp;&nbsp;&nbsp;&nbsp; if (!ch.isCourseLimitsOk()) ch.getCourseLimitCheck().getCSVFile().save(new File("course-limits.csv"));
+ * </code></pre>
+ *
+ * <br>
+ * Parameters:
+ * <table border='1' summary='Related Solver Parameters'>
+ * <tr>
+ * <th>Parameter</th>
+ * <th>Type</th>
+ * <th>Comment</th>
+ * </tr>
+ * <tr>
+ * <td>ModelCheck.NrThreads</td>
+ * <td>{@link Integer}</td>
+ * <td>Number of threads to use, -1 for the number of available processors.</td>
+ * </tr>
+ * </table>
+ *
+ * <br>
+ * <br>
+ *
+ * @version StudentSct 1.3 (Student Sectioning)<br>
+ *          Copyright (C) 2017 Tomas Muller<br>
+ *          <a href="mailto:muller@unitime.org">muller@unitime.org</a><br>
+ *          <a href="http://muller.unitime.org">http://muller.unitime.org</a><br>
+ * <br>
+ *          This library is free software; you can redistribute it and/or modify
+ *          it under the terms of the GNU Lesser General Public License as
+ *          published by the Free Software Foundation; either version 3 of the
+ *          License, or (at your option) any later version. <br>
+ * <br>
+ *          This library is distributed in the hope that it will be useful, but
+ *          WITHOUT ANY WARRANTY; without even the implied warranty of
+ *          MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *          Lesser General Public License for more details. <br>
+ * <br>
+ *          You should have received a copy of the GNU Lesser General Public
+ *          License along with this library; if not see
+ *          <a href='http://www.gnu.org/licenses/'>http://www.gnu.org/licenses/</a>.
+ */
+public class ModelCheck {
+    private static org.apache.log4j.Logger sLog = org.apache.log4j.Logger.getLogger(ModelCheck.class);
+    private StudentSectioningModel iModel;
+    private int iNrThreads;
+    private InevitableStudentConflicts iInevitableStudentConflicts = null;
+    private OverlapCheck iOverlapCheck;
+    private SectionLimitCheck iSectionLimitCheck;
+    private CourseLimitCheck iCourseLimitCheck;
+    private boolean iInevitableStudentConflictsOk = true, iOverlapsOk = true, iSectionLimitsOk = true, iCourseLimitsOk = true;
+
+    /**
+     * Constructor
+     *
+     * @param model
+     *            student sectioning model
+     * @param inevitableStudentConflicts
+     *            true if the model is to be checked for inevitable student conflicts as well
+     */
+    public ModelCheck(StudentSectioningModel model, boolean inevitableStudentConflicts) {
+        iModel = model;
+        int nrThreads = model.getProperties().getPropertyInt("ModelCheck.NrThreads", -1);
+        iNrThreads = (nrThreads < 0 ? Runtime.getRuntime().availableProcessors() : Math.max(1, nrThreads));
+        if (inevitableStudentConflicts)
+            iInevitableStudentConflicts = new InevitableStudentConflicts(model);
+        iOverlapCheck = new OverlapCheck(model);
+        iSectionLimitCheck = new SectionLimitCheck(model);
+        iCourseLimitCheck = new CourseLimitCheck(model);
+    }
+
+    /** Return student sectioning model
+     * @return problem model
+     **/
+    public StudentSectioningModel getModel() {
+        return iModel;
+    }
+
+    /**
+     * Run all the checks
+     * @param assignment current assignment
+     * @return true if all the checks passed
+     */
+    public boolean check(final Assignment<Request, Enrollment> assignment) {
+        sLog.info("Checking model" + (iNrThreads > 1 ? " using " + iNrThreads + " threads" : "") + "...");
+        final List<Student> students = new ArrayList<Student>(getModel().getStudents());
+        int nrBlocks = Math.max(1, Math.min(iNrThreads, students.size()));
+
+        // Assignment contexts are created lazily, create them before the model is accessed from multiple threads
+        if (nrBlocks > 1)
+            createContexts(assignment);
+
+        ExecutorService executor = (nrBlocks <= 1 ? null : Executors.newFixedThreadPool(nrBlocks, new ThreadFactory() {
+            private int iCount = 0;
+            @Override
+            public synchronized Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "ModelCheck-" + (++iCount));
+                thread.setDaemon(true);
+                return thread;
+            }
+        }));
+        try {
+            List<Callable<StudentBlock>> blocks = new ArrayList<Callable<StudentBlock>>(nrBlocks);
+            for (int b = 0; b < nrBlocks; b++) {
+                final int first = (int) ((long) b * students.size() / nrBlocks);
+                final int last = (int) ((long) (b + 1) * students.size() / nrBlocks);
+                blocks.add(new Callable<StudentBlock>() {
+                    @Override
+                    public StudentBlock call() {
+                        return check(assignment, students.subList(first, last));
+                    }
+                });
+            }
+            Callable<Boolean> sectionLimits = new Callable<Boolean>() {
+                @Override
+                public Boolean call() {
+                    return iSectionLimitCheck.check(assignment);
+                }
+            };
+
+            StudentBlock result = new StudentBlock();
+            if (executor == null) {
+                for (Callable<StudentBlock> block: blocks)
+                    result.add(block.call());
+                iSectionLimitsOk = sectionLimits.call();
+            } else {
+                List<Future<StudentBlock>> futures = new ArrayList<Future<StudentBlock>>(nrBlocks);
+                for (Callable<StudentBlock> block: blocks)
+                    futures.add(executor.submit(block));
+                Future<Boolean> sectionLimitsFuture = executor.submit(sectionLimits);
+                for (Future<StudentBlock> future: futures)
+                    result.add(future.get());
+                iSectionLimitsOk = sectionLimitsFuture.get();
+            }
+
+            // Reports and model changes are made in the same order as by the individual checks
+            if (iInevitableStudentConflicts != null) {
+                sLog.info("Checking for inevitable student conflicts...");
+                iInevitableStudentConflictsOk = iInevitableStudentConflicts.report(assignment, result.iInevitable);
+                // Requests removed from the model are no longer counted towards the course limits
+                for (Request request: result.iInevitable.getRequests2remove())
+                    if (request instanceof CourseRequest)
+                        for (Course course: ((CourseRequest) request).getCourses()) {
+                            double[] weights = result.iRequested.get(course);
+                            weights[0] -= request.getWeight();
+                            weights[request.getStudent().isDummy() ? 2 : 1] -= request.getWeight();
+                        }
+            }
+            iOverlapsOk = result.iOverlapsOk;
+            iCourseLimitsOk = iCourseLimitCheck.check(result.iRequested);
+        } catch (Exception e) {
+            throw new RuntimeException("Model check failed: " + e.getMessage(), e);
+        } finally {
+            if (executor != null)
+                executor.shutdown();
+        }
+        return iInevitableStudentConflictsOk && iOverlapsOk && iSectionLimitsOk && iCourseLimitsOk;
+    }
+
+    /** Check the given students */
+    private StudentBlock check(Assignment<Request, Enrollment> assignment, List<Student> students) {
+        StudentBlock block = new StudentBlock();
+        for (Student student: students) {
+            if (iInevitableStudentConflicts != null)
+                block.iInevitable.add(iInevitableStudentConflicts.check(assignment, student));
+            if (!iOverlapCheck.check(assignment, student))
+                block.iOverlapsOk = false;
+            for (Request request: student.getRequests())
+                CourseLimitCheck.addRequest(block.iRequested, request);
+        }
+        return block;
+    }
+
+    /** Make sure that the assignment contexts of all offerings, reservations, configurations, sections, and courses exist */
+    private void createContexts(Assignment<Request, Enrollment> assignment) {
+        for (Offering offering: getModel().getOfferings()) {
+            offering.getUnreservedSpace(assignment, null);
+            for (Reservation reservation: offering.getReservations())
+                reservation.getReservedAvailableSpace(assignment, null);
+            for (Course course: offering.getCourses())
+                course.getEnrollmentWeight(assignment, null);
+            for (Config config: offering.getConfigs()) {
+                config.getEnrollmentWeight(assignment, null);
+                for (Subpart subpart: config.getSubparts())
+                    for (Section section: subpart.getSections())
+                        section.getEnrollmentWeight(assignment, null);
+            }
+        }
+    }
+
+    /** Inevitable student conflicts check, null if not performed
+     * @return inevitable student conflicts check
+     **/
+    public InevitableStudentConflicts getInevitableStudentConflicts() {
+        return iInevitableStudentConflicts;
+    }
+
+    /** Course limit check
+     * @return course limit check
+     **/
+    public CourseLimitCheck getCourseLimitCheck() {
+        return iCourseLimitCheck;
+    }
+
+    /** True if there are no inevitable student conflicts (or the check was not performed)
+     * @return result of the last {@link ModelCheck#check(Assignment)}
+     **/
+    public boolean isInevitableStudentConflictsOk() {
+        return iInevitableStudentConflictsOk;
+    }
+
+    /** True if there are no overlapping sections attended by the same student
+     * @return result of the last {@link ModelCheck#check(Assignment)}
+     **/
+    public boolean isOverlapsOk() {
+        return iOverlapsOk;
+    }
+
+    /** True if there are no sections over their limits
+     * @return result of the last {@link ModelCheck#check(Assignment)}
+     **/
+    public boolean isSectionLimitsOk() {
+        return iSectionLimitsOk;
+    }
+
+    /** True if there are no courses requested by more students than allowed by their limits
+     * @return result of the last {@link ModelCheck#check(Assignment)}
+     **/
+    public boolean isCourseLimitsOk() {
+        return iCourseLimitsOk;
+    }
+
+    /** Results of a block of students */
+    private static class StudentBlock {
+        private InevitableStudentConflicts.StudentResult iInevitable = new InevitableStudentConflicts.StudentResult();
+        private boolean iOverlapsOk = true;
+        private Map<Course, double[]> iRequested = new HashMap<Course, double[]>();
+
+        private void add(StudentBlock block) {
+            iInevitable.add(block.iInevitable);
+            if (!block.iOverlapsOk) iOverlapsOk = false;
+            for (Map.Entry<Course, double[]> entry: block.iRequested.entrySet()) {
+                double[] weights = iRequested.get(entry.getKey());
+                if (weights == null) {
+                    iRequested.put(entry.getKey(), entry.getValue());
+                } else {
+                    for (int i = 0; i < weights.length; i++)
+                        weights[i] += entry.getValue()[i];
+                }
+            }
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package org.cpsolver.studentsct.constraint;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
@@ -244,6 +246,16 @@ public class ConfigLimit extends GlobalConstraint<Request, Enrollment> {
         return (enrlWeight > config.getLimit());
     }
     
+    /**
+     * The conflicts of an enrollment with this constraint only depend on the enrollments of the same offering
+     */
+    @Override
+    public Collection<?> getConflictKeys(Enrollment enrollment) {
+        if (enrollment.getOffering() == null)
+            return Collections.emptyList();
+        return Collections.singleton(enrollment.getOffering());
+    }
+    
     @Override
     public String toString() {
         return "ConfigLimit";
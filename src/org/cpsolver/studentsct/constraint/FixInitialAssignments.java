@@ -1,5 +1,7 @@
 package org.cpsolver.studentsct.constraint;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Set;
 
 import org.cpsolver.ifs.assignment.Assignment;
@@ -48,4 +50,12 @@ public class FixInitialAssignments extends GlobalConstraint<Request, Enrollment>
                 return;
             }
     }
+    
+    /**
+     * The conflicts of an enrollment with this constraint do not depend on the other enrollments
+     */
+    @Override
+    public Collection<?> getConflictKeys(Enrollment enrollment) {
+        return Collections.emptyList();
+    }
 }
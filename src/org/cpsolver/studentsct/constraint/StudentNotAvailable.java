@@ -1,5 +1,7 @@
 package org.cpsolver.studentsct.constraint;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Set;
 
 import org.cpsolver.ifs.assignment.Assignment;
@@ -59,6 +61,14 @@ public class StudentNotAvailable extends GlobalConstraint<Request, Enrollment> {
         return !enrollment.getStudent().isAvailable(enrollment);
     }
     
+    /**
+     * The conflicts of an enrollment with this constraint do not depend on the other enrollments
+     */
+    @Override
+    public Collection<?> getConflictKeys(Enrollment enrollment) {
+        return Collections.emptyList();
+    }
+    
     @Override
     public String toString() {
         return "StudentNotAvailable";
@@ -1,10 +1,10 @@
 package org.cpsolver.studentsct.extension;
 
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.log4j.Logger;
 import org.cpsolver.coursett.Constants;
@@ -65,6 +65,9 @@ public class DistanceConflict extends ExtensionWithContext<Request, Enrollment,
     /** Debug flag */
     public static boolean sDebug = false;
     private DistanceMetric iDistanceMetric = null;
+    private volatile SectionConflictIndex iConflictIndex = null;
+    private final Object iConflictIndexLock = new Object();
+    private boolean iUseConflictIndex = true;
 
     /**
      * Constructor. Beside of other thigs, this constructor also uses
@@ -81,6 +84,7 @@ public class DistanceConflict extends ExtensionWithContext<Request, Enrollment,
         if (solver != null)
             ((StudentSectioningModel) solver.currentSolution().getModel()).setDistanceConflict(this);
         iDistanceMetric = new DistanceMetric(properties);
+        iUseConflictIndex = properties.getPropertyBoolean("Sectioning.SectionConflictIndex", iUseConflictIndex);
     }
     
     /**
@@ -91,6 +95,7 @@ public class DistanceConflict extends ExtensionWithContext<Request, Enrollment,
     public DistanceConflict(DistanceMetric metrics, DataProperties properties) {
         super(null, properties);
         iDistanceMetric = metrics;
+        iUseConflictIndex = properties.getPropertyBoolean("Sectioning.SectionConflictIndex", iUseConflictIndex);
     }
 
     @Override
@@ -103,17 +108,46 @@ public class DistanceConflict extends ExtensionWithContext<Request, Enrollment,
     }
     
     
-    private Map<Long, Map<Long, Integer>> iDistanceCache = new HashMap<Long, Map<Long,Integer>>();
-    protected synchronized int getDistanceInMinutes(RoomLocation r1, RoomLocation r2) {
+    /**
+     * Set the section conflict index, it is used by {@link DistanceConflict#inConflict(Section, Section)} when both sections are indexed.
+     * @param index section conflict index (ignored when it was not built using this extension), null to build the index again on its next use
+     */
+    public void setSectionConflictIndex(SectionConflictIndex index) {
+        iConflictIndex = (index == null || index.getDistanceConflict() != this ? null : index);
+    }
+    
+    /**
+     * Section conflict index. The index is built on the first use for all the sections of the model with which this extension is
+     * registered, unless it is disabled using the Sectioning.SectionConflictIndex parameter (defaults to true).
+     * @return section conflict index, null if not used
+     */
+    public SectionConflictIndex getSectionConflictIndex() {
+        SectionConflictIndex index = iConflictIndex;
+        if (index != null || !iUseConflictIndex || !(getModel() instanceof StudentSectioningModel)) return index;
+        synchronized (iConflictIndexLock) {
+            index = iConflictIndex;
+            if (index == null) {
+                long t0 = System.currentTimeMillis();
+                index = new SectionConflictIndex(((StudentSectioningModel) getModel()).getOfferings(), this);
+                iConflictIndex = index;
+                sLog.debug("Section conflict index built in " + (System.currentTimeMillis() - t0) + " ms: " + index.getNrSections() + " sections, " + index.getNrPairs() + " distance conflicts.");
+            }
+        }
+        return index;
+    }
+    
+    private ConcurrentMap<Long, ConcurrentMap<Long, Integer>> iDistanceCache = new ConcurrentHashMap<Long, ConcurrentMap<Long,Integer>>();
+    protected int getDistanceInMinutes(RoomLocation r1, RoomLocation r2) {
         if (r1.getId().compareTo(r2.getId()) > 0) return getDistanceInMinutes(r2, r1);
         if (r1.getId().equals(r2.getId()) || r1.getIgnoreTooFar() || r2.getIgnoreTooFar())
             return 0;
         if (r1.getPosX() == null || r1.getPosY() == null || r2.getPosX() == null || r2.getPosY() == null)
             return iDistanceMetric.getMaxTravelDistanceInMinutes();
-        Map<Long, Integer> other2distance = iDistanceCache.get(r1.getId());
+        ConcurrentMap<Long, Integer> other2distance = iDistanceCache.get(r1.getId());
         if (other2distance == null) {
-            other2distance = new HashMap<Long, Integer>();
-            iDistanceCache.put(r1.getId(), other2distance);
+            other2distance = new ConcurrentHashMap<Long, Integer>();
+            ConcurrentMap<Long, Integer> old = iDistanceCache.putIfAbsent(r1.getId(), other2distance);
+            if (old != null) other2distance = old;
         }
         Integer distance = other2distance.get(r2.getId());
         if (distance == null) {
@@ -169,6 +203,24 @@ public class DistanceConflict extends ExtensionWithContext<Request, Enrollment,
      * @return true, if the given sections are in a distance conflict
      */
     public boolean inConflict(Section s1, Section s2) {
+        return inConflict(s1, s2, getSectionConflictIndex());
+    }
+    
+    /**
+     * Return true if the given two sections are in distance conflict, without
+     * using the section conflict index (see {@link DistanceConflict#inConflict(Section, Section)}).
+     * 
+     * @param s1
+     *            a section
+     * @param s2
+     *            a section
+     * @return true, if the given sections are in a distance conflict
+     */
+    public boolean computeInConflict(Section s1, Section s2) {
+        return inConflict(s1, s2, null);
+    }
+    
+    private boolean inConflict(Section s1, Section s2, SectionConflictIndex index) {
         if (s1.getPlacement() == null || s2.getPlacement() == null)
             return false;
         TimeLocation t1 = s1.getTime();
@@ -178,27 +230,31 @@ public class DistanceConflict extends ExtensionWithContext<Request, Enrollment,
         int a1 = t1.getStartSlot(), a2 = t2.getStartSlot();
         if (getDistanceMetric().doComputeDistanceConflictsBetweenNonBTBClasses()) {
             if (a1 + t1.getNrSlotsPerMeeting() <= a2) {
-                int dist = getDistanceInMinutes(s1.getPlacement(), s2.getPlacement());
-                if (dist > t1.getBreakTime() + Constants.SLOT_LENGTH_MIN * (a2 - a1 - t1.getLength()))
-                    return true;
+                return isTooFar(s1, s2, t1.getBreakTime() + Constants.SLOT_LENGTH_MIN * (a2 - a1 - t1.getLength()), index);
             } else if (a2 + t2.getNrSlotsPerMeeting() <= a1) {
-                int dist = getDistanceInMinutes(s1.getPlacement(), s2.getPlacement());
-                if (dist > t2.getBreakTime() + Constants.SLOT_LENGTH_MIN * (a1 - a2 - t2.getLength()))
-                    return true;
+                return isTooFar(s1, s2, t2.getBreakTime() + Constants.SLOT_LENGTH_MIN * (a1 - a2 - t2.getLength()), index);
             }
         } else {
             if (a1 + t1.getNrSlotsPerMeeting() == a2) {
-                int dist = getDistanceInMinutes(s1.getPlacement(), s2.getPlacement());
-                if (dist > t1.getBreakTime())
-                    return true;
+                return isTooFar(s1, s2, t1.getBreakTime(), index);
             } else if (a2 + t2.getNrSlotsPerMeeting() == a1) {
-                int dist = getDistanceInMinutes(s1.getPlacement(), s2.getPlacement());
-                if (dist > t2.getBreakTime())
-                    return true;
+                return isTooFar(s1, s2, t2.getBreakTime(), index);
             }
         }
         return false;
     }
+    
+    /**
+     * Return true if the distance between the two sections is longer than the given time. The distance conflicts between sections
+     * that are indexed are looked up in the section conflict index, so that the distances do not need to be computed.
+     */
+    private boolean isTooFar(Section s1, Section s2, int travelTime, SectionConflictIndex index) {
+        if (index != null) {
+            int conflict = index.getDistanceConflict(s1, s2);
+            if (conflict >= 0) return conflict == 1;
+        }
+        return getDistanceInMinutes(s1.getPlacement(), s2.getPlacement()) > travelTime;
+    }
 
     /**
      * Return number of distance conflict of a (course) enrollment. It is the
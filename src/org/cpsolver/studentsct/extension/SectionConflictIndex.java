@@ -0,0 +1,248 @@
+package org.cpsolver.studentsct.extension;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.cpsolver.coursett.Constants;
+import org.cpsolver.coursett.model.TimeLocation;
+import org.cpsolver.studentsct.model.Config;
+import org.cpsolver.studentsct.model.Offering;
+import org.cpsolver.studentsct.model.Section;
+import org.cpsolver.studentsct.model.Subpart;
+
+/**
+ * Precomputed distance conflicts between pairs of sections with fixed placements. For each section, the index
+ * contains a sorted list of the other sections with which the section is in a distance conflict (see
+ * {@link DistanceConflict#inConflict(Section, Section)}). When the index is built, the sections are bucketed by
+ * days and ordered by start times, and only the pairs of sections that share a day and follow one another (or are
+ * back-to-back when distance conflicts are only computed between back-to-back classes) are checked, all other pairs
+ * cannot be in a conflict.<br>
+ * <br>
+ * The index is built once and it is never changed afterwards, so it can be read without any locking by all the
+ * solver threads, extensions and selection criteria. Sections are recognized by identity: a section that is not
+ * a part of the index (e.g., a section of a different model) is computed by the extension as before. When
+ * a placement of an indexed section is changed, the index needs to be built again (see
+ * {@link org.cpsolver.studentsct.StudentSectioningModel#buildSectionConflictIndex()}). The distance conflict extension
+ * builds the index lazily on its first use (see {@link DistanceConflict#getSectionConflictIndex()}).
+ * 
+ * @version StudentSct 1.3 (Student Sectioning)<br>
+ *          Copyright (C) 2017 Tomas Muller<br>
+ *          <a href="mailto:muller@unitime.org">muller@unitime.org</a><br>
+ *          <a href="http://muller.unitime.org">http://muller.unitime.org</a><br>
+ * <br>
+ *          This library is free software; you can redistribute it and/or modify
+ *          it under the terms of the GNU Lesser General Public License as
+ *          published by the Free Software Foundation; either version 3 of the
+ *          License, or (at your option) any later version. <br>
+ * <br>
+ *          This library is distributed in the hope that it will be useful, but
+ *          WITHOUT ANY WARRANTY; without even the implied warranty of
+ *          MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *          Lesser General Public License for more details. <br>
+ * <br>
+ *          You should have received a copy of the GNU Lesser General Public
+ *          License along with this library; if not see
+ *          <a href='http://www.gnu.org/licenses/'>http://www.gnu.org/licenses/</a>.
+ */
+public class SectionConflictIndex {
+    private static final int[] sEmpty = new int[0];
+    private final DistanceConflict iDistanceConflict;
+    private final Section[] iSections;
+    private final long[] iKeys;
+    private final int[] iPositions;
+    private final int[][] iPartners;
+    private final int iNrPairs;
+
+    /**
+     * Build the index for all sections of the given offerings
+     * @param offerings offerings of the model
+     * @param distanceConflict distance conflict extension
+     */
+    public SectionConflictIndex(Collection<Offering> offerings, DistanceConflict distanceConflict) {
+        this(sections(offerings), distanceConflict);
+    }
+
+    /**
+     * Build the index for the given sections
+     * @param sections sections to be indexed
+     * @param distanceConflict distance conflict extension
+     */
+    public SectionConflictIndex(List<Section> sections, DistanceConflict distanceConflict) {
+        iDistanceConflict = distanceConflict;
+        int n = sections.size();
+        iSections = sections.toArray(new Section[n]);
+        int capacity = Integer.highestOneBit(Math.max(4, 2 * n)) << 1;
+        iKeys = new long[capacity];
+        iPositions = new int[capacity];
+        Arrays.fill(iPositions, -1);
+        for (int x = 0; x < n; x++) {
+            int slot = slot(iSections[x].getId(), capacity);
+            while (iPositions[slot] >= 0) slot = (slot + 1) & (capacity - 1);
+            iKeys[slot] = iSections[x].getId();
+            iPositions[slot] = x;
+        }
+
+        // bucket the sections by days, each bucket is ordered by the start slot
+        int[][] buckets = new int[Constants.DAY_CODES.length][];
+        for (int d = 0; d < buckets.length; d++) {
+            List<Integer> bucket = new ArrayList<Integer>();
+            for (int x = 0; x < n; x++) {
+                TimeLocation t = (iSections[x].getPlacement() == null ? null : iSections[x].getTime());
+                if (t != null && (t.getDayCode() & Constants.DAY_CODES[d]) != 0) bucket.add(x);
+            }
+            Collections.sort(bucket, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer x, Integer y) {
+                    int s1 = iSections[x].getTime().getStartSlot(), s2 = iSections[y].getTime().getStartSlot();
+                    return (s1 != s2 ? (s1 < s2 ? -1 : 1) : x.compareTo(y));
+                }
+            });
+            buckets[d] = new int[bucket.size()];
+            for (int i = 0; i < bucket.size(); i++) buckets[d][i] = bucket.get(i);
+        }
+
+        // only the pairs of sections that share a day and that do not overlap in time can be in a distance conflict,
+        // when distance conflicts are only computed between back-to-back classes, the second section must start
+        // right after the first one ends
+        boolean nonBTB = distanceConflict.getDistanceMetric().doComputeDistanceConflictsBetweenNonBTBClasses();
+        int[][] partners = new int[n][];
+        int[] size = new int[n];
+        int[] checked = new int[n];
+        Arrays.fill(checked, -1);
+        int pairs = 0;
+        for (int x = 0; x < n; x++) {
+            TimeLocation t1 = (iSections[x].getPlacement() == null ? null : iSections[x].getTime());
+            if (t1 == null) continue;
+            int end = t1.getStartSlot() + t1.getNrSlotsPerMeeting();
+            for (int d = 0; d < buckets.length; d++) {
+                if ((t1.getDayCode() & Constants.DAY_CODES[d]) == 0) continue;
+                int[] bucket = buckets[d];
+                for (int i = firstStartingAt(bucket, end); i < bucket.length; i++) {
+                    int y = bucket[i];
+                    TimeLocation t2 = iSections[y].getTime();
+                    if (!nonBTB && t2.getStartSlot() != end) break;
+                    if (y == x || checked[y] == x) continue;
+                    checked[y] = x;
+                    if (y < x && t2.getStartSlot() + t2.getNrSlotsPerMeeting() <= t1.getStartSlot()) continue; // pair checked from y
+                    if (!t1.shareWeeks(t2) || !distanceConflict.computeInConflict(iSections[x], iSections[y])) continue;
+                    add(partners, size, x, y);
+                    add(partners, size, y, x);
+                    pairs++;
+                }
+            }
+        }
+        for (int x = 0; x < n; x++) {
+            if (size[x] == 0) {
+                partners[x] = sEmpty;
+            } else {
+                partners[x] = Arrays.copyOf(partners[x], size[x]);
+                Arrays.sort(partners[x]);
+            }
+        }
+        iPartners = partners;
+        iNrPairs = pairs;
+    }
+
+    /** Position of the first section of the bucket that starts at or after the given slot */
+    private int firstStartingAt(int[] bucket, int slot) {
+        int lo = 0, hi = bucket.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (iSections[bucket[mid]].getTime().getStartSlot() < slot)
+                lo = mid + 1;
+            else
+                hi = mid;
+        }
+        return lo;
+    }
+
+    private static List<Section> sections(Collection<Offering> offerings) {
+        List<Section> sections = new ArrayList<Section>();
+        for (Offering offering: offerings)
+            for (Config config: offering.getConfigs())
+                for (Subpart subpart: config.getSubparts())
+                    sections.addAll(subpart.getSections());
+        return sections;
+    }
+
+    private static void add(int[][] partners, int[] size, int x, int y) {
+        if (partners[x] == null)
+            partners[x] = new int[4];
+        else if (size[x] == partners[x].length)
+            partners[x] = Arrays.copyOf(partners[x], 2 * size[x]);
+        partners[x][size[x]++] = y;
+    }
+
+    private static int slot(long key, int capacity) {
+        long h = key * 0x9E3779B97F4A7C15l;
+        return (int) (h ^ (h >>> 32)) & (capacity - 1);
+    }
+
+    /** Position of a section in the index, -1 if the section is not indexed */
+    private int position(Section section) {
+        long id = section.getId();
+        int slot = slot(id, iKeys.length);
+        while (true) {
+            int x = iPositions[slot];
+            if (x < 0) return -1;
+            if (iKeys[slot] == id) return (iSections[x] == section ? x : -1);
+            slot = (slot + 1) & (iKeys.length - 1);
+        }
+    }
+
+    /**
+     * Distance conflict between two sections
+     * @param s1 a section
+     * @param s2 a section
+     * @return 1 if the sections are in a distance conflict, 0 if they are not, -1 if one of the sections is not indexed
+     */
+    public int getDistanceConflict(Section s1, Section s2) {
+        int x = position(s1);
+        if (x < 0) return -1;
+        int y = position(s2);
+        if (y < 0) return -1;
+        return (Arrays.binarySearch(iPartners[x], y) < 0 ? 0 : 1);
+    }
+
+    /**
+     * Distance conflict extension that was used to build the index
+     * @return distance conflict extension
+     */
+    public DistanceConflict getDistanceConflict() {
+        return iDistanceConflict;
+    }
+
+    /**
+     * Is the given section a part of the index
+     * @param section a section
+     * @return true if the conflicts of the section are indexed
+     */
+    public boolean contains(Section section) {
+        return position(section) >= 0;
+    }
+
+    /**
+     * Number of indexed sections
+     * @return number of sections
+     */
+    public int getNrSections() {
+        return iSections.length;
+    }
+
+    /**
+     * Number of pairs of sections that are in a distance conflict
+     * @return number of conflicting pairs
+     */
+    public int getNrPairs() {
+        return iNrPairs;
+    }
+
+    @Override
+    public String toString() {
+        return "SectionConflictIndex{sections=" + iSections.length + ", pairs=" + iNrPairs + "}";
+    }
+}
@@ -1,6 +1,7 @@
 package org.cpsolver.studentsct.model;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -212,12 +213,18 @@ public class Config extends AbstractClassWithContext<Request, Enrollment, Config
      * Total space in the configuration that cannot be reserved by any config reservation
      * @return total unreserved space
      **/
-    public synchronized double getTotalUnreservedSpace() {
-        if (iTotalUnreservedSpace == null)
-            iTotalUnreservedSpace = getTotalUnreservedSpaceNoCache();
-        return iTotalUnreservedSpace;
+    public double getTotalUnreservedSpace() {
+        Double total = iTotalUnreservedSpace;
+        if (total == null) {
+            int version = iReservationCacheVersion;
+            total = getTotalUnreservedSpaceNoCache();
+            iTotalUnreservedSpace = total;
+            if (version != iReservationCacheVersion) iTotalUnreservedSpace = null;
+        }
+        return total;
     }
-    private Double iTotalUnreservedSpace = null;
+    private volatile Double iTotalUnreservedSpace = null;
+    private volatile int iReservationCacheVersion = 0;
     private double getTotalUnreservedSpaceNoCache() {
         // configuration is unlimited -> there is unreserved space unless there is an unlimited reservation too 
         // (in which case there is no unreserved space)
@@ -256,40 +263,51 @@ public class Config extends AbstractClassWithContext<Request, Enrollment, Config
     
     /**
      * Get reservations for this configuration
-     * @return related reservations
+     * @return related reservations (immutable list)
      */
-    public synchronized List<Reservation> getReservations() {
-        if (iReservations == null) {
-            iReservations = new ArrayList<Reservation>();
+    public List<Reservation> getReservations() {
+        List<Reservation> reservations = iReservations;
+        if (reservations == null) {
+            int version = iReservationCacheVersion;
+            List<Reservation> list = new ArrayList<Reservation>();
             for (Reservation r: getOffering().getReservations()) {
                 if (r.getConfigs().isEmpty() || r.getConfigs().contains(this))
-                    iReservations.add(r);
+                    list.add(r);
             }
+            reservations = Collections.unmodifiableList(list);
+            iReservations = reservations;
+            if (version != iReservationCacheVersion) iReservations = null;
         }
-        return iReservations;
+        return reservations;
     }
-    List<Reservation> iReservations = null;
+    volatile List<Reservation> iReservations = null;
     
     /**
      * Get reservations that require this configuration
-     * @return related reservations
+     * @return related reservations (immutable list)
      */
-    public synchronized List<Reservation> getConfigReservations() {
-        if (iConfigReservations == null) {
-            iConfigReservations = new ArrayList<Reservation>();
+    public List<Reservation> getConfigReservations() {
+        List<Reservation> reservations = iConfigReservations;
+        if (reservations == null) {
+            int version = iReservationCacheVersion;
+            List<Reservation> list = new ArrayList<Reservation>();
             for (Reservation r: getOffering().getReservations()) {
                 if (!r.getConfigs().isEmpty() && r.getConfigs().contains(this))
-                    iConfigReservations.add(r);
+                    list.add(r);
             }
+            reservations = Collections.unmodifiableList(list);
+            iConfigReservations = reservations;
+            if (version != iReservationCacheVersion) iConfigReservations = null;
         }
-        return iConfigReservations;
+        return reservations;
     }
-    List<Reservation> iConfigReservations = null;
+    volatile List<Reservation> iConfigReservations = null;
     
     /**
      * Clear reservation information that was cached on this configuration or below
      */
-    public synchronized void clearReservationCache() {
+    public void clearReservationCache() {
+        iReservationCacheVersion++;
         for (Subpart s: getSubparts())
             s.clearReservationCache();
         iReservations = null;
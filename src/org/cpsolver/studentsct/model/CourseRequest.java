@@ -10,6 +10,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.cpsolver.coursett.model.TimeLocation;
 import org.cpsolver.ifs.assignment.Assignment;
@@ -746,26 +747,29 @@ public class CourseRequest extends Request {
     /**
      * Get reservations for this course requests
      * @param course given course
-     * @return reservations for this course requests and the given course
+     * @return reservations for this course requests and the given course (immutable list)
      */
-    public synchronized List<Reservation> getReservations(Course course) {
-        if (iReservations == null)
-            iReservations = new HashMap<Course, List<Reservation>>();
-        List<Reservation> reservations = iReservations.get(course);
+    public List<Reservation> getReservations(Course course) {
+        Map<Course, List<Reservation>> cache = iReservations.get();
+        List<Reservation> reservations = cache.get(course);
         if (reservations == null) {
-            reservations = new ArrayList<Reservation>();
+            List<Reservation> list = new ArrayList<Reservation>();
             boolean mustBeUsed = false;
             for (Reservation r: course.getOffering().getReservations()) {
                 if (!r.isApplicable(getStudent())) continue;
-                if (!mustBeUsed && r.mustBeUsed()) { reservations.clear(); mustBeUsed = true; }
+                if (!mustBeUsed && r.mustBeUsed()) { list.clear(); mustBeUsed = true; }
                 if (mustBeUsed && !r.mustBeUsed()) continue;
-                reservations.add(r);
+                list.add(r);
             }
-            iReservations.put(course, reservations);
+            reservations = Collections.unmodifiableList(list);
+            // copy on write: a published map is never modified, clearReservationCache() replaces it with a new empty map
+            Map<Course, List<Reservation>> newCache = new HashMap<Course, List<Reservation>>(cache);
+            newCache.put(course, reservations);
+            iReservations.compareAndSet(cache, newCache);
         }
         return reservations;
     }
-    private Map<Course, List<Reservation>> iReservations = null;
+    private AtomicReference<Map<Course, List<Reservation>>> iReservations = new AtomicReference<Map<Course, List<Reservation>>>(new HashMap<Course, List<Reservation>>());
     
     /**
      * Get reservations for this course requests ordered using {@link Reservation#compareTo(Assignment, Reservation)}
@@ -792,8 +796,8 @@ public class CourseRequest extends Request {
     /**
      * Clear reservation information that was cached on this section
      */
-    public synchronized void clearReservationCache() {
-        if (iReservations != null) iReservations.clear();
+    public void clearReservationCache() {
+        iReservations.set(new HashMap<Course, List<Reservation>>());
     }
     
     /**
@@ -217,12 +217,18 @@ public class Offering {
      * Total space in the offering that is not reserved by any reservation 
      * @return total unreserved space in the offering
      **/
-    public synchronized double getTotalUnreservedSpace() {
-        if (iTotalUnreservedSpace == null)
-            iTotalUnreservedSpace = getTotalUnreservedSpaceNoCache();
-        return iTotalUnreservedSpace;
+    public double getTotalUnreservedSpace() {
+        Double total = iTotalUnreservedSpace;
+        if (total == null) {
+            int version = iReservationCacheVersion;
+            total = getTotalUnreservedSpaceNoCache();
+            iTotalUnreservedSpace = total;
+            if (version != iReservationCacheVersion) iTotalUnreservedSpace = null;
+        }
+        return total;
     }
-    Double iTotalUnreservedSpace = null;
+    volatile Double iTotalUnreservedSpace = null;
+    private volatile int iReservationCacheVersion = 0;
     private double getTotalUnreservedSpaceNoCache() {
         // compute overall available space
         double available = 0.0;
@@ -295,7 +301,8 @@ public class Offering {
     /**
      * Clear reservation information that was cached on this offering or below
      */
-    public synchronized void clearReservationCache() {
+    public void clearReservationCache() {
+        iReservationCacheVersion++;
         for (Config c: getConfigs())
             c.clearReservationCache();
         for (Course c: getCourses())
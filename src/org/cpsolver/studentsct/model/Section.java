@@ -3,6 +3,7 @@ package org.cpsolver.studentsct.model;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -532,15 +533,22 @@ public class Section extends AbstractClassWithContext<Request, Enrollment, Secti
     }
     
     /**
-     * Total space in the section that cannot be used by any section reservation
+     * Total space in the section that cannot be used by any section reservation. The value is computed once
+     * and cached (without locking) until {@link Section#clearReservationCache()} is called.
      * @return total unreserved space in this class
      **/
-    public synchronized double getTotalUnreservedSpace() {
-        if (iTotalUnreservedSpace == null)
-            iTotalUnreservedSpace = getTotalUnreservedSpaceNoCache();
-        return iTotalUnreservedSpace;
+    public double getTotalUnreservedSpace() {
+        Double total = iTotalUnreservedSpace;
+        if (total == null) {
+            int version = iReservationCacheVersion;
+            total = getTotalUnreservedSpaceNoCache();
+            iTotalUnreservedSpace = total;
+            if (version != iReservationCacheVersion) iTotalUnreservedSpace = null;
+        }
+        return total;
     }
-    private Double iTotalUnreservedSpace = null;
+    private volatile Double iTotalUnreservedSpace = null;
+    private volatile int iReservationCacheVersion = 0;
     private double getTotalUnreservedSpaceNoCache() {
         // section is unlimited -> there is unreserved space unless there is an unlimited reservation too 
         // (in which case there is no unreserved space)
@@ -580,40 +588,51 @@ public class Section extends AbstractClassWithContext<Request, Enrollment, Secti
     
     /**
      * Get reservations for this section
-     * @return reservations that can use this class
+     * @return reservations that can use this class (immutable list)
      */
-    public synchronized List<Reservation> getReservations() {
-        if (iReservations == null) {
-            iReservations = new ArrayList<Reservation>();
+    public List<Reservation> getReservations() {
+        List<Reservation> reservations = iReservations;
+        if (reservations == null) {
+            int version = iReservationCacheVersion;
+            List<Reservation> list = new ArrayList<Reservation>();
             for (Reservation r: getSubpart().getConfig().getOffering().getReservations()) {
                 if (r.getSections(getSubpart()) == null || r.getSections(getSubpart()).contains(this))
-                    iReservations.add(r);
+                    list.add(r);
             }
+            reservations = Collections.unmodifiableList(list);
+            iReservations = reservations;
+            if (version != iReservationCacheVersion) iReservations = null;
         }
-        return iReservations;
+        return reservations;
     }
-    private List<Reservation> iReservations = null;
+    private volatile List<Reservation> iReservations = null;
     
     /**
      * Get reservations that require this section
-     * @return reservations that must use this class
+     * @return reservations that must use this class (immutable list)
      */
-    public synchronized List<Reservation> getSectionReservations() {
-        if (iSectionReservations == null) {
-            iSectionReservations = new ArrayList<Reservation>();
+    public List<Reservation> getSectionReservations() {
+        List<Reservation> reservations = iSectionReservations;
+        if (reservations == null) {
+            int version = iReservationCacheVersion;
+            List<Reservation> list = new ArrayList<Reservation>();
             for (Reservation r: getSubpart().getSectionReservations()) {
                 if (r.getSections(getSubpart()).contains(this))
-                    iSectionReservations.add(r);
+                    list.add(r);
             }
+            reservations = Collections.unmodifiableList(list);
+            iSectionReservations = reservations;
+            if (version != iReservationCacheVersion) iSectionReservations = null;
         }
-        return iSectionReservations;
+        return reservations;
     }
-    private List<Reservation> iSectionReservations = null;
+    private volatile List<Reservation> iSectionReservations = null;
 
     /**
      * Clear reservation information that was cached on this section
      */
-    public synchronized void clearReservationCache() {
+    public void clearReservationCache() {
+        iReservationCacheVersion++;
         iReservations = null;
         iSectionReservations = null;
         iTotalUnreservedSpace = null;
@@ -1,6 +1,7 @@
 package org.cpsolver.studentsct.model;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -208,22 +209,29 @@ public class Subpart implements Comparable<Subpart> {
      * Get reservations that require sections of this subpart
      * @return reservations that require a class of this scheduling subpart
      */
-    public synchronized List<Reservation> getSectionReservations() {
-        if (iSectionReservations == null) {
-            iSectionReservations = new ArrayList<Reservation>();
+    public List<Reservation> getSectionReservations() {
+        List<Reservation> reservations = iSectionReservations;
+        if (reservations == null) {
+            int version = iReservationCacheVersion;
+            List<Reservation> list = new ArrayList<Reservation>();
             for (Reservation r: getConfig().getOffering().getReservations()) {
                 if (r.getSections(this) != null)
-                    iSectionReservations.add(r);
+                    list.add(r);
             }
+            reservations = Collections.unmodifiableList(list);
+            iSectionReservations = reservations;
+            if (version != iReservationCacheVersion) iSectionReservations = null;
         }
-        return iSectionReservations;
+        return reservations;
     }
-    private List<Reservation> iSectionReservations = null;
+    private volatile List<Reservation> iSectionReservations = null;
+    private volatile int iReservationCacheVersion = 0;
     
     /**
      * Clear reservation information that was cached on this subpart or below
      */
-    public synchronized void clearReservationCache() {
+    public void clearReservationCache() {
+        iReservationCacheVersion++;
         for (Section s: getSections())
             s.clearReservationCache();
         iSectionReservations = null;
@@ -15,6 +15,7 @@ import java.util.TreeSet;
 import org.cpsolver.ifs.assignment.Assignment;
 import org.cpsolver.ifs.model.GlobalConstraint;
 import org.cpsolver.ifs.util.CSVFile;
+import org.cpsolver.ifs.util.CSVOutput;
 import org.cpsolver.ifs.util.DataProperties;
 import org.cpsolver.studentsct.StudentSectioningModel;
 import org.cpsolver.studentsct.constraint.ConfigLimit;
@@ -161,9 +162,27 @@ public class CourseConflictTable implements StudentSectioningReport {
      * @param useAmPm use 12-hour format
      * @return report as comma separated text file
      */
-    @SuppressWarnings("unchecked")
     public CSVFile createTable(Assignment<Request, Enrollment> assignment, boolean includeLastLikeStudents, boolean includeRealStudents, boolean useAmPm) {
         CSVFile csv = new CSVFile();
+        createTable(assignment, includeLastLikeStudents, includeRealStudents, useAmPm, csv);
+        return csv;
+    }
+
+    /**
+     * Create report
+     * 
+     * @param assignment current assignment
+     * @param includeLastLikeStudents
+     *            true, if last-like students should be included (i.e.,
+     *            {@link Student#isDummy()} is true)
+     * @param includeRealStudents
+     *            true, if real students should be included (i.e.,
+     *            {@link Student#isDummy()} is false)
+     * @param useAmPm use 12-hour format
+     * @param csv output, e.g., a {@link org.cpsolver.ifs.util.CSVWriter} to stream the report into a file
+     */
+    @SuppressWarnings("unchecked")
+    public void createTable(Assignment<Request, Enrollment> assignment, boolean includeLastLikeStudents, boolean includeRealStudents, boolean useAmPm, CSVOutput csv) {
         csv.setHeader(new CSVFile.CSVField[] { new CSVFile.CSVField("UnasgnCrs"), new CSVFile.CSVField("ConflCrs"),
                 new CSVFile.CSVField("NrStud"), new CSVFile.CSVField("StudWeight"), new CSVFile.CSVField("NoAlt"),
                 new CSVFile.CSVField("Reason") });
@@ -270,6 +289,7 @@ public class CourseConflictTable implements StudentSectioningReport {
                 }
             }
         }
+        List<CSVFile.CSVField[]> lines = new ArrayList<CSVFile.CSVField[]>();
         for (Map.Entry<Course, HashMap<Course, Object[]>> entry : unassignedCourseTable.entrySet()) {
             Course unassignedCourse = entry.getKey();
             HashMap<Course, Object[]> conflictCourseTable = entry.getValue();
@@ -280,34 +300,37 @@ public class CourseConflictTable implements StudentSectioningReport {
                 String explStr = "";
                 for (Iterator<String> k = new TreeSet<String>(expl).iterator(); k.hasNext();)
                     explStr += k.next() + (k.hasNext() ? "\n" : "");
-                csv.addLine(new CSVFile.CSVField[] { new CSVFile.CSVField(unassignedCourse.getName()),
+                lines.add(new CSVFile.CSVField[] { new CSVFile.CSVField(unassignedCourse.getName()),
                         new CSVFile.CSVField(conflictCourse.getName()), new CSVFile.CSVField(sDF.format(weight[0])),
                         new CSVFile.CSVField(sDF.format(weight[1])),
                         new CSVFile.CSVField(((Boolean) weight[2]).booleanValue() ? "Y" : "N"),
                         new CSVFile.CSVField(explStr) });
             }
         }
-        if (csv.getLines() != null)
-            Collections.sort(csv.getLines(), new Comparator<CSVFile.CSVLine>() {
-                @Override
-                public int compare(CSVFile.CSVLine l1, CSVFile.CSVLine l2) {
-                    // int cmp =
-                    // l2.getField(3).toString().compareTo(l1.getField(3).toString());
-                    // if (cmp!=0) return cmp;
-                    int cmp = Double.compare(l2.getField(2).toDouble(), l1.getField(2).toDouble());
-                    if (cmp != 0)
-                        return cmp;
-                    cmp = l1.getField(0).toString().compareTo(l2.getField(0).toString());
-                    if (cmp != 0)
-                        return cmp;
-                    return l1.getField(1).toString().compareTo(l2.getField(1).toString());
-                }
-            });
-        return csv;
+        // lines are sorted before they are added, so that they can be streamed (see CSVWriter)
+        Collections.sort(lines, new Comparator<CSVFile.CSVField[]>() {
+            @Override
+            public int compare(CSVFile.CSVField[] l1, CSVFile.CSVField[] l2) {
+                int cmp = Double.compare(l2[2].toDouble(), l1[2].toDouble());
+                if (cmp != 0)
+                    return cmp;
+                cmp = l1[0].toString().compareTo(l2[0].toString());
+                if (cmp != 0)
+                    return cmp;
+                return l1[1].toString().compareTo(l2[1].toString());
+            }
+        });
+        for (CSVFile.CSVField[] line: lines)
+            csv.addLine(line);
     }
     
     @Override
     public CSVFile create(Assignment<Request, Enrollment> assignment, DataProperties properties) {
         return createTable(assignment, properties.getPropertyBoolean("lastlike", false), properties.getPropertyBoolean("real", true), properties.getPropertyBoolean("useAmPm", true));
     }
+
+    @Override
+    public void create(Assignment<Request, Enrollment> assignment, DataProperties properties, CSVOutput csv) {
+        createTable(assignment, properties.getPropertyBoolean("lastlike", false), properties.getPropertyBoolean("real", true), properties.getPropertyBoolean("useAmPm", true), csv);
+    }
 }
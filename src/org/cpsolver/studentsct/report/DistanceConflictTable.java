@@ -14,6 +14,7 @@ import org.cpsolver.coursett.model.Placement;
 import org.cpsolver.coursett.model.RoomLocation;
 import org.cpsolver.ifs.assignment.Assignment;
 import org.cpsolver.ifs.util.CSVFile;
+import org.cpsolver.ifs.util.CSVOutput;
 import org.cpsolver.ifs.util.DataProperties;
 import org.cpsolver.ifs.util.DistanceMetric;
 import org.cpsolver.studentsct.StudentSectioningModel;
@@ -113,6 +114,24 @@ public class DistanceConflictTable implements StudentSectioningReport {
      */
     public CSVFile createTable(Assignment<Request, Enrollment> assignment, boolean includeLastLikeStudents, boolean includeRealStudents, boolean useAmPm) {
         CSVFile csv = new CSVFile();
+        createTable(assignment, includeLastLikeStudents, includeRealStudents, useAmPm, csv);
+        return csv;
+    }
+
+    /**
+     * Create report
+     * 
+     * @param assignment current assignment
+     * @param includeLastLikeStudents
+     *            true, if last-like students should be included (i.e.,
+     *            {@link Student#isDummy()} is true)
+     * @param includeRealStudents
+     *            true, if real students should be included (i.e.,
+     *            {@link Student#isDummy()} is false)
+     * @param useAmPm use 12-hour format
+     * @param csv output, e.g., a {@link org.cpsolver.ifs.util.CSVWriter} to stream the report into a file
+     */
+    public void createTable(Assignment<Request, Enrollment> assignment, boolean includeLastLikeStudents, boolean includeRealStudents, boolean useAmPm, CSVOutput csv) {
         csv.setHeader(new CSVFile.CSVField[] { new CSVFile.CSVField("Course"), new CSVFile.CSVField("Total\nConflicts"),
                 new CSVFile.CSVField("Class"), new CSVFile.CSVField("Meeting Time"), new CSVFile.CSVField("Room"),
                 new CSVFile.CSVField("Distance\nConflicts"), new CSVFile.CSVField("% of Total\nConflicts"),
@@ -289,13 +308,15 @@ public class DistanceConflictTable implements StudentSectioningReport {
             
             csv.addLine();
         }
-        
-        
-        return csv;
     }
 
     @Override
     public CSVFile create(Assignment<Request, Enrollment> assignment, DataProperties properties) {
         return createTable(assignment, properties.getPropertyBoolean("lastlike", false), properties.getPropertyBoolean("real", true), properties.getPropertyBoolean("useAmPm", true));
     }
+
+    @Override
+    public void create(Assignment<Request, Enrollment> assignment, DataProperties properties, CSVOutput csv) {
+        createTable(assignment, properties.getPropertyBoolean("lastlike", false), properties.getPropertyBoolean("real", true), properties.getPropertyBoolean("useAmPm", true), csv);
+    }
 }
@@ -6,6 +6,7 @@ import java.util.TreeSet;
 
 import org.cpsolver.ifs.assignment.Assignment;
 import org.cpsolver.ifs.util.CSVFile;
+import org.cpsolver.ifs.util.CSVOutput;
 import org.cpsolver.ifs.util.DataProperties;
 import org.cpsolver.studentsct.StudentSectioningModel;
 import org.cpsolver.studentsct.model.Config;
@@ -62,8 +63,20 @@ public class RequestGroupTable implements StudentSectioningReport {
 
     @Override
     public CSVFile create(Assignment<Request, Enrollment> assignment, DataProperties properties) {
-        boolean useAmPm = properties.getPropertyBoolean("useAmPm", true);
         CSVFile csv = new CSVFile();
+        create(assignment, properties, csv);
+        return csv;
+    }
+
+    /**
+     * Create report
+     * @param assignment current assignment
+     * @param properties report parameters
+     * @param csv output, e.g., a {@link org.cpsolver.ifs.util.CSVWriter} to stream the report into a file
+     */
+    @Override
+    public void create(Assignment<Request, Enrollment> assignment, DataProperties properties, CSVOutput csv) {
+        boolean useAmPm = properties.getPropertyBoolean("useAmPm", true);
         csv.setHeader(new CSVFile.CSVField[] {
                 new CSVFile.CSVField("Group"),
                 new CSVFile.CSVField("Course"),
@@ -115,8 +128,6 @@ public class RequestGroupTable implements StudentSectioningReport {
                         }
                     }
         }
-        
-        return csv;
     }
 
 }
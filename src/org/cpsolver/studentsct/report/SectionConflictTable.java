@@ -13,6 +13,7 @@ import java.util.TreeSet;
 import org.cpsolver.ifs.assignment.Assignment;
 import org.cpsolver.ifs.model.GlobalConstraint;
 import org.cpsolver.ifs.util.CSVFile;
+import org.cpsolver.ifs.util.CSVOutput;
 import org.cpsolver.ifs.util.DataProperties;
 import org.cpsolver.studentsct.StudentSectioningModel;
 import org.cpsolver.studentsct.constraint.SectionLimit;
@@ -169,6 +170,25 @@ public class SectionConflictTable implements StudentSectioningReport {
      * @return report as comma separated text file
      */
     public CSVFile createTable(Assignment<Request, Enrollment> assignment, boolean includeLastLikeStudents, boolean includeRealStudents, boolean useAmPm) {
+        CSVFile csv = new CSVFile();
+        createTable(assignment, includeLastLikeStudents, includeRealStudents, useAmPm, csv);
+        return csv;
+    }
+
+    /**
+     * Create report
+     * 
+     * @param assignment current assignment
+     * @param includeLastLikeStudents
+     *            true, if last-like students should be included (i.e.,
+     *            {@link Student#isDummy()} is true)
+     * @param includeRealStudents
+     *            true, if real students should be included (i.e.,
+     *            {@link Student#isDummy()} is false)
+     * @param useAmPm use 12-hour format
+     * @param csv output, e.g., a {@link org.cpsolver.ifs.util.CSVWriter} to stream the report into a file
+     */
+    public void createTable(Assignment<Request, Enrollment> assignment, boolean includeLastLikeStudents, boolean includeRealStudents, boolean useAmPm, CSVOutput csv) {
         HashMap<Course, Map<Section, Double[]>> unavailabilities = new HashMap<Course, Map<Section,Double[]>>();
         HashMap<Course, Set<Long>> totals = new HashMap<Course, Set<Long>>();
         HashMap<CourseSection, Map<CourseSection, Double>> conflictingPairs = new HashMap<CourseSection, Map<CourseSection,Double>>();
@@ -361,7 +381,6 @@ public class SectionConflictTable implements StudentSectioningReport {
             }
         };
         
-        CSVFile csv = new CSVFile();
         List<CSVFile.CSVField> headers = new ArrayList<CSVFile.CSVField>();
         headers.add(new CSVFile.CSVField("Course"));
         headers.add(new CSVFile.CSVField("Total\nConflicts"));
@@ -481,7 +500,6 @@ public class SectionConflictTable implements StudentSectioningReport {
             
             csv.addLine();
         }
-        return csv;
     }
 
     @Override
@@ -490,4 +508,11 @@ public class SectionConflictTable implements StudentSectioningReport {
         iOverlapsAllEnrollments = properties.getPropertyBoolean("overlapsIncludeAll", true);
         return createTable(assignment, properties.getPropertyBoolean("lastlike", false), properties.getPropertyBoolean("real", true), properties.getPropertyBoolean("useAmPm", true));
     }
+
+    @Override
+    public void create(Assignment<Request, Enrollment> assignment, DataProperties properties, CSVOutput csv) {
+        iType = Type.valueOf(properties.getProperty("type", iType.name()));
+        iOverlapsAllEnrollments = properties.getPropertyBoolean("overlapsIncludeAll", true);
+        createTable(assignment, properties.getPropertyBoolean("lastlike", false), properties.getPropertyBoolean("real", true), properties.getPropertyBoolean("useAmPm", true), csv);
+    }
 }
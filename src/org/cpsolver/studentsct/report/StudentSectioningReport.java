@@ -2,6 +2,7 @@ package org.cpsolver.studentsct.report;
 
 import org.cpsolver.ifs.assignment.Assignment;
 import org.cpsolver.ifs.util.CSVFile;
+import org.cpsolver.ifs.util.CSVOutput;
 import org.cpsolver.ifs.util.DataProperties;
 import org.cpsolver.studentsct.model.Enrollment;
 import org.cpsolver.studentsct.model.Request;
@@ -38,4 +39,12 @@ import org.cpsolver.studentsct.model.Request;
  */
 public interface StudentSectioningReport {
     public CSVFile create(Assignment<Request, Enrollment> assignment, DataProperties properties);
+
+    /**
+     * Create report
+     * @param assignment current assignment
+     * @param properties report parameters
+     * @param csv output, e.g., a {@link org.cpsolver.ifs.util.CSVWriter} to stream the report into a file
+     */
+    public void create(Assignment<Request, Enrollment> assignment, DataProperties properties, CSVOutput csv);
 }
@@ -6,6 +6,7 @@ import java.util.TreeSet;
 
 import org.cpsolver.ifs.assignment.Assignment;
 import org.cpsolver.ifs.util.CSVFile;
+import org.cpsolver.ifs.util.CSVOutput;
 import org.cpsolver.ifs.util.DataProperties;
 import org.cpsolver.studentsct.StudentSectioningModel;
 import org.cpsolver.studentsct.model.Config;
@@ -88,6 +89,24 @@ public class UnbalancedSectionsTable implements StudentSectioningReport {
      */
     public CSVFile createTable(Assignment<Request, Enrollment> assignment, boolean includeLastLikeStudents, boolean includeRealStudents, boolean useAmPm) {
         CSVFile csv = new CSVFile();
+        createTable(assignment, includeLastLikeStudents, includeRealStudents, useAmPm, csv);
+        return csv;
+    }
+
+    /**
+     * Create report
+     * 
+     * @param assignment current assignment
+     * @param includeLastLikeStudents
+     *            true, if last-like students should be included (i.e.,
+     *            {@link Student#isDummy()} is true)
+     * @param includeRealStudents
+     *            true, if real students should be included (i.e.,
+     *            {@link Student#isDummy()} is false)
+     * @param useAmPm use 12-hour format
+     * @param csv output, e.g., a {@link org.cpsolver.ifs.util.CSVWriter} to stream the report into a file
+     */
+    public void createTable(Assignment<Request, Enrollment> assignment, boolean includeLastLikeStudents, boolean includeRealStudents, boolean useAmPm, CSVOutput csv) {
         csv.setHeader(new CSVFile.CSVField[] { new CSVFile.CSVField("Course"), new CSVFile.CSVField("Class"),
                 new CSVFile.CSVField("Meeting Time"), new CSVFile.CSVField("Enrollment"),
                 new CSVFile.CSVField("Target"), new CSVFile.CSVField("Limit"), new CSVFile.CSVField("Disbalance [%]") });
@@ -166,7 +185,6 @@ public class UnbalancedSectionsTable implements StudentSectioningReport {
                 }
             }
         }
-        return csv;
     }
     
     @Override
@@ -174,4 +192,9 @@ public class UnbalancedSectionsTable implements StudentSectioningReport {
         return createTable(assignment, properties.getPropertyBoolean("lastlike", false), properties.getPropertyBoolean("real", true), properties.getPropertyBoolean("useAmPm", true));
     }
 
+    @Override
+    public void create(Assignment<Request, Enrollment> assignment, DataProperties properties, CSVOutput csv) {
+        createTable(assignment, properties.getPropertyBoolean("lastlike", false), properties.getPropertyBoolean("real", true), properties.getPropertyBoolean("useAmPm", true), csv);
+    }
+
 }